@@ -0,0 +1,30 @@
+package onetoone.bench;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Entry point of target/benchmarks.jar: the JMH command line, but results are written as JSON
+ * (target/jmh-result.json) unless -rf/-rff are given, so runs can be kept and compared between releases.
+ */
+public final class BenchmarkRunner {
+
+    static final String DEFAULT_RESULT_FILE = "target/jmh-result.json";
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> jmhArgs = new ArrayList<>(Arrays.asList(args));
+        if (!jmhArgs.contains("-rf")) {
+            jmhArgs.add("-rf");
+            jmhArgs.add("json");
+        }
+        if (!jmhArgs.contains("-rff")) {
+            jmhArgs.add("-rff");
+            jmhArgs.add(DEFAULT_RESULT_FILE);
+        }
+        org.openjdk.jmh.Main.main(jmhArgs.toArray(new String[0]));
+    }
+}
@@ -0,0 +1,32 @@
+package onetoone.bench;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * The BigDecimal Money implementation that onetoone.util.Money replaced, kept as the
+ * baseline for MoneyBenchmark. Do not use outside benchmarks.
+ */
+public final class BigDecimalMoney {
+
+    private static final int SCALE = 2;
+    private static final RoundingMode ROUNDING_MODE = RoundingMode.HALF_UP;
+
+    private BigDecimalMoney() {}
+
+    public static double round2(double value) {
+        return BigDecimal.valueOf(value).setScale(SCALE, ROUNDING_MODE).doubleValue();
+    }
+
+    public static double add(double a, double b) {
+        return BigDecimal.valueOf(a).add(BigDecimal.valueOf(b)).setScale(SCALE, ROUNDING_MODE).doubleValue();
+    }
+
+    public static double subtract(double a, double b) {
+        return BigDecimal.valueOf(a).subtract(BigDecimal.valueOf(b)).setScale(SCALE, ROUNDING_MODE).doubleValue();
+    }
+
+    public static double multiply(double amount, double multiplier) {
+        return BigDecimal.valueOf(amount).multiply(BigDecimal.valueOf(multiplier)).setScale(SCALE, ROUNDING_MODE).doubleValue();
+    }
+}
@@ -0,0 +1,70 @@
+package onetoone.bench;
+
+import onetoone.Resource.Resource;
+import onetoone.Resource.ResourceRepository;
+import onetoone.Users.User;
+import onetoone.billing.AccountBalance;
+import onetoone.billing.AccountBalanceRepository;
+import onetoone.billing.BillingService;
+import onetoone.billing.Statement;
+import onetoone.billing.Transaction;
+import onetoone.billing.TransactionRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BillingService balance folds over a player's ledger, with repositories replaced by in-memory
+ * fakes so only the Java-side work is measured (no SQL, no Hibernate).
+ *
+ * - reconcileBalance: the full-ledger fold used for first access and by AccountBalanceReconciler;
+ *   should grow linearly with size
+ * - getSummary: the per-request read path; served from the balance aggregate, should stay flat
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BillingFoldBenchmark {
+
+    @Param({"10", "1000", "10000", "100000"})
+    public int size;
+
+    private BillingService billing;
+    private int userId;
+
+    @Setup
+    public void setUp() {
+        User user = LedgerFixtures.user();
+        userId = user.getId();
+        List<Statement> statements = LedgerFixtures.statements(user, size);
+        List<Transaction> ledger = LedgerFixtures.transactions(user, size, statements);
+        Resource resource = new Resource(40, 500.0, 700.0);
+        resource.setUser(user);
+        AccountBalance aggregate = new AccountBalance(userId);
+
+        TransactionRepository txRepo = LedgerFixtures.repository(TransactionRepository.class,
+                Map.of("findByUser_IdOrderByTimestampDesc", args -> ledger));
+        AccountBalanceRepository balanceRepo = LedgerFixtures.repository(AccountBalanceRepository.class,
+                Map.of("findById", args -> Optional.of(aggregate)));
+        ResourceRepository resourceRepo = LedgerFixtures.repository(ResourceRepository.class,
+                Map.of("findByUserId", args -> resource));
+        billing = new BillingService(txRepo, null, resourceRepo, balanceRepo, null);
+        billing.reconcileBalance(userId);
+    }
+
+    @Benchmark
+    public AccountBalance reconcileBalance() {
+        return billing.reconcileBalance(userId);
+    }
+
+    @Benchmark
+    public BillingService.SummaryDTO getSummary() {
+        return billing.getSummary(userId);
+    }
+}
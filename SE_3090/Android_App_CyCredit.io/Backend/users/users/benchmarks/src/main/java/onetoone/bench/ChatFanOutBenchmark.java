@@ -0,0 +1,96 @@
+package onetoone.bench;
+
+import onetoone.messaging.ChatWebSocketHandler;
+import onetoone.messaging.chat.ChatHistoryCache;
+import onetoone.messaging.chat.ChatMessageRepository;
+import onetoone.messaging.chat.ChatWriteBehind;
+import onetoone.websocket.OutboundSessions;
+import onetoone.websocket.bus.LocalMessageBus;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.lang.reflect.Proxy;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Chat messages per second through the real ChatWebSocketHandler for a room of {@code roomSize}
+ * sessions: typed parse, id and write-behind queue (its batches go to a no-op writer), history ring,
+ * one serialized frame, and fan-out through OutboundSessions. Senders run inline, so each operation
+ * also includes every session's queue and (no-op) socket write: the whole CPU cost of one message.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChatFanOutBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int roomSize;
+
+    private ChatWriteBehind chatLog;
+    private ChatWebSocketHandler handler;
+    private WebSocketSession sender;
+    private TextMessage inbound;
+    private long delivered;
+
+    @Setup
+    public void setUp() throws Exception {
+        AtomicInteger ids = new AtomicInteger();
+        chatLog = new ChatWriteBehind(ids::incrementAndGet, batch -> { }, 100, 200, 10_000);
+        ChatHistoryCache history = new ChatHistoryCache(
+                LedgerFixtures.repository(ChatMessageRepository.class, Map.of()), 200, 600_000, 5000, Clock.systemUTC());
+        handler = new ChatWebSocketHandler(chatLog, history,
+                new OutboundSessions(Runnable::run, 64, 1 << 20, Duration.ofSeconds(5)), new LocalMessageBus(), true, 100);
+        for (int i = 0; i < roomSize; i++) {
+            WebSocketSession session = session("s" + i);
+            handler.afterConnectionEstablished(session);
+            if (i == 0) {
+                sender = session;
+            }
+        }
+        inbound = new TextMessage("{\"fromUserId\":1,\"content\":\"anyone up for the Curtiss shift?\"}");
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        chatLog.shutdown();
+        if (delivered == 0) {
+            throw new IllegalStateException("no frames were delivered");
+        }
+    }
+
+    @Benchmark
+    public void broadcast() throws Exception {
+        handler.handleMessage(sender, inbound);
+    }
+
+    // An open session in guild chat 7 whose socket write does nothing
+    private WebSocketSession session(String id) {
+        Map<String, Object> attrs = new HashMap<>();
+        attrs.put("scope", "guild");
+        attrs.put("channel", "7");
+        attrs.put("username", id);
+        return (WebSocketSession) Proxy.newProxyInstance(WebSocketSession.class.getClassLoader(),
+                new Class<?>[]{WebSocketSession.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "getId" -> id;
+                    case "getAttributes" -> attrs;
+                    case "isOpen" -> true;
+                    case "sendMessage" -> {
+                        delivered++;
+                        yield null;
+                    }
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "session " + id;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
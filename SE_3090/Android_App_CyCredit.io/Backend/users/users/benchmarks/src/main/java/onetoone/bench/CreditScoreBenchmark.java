@@ -0,0 +1,66 @@
+package onetoone.bench;
+
+import onetoone.Resource.Resource;
+import onetoone.Users.User;
+import onetoone.billing.Statement;
+import onetoone.billing.StatementRepository;
+import onetoone.config.GameConfig;
+import onetoone.game.GameService;
+import onetoone.game.GameStateCache;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GameService.calculateCreditScore, the month-end scoring step. It reads the player's statements
+ * (frozen on-time flags), not the ledger, so the fixture is the statement history a ledger of
+ * {@code size} transactions produces (one statement per LedgerFixtures.TRANSACTIONS_PER_MONTH).
+ *
+ * The method is private; it is called through a method handle so the benchmark measures exactly
+ * the production code without widening its visibility.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CreditScoreBenchmark {
+
+    @Param({"10", "1000", "10000", "100000"})
+    public int size;
+
+    private MethodHandle calculateCreditScore;
+    private GameService gameService;
+    private User user;
+    private Resource resource;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        user = LedgerFixtures.user();
+        List<Statement> statements = LedgerFixtures.statements(user, size);
+        resource = new Resource(40, 500.0, 700.0, 1500.0, statements.size() + 1);
+        resource.setUser(user);
+
+        StatementRepository statementRepo = LedgerFixtures.repository(StatementRepository.class,
+                Map.of("findByUser_IdOrderByMonthNumberDesc", args -> statements));
+        gameService = new GameService(null, null, null, statementRepo, null, new GameConfig(),
+                new GameStateCache(100, Duration.ofMinutes(1), System::nanoTime));
+
+        Method method = GameService.class.getDeclaredMethod("calculateCreditScore",
+                User.class, Resource.class, double.class);
+        method.setAccessible(true);
+        calculateCreditScore = MethodHandles.lookup().unreflect(method);
+    }
+
+    @Benchmark
+    public Object calculateCreditScore() throws Throwable {
+        return calculateCreditScore.invoke(gameService, user, resource, 640.0);
+    }
+}
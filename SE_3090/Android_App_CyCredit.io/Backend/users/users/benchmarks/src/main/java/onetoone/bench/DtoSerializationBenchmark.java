@@ -0,0 +1,76 @@
+package onetoone.bench;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import onetoone.Users.User;
+import onetoone.Users.UserRepository;
+import onetoone.billing.Statement;
+import onetoone.billing.StatementController;
+import onetoone.billing.StatementRepository;
+import onetoone.job.JobController;
+import onetoone.job.JobRun;
+import onetoone.job.JobRunRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The Map-per-row DTOs the controllers return: building the maps (HashMap per row, boxed values,
+ * dates formatted to strings) and writing them with a Jackson mapper configured like Spring Boot's.
+ * Uses the real GET /job/history and GET /statements/history handlers with {@code size} rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DtoSerializationBenchmark {
+
+    @Param({"10", "1000", "10000", "100000"})
+    public int size;
+
+    private JobController jobController;
+    private StatementController statementController;
+    private ObjectMapper mapper;
+    private int userId;
+
+    @Setup
+    public void setUp() {
+        User user = LedgerFixtures.user();
+        userId = user.getId();
+        List<JobRun> runs = LedgerFixtures.jobRuns(user, size);
+        // statements() makes one per month of ledger; scale up so this fixture also has size rows
+        List<Statement> statements = LedgerFixtures.statements(user, size * LedgerFixtures.TRANSACTIONS_PER_MONTH);
+
+        JobRunRepository runRepo = LedgerFixtures.repository(JobRunRepository.class,
+                Map.of("findByUser_IdOrderByRunAtDesc", args -> runs));
+        StatementRepository statementRepo = LedgerFixtures.repository(StatementRepository.class,
+                Map.of("findByUser_IdOrderByMonthNumberDesc", args -> statements));
+        UserRepository userRepo = LedgerFixtures.repository(UserRepository.class,
+                Map.of("findById", args -> Optional.of(user)));
+
+        jobController = new JobController(runRepo, null, null, null, null, null, null);
+        statementController = new StatementController(statementRepo, null, userRepo, null, null, null, null);
+        mapper = Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> jobHistoryDtos() {
+        return jobController.getHistory(userId, size).getBody();
+    }
+
+    @Benchmark
+    public byte[] jobHistoryJson() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(jobController.getHistory(userId, size).getBody());
+    }
+
+    @Benchmark
+    public byte[] statementHistoryJson() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(statementController.getHistory(userId, size).getBody());
+    }
+}
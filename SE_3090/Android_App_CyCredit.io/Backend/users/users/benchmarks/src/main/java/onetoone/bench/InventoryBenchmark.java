@@ -0,0 +1,61 @@
+package onetoone.bench;
+
+import onetoone.Users.User;
+import onetoone.billing.Transaction;
+import onetoone.billing.TransactionRepository;
+import onetoone.home.HomeController;
+import onetoone.home.RoomItem;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HomeController.buildInventory: derives the placeable inventory from the player's whole purchase
+ * history on every GET /home/layout. About a third of the fixture's purchases are Memorial Union items.
+ *
+ * The method is private; it is called through a method handle so the benchmark measures exactly
+ * the production code without widening its visibility.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InventoryBenchmark {
+
+    @Param({"10", "1000", "10000", "100000"})
+    public int size;
+
+    private MethodHandle buildInventory;
+    private HomeController controller;
+    private int userId;
+    private List<RoomItem> placed;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        User user = LedgerFixtures.user();
+        userId = user.getId();
+        List<Transaction> ledger = LedgerFixtures.transactions(user, size, Collections.emptyList());
+        placed = LedgerFixtures.placedItems(user);
+
+        TransactionRepository txRepo = LedgerFixtures.repository(TransactionRepository.class,
+                Map.of("findByUser_IdOrderByTimestampDesc", args -> ledger));
+        controller = new HomeController(null, null, txRepo);
+
+        Method method = HomeController.class.getDeclaredMethod("buildInventory", int.class, List.class);
+        method.setAccessible(true);
+        buildInventory = MethodHandles.lookup().unreflect(method);
+    }
+
+    @Benchmark
+    public Object buildInventory() throws Throwable {
+        return buildInventory.invoke(controller, userId, placed);
+    }
+}
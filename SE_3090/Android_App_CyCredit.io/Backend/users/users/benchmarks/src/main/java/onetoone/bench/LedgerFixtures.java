@@ -0,0 +1,183 @@
+package onetoone.bench;
+
+import onetoone.Users.User;
+import onetoone.billing.Statement;
+import onetoone.billing.Transaction;
+import onetoone.home.RoomItem;
+import onetoone.job.JobRun;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * Deterministic in-memory fixtures for the CPU-bound benchmarks: a player's ledger of {@code size}
+ * transactions, the statements it would have produced, job history and placed room items,
+ * plus repository fakes that hand them to the real services and controllers without a database.
+ */
+final class LedgerFixtures {
+
+    /** Transactions per simulated month (one statement each), about a month of turns. */
+    static final int TRANSACTIONS_PER_MONTH = 40;
+
+    private static final String[] MU_ITEMS = {
+            "Hoodie", "Desk Lamp", "Poster", "Headphones", "Coffee", "Pizza", "Plant", "Gaming Chair"
+    };
+    private static final String[] MERCHANTS = {"Campus Store", "Hy-Vee", "Cyride", "Bookstore"};
+
+    private LedgerFixtures() {
+    }
+
+    static User user() {
+        User user = new User("Bench", "bench@test.com", "pw");
+        user.setId(1);
+        return user;
+    }
+
+    /**
+     * Newest first, like findByUser_IdOrderByTimestampDesc. Roughly 60% purchases (a third of them
+     * Memorial Union items), then payments, income, rewards, interest and fees. Everything older
+     * than the current month is linked to a statement.
+     */
+    static List<Transaction> transactions(User user, int size, List<Statement> statements) {
+        Random random = new Random(42);
+        OffsetDateTime now = OffsetDateTime.of(2025, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+        List<Transaction> txs = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int month = i / TRANSACTIONS_PER_MONTH;
+            Transaction tx = new Transaction();
+            tx.setUser(user);
+            tx.setTimestamp(now.minusHours(i * 18L));
+            tx.setAmountCents(1 + random.nextInt(20_000));
+            int roll = random.nextInt(100);
+            if (roll < 60) {
+                tx.setType(Transaction.TransactionType.PURCHASE);
+                if (roll < 20) {
+                    tx.setMerchant("Memorial Union - " + MU_ITEMS[random.nextInt(MU_ITEMS.length)]);
+                    tx.setCategory("Memorial Union");
+                } else {
+                    tx.setMerchant(MERCHANTS[random.nextInt(MERCHANTS.length)]);
+                    tx.setCategory("Food");
+                }
+            } else if (roll < 75) {
+                tx.setType(Transaction.TransactionType.PAYMENT);
+                tx.setMerchant("Card Payment");
+                tx.setCategory("Payment");
+            } else if (roll < 88) {
+                tx.setType(Transaction.TransactionType.INCOME);
+                tx.setMerchant("Job Reward");
+                tx.setCategory("Income");
+            } else if (roll < 95) {
+                tx.setType(Transaction.TransactionType.REWARD);
+                tx.setMerchant("Library Reward");
+                tx.setCategory("Reward");
+            } else {
+                tx.setType(roll < 98 ? Transaction.TransactionType.INTEREST : Transaction.TransactionType.FEE);
+                tx.setMerchant("CyCredit");
+                tx.setCategory("Interest");
+            }
+            if (month > 0 && month - 1 < statements.size()) {
+                tx.setStatement(statements.get(month - 1));
+            }
+            txs.add(tx);
+        }
+        return txs;
+    }
+
+    /**
+     * One statement per finished month of the ledger, newest first, like findByUser_IdOrderByMonthNumberDesc.
+     * Mostly paid on time, some paid late, a few left overdue.
+     */
+    static List<Statement> statements(User user, int size) {
+        Random random = new Random(7);
+        int months = size / TRANSACTIONS_PER_MONTH;
+        List<Statement> statements = new ArrayList<>(months);
+        LocalDate start = LocalDate.of(2025, 1, 1);
+        for (int m = months; m >= 1; m--) {
+            Statement statement = new Statement();
+            statement.setId((long) m);
+            statement.setUser(user);
+            statement.setMonthNumber(m);
+            statement.setPeriodStart(start.minusMonths(months - m + 1));
+            statement.setPeriodEnd(start.minusMonths(months - m).minusDays(1));
+            statement.setStatementDate(statement.getPeriodEnd());
+            statement.setDueDate(statement.getPeriodEnd().plusDays(21));
+            statement.setTotalDueCents(10_000 + random.nextInt(90_000));
+            statement.setMinimumDueCents(2_500);
+            statement.setInterestRate(0.2);
+            int roll = random.nextInt(10);
+            statement.setStatus(roll < 9 ? Statement.StatementStatus.PAID : Statement.StatementStatus.OVERDUE);
+            statement.setPaidOnTime(roll < 7);
+            statement.setAmountPaidCents(roll < 9 ? statement.getTotalDueCents() : 0);
+            statements.add(statement);
+        }
+        return statements;
+    }
+
+    static List<JobRun> jobRuns(User user, int size) {
+        Random random = new Random(11);
+        OffsetDateTime now = OffsetDateTime.of(2025, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+        List<JobRun> runs = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            JobRun run = new JobRun();
+            run.setId((long) (size - i));
+            run.setUser(user);
+            run.setGameType("TYPING");
+            run.setDifficulty(i % 3 == 0 ? "HARD" : "EASY");
+            run.setScore(50 + random.nextInt(50));
+            run.setPassed(random.nextBoolean());
+            run.setDurationMs(30_000 + random.nextInt(60_000));
+            run.setRewardCash(12.5);
+            run.setRewardXp(10);
+            run.setStreakBonus(0.1);
+            run.setRunAt(now.minusMinutes(i * 5L));
+            runs.add(run);
+        }
+        return runs;
+    }
+
+    /** The four starters plus a couple of purchased items placed in the room. */
+    static List<RoomItem> placedItems(User user) {
+        List<RoomItem> items = new ArrayList<>();
+        for (String code : new String[]{"BED", "DESK", "LAMP", "POSTER", "HOODIE", "PLANT"}) {
+            RoomItem item = new RoomItem();
+            item.setUser(user);
+            item.setItemCode(code);
+            items.add(item);
+        }
+        return items;
+    }
+
+    /**
+     * A Spring Data repository backed by canned answers, keyed by method name.
+     * Saves return their argument; anything unanswered fails loudly so a benchmark
+     * never silently measures a no-op.
+     */
+    @SuppressWarnings("unchecked")
+    static <R> R repository(Class<R> type, Map<String, Function<Object[], Object>> answers) {
+        return (R) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            Function<Object[], Object> answer = answers.get(method.getName());
+            if (answer != null) {
+                return answer.apply(args);
+            }
+            switch (method.getName()) {
+                case "save":
+                    return args[0];
+                case "toString":
+                    return type.getSimpleName() + " fake";
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                default:
+                    throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName());
+            }
+        });
+    }
+}
@@ -0,0 +1,84 @@
+package onetoone.bench;
+
+import onetoone.util.Money;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Money arithmetic: the old BigDecimal path vs the fixed-point cents implementation.
+ *
+ * The fold benchmarks mirror a balance fold over a ledger of {@code size} amounts,
+ * which is what BillingService and the month-end scan did once per transaction.
+ *
+ * Run with -prof gc to see the allocation difference (gc.alloc.rate.norm).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyBenchmark {
+
+    @Param({"10", "1000", "10000", "100000"})
+    public int size;
+
+    private double[] amounts;
+    private long[] amountCents;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        amounts = new double[size];
+        amountCents = new long[size];
+        for (int i = 0; i < size; i++) {
+            long cents = 1 + random.nextInt(50_000); // $0.01 to $500.00
+            amounts[i] = cents / 100.0;
+            amountCents[i] = cents;
+        }
+    }
+
+    @Benchmark
+    public double foldBigDecimal() {
+        double total = 0.0;
+        for (double amount : amounts) {
+            total = BigDecimalMoney.add(total, amount);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public double foldMoneyDouble() {
+        double total = 0.0;
+        for (double amount : amounts) {
+            total = Money.add(total, amount);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long foldCents() {
+        long total = 0L;
+        for (long cents : amountCents) {
+            total += cents;
+        }
+        return total;
+    }
+
+    @Benchmark
+    public void interestBigDecimal(Blackhole bh) {
+        for (double amount : amounts) {
+            bh.consume(BigDecimalMoney.multiply(amount, 0.0166667));
+        }
+    }
+
+    @Benchmark
+    public void interestMoneyCents(Blackhole bh) {
+        for (long cents : amountCents) {
+            bh.consume(Money.multiplyCents(cents, 0.0166667));
+        }
+    }
+}
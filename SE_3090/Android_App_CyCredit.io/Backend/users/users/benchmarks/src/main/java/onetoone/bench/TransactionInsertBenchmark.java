@@ -0,0 +1,111 @@
+package onetoone.bench;
+
+import onetoone.Main;
+import onetoone.Users.User;
+import onetoone.Users.UserRepository;
+import onetoone.billing.BillingService;
+import onetoone.billing.Transaction;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Insert throughput for bursts of ledger postings against the real app context on in-memory H2
+ * (schema from the Liquibase changelog, same JPA mappings and batching settings as production).
+ *
+ * Scores are inserts per second (each invocation posts BURST transactions):
+ * - createTransactionCalls: BURST independent createTransaction calls, one transaction each
+ *   (how rewards are posted from the controllers today)
+ * - createTransactionBurst: BURST createTransaction calls inside one transaction
+ * - postTransactionsBatch:  one BillingService.postTransactions call with BURST rows
+ *   (aggregate locked once, inserts flushed as JDBC batches)
+ *
+ * MySQL round trips cost far more than H2's, so the gap between the modes widens in production.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(TransactionInsertBenchmark.BURST)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionInsertBenchmark {
+
+    static final int BURST = 100;
+
+    private ConfigurableApplicationContext context;
+    private BillingService billing;
+    private TransactionTemplate txTemplate;
+    private JdbcTemplate jdbc;
+    private User user;
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        // Command-line args outrank the app's application.properties (MySQL)
+        context = new SpringApplicationBuilder(Main.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.properties.hibernate.show_sql=false",
+                "--logging.level.root=WARN");
+        billing = context.getBean(BillingService.class);
+        txTemplate = context.getBean(TransactionTemplate.class);
+        jdbc = context.getBean(JdbcTemplate.class);
+        user = context.getBean(UserRepository.class).save(new User("Bench", "bench@test.com", "pw"));
+    }
+
+    @TearDown(Level.Trial)
+    public void stopContext() {
+        context.close();
+    }
+
+    /**
+     * Keep the ledger from growing across iterations so every iteration inserts into the same size table.
+     */
+    @Setup(Level.Iteration)
+    public void clearLedger() {
+        jdbc.update("delete from transactions where user_id = ?", user.getId());
+        billing.reconcileBalance(user.getId());
+    }
+
+    @Benchmark
+    public int createTransactionCalls() {
+        for (int i = 0; i < BURST; i++) {
+            billing.createTransaction(user.getId(), "Bench Reward", 1.25, "Reward",
+                    Transaction.TransactionType.REWARD);
+        }
+        return BURST;
+    }
+
+    @Benchmark
+    public int createTransactionBurst() {
+        txTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < BURST; i++) {
+                billing.createTransaction(user.getId(), "Bench Reward", 1.25, "Reward",
+                        Transaction.TransactionType.REWARD);
+            }
+        });
+        return BURST;
+    }
+
+    @Benchmark
+    public int postTransactionsBatch() {
+        OffsetDateTime now = OffsetDateTime.now();
+        List<Transaction> burst = new ArrayList<>(BURST);
+        for (int i = 0; i < BURST; i++) {
+            burst.add(new Transaction(user, "Bench Reward", 1.25, "Reward", now,
+                    Transaction.TransactionType.REWARD));
+        }
+        return billing.postTransactions(burst).size();
+    }
+}
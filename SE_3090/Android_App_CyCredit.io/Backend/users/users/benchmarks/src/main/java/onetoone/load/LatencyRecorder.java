@@ -0,0 +1,93 @@
+package onetoone.load;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-endpoint latency samples. Every sample is kept (a run is thousands of requests, not millions),
+ * so percentiles are exact nearest-rank values rather than histogram estimates.
+ */
+final class LatencyRecorder {
+
+    static final class Stats {
+        final String endpoint;
+        final int count;
+        final long rejected;
+        final long errors;
+        final double p50Ms;
+        final double p95Ms;
+        final double p99Ms;
+        final double maxMs;
+
+        Stats(String endpoint, long[] sortedNanos, long rejected, long errors) {
+            this.endpoint = endpoint;
+            this.count = sortedNanos.length;
+            this.rejected = rejected;
+            this.errors = errors;
+            this.p50Ms = percentileMs(sortedNanos, 50);
+            this.p95Ms = percentileMs(sortedNanos, 95);
+            this.p99Ms = percentileMs(sortedNanos, 99);
+            this.maxMs = count == 0 ? 0 : sortedNanos[count - 1] / 1e6;
+        }
+    }
+
+    private static final class Samples {
+        final List<Long> nanos = new ArrayList<>();
+        final LongAdder rejected = new LongAdder();
+        final LongAdder errors = new LongAdder();
+    }
+
+    private final Map<String, Samples> endpoints = new ConcurrentHashMap<>();
+
+    /**
+     * @param status HTTP status; 4xx are game-rule rejections (no turns, insufficient funds),
+     *               5xx and transport failures (status 0) are errors
+     */
+    void record(String endpoint, long nanos, int status) {
+        Samples samples = endpoints.computeIfAbsent(endpoint, k -> new Samples());
+        synchronized (samples.nanos) {
+            samples.nanos.add(nanos);
+        }
+        if (status >= 400 && status < 500) {
+            samples.rejected.increment();
+        } else if (status == 0 || status >= 500) {
+            samples.errors.increment();
+        }
+    }
+
+    long totalCount() {
+        long total = 0;
+        for (Samples samples : endpoints.values()) {
+            synchronized (samples.nanos) {
+                total += samples.nanos.size();
+            }
+        }
+        return total;
+    }
+
+    Map<String, Stats> snapshot() {
+        Map<String, Stats> stats = new TreeMap<>();
+        endpoints.forEach((endpoint, samples) -> {
+            long[] sorted;
+            synchronized (samples.nanos) {
+                sorted = samples.nanos.stream().mapToLong(Long::longValue).toArray();
+            }
+            Arrays.sort(sorted);
+            stats.put(endpoint, new Stats(endpoint, sorted, samples.rejected.sum(), samples.errors.sum()));
+        });
+        return stats;
+    }
+
+    static double percentileMs(long[] sortedNanos, double percentile) {
+        if (sortedNanos.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100.0 * sortedNanos.length);
+        return sortedNanos[Math.max(0, rank - 1)] / 1e6;
+    }
+}
@@ -0,0 +1,211 @@
+package onetoone.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import onetoone.Main;
+import onetoone.config.GameConfig;
+import onetoone.library.LibraryQuestion;
+import onetoone.library.LibraryQuestionRepository;
+import onetoone.store.StoreItem;
+import onetoone.store.StoreItemRepository;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.io.File;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end load run: boots the real app on a random port against in-memory H2 and lets N virtual
+ * players hit it concurrently over HTTP and the chat WebSocket. Prints and writes a report with
+ * throughput, p50/p95/p99 latency and SQL statement counts per endpoint.
+ *
+ * Options (all optional):
+ *   --players=50        concurrent players
+ *   --actions=40        actions per player after registering
+ *   --mix=purchase:30,job:20,library:20,pay:10,chat:15,endMonth:5
+ *   --rooms=5           public chat channels the players are spread over
+ *   --seed=42           makes the action sequence repeatable
+ *   --out=target/load-report.json
+ */
+public final class LoadSimulator {
+
+    record Fixtures(List<Integer> storeItemIds, List<Long> questionIds, long jobDurationMs) {
+    }
+
+    private LoadSimulator() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        int players = Integer.parseInt(options.getOrDefault("players", "50"));
+        int actions = Integer.parseInt(options.getOrDefault("actions", "40"));
+        int rooms = Integer.parseInt(options.getOrDefault("rooms", "5"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        PlayerMix mix = PlayerMix.parse(options.getOrDefault("mix", PlayerMix.DEFAULT));
+        File out = new File(options.getOrDefault("out", "target/load-report.json"));
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(Main.class)
+                .initializers(ctx -> ((GenericApplicationContext) ctx)
+                        .registerBean(QueryCountingFilter.class))
+                .run(
+                        "--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:load;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.properties.hibernate.show_sql=false",
+                        "--spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                                + QueryCountingInspector.class.getName(),
+                        "--logging.level.root=WARN");
+        try {
+            int port = Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+            Fixtures fixtures = seed(context);
+            QueryCountingFilter queries = context.getBean(QueryCountingFilter.class);
+            long queriesBefore = QueryCountingInspector.unattributed();
+
+            LatencyRecorder recorder = new LatencyRecorder();
+            HttpClient http = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+            ExecutorService pool = Executors.newFixedThreadPool(players);
+            CountDownLatch start = new CountDownLatch(1);
+            for (int i = 0; i < players; i++) {
+                VirtualPlayer player = new VirtualPlayer(i, port, "room" + (i % rooms), actions, mix, fixtures,
+                        http, recorder, seed + i);
+                pool.submit(() -> {
+                    start.await();
+                    player.run();
+                    return null;
+                });
+            }
+
+            long begin = System.nanoTime();
+            start.countDown();
+            pool.shutdown();
+            if (!pool.awaitTermination(30, TimeUnit.MINUTES)) {
+                pool.shutdownNow();
+                throw new IllegalStateException("Load run did not finish within 30 minutes");
+            }
+            double wallSeconds = (System.nanoTime() - begin) / 1e9;
+
+            Map<String, Object> report = report(players, actions, mix, wallSeconds, recorder.snapshot(),
+                    recorder.totalCount(), queries.snapshot(), QueryCountingInspector.unattributed() - queriesBefore);
+            printReport(report);
+            File parent = out.getAbsoluteFile().getParentFile();
+            if (parent != null) {
+                parent.mkdirs();
+            }
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(out, report);
+            System.out.println("Report written to " + out.getPath());
+        } finally {
+            context.close();
+        }
+    }
+
+    /**
+     * The store and the library have no seed data of their own; give the players something to buy and answer.
+     */
+    private static Fixtures seed(ConfigurableApplicationContext context) {
+        StoreItemRepository items = context.getBean(StoreItemRepository.class);
+        List<Integer> itemIds = new ArrayList<>();
+        itemIds.add(items.save(new StoreItem("Coffee", "Medium drip", 2.50, "Food")).getId());
+        itemIds.add(items.save(new StoreItem("Sandwich", "Turkey club", 7.25, "Food")).getId());
+        itemIds.add(items.save(new StoreItem("Hoodie", "Cyclones hoodie", 45.00, "Apparel")).getId());
+        itemIds.add(items.save(new StoreItem("Notebook", "College ruled", 3.99, "Supplies")).getId());
+
+        LibraryQuestionRepository questions = context.getBean(LibraryQuestionRepository.class);
+        List<Long> questionIds = new ArrayList<>();
+        List<String> choices = List.of("A", "B", "C", "D");
+        for (int i = 0; i < 10; i++) {
+            questionIds.add(questions.save(new LibraryQuestion("Credit", "EASY",
+                    "Load question " + i, choices, i % 4, "Because.")).getId());
+        }
+
+        return new Fixtures(itemIds, questionIds, context.getBean(GameConfig.class).getJobMinDurationMs());
+    }
+
+    private static Map<String, Object> report(int players, int actions, PlayerMix mix, double wallSeconds,
+                                              Map<String, LatencyRecorder.Stats> latency, long requests,
+                                              Map<String, Long> queries, long unattributedQueries) {
+        List<Map<String, Object>> endpoints = new ArrayList<>();
+        long attributedQueries = 0;
+        for (LatencyRecorder.Stats stats : latency.values()) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            long endpointQueries = queries.getOrDefault(stats.endpoint, 0L);
+            attributedQueries += endpointQueries;
+            row.put("endpoint", stats.endpoint);
+            row.put("count", stats.count);
+            row.put("rejected4xx", stats.rejected);
+            row.put("errors", stats.errors);
+            row.put("p50Ms", round(stats.p50Ms));
+            row.put("p95Ms", round(stats.p95Ms));
+            row.put("p99Ms", round(stats.p99Ms));
+            row.put("maxMs", round(stats.maxMs));
+            row.put("queries", endpointQueries);
+            row.put("queriesPerRequest", stats.count == 0 ? 0.0 : round((double) endpointQueries / stats.count));
+            endpoints.add(row);
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("generatedAt", OffsetDateTime.now().toString());
+        report.put("players", players);
+        report.put("actionsPerPlayer", actions);
+        report.put("mix", mix.toString());
+        report.put("wallSeconds", round(wallSeconds));
+        report.put("requests", requests);
+        report.put("throughputPerSecond", round(requests / wallSeconds));
+        report.put("queries", attributedQueries + unattributedQueries);
+        // Chat persistence runs on WebSocket threads, outside any HTTP request
+        report.put("queriesOutsideHttp", unattributedQueries);
+        report.put("endpoints", endpoints);
+        return report;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void printReport(Map<String, Object> report) {
+        System.out.printf("%n%d players x %d actions, mix %s%n", report.get("players"),
+                report.get("actionsPerPlayer"), report.get("mix"));
+        System.out.printf("%d requests in %.2f s = %.1f req/s, %d SQL statements (%d outside HTTP: WS chat / background)%n%n",
+                report.get("requests"), report.get("wallSeconds"), report.get("throughputPerSecond"),
+                report.get("queries"), report.get("queriesOutsideHttp"));
+        System.out.printf("%-42s %7s %6s %6s %9s %9s %9s %9s %9s %8s%n",
+                "endpoint", "count", "4xx", "errors", "p50 ms", "p95 ms", "p99 ms", "max ms", "queries", "q/req");
+        for (Map<String, Object> row : (List<Map<String, Object>>) report.get("endpoints")) {
+            System.out.printf("%-42s %7d %6d %6d %9.2f %9.2f %9.2f %9.2f %9d %8.2f%n",
+                    row.get("endpoint"), row.get("count"), row.get("rejected4xx"), row.get("errors"),
+                    row.get("p50Ms"), row.get("p95Ms"), row.get("p99Ms"), row.get("maxMs"),
+                    row.get("queries"), row.get("queriesPerRequest"));
+        }
+        System.out.println();
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got '" + arg + "'");
+            }
+            int eq = arg.indexOf('=');
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        return options;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
@@ -0,0 +1,77 @@
+package onetoone.load;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Weighted choice of the next action a virtual player takes, e.g. "purchase:30,job:20,chat:15".
+ */
+final class PlayerMix {
+
+    enum Action {
+        PURCHASE("purchase"), JOB("job"), LIBRARY("library"), PAY("pay"), CHAT("chat"), END_MONTH("endMonth");
+
+        final String key;
+
+        Action(String key) {
+            this.key = key;
+        }
+
+        static Action of(String key) {
+            for (Action action : values()) {
+                if (action.key.equalsIgnoreCase(key)) {
+                    return action;
+                }
+            }
+            throw new IllegalArgumentException("Unknown action '" + key + "' (expected purchase, job, library, pay, chat, endMonth)");
+        }
+    }
+
+    static final String DEFAULT = "purchase:30,job:20,library:20,pay:10,chat:15,endMonth:5";
+
+    private final Map<Action, Integer> weights;
+    private final int total;
+
+    private PlayerMix(Map<Action, Integer> weights) {
+        this.weights = weights;
+        this.total = weights.values().stream().mapToInt(Integer::intValue).sum();
+        if (total <= 0) {
+            throw new IllegalArgumentException("Player mix needs at least one positive weight");
+        }
+    }
+
+    static PlayerMix parse(String spec) {
+        Map<Action, Integer> weights = new EnumMap<>(Action.class);
+        for (String part : spec.split(",")) {
+            String[] kv = part.trim().split(":");
+            if (kv.length != 2) {
+                throw new IllegalArgumentException("Bad mix entry '" + part + "' (expected action:weight)");
+            }
+            int weight = Integer.parseInt(kv[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight for " + kv[0]);
+            }
+            weights.put(Action.of(kv[0].trim()), weight);
+        }
+        return new PlayerMix(weights);
+    }
+
+    Action pick(Random random) {
+        int roll = random.nextInt(total);
+        for (Map.Entry<Action, Integer> entry : weights.entrySet()) {
+            roll -= entry.getValue();
+            if (roll < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("unreachable");
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        weights.forEach((action, weight) -> sb.append(sb.length() == 0 ? "" : ",").append(action.key).append(':').append(weight));
+        return sb.toString();
+    }
+}
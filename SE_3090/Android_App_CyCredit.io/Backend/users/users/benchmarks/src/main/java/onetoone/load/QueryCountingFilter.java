@@ -0,0 +1,44 @@
+package onetoone.load;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sums the SQL statements of each request per endpoint ("POST /statements/{id}/pay"),
+ * keyed the same way the simulator keys its latency samples.
+ */
+public class QueryCountingFilter extends OncePerRequestFilter {
+
+    private final Map<String, LongAdder> queriesByEndpoint = new ConcurrentHashMap<>();
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        QueryCountingInspector.begin();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            long queries = QueryCountingInspector.end();
+            // Only known after dispatch: the mapping pattern that handled the request
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String endpoint = request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI());
+            queriesByEndpoint.computeIfAbsent(endpoint, k -> new LongAdder()).add(queries);
+        }
+    }
+
+    Map<String, Long> snapshot() {
+        Map<String, Long> totals = new TreeMap<>();
+        queriesByEndpoint.forEach((endpoint, count) -> totals.put(endpoint, count.sum()));
+        return totals;
+    }
+}
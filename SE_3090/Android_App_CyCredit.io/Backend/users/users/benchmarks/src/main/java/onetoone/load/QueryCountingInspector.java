@@ -0,0 +1,43 @@
+package onetoone.load;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts every SQL statement Hibernate prepares, attributed to the HTTP request being served on the
+ * current thread (see QueryCountingFilter). Statements issued outside a request - WebSocket chat
+ * handlers, scheduled jobs - land in the unattributed bucket.
+ *
+ * Installed with hibernate.session_factory.statement_inspector, so Hibernate creates the instance.
+ */
+public class QueryCountingInspector implements StatementInspector {
+
+    private static final ThreadLocal<long[]> CURRENT = new ThreadLocal<>();
+    private static final LongAdder UNATTRIBUTED = new LongAdder();
+
+    static void begin() {
+        CURRENT.set(new long[1]);
+    }
+
+    static long end() {
+        long[] count = CURRENT.get();
+        CURRENT.remove();
+        return count == null ? 0 : count[0];
+    }
+
+    static long unattributed() {
+        return UNATTRIBUTED.sum();
+    }
+
+    @Override
+    public String inspect(String sql) {
+        long[] count = CURRENT.get();
+        if (count != null) {
+            count[0]++;
+        } else {
+            UNATTRIBUTED.increment();
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,254 @@
+package onetoone.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.WebSocket;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One simulated player driving the same REST and WebSocket calls the Android app makes:
+ * register, then a weighted random sequence of store purchases, job runs, library quiz attempts,
+ * statement payments, chat messages and month ends, refreshing the HUD (/game/state) after each
+ * action like HudSyncHelper does. Running out of turns ends the month, as the app prompts.
+ */
+final class VirtualPlayer implements Runnable {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private final int index;
+    private final String baseUrl;
+    private final String wsUrl;
+    private final String room;
+    private final int actions;
+    private final PlayerMix mix;
+    private final LoadSimulator.Fixtures fixtures;
+    private final HttpClient http;
+    private final LatencyRecorder recorder;
+    private final ObjectMapper om = new ObjectMapper();
+    private final Random random;
+
+    // Chat messages sent and not yet seen coming back through the room fan-out, keyed by token
+    private final Map<String, CompletableFuture<Void>> chatEchoes = new ConcurrentHashMap<>();
+
+    private int userId;
+    private int turnsLeft;
+    private double money;
+
+    VirtualPlayer(int index, int port, String room, int actions, PlayerMix mix, LoadSimulator.Fixtures fixtures,
+                  HttpClient http, LatencyRecorder recorder, long seed) {
+        this.index = index;
+        this.baseUrl = "http://localhost:" + port;
+        this.wsUrl = "ws://localhost:" + port;
+        this.room = room;
+        this.actions = actions;
+        this.mix = mix;
+        this.fixtures = fixtures;
+        this.http = http;
+        this.recorder = recorder;
+        this.random = new Random(seed);
+    }
+
+    @Override
+    public void run() {
+        String name = "loadplayer" + index;
+        JsonNode user = post("POST /users", "/users",
+                Map.of("name", name, "emailId", name + "-" + UUID.randomUUID() + "@load.test", "password", "pw"));
+        if (user == null) {
+            return;
+        }
+        userId = user.get("id").asInt();
+        refreshHud();
+
+        WebSocket socket = connectChat(name);
+        try {
+            for (int i = 0; i < actions; i++) {
+                PlayerMix.Action action = mix.pick(random);
+                if (action != PlayerMix.Action.END_MONTH && action != PlayerMix.Action.CHAT && turnsLeft <= 0) {
+                    action = PlayerMix.Action.END_MONTH;
+                }
+                switch (action) {
+                    case PURCHASE -> purchase();
+                    case JOB -> job();
+                    case LIBRARY -> library();
+                    case PAY -> pay();
+                    case CHAT -> chat(socket);
+                    case END_MONTH -> post("POST /game/end-month", "/game/end-month?userId=" + userId, null);
+                }
+                if (action != PlayerMix.Action.CHAT) {
+                    refreshHud();
+                }
+            }
+        } finally {
+            if (socket != null) {
+                socket.sendClose(WebSocket.NORMAL_CLOSURE, "done");
+            }
+        }
+    }
+
+    private void purchase() {
+        post("POST /store/memorial-union/purchase", "/store/memorial-union/purchase", Map.of(
+                "userId", userId,
+                "itemId", pickOne(fixtures.storeItemIds()),
+                "qty", 1,
+                "purchaseNonce", UUID.randomUUID().toString()));
+    }
+
+    private void job() {
+        String[] difficulties = {"EASY", "MEDIUM", "HARD"};
+        post("POST /job/run", "/job/run?userId=" + userId, Map.of(
+                "gameType", "TYPING",
+                "difficulty", difficulties[random.nextInt(difficulties.length)],
+                "score", 50 + random.nextInt(50),
+                "passed", random.nextInt(4) != 0,
+                "durationMs", fixtures.jobDurationMs(),
+                "runNonce", UUID.randomUUID().toString()));
+    }
+
+    private void library() {
+        post("POST /library/attempts", "/library/attempts?userId=" + userId, Map.of(
+                "questionId", pickOne(fixtures.questionIds()),
+                "answerIndex", random.nextInt(4)));
+    }
+
+    private void pay() {
+        JsonNode statement = get("GET /statements/current", "/statements/current?userId=" + userId);
+        if (statement == null || !statement.has("id")) {
+            return;
+        }
+        // totalDue already has payments taken off (it is the remaining balance)
+        double due = statement.get("totalDue").asDouble();
+        double amount = Math.floor(Math.min(due, money) * 100) / 100;
+        if (amount > 0) {
+            post("POST /statements/{id}/pay", "/statements/" + statement.get("id").asLong() + "/pay",
+                    Map.of("amount", amount));
+        }
+    }
+
+    /**
+     * Latency of a chat message is send -> our own copy arriving back through the room fan-out.
+     */
+    private void chat(WebSocket socket) {
+        if (socket == null) {
+            return;
+        }
+        String name = "loadplayer" + index;
+        String token = UUID.randomUUID().toString();
+        CompletableFuture<Void> echo = new CompletableFuture<>();
+        chatEchoes.put(token, echo);
+        long start = System.nanoTime();
+        int status = 200;
+        try {
+            String json = om.writeValueAsString(Map.of("fromUserId", userId, "username", name,
+                    "content", "gg " + token));
+            socket.sendText(json, true).get(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+            echo.get(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            status = 0;
+        } finally {
+            chatEchoes.remove(token);
+        }
+        recorder.record("WS /ws/chat/{scope}/{channel}/{username}", System.nanoTime() - start, status);
+    }
+
+    private WebSocket connectChat(String name) {
+        long start = System.nanoTime();
+        try {
+            WebSocket socket = http.newWebSocketBuilder()
+                    .buildAsync(URI.create(wsUrl + "/ws/chat/public/" + room + "/" + name), new ChatListener())
+                    .get(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+            recorder.record("WS connect", System.nanoTime() - start, 101);
+            return socket;
+        } catch (Exception e) {
+            recorder.record("WS connect", System.nanoTime() - start, 0);
+            return null;
+        }
+    }
+
+    private void refreshHud() {
+        JsonNode state = get("GET /game/state", "/game/state?userId=" + userId);
+        if (state != null) {
+            turnsLeft = state.get("turnsLeft").asInt();
+            money = state.get("money").asDouble();
+        }
+    }
+
+    private JsonNode get(String endpoint, String path) {
+        return send(endpoint, HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(TIMEOUT).GET().build());
+    }
+
+    private JsonNode post(String endpoint, String path, Object body) {
+        try {
+            HttpRequest.BodyPublisher publisher = body == null ? HttpRequest.BodyPublishers.noBody()
+                    : HttpRequest.BodyPublishers.ofString(om.writeValueAsString(body));
+            return send(endpoint, HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(TIMEOUT)
+                    .header("Content-Type", "application/json").POST(publisher).build());
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return the parsed body of a 2xx response, null otherwise (the status is still recorded)
+     */
+    private JsonNode send(String endpoint, HttpRequest request) {
+        long start = System.nanoTime();
+        int status = 0;
+        String body = null;
+        try {
+            HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+            status = response.statusCode();
+            body = response.body();
+        } catch (Exception e) {
+            // transport failure: recorded as status 0
+        }
+        recorder.record(endpoint, System.nanoTime() - start, status);
+        if (status < 200 || status >= 300 || body == null || body.isEmpty()) {
+            return null;
+        }
+        try {
+            return om.readTree(body);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private <T> T pickOne(List<T> values) {
+        return values.get(random.nextInt(values.size()));
+    }
+
+    private final class ChatListener implements WebSocket.Listener {
+        private final StringBuilder partial = new StringBuilder();
+
+        @Override
+        public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+            partial.append(data);
+            if (last) {
+                String message = partial.toString();
+                partial.setLength(0);
+                // Room fan-out delivers everyone's messages; only our own tokens complete an echo
+                int at = message.indexOf("gg ");
+                if (at >= 0 && message.length() >= at + 3 + 36) {
+                    CompletableFuture<Void> echo = chatEchoes.get(message.substring(at + 3, at + 3 + 36));
+                    if (echo != null) {
+                        echo.complete(null);
+                    }
+                }
+            }
+            webSocket.request(1);
+            return null;
+        }
+    }
+}
@@ -4,12 +4,14 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 import onetoone.config.GameConfig;
 
 @SpringBootApplication
 @EnableJpaRepositories
 @EnableConfigurationProperties(GameConfig.class)
+@EnableScheduling
 public class Main {
 
     public static void main(String[] args) {
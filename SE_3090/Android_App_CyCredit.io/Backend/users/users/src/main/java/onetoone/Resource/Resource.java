@@ -1,6 +1,9 @@
 package onetoone.Resource;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import onetoone.Users.User;
+import onetoone.util.Money;
+import onetoone.util.MoneyCentsConverter;
 
 
     @Entity
@@ -11,7 +14,9 @@ import onetoone.Users.User;
         private int id;
 
         private int turnsLeft;
-        private double money;
+        @Column(name = "money")
+        @Convert(converter = MoneyCentsConverter.class)
+        private long moneyCents; // Fixed-point cents
         private double credit;
         private double creditLimit = 1500.0; // Default credit limit
         private int currentMonth = 1; // Default current month
@@ -25,7 +30,7 @@ import onetoone.Users.User;
 
         public Resource(int turnsLeft, double money, double credit) {
             this.turnsLeft = turnsLeft;
-            this.money = money;
+            this.moneyCents = Money.toCents(money);
             this.credit = credit;
             this.creditLimit = 1500.0; // Default credit limit
             this.currentMonth = 1; // Default current month
@@ -33,7 +38,7 @@ import onetoone.Users.User;
 
         public Resource(int turnsLeft, double money, double credit, double creditLimit, int currentMonth) {
             this.turnsLeft = turnsLeft;
-            this.money = money;
+            this.moneyCents = Money.toCents(money);
             this.credit = credit;
             this.creditLimit = creditLimit;
             this.currentMonth = currentMonth;
@@ -57,11 +62,20 @@ import onetoone.Users.User;
         }
 
         public double getMoney() {
-            return money;
+            return Money.fromCents(moneyCents);
         }
 
         public void setMoney(double money) {
-            this.money = money;
+            this.moneyCents = Money.toCents(money);
+        }
+
+        @JsonIgnore
+        public long getMoneyCents() {
+            return moneyCents;
+        }
+
+        public void setMoneyCents(long moneyCents) {
+            this.moneyCents = moneyCents;
         }
 
         public double getCredit() {
@@ -2,10 +2,14 @@ package onetoone.Resource;
 
 import onetoone.Resource.Resource;
 import onetoone.Users.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.List;
+
 public interface ResourceRepository extends JpaRepository<Resource, Integer> {
 
     // find resource by user
@@ -16,4 +20,41 @@ public interface ResourceRepository extends JpaRepository<Resource, Integer> {
     Resource findByUserId(@Param("userId") int userId);
 
     Resource findById(int id);
-}
\ No newline at end of file
+
+    boolean existsByUser_Id(int userId);
+
+    @Query("SELECT r.turnsLeft FROM Resource r WHERE r.user.id = :userId")
+    Integer findTurnsLeftByUserId(@Param("userId") int userId);
+
+    // Atomically take n turns only if at least n are left; returns the number of rows updated (0 or 1).
+    // Pending changes are flushed first; managed Resource instances are not refreshed, so re-read afterwards.
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Resource r SET r.turnsLeft = r.turnsLeft - :n WHERE r.user.id = :userId AND r.turnsLeft >= :n")
+    int takeTurns(@Param("userId") int userId, @Param("n") int n);
+
+    // Atomically add to a user's cash without a read-modify-write of the whole row, so it cannot
+    // overwrite a concurrent request's changes; returns the number of rows updated (0 or 1).
+    // Native because the column holds dollars behind MoneyCentsConverter; rounded back to whole cents.
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE resource SET money = ROUND(money + :cents / 100.0, 2) WHERE user_id = :userId",
+            nativeQuery = true)
+    int addMoneyCents(@Param("userId") int userId, @Param("cents") long cents);
+
+    // Atomically take cash only if the user has at least that much; returns the number of rows updated (0 or 1).
+    // The balance is compared in whole cents so a float column cannot refuse an exact-balance purchase.
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE resource SET money = ROUND(money - :cents / 100.0, 2) "
+            + "WHERE user_id = :userId AND ROUND(money * 100) >= :cents",
+            nativeQuery = true)
+    int takeMoneyCents(@Param("userId") int userId, @Param("cents") long cents);
+
+    // User-id bounds and ordered id slices, for partitioning batch jobs (month-end) by id range
+    @Query("SELECT MIN(r.user.id) FROM Resource r")
+    Integer findMinUserId();
+
+    @Query("SELECT MAX(r.user.id) FROM Resource r")
+    Integer findMaxUserId();
+
+    @Query("SELECT r.user.id FROM Resource r WHERE r.user.id > :after AND r.user.id <= :to ORDER BY r.user.id")
+    List<Integer> findUserIdsInRange(@Param("after") int after, @Param("to") int to, Pageable page);
+}
@@ -0,0 +1,70 @@
+package onetoone.achievements;
+
+import onetoone.events.ChallengeCompleted;
+import onetoone.events.DomainEvent;
+import onetoone.events.DomainEventSubscriber;
+import onetoone.events.JobRunRecorded;
+import onetoone.events.QuestionMastered;
+import onetoone.job.JobRunRepository;
+import onetoone.library.QuestionAttemptRepository;
+import onetoone.wellness.ChallengeEnrollmentRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Unlocks milestone achievements from domain events, off the request thread.
+ * Milestones are "at least N" so a late or missed event is caught up by the next one;
+ * unlockAchievement itself is idempotent.
+ */
+@Component
+public class AchievementEventSubscriber implements DomainEventSubscriber {
+
+    private final AchievementsController achievements;
+    private final JobRunRepository runRepo;
+    private final QuestionAttemptRepository attemptRepo;
+    private final ChallengeEnrollmentRepository enrollmentRepo;
+
+    public AchievementEventSubscriber(AchievementsController achievements, JobRunRepository runRepo,
+                                      QuestionAttemptRepository attemptRepo,
+                                      ChallengeEnrollmentRepository enrollmentRepo) {
+        this.achievements = achievements;
+        this.runRepo = runRepo;
+        this.attemptRepo = attemptRepo;
+        this.enrollmentRepo = enrollmentRepo;
+    }
+
+    @Override
+    public void onEvent(DomainEvent event) {
+        if (event instanceof JobRunRecorded run) {
+            onJobRun(run);
+        } else if (event instanceof QuestionMastered mastered) {
+            if (attemptRepo.countByUser_IdAndIsMasteredTrue(mastered.userId()) >= 10) {
+                achievements.unlockAchievement(mastered.userId(), "MASTER_10");
+            }
+        } else if (event instanceof ChallengeCompleted completed) {
+            if (enrollmentRepo.countByUser_IdAndStatusIn(completed.userId(), List.of("COMPLETED", "CLAIMED")) >= 1) {
+                achievements.unlockAchievement(completed.userId(), "FIRST_WEEK");
+            }
+        }
+    }
+
+    private void onJobRun(JobRunRecorded run) {
+        if (!run.passed()) {
+            return;
+        }
+        long totalPasses = runRepo.countByUser_IdAndPassedTrue(run.userId());
+        if (totalPasses >= 10) {
+            achievements.unlockAchievement(run.userId(), "JOB_10_PASSES");
+        }
+        if (totalPasses >= 50) {
+            achievements.unlockAchievement(run.userId(), "JOB_50_PASSES");
+        }
+        if (run.streak() >= 5) {
+            achievements.unlockAchievement(run.userId(), "JOB_STREAK_5");
+        }
+        if (run.streak() >= 10) {
+            achievements.unlockAchievement(run.userId(), "JOB_STREAK_10");
+        }
+    }
+}
@@ -1,12 +1,10 @@
 package onetoone.achievements;
 
-import onetoone.Resource.Resource;
-import onetoone.Resource.ResourceRepository;
 import onetoone.Users.User;
 import onetoone.Users.UserRepository;
 import onetoone.billing.BillingService;
 import onetoone.billing.Transaction;
-import onetoone.util.Money;
+import onetoone.game.GameService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
@@ -26,19 +24,19 @@ public class AchievementsController {
     private final AchievementDefinitionRepository defRepo;
     private final UserAchievementRepository userAchievementRepo;
     private final UserRepository userRepo;
-    private final ResourceRepository resourceRepo;
     private final BillingService billingService;
+    private final GameService gameService;
 
     public AchievementsController(AchievementDefinitionRepository defRepo,
                                  UserAchievementRepository userAchievementRepo,
                                  UserRepository userRepo,
-                                 ResourceRepository resourceRepo,
-                                 BillingService billingService) {
+                                 BillingService billingService,
+                                 GameService gameService) {
         this.defRepo = defRepo;
         this.userAchievementRepo = userAchievementRepo;
         this.userRepo = userRepo;
-        this.resourceRepo = resourceRepo;
         this.billingService = billingService;
+        this.gameService = gameService;
         seedAchievements();
     }
 
@@ -157,12 +155,9 @@ public class AchievementsController {
         userAchievement.setUnlockedAt(OffsetDateTime.now());
         userAchievementRepo.save(userAchievement);
 
-        // Grant rewards (only if not already unlocked)
-        Resource res = resourceRepo.findByUserId(userId);
-        if (res != null && def.getRewardCash() > 0) {
-            res.setMoney(Money.add(res.getMoney(), def.getRewardCash()));
-            resourceRepo.save(res);
-
+        // Grant rewards (only if not already unlocked). Unlocks run on the event bus, next to the
+        // player's own requests, so cash is added atomically instead of saving a loaded Resource.
+        if (def.getRewardCash() > 0 && gameService.addMoney(userId, def.getRewardCash())) {
             // Create reward transaction with positive amount (normalized model)
             billingService.createTransaction(userId, "Achievement: " + def.getTitle(),
                     def.getRewardCash(), "Reward", Transaction.TransactionType.REWARD);
@@ -0,0 +1,75 @@
+package onetoone.billing;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import onetoone.util.Money;
+import onetoone.util.MoneyCentsConverter;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Materialized per-user ledger aggregate maintained by BillingService.
+ *
+ * Follows the normalized transaction model (all amounts positive):
+ * - balance = sum(PURCHASE + FEE + INTEREST) - sum(PAYMENT + INCOME + REWARD) over ALL transactions
+ * - unbilledBalance = same signed sum, restricted to transactions where statement is NULL
+ * - unbilledSpend = sum of PURCHASE amounts where statement is NULL
+ *
+ * Values are held as fixed-point cents and stored unclamped; readers apply the same max(0, ...) rules as the ledger folds did.
+ * The row can always be rebuilt from the ledger (see BillingService.reconcileBalance).
+ */
+@Entity
+@Table(name = "account_balances")
+public class AccountBalance {
+
+    @Id
+    @Column(name = "user_id")
+    private Integer userId;
+
+    @Column(name = "balance", nullable = false)
+    @Convert(converter = MoneyCentsConverter.class)
+    private long balanceCents;
+
+    @Column(name = "unbilled_balance", nullable = false)
+    @Convert(converter = MoneyCentsConverter.class)
+    private long unbilledBalanceCents;
+
+    @Column(name = "unbilled_spend", nullable = false)
+    @Convert(converter = MoneyCentsConverter.class)
+    private long unbilledSpendCents;
+
+    @Column(name = "updated_at")
+    private OffsetDateTime updatedAt;
+
+    public AccountBalance() {}
+
+    public AccountBalance(Integer userId) {
+        this.userId = userId;
+        this.updatedAt = OffsetDateTime.now();
+    }
+
+    // Getters and Setters
+    public Integer getUserId() { return userId; }
+    public void setUserId(Integer userId) { this.userId = userId; }
+
+    public double getBalance() { return Money.fromCents(balanceCents); }
+    public void setBalance(double balance) { this.balanceCents = Money.toCents(balance); }
+    @JsonIgnore
+    public long getBalanceCents() { return balanceCents; }
+    public void setBalanceCents(long balanceCents) { this.balanceCents = balanceCents; }
+
+    public double getUnbilledBalance() { return Money.fromCents(unbilledBalanceCents); }
+    public void setUnbilledBalance(double unbilledBalance) { this.unbilledBalanceCents = Money.toCents(unbilledBalance); }
+    @JsonIgnore
+    public long getUnbilledBalanceCents() { return unbilledBalanceCents; }
+    public void setUnbilledBalanceCents(long unbilledBalanceCents) { this.unbilledBalanceCents = unbilledBalanceCents; }
+
+    public double getUnbilledSpend() { return Money.fromCents(unbilledSpendCents); }
+    public void setUnbilledSpend(double unbilledSpend) { this.unbilledSpendCents = Money.toCents(unbilledSpend); }
+    @JsonIgnore
+    public long getUnbilledSpendCents() { return unbilledSpendCents; }
+    public void setUnbilledSpendCents(long unbilledSpendCents) { this.unbilledSpendCents = unbilledSpendCents; }
+
+    public OffsetDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(OffsetDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,47 @@
+package onetoone.billing;
+
+import onetoone.Users.User;
+import onetoone.Users.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically rebuilds every user's AccountBalance from the transaction ledger.
+ * The aggregate is maintained incrementally by BillingService; this job repairs any
+ * drift from writes that bypassed it (manual DB edits, older app versions).
+ */
+@Component
+public class AccountBalanceReconciler {
+
+    private static final Logger log = LoggerFactory.getLogger(AccountBalanceReconciler.class);
+
+    private final BillingService billingService;
+    private final UserRepository userRepo;
+
+    public AccountBalanceReconciler(BillingService billingService, UserRepository userRepo) {
+        this.billingService = billingService;
+        this.userRepo = userRepo;
+    }
+
+    @Scheduled(cron = "${cycredit.billing.reconcile-cron:0 0 4 * * *}")
+    public void reconcileAll() {
+        long start = System.currentTimeMillis();
+        int reconciled = 0;
+        int failed = 0;
+
+        for (User user : userRepo.findAll()) {
+            try {
+                billingService.reconcileBalance(user.getId());
+                reconciled++;
+            } catch (Exception e) {
+                failed++;
+                log.warn("Balance reconciliation failed for userId={}: {}", user.getId(), e.getMessage());
+            }
+        }
+
+        log.info("Reconciled {} account balances ({} failed) in {} ms",
+                reconciled, failed, System.currentTimeMillis() - start);
+    }
+}
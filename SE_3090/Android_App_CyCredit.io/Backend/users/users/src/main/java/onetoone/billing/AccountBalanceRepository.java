@@ -0,0 +1,33 @@
+package onetoone.billing;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+public interface AccountBalanceRepository extends JpaRepository<AccountBalance, Integer> {
+
+    /**
+     * Load a user's aggregate with a row lock so concurrent postings for the
+     * same user are serialized and never lose updates.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM AccountBalance b WHERE b.userId = :userId")
+    Optional<AccountBalance> findForUpdate(@Param("userId") Integer userId);
+
+    /**
+     * Insert an empty row (updated_at NULL: not yet rebuilt from the ledger) to lock and fill in.
+     * Commits on its own, so a duplicate key from a concurrent first use fails only this insert.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Modifying
+    @Query(value = "INSERT INTO account_balances (user_id, balance, unbilled_balance, unbilled_spend) " +
+            "VALUES (:userId, 0, 0, 0)", nativeQuery = true)
+    int insertEmpty(@Param("userId") Integer userId);
+}
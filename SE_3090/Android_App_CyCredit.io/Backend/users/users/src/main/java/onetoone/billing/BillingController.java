@@ -5,11 +5,18 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import onetoone.game.GameService;
 import onetoone.util.ApiError;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 @CrossOrigin(origins = "*")
 @RestController
@@ -62,6 +69,87 @@ public class BillingController {
                     .body(new ApiError(ApiError.BAD_REQUEST, "List transactions error: " + e.getMessage()));
         }
     }
+    @Operation(
+            summary = "Page through a user's transactions",
+            description = "Returns one page of transactions, newest first, and a nextCursor for the following page " +
+                    "(null on the last page). Optional filters: type, category, and an ISO-8601 [from, to) time range. " +
+                    "Page size defaults to 50 (max 200)."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Page fetched successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor, type or date"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping("/transactions/page")
+    public ResponseEntity<?> page(@RequestParam int userId,
+                                  @RequestParam(required = false) String cursor,
+                                  @RequestParam(defaultValue = "50") int limit,
+                                  @RequestParam(required = false) String type,
+                                  @RequestParam(required = false) String category,
+                                  @RequestParam(required = false) String from,
+                                  @RequestParam(required = false) String to) {
+        try {
+            TransactionPage page = billing.listTransactionsPage(userId, cursor, limit,
+                    type != null && !type.isEmpty() ? Transaction.TransactionType.valueOf(type.toUpperCase()) : null,
+                    category != null && !category.isEmpty() ? category : null,
+                    from != null && !from.isEmpty() ? OffsetDateTime.parse(from) : null,
+                    to != null && !to.isEmpty() ? OffsetDateTime.parse(to) : null);
+            return ResponseEntity.ok(TransactionPageDTO.from(page));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ResponseEntity.badRequest()
+                    .body(new ApiError(ApiError.BAD_REQUEST, e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(new ApiError(ApiError.BAD_REQUEST, "List transactions error: " + e.getMessage()));
+        }
+    }
+    @Operation(
+            summary = "Export a user's full ledger",
+            description = "Streams every transaction of the user as NDJSON (one object per line) or CSV, oldest first, " +
+                    "with id, timestamp, type, amount, merchant, category and statementId. " +
+                    "Set gzip=true to receive a gzip-compressed file. Memory use is constant regardless of ledger size."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Export streamed successfully"),
+            @ApiResponse(responseCode = "400", description = "Unsupported format"),
+            @ApiResponse(responseCode = "404", description = "User not found"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping("/transactions/export")
+    public ResponseEntity<?> export(@RequestParam int userId,
+                                    @RequestParam(defaultValue = "ndjson") String format,
+                                    @RequestParam(defaultValue = "false") boolean gzip) {
+        TransactionExportFormat fmt;
+        try {
+            fmt = TransactionExportFormat.parse(format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(new ApiError(ApiError.BAD_REQUEST, e.getMessage()));
+        }
+        if (!billing.userExists(userId)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ApiError(ApiError.USER_NOT_FOUND, "User not found: " + userId));
+        }
+
+        // Runs after the handler returns; rows are written as they are read from the database
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream zipped = new GZIPOutputStream(out, 8192);
+                billing.exportTransactions(userId, fmt, zipped);
+                zipped.finish();
+            } else {
+                billing.exportTransactions(userId, fmt, out);
+            }
+            out.flush();
+        };
+
+        String filename = "transactions-" + userId + "." + fmt.getExtension() + (gzip ? ".gz" : "");
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .contentType(gzip ? MediaType.parseMediaType("application/gzip")
+                        : MediaType.parseMediaType(fmt.getContentType() + ";charset=UTF-8"))
+                .body(body);
+    }
     @Operation(
             summary = "Create a new transaction",
             description = "Adds a new transaction to the billing records for the given user."
@@ -137,6 +225,20 @@ public class BillingController {
         }
     }
 
+    public static class TransactionPageDTO {
+        public List<TransactionDTO> items;
+        public String nextCursor;
+        public boolean hasMore;
+
+        public static TransactionPageDTO from(TransactionPage page) {
+            var dto = new TransactionPageDTO();
+            dto.items = page.getItems().stream().map(TransactionDTO::from).collect(Collectors.toList());
+            dto.nextCursor = page.getNextCursor();
+            dto.hasMore = page.hasMore();
+            return dto;
+        }
+    }
+
     public static class TransactionDTO {
         public String merchant;
         public double amount;
@@ -5,12 +5,24 @@ import onetoone.Resource.ResourceRepository;
 import onetoone.Users.User;
 import onetoone.Users.UserRepository;
 import onetoone.util.Money;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * BillingService handles all transaction operations.
@@ -20,18 +32,38 @@ import java.util.List;
  * - Balance = sum(PURCHASE + FEE + INTEREST) - sum(PAYMENT + INCOME + REWARD)
  * - Purchases, fees, and interest increase balance (positive amounts)
  * - Payments, income, and rewards decrease balance (positive amounts)
+ *
+ * BALANCE AGGREGATE:
+ * - Every posting, edit, delete and statement link updates the user's AccountBalance row
+ *   in the same transaction, so balance reads never fold the ledger
+ * - A missing row is inserted empty and rebuilt from the ledger under its row lock on first use,
+ *   so concurrent first reads and postings build it once (see lockBalance)
+ * - Aggregate arithmetic is done in long cents (see Money), so postings allocate nothing
+ *
+ * STATEMENT AGGREGATES:
+ * - Each Statement carries frozen totals of its linked transactions (amount paid, payment
+ *   counts, first payment / on-time flag, interest and fees charged)
+ * - Postings onto a statement update them incrementally; bulk links, edits and deletes
+ *   rebuild them from that statement's rows only (see refreshStatementAggregates)
  */
 @Service
 public class BillingService {
 
+    static final int MAX_PAGE_SIZE = 200;
+
     private final TransactionRepository txRepo;
     private final UserRepository userRepo;
     private final ResourceRepository resourceRepo;
+    private final AccountBalanceRepository balanceRepo;
+    private final StatementRepository statementRepo;
 
-    public BillingService(TransactionRepository txRepo, UserRepository userRepo, ResourceRepository resourceRepo) {
+    public BillingService(TransactionRepository txRepo, UserRepository userRepo, ResourceRepository resourceRepo,
+                          AccountBalanceRepository balanceRepo, StatementRepository statementRepo) {
         this.txRepo = txRepo;
         this.userRepo = userRepo;
         this.resourceRepo = resourceRepo;
+        this.balanceRepo = balanceRepo;
+        this.statementRepo = statementRepo;
     }
 
     /**
@@ -43,41 +75,73 @@ public class BillingService {
      * This ensures monthlySpend represents "Current Unbilled Activity" and will
      * naturally reset to 0 once a statement is generated and transactions are linked.
      */
+    @Transactional
     public SummaryDTO getSummary(int userId) {
-        List<Transaction> txs = txRepo.findByUser_IdOrderByTimestampDesc(userId);
-        double balance = 0.0;
-        double monthlySpend = 0.0;
-
-        for (Transaction t : txs) {
-            // All amounts are positive, so we add charges and subtract credits
-            if (t.getType() == Transaction.TransactionType.PURCHASE ||
-                t.getType() == Transaction.TransactionType.INTEREST ||
-                t.getType() == Transaction.TransactionType.FEE) {
-                balance = Money.add(balance, t.getAmount());
-            } else if (t.getType() == Transaction.TransactionType.PAYMENT ||
-                       t.getType() == Transaction.TransactionType.INCOME ||
-                       t.getType() == Transaction.TransactionType.REWARD) {
-                balance = Money.subtract(balance, t.getAmount());
-            }
-
-            // Calculate monthly spend = UNBILLED purchases only (statement == null)
-            // This naturally resets when a statement is generated and transactions are linked
-            if (t.getType() == Transaction.TransactionType.PURCHASE &&
-                t.getStatement() == null) {
-                monthlySpend = Money.add(monthlySpend, t.getAmount());
-            }
-        }
+        AccountBalance agg = loadBalance(userId);
 
         Resource res = resourceRepo.findByUserId(userId);
         double creditLimit = res != null ? res.getCreditLimit() : 1500.0;
 
-        return new SummaryDTO(Money.round2(balance), Money.round2(monthlySpend), creditLimit);
+        return new SummaryDTO(Money.fromCents(agg.getBalanceCents()), Money.fromCents(agg.getUnbilledSpendCents()), creditLimit);
     }
 
     public List<Transaction> listTransactions(int userId) {
         return txRepo.findByUser_IdOrderByTimestampDesc(userId);
     }
 
+    public boolean userExists(int userId) {
+        return userRepo.existsById(userId);
+    }
+
+    /**
+     * Stream a user's whole ledger to out in the given format, returning the number of rows written.
+     * Rows go straight from the JDBC cursor to the writer, so memory use does not grow with the ledger.
+     * The caller owns out (and any gzip wrapper around it); it is flushed but not closed.
+     */
+    @Transactional(readOnly = true)
+    public long exportTransactions(int userId, TransactionExportFormat format, OutputStream out) throws IOException {
+        long count = 0;
+        try (Stream<TransactionExportRow> rows = txRepo.streamExportRows(userId);
+             TransactionExportWriter writer = TransactionExportWriter.open(format, out)) {
+            var it = rows.iterator();
+            while (it.hasNext()) {
+                writer.write(it.next());
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * One page of a user's transaction history, newest first, with optional filters (null = any).
+     * Keyset pagination on (timestamp, id): a page costs the same no matter how much history
+     * precedes it, and rows inserted meanwhile never shift or duplicate later pages.
+     *
+     * @param cursor nextCursor from the previous page, or null/empty for the first page
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public TransactionPage listTransactionsPage(int userId, String cursor, int limit,
+                                                Transaction.TransactionType type, String category,
+                                                OffsetDateTime from, OffsetDateTime to) {
+        int pageSize = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+        OffsetDateTime cursorTs = null;
+        Long cursorId = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            String[] parts = decodeCursor(cursor);
+            cursorTs = OffsetDateTime.ofInstant(Instant.parse(parts[0]), ZoneOffset.UTC);
+            cursorId = Long.parseLong(parts[1]);
+        }
+
+        // Read one extra row to know whether another page exists
+        List<Transaction> rows = txRepo.findPage(userId, cursorTs, cursorId, type, category, from, to,
+                PageRequest.of(0, pageSize + 1));
+        if (rows.size() <= pageSize) {
+            return new TransactionPage(rows, null);
+        }
+        List<Transaction> items = rows.subList(0, pageSize);
+        return new TransactionPage(items, encodeCursor(items.get(pageSize - 1)));
+    }
+
     /**
      * Apply a charge (purchase, fee, or interest).
      * Amount must be positive and will be stored as positive.
@@ -87,6 +151,7 @@ public class BillingService {
         applyCharge(userId, merchant, total, category, when, null);
     }
     
+    @Transactional
     public void applyCharge(int userId, String merchant, double total, String category, OffsetDateTime when, String purchaseNonce) {
         Money.validatePositive(total);
         
@@ -98,9 +163,12 @@ public class BillingService {
             throw new IllegalStateException("Resource not found for user " + userId);
         }
 
-        // Check if user has enough money or credit
-        double currentBalance = getCurrentBalance(userId);
-        if (res.getMoney() < total && (currentBalance + total) > res.getCreditLimit()) {
+        // Check if user has enough money or credit (row lock keeps concurrent charges from overdrawing)
+        AccountBalance agg = lockBalance(userId);
+        long totalCents = Money.toCents(total);
+        long currentBalanceCents = Math.max(0, agg.getBalanceCents());
+        if (res.getMoneyCents() < totalCents
+                && currentBalanceCents + totalCents > Money.toCents(res.getCreditLimit())) {
             throw new IllegalStateException("OUT_OF_CREDIT");
         }
 
@@ -109,15 +177,16 @@ public class BillingService {
         tx.setUser(user);
         tx.setMerchant(merchant);
         tx.setCategory(category != null ? category : "Purchase");
-        tx.setAmount(Money.round2(total)); // Store as positive
+        tx.setAmountCents(totalCents); // Store as positive
         tx.setType(Transaction.TransactionType.PURCHASE);
         tx.setTimestamp(when != null ? when : OffsetDateTime.now());
         tx.setPurchaseNonce(purchaseNonce); // Set nonce for idempotency
         txRepo.save(tx);
+        applyToBalance(agg, tx, 1);
 
         // Deduct from money if available, otherwise it goes to balance
-        if (res.getMoney() >= total) {
-            res.setMoney(Money.subtract(res.getMoney(), total));
+        if (res.getMoneyCents() >= totalCents) {
+            res.setMoneyCents(res.getMoneyCents() - totalCents);
             resourceRepo.save(res);
         }
         // If not enough money, the charge goes to the balance (credit)
@@ -139,7 +208,8 @@ public class BillingService {
         }
 
         // Check if user has enough money
-        if (res.getMoney() < amount) {
+        long amountCents = Money.toCents(amount);
+        if (res.getMoneyCents() < amountCents) {
             throw new IllegalStateException("INSUFFICIENT_FUNDS");
         }
 
@@ -148,70 +218,192 @@ public class BillingService {
         tx.setUser(user);
         tx.setMerchant("Statement Payment");
         tx.setCategory("Payment");
-        tx.setAmount(Money.round2(amount)); // Store as positive
+        tx.setAmountCents(amountCents); // Store as positive
         tx.setType(Transaction.TransactionType.PAYMENT);
         tx.setTimestamp(when != null ? when : OffsetDateTime.now());
-        txRepo.save(tx);
+        postTransaction(tx);
 
         // Deduct money
-        res.setMoney(Money.subtract(res.getMoney(), amount));
+        res.setMoneyCents(res.getMoneyCents() - amountCents);
         resourceRepo.save(res);
     }
 
     /**
      * Get current TOTAL balance for a user (all transactions, billed or unbilled).
      */
+    @Transactional
     public double getCurrentBalance(int userId) {
-        List<Transaction> txs = txRepo.findByUser_IdOrderByTimestampDesc(userId);
-        double balance = 0.0;
-        
-        for (Transaction tx : txs) {
-            if (tx.getType() == Transaction.TransactionType.PURCHASE ||
-                tx.getType() == Transaction.TransactionType.INTEREST ||
-                tx.getType() == Transaction.TransactionType.FEE) {
-                balance = Money.add(balance, tx.getAmount());
-            } else if (tx.getType() == Transaction.TransactionType.PAYMENT ||
-                       tx.getType() == Transaction.TransactionType.INCOME ||
-                       tx.getType() == Transaction.TransactionType.REWARD) {
-                balance = Money.subtract(balance, tx.getAmount());
-            }
-        }
-        
-        return Money.round2(Math.max(0, balance));
+        return Money.fromCents(Math.max(0, loadBalance(userId).getBalanceCents()));
     }
     
     /**
      * Get UNBILLED balance for a user (only transactions where statement == null).
      * This is what should appear on the next generated statement.
      */
+    @Transactional
     public double getUnbilledBalance(int userId) {
-        List<Transaction> txs = txRepo.findByUser_IdOrderByTimestampDesc(userId);
-        double balance = 0.0;
-        
+        return Money.fromCents(Math.max(0, loadBalance(userId).getUnbilledBalanceCents()));
+    }
+
+    /**
+     * Save a new transaction and post it to the user's balance aggregate.
+     * Use this instead of txRepo.save for any transaction created outside BillingService.
+     */
+    @Transactional
+    public Transaction postTransaction(Transaction tx) {
+        AccountBalance agg = lockBalance(tx.getUser().getId());
+        Transaction saved = txRepo.save(tx);
+        applyToBalance(agg, tx, 1);
+        if (tx.getStatement() != null) {
+            applyToStatement(tx.getStatement(), tx);
+        }
+        return saved;
+    }
+
+    /**
+     * Save and post a burst of new transactions in one go.
+     * Each user's aggregate is locked once and every row is saved before anything is flushed,
+     * so Hibernate sends the inserts as JDBC batches (pooled ids need no per-row round trip).
+     * @return the saved transactions, in input order
+     */
+    @Transactional
+    public List<Transaction> postTransactions(List<Transaction> txs) {
+        Map<Integer, AccountBalance> locked = new HashMap<>();
+        for (Transaction tx : txs) {
+            locked.computeIfAbsent(tx.getUser().getId(), this::lockBalance);
+        }
+
+        List<Transaction> saved = txRepo.saveAll(txs);
         for (Transaction tx : txs) {
-            // Only consider unbilled transactions
+            applyToBalance(locked.get(tx.getUser().getId()), tx, 1);
             if (tx.getStatement() != null) {
-                continue;
+                applyToStatement(tx.getStatement(), tx);
             }
-            
-            if (tx.getType() == Transaction.TransactionType.PURCHASE ||
-                tx.getType() == Transaction.TransactionType.INTEREST ||
-                tx.getType() == Transaction.TransactionType.FEE) {
-                balance = Money.add(balance, tx.getAmount());
-            } else if (tx.getType() == Transaction.TransactionType.PAYMENT ||
-                       tx.getType() == Transaction.TransactionType.INCOME ||
-                       tx.getType() == Transaction.TransactionType.REWARD) {
-                balance = Money.subtract(balance, tx.getAmount());
+        }
+        return saved;
+    }
+
+    /**
+     * Link every unbilled transaction in [from, to) to the statement with one set-based update,
+     * and move the linked amounts out of the unbilled aggregate. The statement must already be saved.
+     * @return number of transactions linked
+     */
+    @Transactional
+    public int linkUnbilledToStatement(int userId, Statement statement, OffsetDateTime from, OffsetDateTime to) {
+        AccountBalance agg = lockBalance(userId);
+        List<Object[]> unbilledTotals = txRepo.sumUnbilledByType(userId, from, to);
+        int linked = txRepo.linkUnbilledToStatement(statement, userId, from, to);
+
+        for (Object[] row : unbilledTotals) {
+            Transaction.TransactionType type = (Transaction.TransactionType) row[0];
+            long totalCents = ((Number) row[1]).longValue();
+            agg.setUnbilledBalanceCents(agg.getUnbilledBalanceCents() - signedCents(type, totalCents));
+            if (type == Transaction.TransactionType.PURCHASE) {
+                agg.setUnbilledSpendCents(agg.getUnbilledSpendCents() - totalCents);
             }
         }
-        
-        return Money.round2(Math.max(0, balance));
+        agg.setUpdatedAt(OffsetDateTime.now());
+        balanceRepo.save(agg);
+        refreshStatementAggregates(statement);
+        return linked;
+    }
+
+    /**
+     * Link ALL unbilled transactions to the statement with one set-based update.
+     * The unbilled aggregate drops to zero. The statement must already be saved.
+     * @return number of transactions linked
+     */
+    @Transactional
+    public int linkAllUnbilledToStatement(int userId, Statement statement) {
+        AccountBalance agg = lockBalance(userId);
+        int linked = txRepo.linkAllUnbilledToStatement(statement, userId);
+
+        agg.setUnbilledBalanceCents(0L);
+        agg.setUnbilledSpendCents(0L);
+        agg.setUpdatedAt(OffsetDateTime.now());
+        balanceRepo.save(agg);
+        refreshStatementAggregates(statement);
+        return linked;
+    }
+
+    /**
+     * Rebuild a statement's frozen aggregates from the transactions linked to it.
+     * Reads only that statement's rows (one grouped query), never the rest of the ledger.
+     * The given instance is updated in place and saved, so callers holding it see the new totals.
+     */
+    @Transactional
+    public Statement refreshStatementAggregates(Statement statement) {
+        long paid = 0L, interest = 0L, fees = 0L;
+        int payments = 0, onTime = 0;
+        OffsetDateTime firstPayment = null;
+
+        for (Object[] row : txRepo.aggregateByStatement(statement.getId(), statement.getDueDate())) {
+            Transaction.TransactionType type = (Transaction.TransactionType) row[0];
+            long totalCents = ((Number) row[2]).longValue();
+            if (type == Transaction.TransactionType.PAYMENT) {
+                paid = totalCents;
+                payments = ((Number) row[1]).intValue();
+                onTime = row[4] != null ? ((Number) row[4]).intValue() : 0;
+                firstPayment = (OffsetDateTime) row[3];
+            } else if (type == Transaction.TransactionType.INTEREST) {
+                interest = totalCents;
+            } else if (type == Transaction.TransactionType.FEE) {
+                fees = totalCents;
+            }
+        }
+
+        statement.setAmountPaidCents(paid);
+        statement.setOnTimePayments(onTime);
+        statement.setLatePayments(payments - onTime);
+        statement.setFirstPaymentAt(firstPayment);
+        statement.setPaidOnTime(statement.isOnTime(firstPayment));
+        statement.setInterestChargedCents(interest);
+        statement.setFeesChargedCents(fees);
+        statementRepo.save(statement);
+        return statement;
+    }
+
+    /**
+     * Rebuild a user's balance aggregate from the full ledger, under its row lock.
+     * Used by AccountBalanceReconciler; a user's first use builds the row through lockBalance.
+     */
+    @Transactional
+    public AccountBalance reconcileBalance(int userId) {
+        AccountBalance agg = lockRow(userId);
+        rebuild(agg);
+        return agg;
+    }
+
+    // Caller holds the row lock, so no posting for the user lands between the ledger read and the save
+    private void rebuild(AccountBalance agg) {
+        List<Transaction> txs = txRepo.findByUser_IdOrderByTimestampDesc(agg.getUserId());
+        long balance = 0L;
+        long unbilledBalance = 0L;
+        long unbilledSpend = 0L;
+
+        for (Transaction tx : txs) {
+            long signed = signedCents(tx);
+            balance += signed;
+            if (tx.getStatement() == null) {
+                unbilledBalance += signed;
+                if (tx.getType() == Transaction.TransactionType.PURCHASE) {
+                    unbilledSpend += tx.getAmountCents();
+                }
+            }
+        }
+
+        agg.setBalanceCents(balance);
+        agg.setUnbilledBalanceCents(unbilledBalance);
+        agg.setUnbilledSpendCents(unbilledSpend);
+        agg.setUpdatedAt(OffsetDateTime.now());
+        balanceRepo.save(agg);
     }
 
     /**
      * Create a transaction with normalized amount (always positive).
      * The type determines whether it increases or decreases balance.
      */
+    @Transactional
     public Transaction createTransaction(int userId, String merchant, double amount, String category) {
         return createTransaction(userId, merchant, amount, category, Transaction.TransactionType.PURCHASE);
     }
@@ -229,7 +421,10 @@ public class BillingService {
     /**
      * Create a transaction with normalized amount (always positive).
      * Converts negative amounts to positive (normalized model).
+     * Transactional itself: the aggregate lock in postTransaction needs a transaction even
+     * when the caller (e.g. a controller) has none.
      */
+    @Transactional
     public Transaction createTransaction(int userId, String merchant, double amount, String category, Transaction.TransactionType type) {
         // Normalize: convert negative to positive (all amounts stored as positive)
         double normalizedAmount = Math.abs(amount);
@@ -246,28 +441,165 @@ public class BillingService {
         tx.setType(type);
         tx.setTimestamp(OffsetDateTime.now());
 
-        return txRepo.save(tx);
+        return postTransaction(tx);
     }
 
+    @Transactional
     public Transaction updateTransaction(long id, String merchant, double amount, String category) {
         Money.validatePositive(amount);
         
         Transaction tx = txRepo.findById(id)
                 .orElseThrow(() -> new RuntimeException("Transaction not found: " + id));
 
+        AccountBalance agg = lockBalance(tx.getUser().getId());
+        applyToBalance(agg, tx, -1); // Reverse the old amount
+
         tx.setMerchant(merchant);
         tx.setAmount(Money.round2(amount)); // Always store as positive
         tx.setCategory(category);
         tx.setTimestamp(OffsetDateTime.now());
 
-        return txRepo.save(tx);
+        Transaction saved = txRepo.save(tx);
+        applyToBalance(agg, tx, 1);
+        if (tx.getStatement() != null) {
+            refreshStatementAggregates(tx.getStatement());
+        }
+        return saved;
     }
 
+    @Transactional
     public void deleteTransaction(long id) {
-        if (!txRepo.existsById(id)) {
-            throw new RuntimeException("Transaction not found: " + id);
+        Transaction tx = txRepo.findById(id)
+                .orElseThrow(() -> new RuntimeException("Transaction not found: " + id));
+
+        AccountBalance agg = lockBalance(tx.getUser().getId());
+        txRepo.delete(tx);
+        applyToBalance(agg, tx, -1);
+        if (tx.getStatement() != null) {
+            refreshStatementAggregates(tx.getStatement());
+        }
+    }
+
+    /**
+     * Signed contribution of a transaction to the balance, in cents:
+     * + for PURCHASE/INTEREST/FEE, - for PAYMENT/INCOME/REWARD.
+     */
+    private static long signedCents(Transaction tx) {
+        return signedCents(tx.getType(), tx.getAmountCents());
+    }
+
+    private static long signedCents(Transaction.TransactionType type, long cents) {
+        if (type == Transaction.TransactionType.PURCHASE ||
+            type == Transaction.TransactionType.INTEREST ||
+            type == Transaction.TransactionType.FEE) {
+            return cents;
+        } else if (type == Transaction.TransactionType.PAYMENT ||
+                   type == Transaction.TransactionType.INCOME ||
+                   type == Transaction.TransactionType.REWARD) {
+            return -cents;
+        }
+        return 0L;
+    }
+
+    /**
+     * Apply (sign = 1) or reverse (sign = -1) a transaction on a locked aggregate.
+     */
+    private void applyToBalance(AccountBalance agg, Transaction tx, int sign) {
+        long signed = sign * signedCents(tx);
+        agg.setBalanceCents(agg.getBalanceCents() + signed);
+        if (tx.getStatement() == null) {
+            agg.setUnbilledBalanceCents(agg.getUnbilledBalanceCents() + signed);
+            if (tx.getType() == Transaction.TransactionType.PURCHASE) {
+                agg.setUnbilledSpendCents(agg.getUnbilledSpendCents() + sign * tx.getAmountCents());
+            }
+        }
+        agg.setUpdatedAt(OffsetDateTime.now());
+        balanceRepo.save(agg);
+    }
+
+    /**
+     * Add a newly posted transaction to its statement's frozen aggregates (no ledger read).
+     */
+    private void applyToStatement(Statement statement, Transaction tx) {
+        Transaction.TransactionType type = tx.getType();
+        if (type == Transaction.TransactionType.PAYMENT) {
+            statement.setAmountPaidCents(statement.getAmountPaidCents() + tx.getAmountCents());
+            if (statement.isOnTime(tx.getTimestamp())) {
+                statement.setOnTimePayments(statement.getOnTimePayments() + 1);
+            } else {
+                statement.setLatePayments(statement.getLatePayments() + 1);
+            }
+            if (tx.getTimestamp() != null && (statement.getFirstPaymentAt() == null
+                    || tx.getTimestamp().isBefore(statement.getFirstPaymentAt()))) {
+                statement.setFirstPaymentAt(tx.getTimestamp());
+                statement.setPaidOnTime(statement.isOnTime(tx.getTimestamp()));
+            }
+        } else if (type == Transaction.TransactionType.INTEREST) {
+            statement.setInterestChargedCents(statement.getInterestChargedCents() + tx.getAmountCents());
+        } else if (type == Transaction.TransactionType.FEE) {
+            statement.setFeesChargedCents(statement.getFeesChargedCents() + tx.getAmountCents());
+        } else {
+            return;
+        }
+        statementRepo.save(statement);
+    }
+
+    /**
+     * Cursor = base64url("<timestamp instant>|<id>") of the last row on a page.
+     */
+    private static String encodeCursor(Transaction last) {
+        String raw = last.getTimestamp().toInstant() + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            Instant.parse(parts[0]);
+            Long.parseLong(parts[1]);
+            return parts;
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    /**
+     * Read-only view of the aggregate; only a user's first use locks, to build it from the ledger.
+     * Callers run in a transaction.
+     */
+    private AccountBalance loadBalance(int userId) {
+        Optional<AccountBalance> agg = balanceRepo.findById(userId);
+        return agg.isPresent() && agg.get().getUpdatedAt() != null ? agg.get() : lockBalance(userId);
+    }
+
+    /**
+     * Lock the aggregate row for update, building it from the ledger if this is the user's first use.
+     * Must be called BEFORE the new transaction is saved, so a first-time rebuild does not already include it.
+     */
+    private AccountBalance lockBalance(int userId) {
+        AccountBalance agg = lockRow(userId);
+        if (agg.getUpdatedAt() == null) {
+            rebuild(agg); // empty row: the first of any concurrent first uses fills it in
+        }
+        return agg;
+    }
+
+    // The user's row, locked; inserted empty first if it does not exist. The existence check does not
+    // lock, since a locking read of a missing row would block the separately committed insert (MySQL gap lock).
+    private AccountBalance lockRow(int userId) {
+        if (!balanceRepo.existsById(userId)) {
+            try {
+                balanceRepo.insertEmpty(userId);
+            } catch (DataIntegrityViolationException e) {
+                // A concurrent first use inserted it; the locking read below waits for that one to finish
+            }
         }
-        txRepo.deleteById(id);
+        return balanceRepo.findForUpdate(userId)
+                .orElseThrow(() -> new IllegalStateException("Balance row missing for user " + userId));
     }
 
     public static class SummaryDTO {
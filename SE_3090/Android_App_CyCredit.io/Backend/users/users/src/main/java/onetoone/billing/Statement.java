@@ -1,7 +1,10 @@
 package onetoone.billing;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import onetoone.Users.User;
+import onetoone.util.Money;
+import onetoone.util.MoneyCentsConverter;
 
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
@@ -37,17 +40,21 @@ public class Statement {
     @Column(name = "due_date")
     private LocalDate dueDate;
 
+    // Money totals are fixed-point cents
     @Column(name = "total_due")
-    private double totalDue;
+    @Convert(converter = MoneyCentsConverter.class)
+    private long totalDueCents;
 
     @Column(name = "minimum_due")
-    private double minimumDue;
+    @Convert(converter = MoneyCentsConverter.class)
+    private long minimumDueCents;
 
     @Column(name = "interest_rate")
     private double interestRate;
 
     @Column(name = "fees")
-    private double fees;
+    @Convert(converter = MoneyCentsConverter.class)
+    private long feesCents;
 
     @Enumerated(EnumType.STRING)
     @Column(name = "status")
@@ -56,6 +63,32 @@ public class Statement {
     @Column(name = "created_at")
     private OffsetDateTime createdAt;
 
+    // Frozen aggregates of the transactions linked to this statement, kept current by BillingService
+    // so credit-score history and summaries never rescan the ledger
+    @Column(name = "amount_paid", nullable = false)
+    @Convert(converter = MoneyCentsConverter.class)
+    private long amountPaidCents;
+
+    @Column(name = "on_time_payments", nullable = false)
+    private int onTimePayments;
+
+    @Column(name = "late_payments", nullable = false)
+    private int latePayments;
+
+    @Column(name = "first_payment_at")
+    private OffsetDateTime firstPaymentAt;
+
+    @Column(name = "paid_on_time", nullable = false)
+    private boolean paidOnTime;
+
+    @Column(name = "interest_charged", nullable = false)
+    @Convert(converter = MoneyCentsConverter.class)
+    private long interestChargedCents;
+
+    @Column(name = "fees_charged", nullable = false)
+    @Convert(converter = MoneyCentsConverter.class)
+    private long feesChargedCents;
+
     public Statement() {
         this.status = StatementStatus.OPEN;
         this.createdAt = OffsetDateTime.now();
@@ -83,22 +116,69 @@ public class Statement {
     public LocalDate getDueDate() { return dueDate; }
     public void setDueDate(LocalDate dueDate) { this.dueDate = dueDate; }
 
-    public double getTotalDue() { return totalDue; }
-    public void setTotalDue(double totalDue) { this.totalDue = totalDue; }
+    public double getTotalDue() { return Money.fromCents(totalDueCents); }
+    public void setTotalDue(double totalDue) { this.totalDueCents = Money.toCents(totalDue); }
+    @JsonIgnore
+    public long getTotalDueCents() { return totalDueCents; }
+    public void setTotalDueCents(long totalDueCents) { this.totalDueCents = totalDueCents; }
 
-    public double getMinimumDue() { return minimumDue; }
-    public void setMinimumDue(double minimumDue) { this.minimumDue = minimumDue; }
+    public double getMinimumDue() { return Money.fromCents(minimumDueCents); }
+    public void setMinimumDue(double minimumDue) { this.minimumDueCents = Money.toCents(minimumDue); }
+    @JsonIgnore
+    public long getMinimumDueCents() { return minimumDueCents; }
+    public void setMinimumDueCents(long minimumDueCents) { this.minimumDueCents = minimumDueCents; }
 
     public double getInterestRate() { return interestRate; }
     public void setInterestRate(double interestRate) { this.interestRate = interestRate; }
 
-    public double getFees() { return fees; }
-    public void setFees(double fees) { this.fees = fees; }
+    public double getFees() { return Money.fromCents(feesCents); }
+    public void setFees(double fees) { this.feesCents = Money.toCents(fees); }
+    @JsonIgnore
+    public long getFeesCents() { return feesCents; }
+    public void setFeesCents(long feesCents) { this.feesCents = feesCents; }
 
     public StatementStatus getStatus() { return status; }
     public void setStatus(StatementStatus status) { this.status = status; }
 
     public OffsetDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(OffsetDateTime createdAt) { this.createdAt = createdAt; }
+
+    public double getAmountPaid() { return Money.fromCents(amountPaidCents); }
+    @JsonIgnore
+    public long getAmountPaidCents() { return amountPaidCents; }
+    public void setAmountPaidCents(long amountPaidCents) { this.amountPaidCents = amountPaidCents; }
+
+    public int getOnTimePayments() { return onTimePayments; }
+    public void setOnTimePayments(int onTimePayments) { this.onTimePayments = onTimePayments; }
+
+    public int getLatePayments() { return latePayments; }
+    public void setLatePayments(int latePayments) { this.latePayments = latePayments; }
+
+    public OffsetDateTime getFirstPaymentAt() { return firstPaymentAt; }
+    public void setFirstPaymentAt(OffsetDateTime firstPaymentAt) { this.firstPaymentAt = firstPaymentAt; }
+
+    /**
+     * True if the first payment was made before the due date.
+     */
+    public boolean isPaidOnTime() { return paidOnTime; }
+    public void setPaidOnTime(boolean paidOnTime) { this.paidOnTime = paidOnTime; }
+
+    public double getInterestCharged() { return Money.fromCents(interestChargedCents); }
+    @JsonIgnore
+    public long getInterestChargedCents() { return interestChargedCents; }
+    public void setInterestChargedCents(long interestChargedCents) { this.interestChargedCents = interestChargedCents; }
+
+    public double getFeesCharged() { return Money.fromCents(feesChargedCents); }
+    @JsonIgnore
+    public long getFeesChargedCents() { return feesChargedCents; }
+    public void setFeesChargedCents(long feesChargedCents) { this.feesChargedCents = feesChargedCents; }
+
+    /**
+     * Whether a payment made at the given time counts as on time for this statement
+     * (made on a calendar day before the due date).
+     */
+    public boolean isOnTime(OffsetDateTime paidAt) {
+        return paidAt != null && dueDate != null && paidAt.toLocalDate().isBefore(dueDate);
+    }
 }
 
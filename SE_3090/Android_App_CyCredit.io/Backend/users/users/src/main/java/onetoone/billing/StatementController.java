@@ -4,6 +4,8 @@ import onetoone.Resource.Resource;
 import onetoone.Resource.ResourceRepository;
 import onetoone.Users.User;
 import onetoone.Users.UserRepository;
+import onetoone.events.DomainEventBus;
+import onetoone.events.StatementPaid;
 import onetoone.game.GameService;
 import onetoone.util.ApiError;
 import onetoone.util.Money;
@@ -30,18 +32,21 @@ public class StatementController {
     private final StatementService statementService;
     private final UserRepository userRepo;
     private final ResourceRepository resourceRepo;
-    private final TransactionRepository txRepo;
+    private final BillingService billingService;
     private final GameService gameService;
+    private final DomainEventBus eventBus;
 
     public StatementController(StatementRepository statementRepo, StatementService statementService,
                               UserRepository userRepo, ResourceRepository resourceRepo,
-                              TransactionRepository txRepo, GameService gameService) {
+                              BillingService billingService, GameService gameService,
+                              DomainEventBus eventBus) {
         this.statementRepo = statementRepo;
         this.statementService = statementService;
         this.userRepo = userRepo;
         this.resourceRepo = resourceRepo;
-        this.txRepo = txRepo;
+        this.billingService = billingService;
         this.gameService = gameService;
+        this.eventBus = eventBus;
     }
 
     @GetMapping("/current")
@@ -164,7 +169,7 @@ public class StatementController {
             paymentTx.setType(Transaction.TransactionType.PAYMENT);
             paymentTx.setTimestamp(OffsetDateTime.now());
             paymentTx.setStatement(statement);
-            txRepo.save(paymentTx);
+            billingService.postTransaction(paymentTx);
 
             // Deduct money using Money utility
             res.setMoney(Money.subtract(res.getMoney(), amount));
@@ -182,6 +187,8 @@ public class StatementController {
                 // Status remains OPEN or OVERDUE
             }
             statementRepo.save(statement);
+            eventBus.publish(new StatementPaid(userId, statement.getId(), Money.round2(amount),
+                    statement.getStatus() == Statement.StatementStatus.PAID));
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -212,6 +219,8 @@ public class StatementController {
         dto.put("interestRate", statement.getInterestRate());
         dto.put("fees", statement.getFees());
         dto.put("status", statement.getStatus().toString());
+        dto.put("amountPaid", statement.getAmountPaid());
+        dto.put("paidOnTime", statement.isPaidOnTime());
         return dto;
     }
 }
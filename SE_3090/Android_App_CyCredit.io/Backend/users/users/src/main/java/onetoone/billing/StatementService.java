@@ -25,14 +25,12 @@ public class StatementService {
 
     private final StatementRepository statementRepo;
     private final UserRepository userRepo;
-    private final TransactionRepository txRepo;
     private final BillingService billingService;
 
     public StatementService(StatementRepository statementRepo, UserRepository userRepo,
-                           TransactionRepository txRepo, BillingService billingService) {
+                           BillingService billingService) {
         this.statementRepo = statementRepo;
         this.userRepo = userRepo;
-        this.txRepo = txRepo;
         this.billingService = billingService;
     }
 
@@ -139,22 +137,12 @@ public class StatementService {
     }
     
     /**
-     * Link all unbilled transactions to the given statement.
+     * Link all unbilled transactions to the given statement (single set-based update).
      */
     private void linkUnbilledTransactions(int userId, Statement statement) {
-        List<Transaction> transactions = txRepo.findByUser_IdOrderByTimestampDesc(userId);
-        int linked = 0;
-        
-        for (Transaction tx : transactions) {
-            if (tx.getStatement() == null) {
-                tx.setStatement(statement);
-                txRepo.save(tx);
-                linked++;
-            }
-        }
+        int linked = billingService.linkAllUnbilledToStatement(userId, statement);
         
         log.debug("Linked {} unbilled transactions to statement {} for userId={}", 
                 linked, statement.getId(), userId);
     }
 }
-
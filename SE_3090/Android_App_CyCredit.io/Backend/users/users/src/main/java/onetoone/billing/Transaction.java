@@ -1,10 +1,13 @@
 
 package onetoone.billing;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.time.OffsetDateTime;
 
 import onetoone.Users.User;
+import onetoone.util.Money;
+import onetoone.util.MoneyCentsConverter;
 
 @Entity
 @Table(name = "transactions")
@@ -14,14 +17,17 @@ public class Transaction {
         PURCHASE, PAYMENT, INCOME, INTEREST, FEE, REWARD
     }
 
+ // Pooled sequence: ids are reserved 50 at a time, so inserts can be JDBC-batched
  @Id
- @GeneratedValue(strategy = GenerationType.IDENTITY)
+ @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactions_seq")
+ @SequenceGenerator(name = "transactions_seq", sequenceName = "transactions_seq", allocationSize = 50)
  private Long id;
 
  @Column
  private String merchant;
- @Column
- private double amount;
+ @Column(name = "amount")
+ @Convert(converter = MoneyCentsConverter.class)
+ private long amountCents; // Fixed-point cents
      @Column
      private String category;
  @Column
@@ -47,7 +53,7 @@ public class Transaction {
  public Transaction(User user, String merchant, double amount, String category, OffsetDateTime timestamp) {
  this.user = user;
  this.merchant = merchant;
- this.amount = amount;
+ this.amountCents = Money.toCents(amount);
  this.category = category;
  this.timestamp = timestamp;
  this.type = TransactionType.PURCHASE; // Default
@@ -56,7 +62,7 @@ public class Transaction {
  public Transaction(User user, String merchant, double amount, String category, OffsetDateTime timestamp, TransactionType type) {
  this.user = user;
  this.merchant = merchant;
- this.amount = amount;
+ this.amountCents = Money.toCents(amount);
  this.category = category;
  this.timestamp = timestamp;
  this.type = type;
@@ -64,14 +70,17 @@ public class Transaction {
 
  public Long getId() { return id; }
  public String getMerchant() { return merchant; }
- public double getAmount() { return amount; }
+ public double getAmount() { return Money.fromCents(amountCents); }
+ @JsonIgnore
+ public long getAmountCents() { return amountCents; }
  public String getCategory() { return category; }
  public OffsetDateTime getTimestamp() { return timestamp; }
  public User getUser() { return user; }
 
  public void setUser(User user) { this.user = user; }
  public void setMerchant(String merchant) { this.merchant = merchant; }
- public void setAmount(double amount) { this.amount = amount; }
+ public void setAmount(double amount) { this.amountCents = Money.toCents(amount); }
+ public void setAmountCents(long amountCents) { this.amountCents = amountCents; }
  public void setCategory(String category) { this.category = category; }
  public void setTimestamp(OffsetDateTime timestamp) { this.timestamp = timestamp; }
  public TransactionType getType() { return type; }
@@ -0,0 +1,32 @@
+package onetoone.billing;
+
+/**
+ * Output formats for the ledger export.
+ */
+public enum TransactionExportFormat {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String extension;
+
+    TransactionExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() { return contentType; }
+    public String getExtension() { return extension; }
+
+    /**
+     * Parse a request parameter (case-insensitive), rejecting unknown formats.
+     */
+    public static TransactionExportFormat parse(String value) {
+        for (TransactionExportFormat f : values()) {
+            if (f.name().equalsIgnoreCase(value)) {
+                return f;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported export format: " + value + " (use ndjson or csv)");
+    }
+}
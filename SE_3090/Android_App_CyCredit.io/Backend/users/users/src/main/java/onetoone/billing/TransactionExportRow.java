@@ -0,0 +1,37 @@
+package onetoone.billing;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Flat, unmanaged projection of one ledger row for export.
+ * Streaming these instead of Transaction entities keeps the persistence context empty,
+ * so memory stays constant however long the ledger is.
+ */
+public class TransactionExportRow {
+    private final Long id;
+    private final OffsetDateTime timestamp;
+    private final Transaction.TransactionType type;
+    private final String merchant;
+    private final String category;
+    private final long amountCents;
+    private final Long statementId;
+
+    public TransactionExportRow(Long id, OffsetDateTime timestamp, Transaction.TransactionType type,
+                                String merchant, String category, Long amountCents, Long statementId) {
+        this.id = id;
+        this.timestamp = timestamp;
+        this.type = type;
+        this.merchant = merchant;
+        this.category = category;
+        this.amountCents = amountCents != null ? amountCents : 0L;
+        this.statementId = statementId;
+    }
+
+    public Long getId() { return id; }
+    public OffsetDateTime getTimestamp() { return timestamp; }
+    public Transaction.TransactionType getType() { return type; }
+    public String getMerchant() { return merchant; }
+    public String getCategory() { return category; }
+    public long getAmountCents() { return amountCents; }
+    public Long getStatementId() { return statementId; }
+}
@@ -0,0 +1,133 @@
+package onetoone.billing;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes export rows one at a time to an output stream; nothing is buffered beyond the writer's own buffer.
+ *
+ * Both formats carry the same columns:
+ * id, timestamp, type, amount, merchant, category, statementId
+ * Amounts follow the normalized model in BillingService: always positive, with the type
+ * deciding whether the row adds to (PURCHASE, FEE, INTEREST) or subtracts from (PAYMENT, INCOME, REWARD) the balance.
+ * Amounts are written as exact 2-place decimals; statementId is empty/null for unbilled rows.
+ */
+abstract class TransactionExportWriter implements AutoCloseable {
+
+    static final String[] COLUMNS = {"id", "timestamp", "type", "amount", "merchant", "category", "statementId"};
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    static TransactionExportWriter open(TransactionExportFormat format, OutputStream out) throws IOException {
+        return format == TransactionExportFormat.CSV ? new Csv(out) : new Ndjson(out);
+    }
+
+    abstract void write(TransactionExportRow row) throws IOException;
+
+    @Override
+    public abstract void close() throws IOException;
+
+    static BigDecimal amount(TransactionExportRow row) {
+        return BigDecimal.valueOf(row.getAmountCents(), 2);
+    }
+
+    private static final class Ndjson extends TransactionExportWriter {
+        private final JsonGenerator gen;
+
+        Ndjson(OutputStream out) throws IOException {
+            // The caller owns the stream (it may still need to finish a gzip trailer)
+            this.gen = JSON_FACTORY.createGenerator(out)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Rows are separated by the explicit '\n', not Jackson's default root separator (a space)
+            gen.setRootValueSeparator(null);
+        }
+
+        @Override
+        void write(TransactionExportRow row) throws IOException {
+            gen.writeStartObject();
+            gen.writeNumberField("id", row.getId());
+            gen.writeStringField("timestamp", row.getTimestamp() != null ? row.getTimestamp().toString() : null);
+            gen.writeStringField("type", row.getType() != null ? row.getType().name() : null);
+            gen.writeNumberField("amount", amount(row));
+            gen.writeStringField("merchant", row.getMerchant());
+            gen.writeStringField("category", row.getCategory());
+            if (row.getStatementId() != null) {
+                gen.writeNumberField("statementId", row.getStatementId());
+            } else {
+                gen.writeNullField("statementId");
+            }
+            gen.writeEndObject();
+            gen.writeRaw('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            gen.close();
+        }
+    }
+
+    private static final class Csv extends TransactionExportWriter {
+        private final Writer w;
+
+        Csv(OutputStream out) throws IOException {
+            this.w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            w.write(String.join(",", COLUMNS));
+            w.write("\r\n");
+        }
+
+        @Override
+        void write(TransactionExportRow row) throws IOException {
+            w.write(String.valueOf(row.getId()));
+            w.write(',');
+            field(row.getTimestamp() != null ? row.getTimestamp().toString() : null);
+            w.write(',');
+            field(row.getType() != null ? row.getType().name() : null);
+            w.write(',');
+            w.write(amount(row).toPlainString());
+            w.write(',');
+            field(row.getMerchant());
+            w.write(',');
+            field(row.getCategory());
+            w.write(',');
+            if (row.getStatementId() != null) {
+                w.write(String.valueOf(row.getStatementId()));
+            }
+            w.write("\r\n");
+        }
+
+        /**
+         * RFC 4180 quoting: only fields containing a delimiter, quote or line break are quoted.
+         */
+        private void field(String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                w.write(value);
+                return;
+            }
+            w.write('"');
+            w.write(value.replace("\"", "\"\""));
+            w.write('"');
+        }
+
+        @Override
+        public void close() throws IOException {
+            // Flush only; the caller owns the underlying stream
+            w.flush();
+        }
+    }
+}
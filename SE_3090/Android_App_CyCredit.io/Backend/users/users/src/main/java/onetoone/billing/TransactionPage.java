@@ -0,0 +1,20 @@
+package onetoone.billing;
+
+import java.util.List;
+
+/**
+ * One page of transaction history plus the opaque cursor for the next page (null on the last page).
+ */
+public class TransactionPage {
+    private final List<Transaction> items;
+    private final String nextCursor;
+
+    public TransactionPage(List<Transaction> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Transaction> getItems() { return items; }
+    public String getNextCursor() { return nextCursor; }
+    public boolean hasMore() { return nextCursor != null; }
+}
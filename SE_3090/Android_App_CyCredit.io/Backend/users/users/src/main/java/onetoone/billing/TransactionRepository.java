@@ -1,9 +1,112 @@
 package onetoone.billing;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
+
+ // One row's amount as whole cents, for exact integer SUMs over the decimal-dollar column
+ String AMOUNT_CENTS = "CAST(ROUND(CAST(t.amountCents AS Double) * 100, 0) AS Long)";
+
  List<Transaction> findByUser_IdOrderByTimestampDesc(Integer userId);
  java.util.Optional<Transaction> findByPurchaseNonce(String purchaseNonce);
-}
\ No newline at end of file
+
+ /**
+  * One keyset page of a user's history, newest first by (timestamp, id).
+  * Reads only rows after the cursor (null cursor = first page), so a page never scans the
+  * history before it. Filters are optional (null = any); bound the read with PageRequest.of(0, n).
+  * Rows without a timestamp have no keyset position and are not paged.
+  */
+ @Query("SELECT t FROM Transaction t WHERE t.user.id = :userId AND t.timestamp IS NOT NULL " +
+        "AND (:cursorTs IS NULL OR t.timestamp < :cursorTs OR (t.timestamp = :cursorTs AND t.id < :cursorId)) " +
+        "AND (:type IS NULL OR t.type = :type) " +
+        "AND (:category IS NULL OR t.category = :category) " +
+        "AND (:from IS NULL OR t.timestamp >= :from) " +
+        "AND (:to IS NULL OR t.timestamp < :to) " +
+        "ORDER BY t.timestamp DESC, t.id DESC")
+ List<Transaction> findPage(@Param("userId") Integer userId,
+                            @Param("cursorTs") OffsetDateTime cursorTs,
+                            @Param("cursorId") Long cursorId,
+                            @Param("type") Transaction.TransactionType type,
+                            @Param("category") String category,
+                            @Param("from") OffsetDateTime from,
+                            @Param("to") OffsetDateTime to,
+                            Pageable page);
+
+ /**
+  * Every transaction of a user as unmanaged export rows, oldest first by id.
+  * Rows are read through a JDBC cursor in fetch-size chunks (MySQL needs useCursorFetch=true
+  * on the connection URL for this), so the caller must consume the stream inside a transaction and close it.
+  */
+ @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+ @Query("SELECT new onetoone.billing.TransactionExportRow(t.id, t.timestamp, t.type, t.merchant, t.category, " +
+        "t.amountCents, t.statement.id) FROM Transaction t WHERE t.user.id = :userId ORDER BY t.id")
+ Stream<TransactionExportRow> streamExportRows(@Param("userId") Integer userId);
+
+ /**
+  * Ledger slice needed to close a month: the user's transactions in [from, to).
+  * Statement-linked activity (payments, interest, fees) is read from Statement's frozen aggregates instead.
+  */
+ @Query("SELECT t FROM Transaction t WHERE t.user.id = :userId " +
+        "AND t.timestamp >= :from AND t.timestamp < :to ORDER BY t.timestamp DESC")
+ List<Transaction> findMonthEndSlice(@Param("userId") Integer userId,
+                                     @Param("from") OffsetDateTime from,
+                                     @Param("to") OffsetDateTime to);
+ 
+ /**
+  * Per-type totals of the unbilled transactions in [from, to), as (TransactionType, Long cents) rows.
+  * Used to move exactly the linked amounts out of the unbilled balance aggregate.
+  * The column holds decimal dollars, so each row is rounded to whole cents before the integer SUM;
+  * a plain SUM of the converted Long attribute would add dollars and truncate them.
+  */
+ @Query("SELECT t.type, COALESCE(SUM(" + AMOUNT_CENTS + "), 0) FROM Transaction t WHERE t.user.id = :userId " +
+        "AND t.statement IS NULL AND t.timestamp >= :from AND t.timestamp < :to GROUP BY t.type")
+ List<Object[]> sumUnbilledByType(@Param("userId") Integer userId,
+                                  @Param("from") OffsetDateTime from,
+                                  @Param("to") OffsetDateTime to);
+
+ /**
+  * Per-type aggregates of the transactions linked to one statement, as
+  * (TransactionType, Long count, Long cents, OffsetDateTime first timestamp, Long on-time count) rows.
+  * A row is on time if it was made on a day before dueDate (see Statement.isOnTime).
+  * Used to rebuild Statement's frozen aggregates after bulk links, edits and deletes.
+  */
+ @Query("SELECT t.type, COUNT(t), COALESCE(SUM(" + AMOUNT_CENTS + "), 0), MIN(t.timestamp), " +
+        "SUM(CASE WHEN CAST(t.timestamp AS LocalDate) < :dueDate THEN 1 ELSE 0 END) " +
+        "FROM Transaction t WHERE t.statement.id = :statementId GROUP BY t.type")
+ List<Object[]> aggregateByStatement(@Param("statementId") Long statementId,
+                                     @Param("dueDate") LocalDate dueDate);
+
+ /**
+  * Link every unbilled transaction in [from, to) to the statement in one set-based UPDATE.
+  * Flushes pending changes first and clears the persistence context afterwards so no
+  * managed Transaction keeps a stale statement reference. Returns the number linked.
+  */
+ @Modifying(flushAutomatically = true, clearAutomatically = true)
+ @Query("UPDATE Transaction t SET t.statement = :statement WHERE t.user.id = :userId " +
+        "AND t.statement IS NULL AND t.timestamp >= :from AND t.timestamp < :to")
+ int linkUnbilledToStatement(@Param("statement") Statement statement,
+                             @Param("userId") Integer userId,
+                             @Param("from") OffsetDateTime from,
+                             @Param("to") OffsetDateTime to);
+
+ /**
+  * Link ALL of a user's unbilled transactions to the statement in one set-based UPDATE.
+  * Same flush/clear behavior as linkUnbilledToStatement. Returns the number linked.
+  */
+ @Modifying(flushAutomatically = true, clearAutomatically = true)
+ @Query("UPDATE Transaction t SET t.statement = :statement WHERE t.user.id = :userId AND t.statement IS NULL")
+ int linkAllUnbilledToStatement(@Param("statement") Statement statement,
+                                @Param("userId") Integer userId);
+}
@@ -43,6 +43,49 @@ public class GameConfig {
     // Wellness settings
     private double wellnessRewardMoney = 10.0;
     
+    // In-memory /game/state cache (write-through; TTL only bounds staleness from writes that bypass JPA)
+    private int gameStateCacheMaxSize = 10000;
+    private long gameStateCacheTtlSeconds = 60;
+    
+    // Class-wide month-end batch (users per id-range partition, users per commit, concurrent partitions)
+    private int monthEndPartitionSize = 500;
+    private int monthEndChunkSize = 25;
+    private int monthEndParallelism = 4;
+    
+    // Async domain event bus (worker lanes, bounded queue per lane, max wait for queue space after commit)
+    private int eventBusLanes = 4;
+    private int eventBusQueueCapacity = 1000;
+    private long eventBusPublishTimeoutMs = 100;
+
+    // WebSocket outbound queues (per session; slow sessions are evicted past the byte or send-time limit)
+    private int wsSenderThreads = 4;
+    private int wsSendQueueCapacity = 256;
+    private int wsBufferSizeLimitBytes = 512 * 1024;
+    private long wsSendTimeLimitMs = 5000;
+
+    // Daily/weekly leaderboards (bucket time zone, closed buckets kept, rows kept per closed bucket)
+    private String leaderboardZone = "America/Chicago";
+    private int leaderboardDailyRetention = 14;
+    private int leaderboardWeeklyRetention = 8;
+    private int leaderboardArchiveTop = 100;
+
+    // Multi-node: the one node that persists leaderboard scores and ticks the leaderboard topics
+    private boolean leaderboardOwner = true;
+
+    // Chat write-behind (flush interval, messages per batch, queued messages before senders wait)
+    private long chatFlushMs = 200;
+    private int chatFlushBatchSize = 100;
+    private int chatWriteQueueCapacity = 10000;
+
+    // Chat history cache (messages kept per room, idle time before a room is evicted, rooms kept)
+    private int chatHistoryBufferSize = 200;
+    private long chatHistoryIdleMs = 10 * 60 * 1000;
+    private int chatHistoryMaxRooms = 5000;
+    // Most missed messages replayed to a reconnecting chat client (keep below the history buffer size)
+    private int chatReplayMax = 100;
+    // Multi-node: the one node that numbers and saves chat messages
+    private boolean chatOwner = true;
+    
     // Getters and Setters
     public int getMaxTurnsPerMonth() { return maxTurnsPerMonth; }
     public void setMaxTurnsPerMonth(int maxTurnsPerMonth) { this.maxTurnsPerMonth = maxTurnsPerMonth; }
@@ -100,5 +143,79 @@ public class GameConfig {
     
     public double getWellnessRewardMoney() { return wellnessRewardMoney; }
     public void setWellnessRewardMoney(double wellnessRewardMoney) { this.wellnessRewardMoney = wellnessRewardMoney; }
-}
+    
+    public int getGameStateCacheMaxSize() { return gameStateCacheMaxSize; }
+    public void setGameStateCacheMaxSize(int gameStateCacheMaxSize) { this.gameStateCacheMaxSize = gameStateCacheMaxSize; }
+    
+    public long getGameStateCacheTtlSeconds() { return gameStateCacheTtlSeconds; }
+    public void setGameStateCacheTtlSeconds(long gameStateCacheTtlSeconds) { this.gameStateCacheTtlSeconds = gameStateCacheTtlSeconds; }
+    
+    public int getMonthEndPartitionSize() { return monthEndPartitionSize; }
+    public void setMonthEndPartitionSize(int monthEndPartitionSize) { this.monthEndPartitionSize = monthEndPartitionSize; }
+    
+    public int getMonthEndChunkSize() { return monthEndChunkSize; }
+    public void setMonthEndChunkSize(int monthEndChunkSize) { this.monthEndChunkSize = monthEndChunkSize; }
+    
+    public int getMonthEndParallelism() { return monthEndParallelism; }
+    public void setMonthEndParallelism(int monthEndParallelism) { this.monthEndParallelism = monthEndParallelism; }
+    
+    public int getEventBusLanes() { return eventBusLanes; }
+    public void setEventBusLanes(int eventBusLanes) { this.eventBusLanes = eventBusLanes; }
+    
+    public int getEventBusQueueCapacity() { return eventBusQueueCapacity; }
+    public void setEventBusQueueCapacity(int eventBusQueueCapacity) { this.eventBusQueueCapacity = eventBusQueueCapacity; }
+    
+    public long getEventBusPublishTimeoutMs() { return eventBusPublishTimeoutMs; }
+    public void setEventBusPublishTimeoutMs(long eventBusPublishTimeoutMs) { this.eventBusPublishTimeoutMs = eventBusPublishTimeoutMs; }
+    
+    public int getWsSenderThreads() { return wsSenderThreads; }
+    public void setWsSenderThreads(int wsSenderThreads) { this.wsSenderThreads = wsSenderThreads; }
+    
+    public int getWsSendQueueCapacity() { return wsSendQueueCapacity; }
+    public void setWsSendQueueCapacity(int wsSendQueueCapacity) { this.wsSendQueueCapacity = wsSendQueueCapacity; }
+    
+    public int getWsBufferSizeLimitBytes() { return wsBufferSizeLimitBytes; }
+    public void setWsBufferSizeLimitBytes(int wsBufferSizeLimitBytes) { this.wsBufferSizeLimitBytes = wsBufferSizeLimitBytes; }
+    
+    public long getWsSendTimeLimitMs() { return wsSendTimeLimitMs; }
+    public void setWsSendTimeLimitMs(long wsSendTimeLimitMs) { this.wsSendTimeLimitMs = wsSendTimeLimitMs; }
+    
+    public String getLeaderboardZone() { return leaderboardZone; }
+    public void setLeaderboardZone(String leaderboardZone) { this.leaderboardZone = leaderboardZone; }
+    
+    public int getLeaderboardDailyRetention() { return leaderboardDailyRetention; }
+    public void setLeaderboardDailyRetention(int leaderboardDailyRetention) { this.leaderboardDailyRetention = leaderboardDailyRetention; }
+    
+    public int getLeaderboardWeeklyRetention() { return leaderboardWeeklyRetention; }
+    public void setLeaderboardWeeklyRetention(int leaderboardWeeklyRetention) { this.leaderboardWeeklyRetention = leaderboardWeeklyRetention; }
+    
+    public int getLeaderboardArchiveTop() { return leaderboardArchiveTop; }
+    public void setLeaderboardArchiveTop(int leaderboardArchiveTop) { this.leaderboardArchiveTop = leaderboardArchiveTop; }
+
+    public boolean isLeaderboardOwner() { return leaderboardOwner; }
+    public void setLeaderboardOwner(boolean leaderboardOwner) { this.leaderboardOwner = leaderboardOwner; }
+    
+    public long getChatFlushMs() { return chatFlushMs; }
+    public void setChatFlushMs(long chatFlushMs) { this.chatFlushMs = chatFlushMs; }
+    
+    public int getChatFlushBatchSize() { return chatFlushBatchSize; }
+    public void setChatFlushBatchSize(int chatFlushBatchSize) { this.chatFlushBatchSize = chatFlushBatchSize; }
+    
+    public int getChatWriteQueueCapacity() { return chatWriteQueueCapacity; }
+    public void setChatWriteQueueCapacity(int chatWriteQueueCapacity) { this.chatWriteQueueCapacity = chatWriteQueueCapacity; }
+    
+    public int getChatHistoryBufferSize() { return chatHistoryBufferSize; }
+    public void setChatHistoryBufferSize(int chatHistoryBufferSize) { this.chatHistoryBufferSize = chatHistoryBufferSize; }
+    
+    public long getChatHistoryIdleMs() { return chatHistoryIdleMs; }
+    public void setChatHistoryIdleMs(long chatHistoryIdleMs) { this.chatHistoryIdleMs = chatHistoryIdleMs; }
+    
+    public int getChatHistoryMaxRooms() { return chatHistoryMaxRooms; }
+    public void setChatHistoryMaxRooms(int chatHistoryMaxRooms) { this.chatHistoryMaxRooms = chatHistoryMaxRooms; }
+    
+    public int getChatReplayMax() { return chatReplayMax; }
+    public void setChatReplayMax(int chatReplayMax) { this.chatReplayMax = chatReplayMax; }
 
+    public boolean isChatOwner() { return chatOwner; }
+    public void setChatOwner(boolean chatOwner) { this.chatOwner = chatOwner; }
+}
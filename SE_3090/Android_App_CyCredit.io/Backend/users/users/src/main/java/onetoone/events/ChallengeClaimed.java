@@ -0,0 +1,7 @@
+package onetoone.events;
+
+/**
+ * The reward of a completed wellness challenge was paid out.
+ */
+public record ChallengeClaimed(int userId, Long enrollmentId, Long challengeId, double rewardCash) implements DomainEvent {
+}
@@ -0,0 +1,7 @@
+package onetoone.events;
+
+/**
+ * A wellness challenge reached its target count (reward not claimed yet).
+ */
+public record ChallengeCompleted(int userId, Long enrollmentId, Long challengeId) implements DomainEvent {
+}
@@ -0,0 +1,10 @@
+package onetoone.events;
+
+/**
+ * Something that happened in the game and has been committed. Published through DomainEventBus;
+ * events of the same user are delivered to subscribers in publish order.
+ */
+public interface DomainEvent {
+
+    int userId();
+}
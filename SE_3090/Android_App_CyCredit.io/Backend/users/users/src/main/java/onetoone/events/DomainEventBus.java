@@ -0,0 +1,262 @@
+package onetoone.events;
+
+import onetoone.config.GameConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * In-process asynchronous event bus. Events published inside a transaction are enqueued only once it
+ * commits (a rolled-back request publishes nothing); outside a transaction they are enqueued immediately.
+ *
+ * Each user hashes to one lane - a bounded queue drained by a single worker thread - so a user's events
+ * are handled in order while different users proceed in parallel. When a lane is full the publisher waits
+ * up to publishTimeoutMs for space, then the event is dropped and counted (the request has already
+ * committed, so it must not fail because of a slow subscriber).
+ */
+@Component
+public class DomainEventBus {
+
+    private static final Logger log = LoggerFactory.getLogger(DomainEventBus.class);
+    private static final long SHUTDOWN_DRAIN_MS = 5000;
+
+    private final Supplier<List<DomainEventSubscriber>> subscriberSource;
+    private volatile List<DomainEventSubscriber> subscribers;
+    private final TransactionOperations tx;
+    private final Lane[] lanes;
+    private final int queueCapacity;
+    private final long publishTimeoutMs;
+    private volatile boolean running = true;
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder lagNanosTotal = new LongAdder();
+    private final AtomicLong lagNanosMax = new AtomicLong();
+
+    private static final class Envelope {
+        final DomainEvent event;
+        final long enqueuedAt;
+
+        Envelope(DomainEvent event, long enqueuedAt) {
+            this.event = event;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+
+    private final class Lane implements Runnable {
+        final BlockingQueue<Envelope> queue;
+        // Queued plus in flight, so awaitIdle does not return while an event is being handled
+        final AtomicInteger pending = new AtomicInteger();
+        final Thread worker;
+
+        Lane(int index) {
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            this.worker = new Thread(this, "domain-events-" + index);
+            this.worker.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (running || !queue.isEmpty()) {
+                Envelope envelope;
+                try {
+                    envelope = queue.poll(100, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (envelope != null) {
+                    try {
+                        dispatch(envelope);
+                    } finally {
+                        pending.decrementAndGet();
+                    }
+                }
+            }
+        }
+    }
+
+    @Autowired
+    public DomainEventBus(ObjectProvider<DomainEventSubscriber> subscribers, PlatformTransactionManager txManager,
+                          GameConfig config) {
+        // Resolved on first dispatch, so subscribers may themselves depend on the bus
+        this(() -> subscribers.orderedStream().collect(Collectors.toList()), new TransactionTemplate(txManager),
+                config.getEventBusLanes(), config.getEventBusQueueCapacity(), config.getEventBusPublishTimeoutMs());
+    }
+
+    public DomainEventBus(Supplier<List<DomainEventSubscriber>> subscribers, TransactionOperations tx,
+                          int lanes, int queueCapacity, long publishTimeoutMs) {
+        if (lanes <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("Event bus needs at least one lane and a positive queue capacity");
+        }
+        this.subscriberSource = subscribers;
+        this.tx = tx;
+        this.queueCapacity = queueCapacity;
+        this.publishTimeoutMs = publishTimeoutMs;
+        this.lanes = new Lane[lanes];
+        for (int i = 0; i < lanes; i++) {
+            this.lanes[i] = new Lane(i);
+            this.lanes[i].worker.start();
+        }
+    }
+
+    /**
+     * Deliver the event to every subscriber after the current transaction commits (immediately if there is none).
+     */
+    public void publish(DomainEvent event) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(event);
+                }
+            });
+        } else {
+            enqueue(event);
+        }
+    }
+
+    private void enqueue(DomainEvent event) {
+        published.increment();
+        Lane lane = lanes[Math.floorMod(event.userId(), lanes.length)];
+        boolean accepted = false;
+        if (running) {
+            lane.pending.incrementAndGet();
+            try {
+                accepted = lane.queue.offer(new Envelope(event, System.nanoTime()), publishTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (!accepted) {
+                lane.pending.decrementAndGet();
+            }
+        }
+        if (!accepted) {
+            dropped.increment();
+            log.warn("Domain event dropped ({}): {}", running ? "queue full" : "shutting down", event);
+        }
+    }
+
+    private void dispatch(Envelope envelope) {
+        long lag = System.nanoTime() - envelope.enqueuedAt;
+        lagNanosTotal.add(lag);
+        lagNanosMax.accumulateAndGet(lag, Math::max);
+
+        for (DomainEventSubscriber subscriber : subscribers()) {
+            try {
+                tx.executeWithoutResult(status -> subscriber.onEvent(envelope.event));
+            } catch (RuntimeException e) {
+                failed.increment();
+                log.error("Domain event subscriber {} failed on {}", subscriber.getClass().getSimpleName(),
+                        envelope.event, e);
+            }
+        }
+        delivered.increment();
+    }
+
+    private List<DomainEventSubscriber> subscribers() {
+        List<DomainEventSubscriber> resolved = subscribers;
+        if (resolved == null) {
+            resolved = subscriberSource.get();
+            subscribers = resolved;
+        }
+        return resolved;
+    }
+
+    /**
+     * Wait until every enqueued event has been handled.
+     * @return false if the timeout elapsed first
+     */
+    public boolean awaitIdle(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (pending() > 0) {
+            if (System.nanoTime() >= deadline) {
+                return false;
+            }
+            Thread.sleep(5);
+        }
+        return true;
+    }
+
+    private int pending() {
+        int total = 0;
+        for (Lane lane : lanes) {
+            total += lane.pending.get();
+        }
+        return total;
+    }
+
+    /**
+     * Stop accepting events and let the workers drain what is already queued.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        long deadline = System.currentTimeMillis() + SHUTDOWN_DRAIN_MS;
+        for (Lane lane : lanes) {
+            lane.worker.join(Math.max(1, deadline - System.currentTimeMillis()));
+        }
+        int left = pending();
+        if (left > 0) {
+            log.warn("Event bus stopped with {} events still queued", left);
+        }
+    }
+
+    /**
+     * Queue depth per lane and the lag between commit and handling (current = age of the oldest queued event).
+     */
+    public Map<String, Object> stats() {
+        long now = System.nanoTime();
+        List<Integer> depths = new ArrayList<>();
+        long currentLag = 0;
+        int depth = 0;
+        for (Lane lane : lanes) {
+            int size = lane.queue.size();
+            depths.add(size);
+            depth += size;
+            Envelope head = lane.queue.peek();
+            if (head != null) {
+                currentLag = Math.max(currentLag, now - head.enqueuedAt);
+            }
+        }
+        long handled = delivered.sum();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("lanes", lanes.length);
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("queueDepth", depth);
+        stats.put("queueDepthPerLane", depths);
+        stats.put("published", published.sum());
+        stats.put("delivered", handled);
+        stats.put("subscriberFailures", failed.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("lagMs", currentLag / 1e6);
+        stats.put("avgLagMs", handled == 0 ? 0.0 : lagNanosTotal.sum() / 1e6 / handled);
+        stats.put("maxLagMs", lagNanosMax.get() / 1e6);
+        return stats;
+    }
+}
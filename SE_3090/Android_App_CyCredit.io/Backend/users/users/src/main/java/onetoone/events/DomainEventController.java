@@ -0,0 +1,26 @@
+package onetoone.events;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Health of the domain event bus: queue depth and commit-to-handling lag.
+ */
+@CrossOrigin(origins = "*")
+@RestController
+@RequestMapping("/events")
+public class DomainEventController {
+
+    private final DomainEventBus bus;
+
+    public DomainEventController(DomainEventBus bus) {
+        this.bus = bus;
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        return ResponseEntity.ok(bus.stats());
+    }
+}
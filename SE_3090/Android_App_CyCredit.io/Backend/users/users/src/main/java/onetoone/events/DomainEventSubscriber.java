@@ -0,0 +1,12 @@
+package onetoone.events;
+
+/**
+ * Reacts to domain events off the request thread. Every bean implementing this receives every event
+ * (pick the ones you care about with instanceof) inside its own transaction, on the bus worker that owns
+ * the event's user. A failing subscriber does not affect the others and the event is not retried, so checks
+ * should be idempotent and threshold-based ("at least 10", not "exactly 10") to catch up on the next event.
+ */
+public interface DomainEventSubscriber {
+
+    void onEvent(DomainEvent event);
+}
@@ -0,0 +1,7 @@
+package onetoone.events;
+
+/**
+ * A user became a member of a guild (by creating it, or by accepting an invite).
+ */
+public record GuildJoined(int userId, int guildId) implements DomainEvent {
+}
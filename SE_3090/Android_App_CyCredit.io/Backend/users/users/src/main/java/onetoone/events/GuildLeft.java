@@ -0,0 +1,7 @@
+package onetoone.events;
+
+/**
+ * A user stopped being a member of a guild.
+ */
+public record GuildLeft(int userId, int guildId) implements DomainEvent {
+}
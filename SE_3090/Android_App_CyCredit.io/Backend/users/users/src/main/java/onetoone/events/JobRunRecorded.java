@@ -0,0 +1,7 @@
+package onetoone.events;
+
+/**
+ * A Curtiss work arcade run was saved. streak counts consecutive passes including this run (0 if it failed).
+ */
+public record JobRunRecorded(int userId, Long runId, boolean passed, int streak, double rewardCash) implements DomainEvent {
+}
@@ -0,0 +1,7 @@
+package onetoone.events;
+
+/**
+ * A Memorial Union store purchase was charged.
+ */
+public record PurchaseCompleted(int userId, int itemId, String itemName, int qty, double total) implements DomainEvent {
+}
@@ -0,0 +1,7 @@
+package onetoone.events;
+
+/**
+ * A library question was answered correctly for the first time.
+ */
+public record QuestionMastered(int userId, Long questionId) implements DomainEvent {
+}
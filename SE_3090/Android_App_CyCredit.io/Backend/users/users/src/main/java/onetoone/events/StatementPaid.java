@@ -0,0 +1,7 @@
+package onetoone.events;
+
+/**
+ * A payment was posted against a statement. paidInFull is true when it moved the statement to PAID.
+ */
+public record StatementPaid(int userId, Long statementId, double amount, boolean paidInFull) implements DomainEvent {
+}
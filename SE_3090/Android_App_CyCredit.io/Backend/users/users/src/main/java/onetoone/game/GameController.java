@@ -13,21 +13,23 @@ import java.util.Map;
 public class GameController {
 
     private final GameService gameService;
+    private final GameStateCache stateCache;
 
-    public GameController(GameService gameService) {
+    public GameController(GameService gameService, GameStateCache stateCache) {
         this.gameService = gameService;
+        this.stateCache = stateCache;
     }
 
     @GetMapping("/state")
     public ResponseEntity<?> getGameState(@RequestParam int userId) {
         try {
-            var resource = gameService.getGameState(userId);
+            var state = gameService.getGameStateSnapshot(userId);
             Map<String, Object> response = new HashMap<>();
-            response.put("turnsLeft", resource.getTurnsLeft());
-            response.put("money", resource.getMoney());
-            response.put("creditScore", resource.getCredit());
-            response.put("creditLimit", resource.getCreditLimit());
-            response.put("currentMonth", resource.getCurrentMonth());
+            response.put("turnsLeft", state.getTurnsLeft());
+            response.put("money", state.getMoney());
+            response.put("creditScore", state.getCreditScore());
+            response.put("creditLimit", state.getCreditLimit());
+            response.put("currentMonth", state.getCurrentMonth());
             return ResponseEntity.ok(response);
         } catch (IllegalStateException e) {
             return ResponseEntity.badRequest()
@@ -38,6 +40,38 @@ public class GameController {
         }
     }
 
+    /**
+     * Hit/miss and eviction counters for the /game/state cache.
+     */
+    @GetMapping("/state/cache-stats")
+    public ResponseEntity<Map<String, Object>> getStateCacheStats() {
+        return ResponseEntity.ok(stateCache.stats());
+    }
+
+    /**
+     * Reserve several turns at once for a multi-step action (all or nothing).
+     */
+    @PostMapping("/turns/reserve")
+    public ResponseEntity<?> reserveTurns(@RequestParam int userId, @RequestParam int count) {
+        try {
+            if (!gameService.reserveTurns(userId, count)) {
+                return ResponseEntity.badRequest()
+                        .body(new ApiError(ApiError.NO_TURNS,
+                            "Not enough turns left this month to reserve " + count + "."));
+            }
+            Map<String, Object> response = new HashMap<>();
+            response.put("reserved", count);
+            response.put("turnsLeft", gameService.getGameStateSnapshot(userId).getTurnsLeft());
+            return ResponseEntity.ok(response);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.badRequest()
+                    .body(new ApiError(ApiError.RESOURCE_NOT_FOUND, e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(new ApiError(ApiError.BAD_REQUEST, e.getMessage()));
+        }
+    }
+
     @PostMapping("/end-month")
     public ResponseEntity<?> endMonth(@RequestParam int userId) {
         try {
@@ -7,13 +7,18 @@ import onetoone.Users.UserRepository;
 import onetoone.billing.*;
 import onetoone.config.GameConfig;
 import onetoone.util.Money;
-import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -25,56 +30,91 @@ import java.util.Map;
 @Service
 public class GameService {
 
+    private static final Logger log = LoggerFactory.getLogger(GameService.class);
+
     private final ResourceRepository resourceRepo;
     private final UserRepository userRepo;
     private final TransactionRepository txRepo;
     private final StatementRepository statementRepo;
     private final BillingService billingService;
     private final GameConfig config;
+    private final GameStateCache stateCache;
 
     public GameService(ResourceRepository resourceRepo, UserRepository userRepo,
                       TransactionRepository txRepo, StatementRepository statementRepo,
-                      BillingService billingService, GameConfig config) {
+                      BillingService billingService, GameConfig config, GameStateCache stateCache) {
         this.resourceRepo = resourceRepo;
         this.userRepo = userRepo;
         this.txRepo = txRepo;
         this.statementRepo = statementRepo;
         this.billingService = billingService;
         this.config = config;
+        this.stateCache = stateCache;
     }
 
     /**
-     * Check if user has turns available and consume one if yes.
-     * Uses optimistic locking to prevent concurrent consumption from driving turns below zero.
-     * @return true if turn was consumed, false if no turns left
-     * @throws IllegalStateException if resource not found or optimistic lock conflict
+     * Consume one turn if the user has any left.
+     * @return true if a turn was consumed, false if no turns left
+     * @throws IllegalStateException if resource not found
      */
     @Transactional
     public boolean consumeTurn(int userId) {
-        try {
-            Resource res = resourceRepo.findByUserId(userId);
-            if (res == null) {
-                throw new IllegalStateException("Resource not found for user " + userId);
-            }
-            if (res.getTurnsLeft() <= 0) {
-                return false;
-            }
-            res.setTurnsLeft(res.getTurnsLeft() - 1);
-            resourceRepo.save(res);
-            return true;
-        } catch (ObjectOptimisticLockingFailureException e) {
-            // Retry once on optimistic lock failure
-            Resource res = resourceRepo.findByUserId(userId);
-            if (res == null) {
-                throw new IllegalStateException("Resource not found for user " + userId);
-            }
-            if (res.getTurnsLeft() <= 0) {
-                return false;
-            }
-            res.setTurnsLeft(res.getTurnsLeft() - 1);
-            resourceRepo.save(res);
+        return reserveTurns(userId, 1);
+    }
+
+    /**
+     * Claim {@code count} turns up front for a multi-step action: either all of them are taken
+     * or none are. Runs as one conditional UPDATE, so concurrent store/job/library calls can
+     * never drive turnsLeft below zero. Turns are handed back if the caller's transaction rolls back.
+     * @return true if the turns were reserved, false if fewer than {@code count} are left
+     * @throws IllegalStateException if resource not found
+     */
+    @Transactional
+    public boolean reserveTurns(int userId, int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("count must be positive");
+        }
+        if (resourceRepo.takeTurns(userId, count) == 1) {
+            // The bulk UPDATE bypasses the entity listener; write the new count through ourselves
+            int turnsLeft = resourceRepo.findTurnsLeftByUserId(userId);
+            stateCache.afterCommit(() -> stateCache.updateTurns(userId, turnsLeft));
             return true;
         }
+        // Nothing updated: either out of turns or there is no resource row at all
+        if (!resourceRepo.existsByUser_Id(userId)) {
+            throw new IllegalStateException("Resource not found for user " + userId);
+        }
+        return false;
+    }
+
+    /**
+     * Credit cash to a player with one atomic UPDATE. For writers that run concurrently with the
+     * player's own requests (event subscribers), where loading and saving the Resource could lose an update.
+     * @return false if the user has no resource row
+     */
+    @Transactional
+    public boolean addMoney(int userId, double amount) {
+        if (resourceRepo.addMoneyCents(userId, Money.toCents(amount)) == 0) {
+            return false;
+        }
+        // The bulk UPDATE bypasses the entity listener; drop the cached HUD so the next read reloads it
+        stateCache.afterCommit(() -> stateCache.invalidate(userId));
+        return true;
+    }
+
+    /**
+     * Charge cash to a player with one conditional UPDATE, so a concurrent credit is never
+     * overwritten and two purchases cannot both spend the same dollars.
+     * @return false if the user has less than {@code amount} (or no resource row); nothing is charged
+     */
+    @Transactional
+    public boolean spendMoney(int userId, double amount) {
+        if (resourceRepo.takeMoneyCents(userId, Money.toCents(amount)) == 0) {
+            return false;
+        }
+        // The bulk UPDATE bypasses the entity listener; drop the cached HUD so the next read reloads it
+        stateCache.afterCommit(() -> stateCache.invalidate(userId));
+        return true;
     }
 
     /**
@@ -89,10 +129,28 @@ public class GameService {
     }
 
     /**
-     * End the current month: generate statement, apply interest/fees, recalculate credit score
+     * Current HUD state for /game/state, served from GameStateCache when present.
+     */
+    public GameStateSnapshot getGameStateSnapshot(int userId) {
+        return stateCache.get(userId).orElseGet(() -> {
+            long generation = stateCache.generation(userId);
+            GameStateSnapshot state = GameStateSnapshot.of(userId, getGameState(userId));
+            stateCache.putIfUnchanged(state, generation);
+            return state;
+        });
+    }
+
+    /**
+     * End the current month: generate statement, apply interest/fees, recalculate credit score.
+     *
+     * Runs as a pipeline over a single ledger load:
+     *   load -> statement -> interest -> creditScore -> summary
+     * Each stage's duration is reported in MonthlySummaryDTO.stageTimingsMs.
      */
     @Transactional
     public MonthlySummaryDTO endMonth(int userId) {
+        StageTimer timer = new StageTimer();
+
         Resource res = resourceRepo.findByUserId(userId);
         if (res == null) {
             throw new IllegalStateException("Resource not found for user " + userId);
@@ -107,23 +165,52 @@ public class GameService {
         // Check for previous unpaid statement and mark overdue if needed
         checkAndMarkOverdue(user, res);
 
-        // Generate statement for the current month
-        Statement statement = generateStatement(user, currentMonth, res);
-
-        // Apply interest and fees
+        // Statement period is the previous calendar month
+        LocalDate periodStart = LocalDate.now().withDayOfMonth(1).minusMonths(1);
+        LocalDate periodEnd = periodStart.withDayOfMonth(periodStart.lengthOfMonth());
+        Statement existing = statementRepo.findByUser_IdAndMonthNumber(user.getId(), currentMonth).orElse(null);
+        LocalDate dueDate = existing != null ? existing.getDueDate()
+                : periodEnd.plusDays(1).plusDays(config.getStatementGracePeriodDays());
+
+        // Statement days are server days: the scan's totals and the statement linking share these boundaries
+        ZoneId zone = ZoneId.systemDefault();
+
+        // Stage 1: load the statement period once and scan it once
+        // (pad the window by a day each side; the scan applies the exact per-transaction date check)
+        List<Transaction> slice = txRepo.findMonthEndSlice(user.getId(),
+                periodStart.minusDays(1).atStartOfDay().atOffset(ZoneOffset.UTC),
+                periodEnd.plusDays(2).atStartOfDay().atOffset(ZoneOffset.UTC));
+        MonthEndLedger ledger = MonthEndLedger.scan(slice, periodStart, periodEnd, zone);
+        timer.stage("load");
+
+        // Stage 2: generate statement for the current month
+        Statement statement = existing != null ? existing
+                : generateStatement(user, currentMonth, periodStart, periodEnd, dueDate, ledger, zone);
+        timer.stage("statement");
+
+        // Stage 3: apply interest and fees
         applyInterestAndFees(user, statement, res);
+        timer.stage("interest");
 
-        // Recalculate credit score with breakdown
-        CreditScoreBreakdown breakdown = calculateCreditScore(user, res, statement);
+        // Stage 4: recalculate credit score with breakdown
+        double balance = billingService.getCurrentBalance(user.getId());
+        CreditScoreBreakdown breakdown = calculateCreditScore(user, res, balance);
         res.setCredit(breakdown.finalScore);
 
         // Move to next month
         res.setCurrentMonth(currentMonth + 1);
         res.setTurnsLeft(config.getMaxTurnsPerMonth());
         resourceRepo.save(res);
+        timer.stage("creditScore");
+
+        // Stage 5: build summary
+        MonthlySummaryDTO summary = buildMonthlySummary(res, oldCreditScore, breakdown, balance, ledger, statement);
+        timer.stage("summary");
 
-        // Build summary
-        return buildMonthlySummary(user, currentMonth, oldCreditScore, breakdown, statement);
+        summary.stageTimingsMs = timer.timings();
+        log.info("Month-end for userId={} month={} scanned {} transactions: {}",
+                userId, currentMonth, slice.size(), summary.stageTimingsMs);
+        return summary;
     }
 
     private void checkAndMarkOverdue(User user, Resource res) {
@@ -143,40 +230,12 @@ public class GameService {
         }
     }
 
-    private Statement generateStatement(User user, int monthNumber, Resource res) {
-        // Check if statement already exists
-        Statement existing = statementRepo.findByUser_IdAndMonthNumber(user.getId(), monthNumber).orElse(null);
-        if (existing != null) {
-            return existing;
-        }
-
-        // Calculate period dates based on current month
-        LocalDate periodStart = LocalDate.now().withDayOfMonth(1).minusMonths(1);
-        LocalDate periodEnd = periodStart.withDayOfMonth(periodStart.lengthOfMonth());
+    private Statement generateStatement(User user, int monthNumber, LocalDate periodStart, LocalDate periodEnd,
+                                        LocalDate dueDate, MonthEndLedger ledger, ZoneId zone) {
         LocalDate statementDate = periodEnd.plusDays(1);
-        LocalDate dueDate = statementDate.plusDays(config.getStatementGracePeriodDays());
-
-        // Get all transactions in this period using normalized model
-        List<Transaction> transactions = txRepo.findByUser_IdOrderByTimestampDesc(user.getId());
-        double totalDue = 0.0;
-        for (Transaction tx : transactions) {
-            if (tx.getTimestamp() != null) {
-                LocalDate txDate = tx.getTimestamp().toLocalDate();
-                if (!txDate.isBefore(periodStart) && !txDate.isAfter(periodEnd)) {
-                    // All amounts are positive, so add purchases/fees/interest
-                    if (tx.getType() == Transaction.TransactionType.PURCHASE ||
-                        tx.getType() == Transaction.TransactionType.INTEREST ||
-                        tx.getType() == Transaction.TransactionType.FEE) {
-                        totalDue = Money.add(totalDue, tx.getAmount());
-                    }
-                    // Subtract payments (they reduce balance)
-                    else if (tx.getType() == Transaction.TransactionType.PAYMENT) {
-                        totalDue = Money.subtract(totalDue, tx.getAmount());
-                    }
-                }
-            }
-        }
-        totalDue = Math.max(0, totalDue); // Balance can't be negative
+
+        // Period total comes from the single ledger scan (normalized model)
+        double totalDue = Money.fromCents(Math.max(0, ledger.periodTotalDueCents)); // Balance can't be negative
 
         // Calculate minimum due: max of floor or percentage, but NEVER exceed totalDue
         // This ensures: if totalDue=$10, minimumDue=$10 (not $25 floor)
@@ -212,18 +271,16 @@ public class GameService {
         statement.setFees(0.0);
         statement.setStatus(Statement.StatementStatus.OPEN);
 
-        // Link transactions to statement
-        for (Transaction tx : transactions) {
-            if (tx.getTimestamp() != null) {
-                LocalDate txDate = tx.getTimestamp().toLocalDate();
-                if (!txDate.isBefore(periodStart) && !txDate.isAfter(periodEnd)) {
-                    tx.setStatement(statement);
-                    txRepo.save(tx);
-                }
-            }
-        }
+        Statement saved = statementRepo.save(statement);
 
-        return statementRepo.save(statement);
+        // Link the period's unbilled transactions in one set-based update
+        // (this clears the persistence context, so nothing below relies on managed ledger rows)
+        int linked = billingService.linkUnbilledToStatement(user.getId(), saved,
+                periodStart.atStartOfDay(zone).toOffsetDateTime(),
+                periodEnd.plusDays(1).atStartOfDay(zone).toOffsetDateTime());
+        log.debug("Linked {} unbilled transactions to statement {} for userId={}", linked, saved.getId(), user.getId());
+
+        return saved;
     }
 
     private void applyInterestAndFees(User user, Statement statement, Resource res) {
@@ -234,17 +291,8 @@ public class GameService {
         LocalDate now = LocalDate.now();
         boolean isOverdue = now.isAfter(statement.getDueDate());
 
-        // Calculate unpaid balance using normalized model
-        double unpaidBalance = statement.getTotalDue();
-        List<Transaction> payments = txRepo.findByUser_IdOrderByTimestampDesc(user.getId());
-        for (Transaction tx : payments) {
-            if (tx.getStatement() != null && tx.getStatement().getId().equals(statement.getId()) &&
-                tx.getType() == Transaction.TransactionType.PAYMENT) {
-                // Payments are positive amounts that reduce balance
-                unpaidBalance = Money.subtract(unpaidBalance, tx.getAmount());
-            }
-        }
-        unpaidBalance = Math.max(0, unpaidBalance);
+        // Unpaid balance = statement total minus payments linked to it (statement aggregate)
+        double unpaidBalance = Money.fromCents(Math.max(0, statement.getTotalDueCents() - statement.getAmountPaidCents()));
 
         double interest = 0.0;
         double fees = 0.0;
@@ -261,26 +309,19 @@ public class GameService {
 
         statement.setFees(Money.round2(fees));
         if (interest > 0 || fees > 0) {
-            // Create interest/fee transactions with positive amounts
+            // Create interest/fee transactions with positive amounts, posted as one batch
+            OffsetDateTime postedAt = OffsetDateTime.now();
+            List<Transaction> charges = new ArrayList<>(2);
             if (interest > 0) {
-                billingService.createTransaction(
-                        user.getId(),
-                        "Interest Charge",
-                        Money.round2(interest),
-                        "Interest",
-                        Transaction.TransactionType.INTEREST
-                );
+                charges.add(new Transaction(user, "Interest Charge", Money.round2(interest), "Interest", postedAt,
+                        Transaction.TransactionType.INTEREST));
             }
 
             if (fees > 0) {
-                billingService.createTransaction(
-                        user.getId(),
-                        "Late Fee",
-                        Money.round2(fees),
-                        "Fee",
-                        Transaction.TransactionType.FEE
-                );
+                charges.add(new Transaction(user, "Late Fee", Money.round2(fees), "Fee", postedAt,
+                        Transaction.TransactionType.FEE));
             }
+            billingService.postTransactions(charges);
 
             // Deduct from money if available, otherwise it's added to balance
             double totalCharge = Money.add(interest, fees);
@@ -301,8 +342,9 @@ public class GameService {
     /**
      * Calculate credit score with breakdown.
      * Returns a breakdown showing payment history, utilization, and age deltas.
+     * Payment history reads only statement rows (their frozen on-time flags), never the ledger.
      */
-    private CreditScoreBreakdown calculateCreditScore(User user, Resource res, Statement statement) {
+    private CreditScoreBreakdown calculateCreditScore(User user, Resource res, double balance) {
         double score = config.getBaseCreditScore();
 
         // Payment history (35% weight)
@@ -314,19 +356,8 @@ public class GameService {
         for (Statement stmt : allStatements) {
             if (stmt.getStatus() == Statement.StatementStatus.PAID) {
                 totalPayments++;
-                // Check if paid before due date
-                List<Transaction> payments = txRepo.findByUser_IdOrderByTimestampDesc(user.getId());
-                boolean onTime = false;
-                for (Transaction tx : payments) {
-                    if (tx.getStatement() != null && tx.getStatement().getId().equals(stmt.getId()) &&
-                        tx.getType() == Transaction.TransactionType.PAYMENT) {
-                        if (tx.getTimestamp().toLocalDate().isBefore(stmt.getDueDate())) {
-                            onTime = true;
-                            break;
-                        }
-                    }
-                }
-                if (onTime) {
+                // First payment made before the due date (frozen on the statement)
+                if (stmt.isPaidOnTime()) {
                     onTimePayments++;
                 } else {
                     latePayments++;
@@ -342,7 +373,6 @@ public class GameService {
         score += paymentDelta;
 
         // Utilization (30% weight)
-        double balance = getCurrentBalance(user);
         double utilization = res.getCreditLimit() > 0 ? 
                 Money.divide(balance, res.getCreditLimit()) : 0;
         
@@ -376,34 +406,9 @@ public class GameService {
         );
     }
 
-    /**
-     * Get current balance using normalized transaction model.
-     * Balance = sum(PURCHASE + FEE + INTEREST) - sum(PAYMENT + INCOME + REWARD)
-     */
-    private double getCurrentBalance(User user) {
-        List<Transaction> txs = txRepo.findByUser_IdOrderByTimestampDesc(user.getId());
-        double balance = 0.0;
-        
-        for (Transaction tx : txs) {
-            // All amounts are positive, so add charges and subtract credits
-            if (tx.getType() == Transaction.TransactionType.PURCHASE ||
-                tx.getType() == Transaction.TransactionType.INTEREST ||
-                tx.getType() == Transaction.TransactionType.FEE) {
-                balance = Money.add(balance, tx.getAmount());
-            } else if (tx.getType() == Transaction.TransactionType.PAYMENT ||
-                       tx.getType() == Transaction.TransactionType.INCOME ||
-                       tx.getType() == Transaction.TransactionType.REWARD) {
-                balance = Money.subtract(balance, tx.getAmount());
-            }
-        }
-        
-        return Money.round2(Math.max(0, balance));
-    }
-
-    private MonthlySummaryDTO buildMonthlySummary(User user, int monthNumber, 
-                                                   double oldCreditScore, CreditScoreBreakdown breakdown,
-                                                   Statement statement) {
-        Resource res = resourceRepo.findByUserId(user.getId());
+    private MonthlySummaryDTO buildMonthlySummary(Resource res, double oldCreditScore,
+                                                   CreditScoreBreakdown breakdown, double balance,
+                                                   MonthEndLedger ledger, Statement statement) {
         MonthlySummaryDTO summary = new MonthlySummaryDTO();
         summary.oldCreditScore = oldCreditScore;
         summary.newCreditScore = breakdown.finalScore;
@@ -412,60 +417,19 @@ public class GameService {
         summary.utilizationDelta = breakdown.utilDelta;
         summary.ageDelta = breakdown.ageDelta;
 
-        // Spending summary (using normalized model)
-        List<Transaction> transactions = txRepo.findByUser_IdOrderByTimestampDesc(user.getId());
-        Map<String, Double> categorySpend = new HashMap<>();
-        double totalSpend = 0.0;
-        for (Transaction tx : transactions) {
-            if (tx.getTimestamp() != null && 
-                tx.getTimestamp().toLocalDate().getMonthValue() == LocalDate.now().getMonthValue() - 1) {
-                if (tx.getType() == Transaction.TransactionType.PURCHASE) {
-                    // All amounts are positive
-                    totalSpend = Money.add(totalSpend, tx.getAmount());
-                    categorySpend.put(tx.getCategory(), 
-                        Money.add(categorySpend.getOrDefault(tx.getCategory(), 0.0), tx.getAmount()));
-                }
-            }
-        }
-        summary.totalSpend = Money.round2(totalSpend);
-        summary.categorySpend = categorySpend;
-
-        // Payment summary
-        summary.totalPaid = 0.0;
-        summary.onTimePayments = 0;
-        summary.latePayments = 0;
-        if (statement != null) {
-            List<Transaction> payments = txRepo.findByUser_IdOrderByTimestampDesc(user.getId());
-            for (Transaction tx : payments) {
-                if (tx.getStatement() != null && tx.getStatement().getId().equals(statement.getId()) &&
-                    tx.getType() == Transaction.TransactionType.PAYMENT) {
-                    summary.totalPaid = Money.add(summary.totalPaid, tx.getAmount());
-                    if (tx.getTimestamp().toLocalDate().isBefore(statement.getDueDate())) {
-                        summary.onTimePayments++;
-                    } else {
-                        summary.latePayments++;
-                    }
-                }
-            }
-        }
+        // Spending summary for the statement period (from the ledger scan)
+        summary.totalSpend = Money.fromCents(ledger.periodSpendCents);
+        summary.categorySpend = new HashMap<>();
+        ledger.categorySpendCents.forEach((category, cents) -> summary.categorySpend.put(category, Money.fromCents(cents)));
 
-        // Interest and fees - calculate from transactions in the statement period
-        double interestCharged = 0.0;
-        double feesCharged = 0.0;
-        if (statement != null) {
-            List<Transaction> statementTransactions = txRepo.findByUser_IdOrderByTimestampDesc(user.getId());
-            for (Transaction tx : statementTransactions) {
-                if (tx.getStatement() != null && tx.getStatement().getId().equals(statement.getId())) {
-                    if (tx.getType() == Transaction.TransactionType.INTEREST) {
-                        interestCharged = Money.add(interestCharged, tx.getAmount());
-                    } else if (tx.getType() == Transaction.TransactionType.FEE) {
-                        feesCharged = Money.add(feesCharged, tx.getAmount());
-                    }
-                }
-            }
-        }
-        summary.interestCharged = Money.round2(interestCharged);
-        summary.feesCharged = Money.round2(feesCharged);
+        // Payment summary for the current statement (statement aggregates)
+        summary.totalPaid = Money.fromCents(statement.getAmountPaidCents());
+        summary.onTimePayments = statement.getOnTimePayments();
+        summary.latePayments = statement.getLatePayments();
+
+        // Interest and fees linked to the current statement
+        summary.interestCharged = Money.fromCents(statement.getInterestChargedCents());
+        summary.feesCharged = Money.fromCents(statement.getFeesChargedCents());
 
         // Tips
         summary.tips = new java.util.ArrayList<>();
@@ -476,7 +440,7 @@ public class GameService {
             summary.tips.add("You made late payments this month. On-time payments are crucial for credit health.");
         }
         double utilization = res.getCreditLimit() > 0 ? 
-            Money.divide(getCurrentBalance(user), res.getCreditLimit()) : 0;
+            Money.divide(balance, res.getCreditLimit()) : 0;
         if (utilization > 0.3) {
             summary.tips.add("Your credit utilization is high (" + 
                 String.format("%.0f%%", utilization * 100) + 
@@ -503,6 +467,24 @@ public class GameService {
         }
     }
 
+    /**
+     * Records wall-clock time per month-end stage, in stage order.
+     */
+    private static class StageTimer {
+        private final Map<String, Long> timings = new LinkedHashMap<>();
+        private long last = System.nanoTime();
+
+        void stage(String name) {
+            long now = System.nanoTime();
+            timings.put(name, (now - last) / 1_000_000);
+            last = now;
+        }
+
+        Map<String, Long> timings() {
+            return timings;
+        }
+    }
+
     public static class MonthlySummaryDTO {
         public double oldCreditScore;
         public double newCreditScore;
@@ -518,5 +500,6 @@ public class GameService {
         public double interestCharged;
         public double feesCharged;
         public List<String> tips;
+        public Map<String, Long> stageTimingsMs; // Per-stage month-end duration (load, statement, interest, creditScore, summary)
     }
 }
@@ -0,0 +1,195 @@
+package onetoone.game;
+
+import onetoone.config.GameConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded in-process cache of per-user game state backing GET /game/state, which the Android HUD
+ * polls after every purchase, payment, job, quiz and workout.
+ *
+ * Write-through: committed Resource inserts/updates/deletes are pushed in by GameStateCacheListener,
+ * and turn reservations (a bulk UPDATE the listener never sees) by GameService. Entries are evicted
+ * least-recently-used past maxSize and expire ttl after they were written, which bounds staleness
+ * from writes that bypass JPA altogether (manual SQL, other app instances).
+ *
+ * A miss loads from the database outside the lock, so a write can commit between the load and the
+ * put. Each write-through and invalidation therefore moves the user to a new generation; the miss
+ * path reads the generation before loading and uses putIfUnchanged, which skips the stale put.
+ */
+@Component
+public class GameStateCache {
+
+    private static final class Entry {
+        final GameStateSnapshot state;
+        final long writtenAt;
+
+        Entry(GameStateSnapshot state, long writtenAt) {
+            this.state = state;
+            this.writtenAt = writtenAt;
+        }
+    }
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+    private final LinkedHashMap<Integer, Entry> entries;
+    // Generation of each recently changed user, oldest change first; bounded to maxSize users.
+    // Users dropped from it read as forgottenUpTo, which is at least any generation they had.
+    private final LinkedHashMap<Integer, Long> generations;
+    private long lastGeneration;
+    private long forgottenUpTo;
+
+    // Guarded by this
+    private long hits;
+    private long misses;
+    private long puts;
+    private long sizeEvictions;
+    private long expirations;
+    private long invalidations;
+    private long stalePutsSkipped;
+
+    @Autowired
+    public GameStateCache(GameConfig config) {
+        this(config.getGameStateCacheMaxSize(), Duration.ofSeconds(config.getGameStateCacheTtlSeconds()), System::nanoTime);
+    }
+
+    public GameStateCache(int maxSize, Duration ttl, LongSupplier nanoClock) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.nanoClock = nanoClock;
+        // Access order: iteration starts at the least recently used entry
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entry> eldest) {
+                if (size() > GameStateCache.this.maxSize) {
+                    sizeEvictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.generations = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Long> eldest) {
+                if (size() > GameStateCache.this.maxSize) {
+                    forgottenUpTo = eldest.getValue();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public synchronized Optional<GameStateSnapshot> get(int userId) {
+        Entry entry = entries.get(userId);
+        if (entry == null) {
+            misses++;
+            return Optional.empty();
+        }
+        if (nanoClock.getAsLong() - entry.writtenAt >= ttlNanos) {
+            entries.remove(userId);
+            expirations++;
+            misses++;
+            return Optional.empty();
+        }
+        hits++;
+        return Optional.of(entry.state);
+    }
+
+    /** Write-through of committed state. */
+    public synchronized void put(GameStateSnapshot state) {
+        changed(state.getUserId());
+        entries.put(state.getUserId(), new Entry(state, nanoClock.getAsLong()));
+        puts++;
+    }
+
+    /** The user's current generation; read it before loading state for putIfUnchanged. */
+    public synchronized long generation(int userId) {
+        return generations.getOrDefault(userId, forgottenUpTo);
+    }
+
+    /**
+     * Cache state loaded on a miss, unless the user was written through or invalidated since
+     * generation was read (the load may then predate that write).
+     */
+    public synchronized boolean putIfUnchanged(GameStateSnapshot state, long generation) {
+        if (generation(state.getUserId()) != generation) {
+            stalePutsSkipped++;
+            return false;
+        }
+        entries.put(state.getUserId(), new Entry(state, nanoClock.getAsLong()));
+        puts++;
+        return true;
+    }
+
+    /**
+     * Update turnsLeft on a cached entry; a user who is not cached stays uncached.
+     */
+    public synchronized void updateTurns(int userId, int turnsLeft) {
+        Entry entry = entries.get(userId);
+        changed(userId);
+        if (entry != null) {
+            entries.put(userId, new Entry(entry.state.withTurnsLeft(turnsLeft), nanoClock.getAsLong()));
+            puts++;
+        }
+    }
+
+    public synchronized void invalidate(int userId) {
+        changed(userId);
+        if (entries.remove(userId) != null) {
+            invalidations++;
+        }
+    }
+
+    // Guarded by this. Re-inserted so the map stays ordered oldest change first.
+    private void changed(int userId) {
+        generations.remove(userId);
+        generations.put(userId, ++lastGeneration);
+    }
+
+    /**
+     * Run a cache write once the current transaction commits (immediately if there is none),
+     * so a rolled-back change never becomes visible through the cache.
+     */
+    public void afterCommit(Runnable write) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    write.run();
+                }
+            });
+        } else {
+            write.run();
+        }
+    }
+
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long lookups = hits + misses;
+        stats.put("size", entries.size());
+        stats.put("maxSize", maxSize);
+        stats.put("ttlSeconds", Duration.ofNanos(ttlNanos).getSeconds());
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("hitRate", lookups == 0 ? 0.0 : (double) hits / lookups);
+        stats.put("puts", puts);
+        stats.put("sizeEvictions", sizeEvictions);
+        stats.put("expirations", expirations);
+        stats.put("invalidations", invalidations);
+        stats.put("stalePutsSkipped", stalePutsSkipped);
+        return stats;
+    }
+}
@@ -0,0 +1,88 @@
+package onetoone.game;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import onetoone.Resource.Resource;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes every committed Resource change through to GameStateCache.
+ *
+ * Hooked into Hibernate's post-commit events rather than the services, so each place that
+ * saves a Resource (store, payments, jobs, library, gym, wellness, achievements, month end)
+ * keeps the cache current without knowing about it, and rolled-back changes are never cached.
+ */
+@Component
+public class GameStateCacheListener implements PostCommitInsertEventListener,
+        PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+    private final EntityManagerFactory emf;
+    private final GameStateCache cache;
+
+    public GameStateCacheListener(EntityManagerFactory emf, GameStateCache cache) {
+        this.emf = emf;
+        this.cache = cache;
+    }
+
+    @PostConstruct
+    void register() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return Resource.class.equals(persister.getMappedClass());
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        write(event.getEntity());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        write(event.getEntity());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Resource res && res.getUser() != null) {
+            cache.invalidate(res.getUser().getId());
+        }
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+        // Nothing was cached before commit
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+        // Nothing was cached before commit
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+        // Nothing was cached before commit
+    }
+
+    private void write(Object entity) {
+        if (entity instanceof Resource res && res.getUser() != null) {
+            cache.put(GameStateSnapshot.of(res.getUser().getId(), res));
+        }
+    }
+}
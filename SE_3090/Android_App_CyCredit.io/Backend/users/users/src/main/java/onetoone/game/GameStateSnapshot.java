@@ -0,0 +1,65 @@
+package onetoone.game;
+
+import onetoone.Resource.Resource;
+import onetoone.util.Money;
+
+/**
+ * Immutable copy of the HUD fields of a user's Resource, as held by GameStateCache.
+ * Never a managed entity, so cached state cannot leak into (or be changed by) a persistence context.
+ */
+public final class GameStateSnapshot {
+
+    private final int userId;
+    private final int turnsLeft;
+    private final long moneyCents;
+    private final double creditScore;
+    private final double creditLimit;
+    private final int currentMonth;
+
+    public GameStateSnapshot(int userId, int turnsLeft, long moneyCents,
+                             double creditScore, double creditLimit, int currentMonth) {
+        this.userId = userId;
+        this.turnsLeft = turnsLeft;
+        this.moneyCents = moneyCents;
+        this.creditScore = creditScore;
+        this.creditLimit = creditLimit;
+        this.currentMonth = currentMonth;
+    }
+
+    public static GameStateSnapshot of(int userId, Resource res) {
+        return new GameStateSnapshot(userId, res.getTurnsLeft(), res.getMoneyCents(),
+                res.getCredit(), res.getCreditLimit(), res.getCurrentMonth());
+    }
+
+    public GameStateSnapshot withTurnsLeft(int turnsLeft) {
+        return new GameStateSnapshot(userId, turnsLeft, moneyCents, creditScore, creditLimit, currentMonth);
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public int getTurnsLeft() {
+        return turnsLeft;
+    }
+
+    public double getMoney() {
+        return Money.fromCents(moneyCents);
+    }
+
+    public long getMoneyCents() {
+        return moneyCents;
+    }
+
+    public double getCreditScore() {
+        return creditScore;
+    }
+
+    public double getCreditLimit() {
+        return creditLimit;
+    }
+
+    public int getCurrentMonth() {
+        return currentMonth;
+    }
+}
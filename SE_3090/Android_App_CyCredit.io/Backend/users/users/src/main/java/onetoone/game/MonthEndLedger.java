@@ -0,0 +1,63 @@
+package onetoone.game;
+
+import onetoone.billing.Transaction;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Everything month-end needs from the ledger, computed in ONE pass over the statement period.
+ *
+ * Activity on statements (payments, interest, fees, on-time history) is not scanned here;
+ * it comes from the frozen aggregates on each Statement row, kept current by BillingService.
+ *
+ * Money totals are accumulated as long cents, so the scan does no rounding or allocation per row.
+ */
+final class MonthEndLedger {
+
+    // Statement period total (used to generate the statement)
+    long periodTotalDueCents = 0L;
+
+    // Purchases in the period (spending summary)
+    long periodSpendCents = 0L;
+    final Map<String, Long> categorySpendCents = new HashMap<>();
+
+    private MonthEndLedger() {}
+
+    /**
+     * @param slice transactions from TransactionRepository.findMonthEndSlice
+     * @param zone  the zone whose days the period is in, as used to link the statement's transactions
+     */
+    static MonthEndLedger scan(List<Transaction> slice, LocalDate periodStart, LocalDate periodEnd, ZoneId zone) {
+        MonthEndLedger ledger = new MonthEndLedger();
+
+        for (Transaction tx : slice) {
+            LocalDate txDate = tx.getTimestamp() != null
+                    ? tx.getTimestamp().atZoneSameInstant(zone).toLocalDate() : null;
+            if (txDate == null || txDate.isBefore(periodStart) || txDate.isAfter(periodEnd)) {
+                continue;
+            }
+            Transaction.TransactionType type = tx.getType();
+            long cents = tx.getAmountCents();
+
+            // All amounts are positive, so add purchases/fees/interest and subtract payments
+            if (type == Transaction.TransactionType.PURCHASE ||
+                type == Transaction.TransactionType.INTEREST ||
+                type == Transaction.TransactionType.FEE) {
+                ledger.periodTotalDueCents += cents;
+            } else if (type == Transaction.TransactionType.PAYMENT) {
+                ledger.periodTotalDueCents -= cents;
+            }
+
+            if (type == Transaction.TransactionType.PURCHASE) {
+                ledger.periodSpendCents += cents;
+                ledger.categorySpendCents.merge(tx.getCategory(), cents, Long::sum);
+            }
+        }
+
+        return ledger;
+    }
+}
@@ -5,6 +5,9 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import onetoone.Users.User;
 import onetoone.Users.UserRepository;
+import onetoone.events.DomainEventBus;
+import onetoone.events.GuildJoined;
+import onetoone.events.GuildLeft;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.http.ResponseEntity;
@@ -22,6 +25,7 @@ public class GuildController {
     @Autowired private GuildRepository guildRepo;
     @Autowired private GuildMembershipRepository membershipRepo;
     @Autowired private GuildInviteRepository inviteRepo;
+    @Autowired private DomainEventBus eventBus;
     @Operation(
             summary = "Create a new guild",
             description = "Creates a new guild with the given name and assigns the creator as the guild leader."
@@ -47,6 +51,7 @@ public class GuildController {
         m.setUserId(req.getCreatorUserId());
         m.setRole(GuildRole.LEADER);
         membershipRepo.save(m);
+        eventBus.publish(new GuildJoined(m.getUserId(), g.getId()));
 
         return ResponseEntity.ok(new Dtos.GuildDto(g.getId(), g.getName(), g.getCreatedBy(), g.getCreatedAt(),
                 membershipRepo.countByGuildId(g.getId()).intValue()));
@@ -86,6 +91,23 @@ public class GuildController {
                 .collect(Collectors.toList());
         return ResponseEntity.ok(out);
     }
+    @Operation(
+            summary = "Leave a guild",
+            description = "Removes the user's membership of the specified guild."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Left the guild"),
+            @ApiResponse(responseCode = "404", description = "User is not a member of the guild")
+    })
+    @DeleteMapping("/guilds/{id}/members/{userId}")
+    @Transactional
+    public ResponseEntity<?> leave(@PathVariable Integer id, @PathVariable Integer userId) {
+        if (membershipRepo.deleteByGuildIdAndUserId(id, userId) == 0) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("not a member");
+        }
+        eventBus.publish(new GuildLeft(userId, id));
+        return ResponseEntity.ok("left");
+    }
     @Operation(
             summary = "Send a guild invite to a user",
             description = "Allows an existing guild member to invite another user to join the guild."
@@ -169,6 +191,7 @@ public class GuildController {
             m.setUserId(receiverUserId);
             m.setRole(GuildRole.MEMBER);
             membershipRepo.save(m);
+            eventBus.publish(new GuildJoined(receiverUserId, inv.getGuild().getId()));
             return ResponseEntity.ok(new Dtos.InviteActionResponse(inv.getId(), "accepted"));
         } else if ("decline".equalsIgnoreCase(action)) {
             inv.setStatus(InviteStatus.DECLINED);
@@ -1,7 +1,14 @@
 package onetoone.guild;
-import org.springframework.data.jpa.repository.JpaRepository; import java.util.*;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import java.util.*;
 public interface GuildMembershipRepository extends JpaRepository<GuildMembership, Integer> {
     List<GuildMembership> findByGuildId(Integer guildId);
     Long countByGuildId(Integer guildId);
     boolean existsByGuildIdAndUserId(Integer guildId, Integer userId);
+    long deleteByGuildIdAndUserId(Integer guildId, Integer userId);
+
+    // WindowedLeaderboard: (userId, guildId) of every membership, without loading the guilds
+    @Query("select m.userId, m.guild.id from GuildMembership m")
+    List<Object[]> findUserGuildIds();
 }
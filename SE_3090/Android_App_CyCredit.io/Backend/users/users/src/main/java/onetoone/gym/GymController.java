@@ -1,11 +1,11 @@
 package onetoone.gym;
 
-import onetoone.Resource.Resource;
 import onetoone.Resource.ResourceRepository;
 import onetoone.Users.User;
 import onetoone.Users.UserRepository;
 import onetoone.billing.BillingService;
 import onetoone.billing.Transaction;
+import onetoone.game.GameService;
 import onetoone.util.ApiError;
 import onetoone.util.Money;
 import org.springframework.http.ResponseEntity;
@@ -44,15 +44,18 @@ public class GymController {
     private final UserRepository userRepo;
     private final ResourceRepository resourceRepo;
     private final BillingService billingService;
+    private final GameService gameService;
 
     public GymController(GymMembershipRepository membershipRepo,
                         UserRepository userRepo,
                         ResourceRepository resourceRepo,
-                        BillingService billingService) {
+                        BillingService billingService,
+                        GameService gameService) {
         this.membershipRepo = membershipRepo;
         this.userRepo = userRepo;
         this.resourceRepo = resourceRepo;
         this.billingService = billingService;
+        this.gameService = gameService;
     }
 
     /**
@@ -80,8 +83,8 @@ public class GymController {
         try {
             User user = userRepo.findById(userId)
                     .orElseThrow(() -> new RuntimeException("User not found: " + userId));
-            Resource resource = resourceRepo.findByUserId(userId);
-            if (resource == null) {
+            // Not loaded here: applyCharge below must read the row as the deduction left it
+            if (!resourceRepo.existsByUser_Id(userId)) {
                 throw new RuntimeException("Resource not found for user: " + userId);
             }
 
@@ -106,17 +109,15 @@ public class GymController {
                             .body(new ApiError(ApiError.BAD_REQUEST, "Invalid tier. Use BASIC, PREMIUM, or VIP."));
             }
 
-            // Check if user can afford it
-            if (resource.getMoney() < price) {
+            // Deduct payment if the user can afford it, in one conditional UPDATE so a concurrent
+            // reward or turn spend on the same row is not overwritten
+            if (!gameService.spendMoney(userId, price)) {
                 return ResponseEntity.badRequest()
                         .body(new ApiError(ApiError.INSUFFICIENT_FUNDS, 
-                            String.format("Not enough money. Need $%.2f, have $%.2f", price, resource.getMoney())));
+                            String.format("Not enough money. Need $%.2f, have $%.2f", price,
+                                    resourceRepo.findByUserId(userId).getMoney())));
             }
 
-            // Deduct payment
-            resource.setMoney(Money.subtract(resource.getMoney(), price));
-            resourceRepo.save(resource);
-
             // Create transaction
             billingService.applyCharge(userId, "State Gym - " + tier + " Membership", 
                     price, "Subscription", OffsetDateTime.now(), UUID.randomUUID().toString());
@@ -219,11 +220,8 @@ public class GymController {
             rewardCash = Money.round2(rewardCash * (1 + scoreBonus));
             rewardXp = Money.round2(rewardXp * (1 + scoreBonus));
 
-            // Grant rewards
-            Resource resource = resourceRepo.findByUserId(userId);
-            if (resource != null) {
-                resource.setMoney(Money.add(resource.getMoney(), rewardCash));
-                resourceRepo.save(resource);
+            // Grant rewards (atomic credit, so a concurrent reward or turn spend is not overwritten)
+            if (gameService.addMoney(userId, rewardCash)) {
 
                 // Create reward transaction
                 billingService.createTransaction(userId, 
@@ -1,6 +1,5 @@
 package onetoone.job;
 
-import onetoone.achievements.AchievementsController;
 import onetoone.Resource.Resource;
 import onetoone.Resource.ResourceRepository;
 import onetoone.Users.User;
@@ -8,6 +7,8 @@ import onetoone.Users.UserRepository;
 import onetoone.billing.BillingService;
 import onetoone.billing.Transaction;
 import onetoone.config.GameConfig;
+import onetoone.events.DomainEventBus;
+import onetoone.events.JobRunRecorded;
 import onetoone.game.GameService;
 import onetoone.util.ApiError;
 import onetoone.util.Money;
@@ -33,7 +34,7 @@ public class JobController {
     private final ResourceRepository resourceRepo;
     private final BillingService billingService;
     private final GameService gameService;
-    private final AchievementsController achievementsController;
+    private final DomainEventBus eventBus;
     private final GameConfig config;
 
     // Base payouts (can be moved to config later)
@@ -46,14 +47,14 @@ public class JobController {
 
     public JobController(JobRunRepository runRepo, UserRepository userRepo,
                         ResourceRepository resourceRepo, BillingService billingService,
-                        GameService gameService, AchievementsController achievementsController,
+                        GameService gameService, DomainEventBus eventBus,
                         GameConfig config) {
         this.runRepo = runRepo;
         this.userRepo = userRepo;
         this.resourceRepo = resourceRepo;
         this.billingService = billingService;
         this.gameService = gameService;
-        this.achievementsController = achievementsController;
+        this.eventBus = eventBus;
         this.config = config;
     }
 
@@ -198,25 +199,8 @@ public class JobController {
             run.setSoftCapApplied(softCapApplied);
             runRepo.save(run);
 
-            // Check for achievement milestones (after saving, so current run is included)
-            if (passed) {
-                List<JobRun> allPasses = runRepo.findByUser_IdAndPassedTrueAndRunAtAfter(
-                        userId, OffsetDateTime.now().minusYears(1)); // All-time passes
-                int totalPasses = allPasses.size();
-                if (totalPasses == 10) {
-                    achievementsController.unlockAchievement(userId, "JOB_10_PASSES");
-                } else if (totalPasses == 50) {
-                    achievementsController.unlockAchievement(userId, "JOB_50_PASSES");
-                }
-                
-                // Check streak milestones (streak includes current run now)
-                int currentStreak = streak + 1; // +1 for the run we just saved
-                if (currentStreak == 5) {
-                    achievementsController.unlockAchievement(userId, "JOB_STREAK_5");
-                } else if (currentStreak == 10) {
-                    achievementsController.unlockAchievement(userId, "JOB_STREAK_10");
-                }
-            }
+            // Achievement milestones are checked off the request thread once this commits
+            eventBus.publish(new JobRunRecorded(userId, run.getId(), passed, passed ? streak + 1 : 0, rewardCash));
 
             Map<String, Object> response = new HashMap<>();
             response.put("rewardCash", rewardCash);
@@ -12,5 +12,6 @@ public interface JobRunRepository extends JpaRepository<JobRun, Long> {
     List<JobRun> findByUser_IdOrderByRunAtDesc(Integer userId);
     Optional<JobRun> findByRunNonce(String runNonce);
     List<JobRun> findByUser_IdAndPassedTrueAndRunAtAfter(Integer userId, OffsetDateTime after);
+    long countByUser_IdAndPassedTrue(Integer userId);
 }
 
@@ -3,10 +3,11 @@ package onetoone.leaderboard;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import onetoone.util.ApiError;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.time.Instant;
 import java.util.*;
 
 @RestController
@@ -14,13 +15,12 @@ import java.util.*;
 @CrossOrigin(origins = "*")
 public class LeaderboardController {
 
-    private final LeaderboardScoreRepository repository;
-    private final LeaderboardWebSocketHandler wsHandler;
+    private final LeaderboardIndex index;
+    private final LeaderboardScores scores;
 
-    public LeaderboardController(LeaderboardScoreRepository repository,
-                                 LeaderboardWebSocketHandler wsHandler) {
-        this.repository = repository;
-        this.wsHandler = wsHandler;
+    public LeaderboardController(LeaderboardIndex index, LeaderboardScores scores) {
+        this.index = index;
+        this.scores = scores;
     }
     @Operation(
             summary = "Get top leaderboard scores",
@@ -32,21 +32,53 @@ public class LeaderboardController {
     })
     @GetMapping("/top")
     public ResponseEntity<List<Map<String, Object>>> top(@RequestParam(name = "limit", defaultValue = "20") int limit) {
-        List<LeaderboardScore> top = repository.findTop20ByOrderByScoreDescUpdatedAtAsc();
-        if (limit > 0 && top.size() > limit) {
-            top = top.subList(0, limit);
-        }
+        List<LeaderboardIndex.Ranked> top = index.top(limit > 0 ? limit : 20);
 
         List<Map<String, Object>> out = new ArrayList<>();
-        int rank = 1;
-        for (LeaderboardScore s : top) {
-            Map<String, Object> m = new LinkedHashMap<>();
-            m.put("rank", rank++);
-            m.put("userId", s.getUserId());
-            m.put("displayName", s.getDisplayName());
-            m.put("score", s.getScore());
-            m.put("updatedAt", s.getUpdatedAt().toString());
-            out.add(m);
+        for (LeaderboardIndex.Ranked r : top) {
+            out.add(toRankedDTO(r));
+        }
+        return ResponseEntity.ok(out);
+    }
+    @Operation(
+            summary = "Get a user's rank",
+            description = "Returns the user's current rank and score, and how many players are ranked."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Rank returned successfully"),
+            @ApiResponse(responseCode = "404", description = "User has no leaderboard score")
+    })
+    @GetMapping("/rank")
+    public ResponseEntity<?> rank(@RequestParam("userId") String userId) {
+        Optional<LeaderboardIndex.Ranked> ranked = index.rank(userId.trim());
+        if (ranked.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ApiError(ApiError.USER_NOT_FOUND, "No leaderboard score for user " + userId));
+        }
+        Map<String, Object> out = toRankedDTO(ranked.get());
+        out.put("totalPlayers", index.size());
+        return ResponseEntity.ok(out);
+    }
+    @Operation(
+            summary = "Get the players around a user",
+            description = "Returns up to N players ranked above the user, the user, and up to N ranked below."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Neighbourhood returned successfully"),
+            @ApiResponse(responseCode = "404", description = "User has no leaderboard score")
+    })
+    @GetMapping("/around")
+    public ResponseEntity<?> around(@RequestParam("userId") String userId,
+                                    @RequestParam(name = "above", defaultValue = "5") int above,
+                                    @RequestParam(name = "below", defaultValue = "5") int below) {
+        List<LeaderboardIndex.Ranked> around = index.around(userId.trim(), above, below);
+        if (around.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ApiError(ApiError.USER_NOT_FOUND, "No leaderboard score for user " + userId));
+        }
+        List<Map<String, Object>> out = new ArrayList<>();
+        for (LeaderboardIndex.Ranked r : around) {
+            out.add(toRankedDTO(r));
         }
         return ResponseEntity.ok(out);
     }
@@ -70,32 +102,10 @@ public class LeaderboardController {
                 : req.displayName.trim();
         int delta = req.delta;
 
-        LeaderboardScore score = repository.findByUserId(userId).orElseGet(() -> {
-            LeaderboardScore s = new LeaderboardScore();
-            s.setUserId(userId);
-            s.setDisplayName(displayName);
-            s.setScore(0);
-            s.setUpdatedAt(Instant.now());
-            return s;
-        });
-
-        // Update fields
-        score.setDisplayName(displayName); // refresh name if changed
-        score.setScore(Math.max(0, score.getScore() + delta));
-        score.setUpdatedAt(Instant.now());
-
-        repository.save(score);
-
-        // Broadcast to all WebSocket clients
-        wsHandler.broadcastLeaderboard();
+        // Applied on every node (windows and WebSocket boards included); persisted by LeaderboardWriteBehind
+        LeaderboardIndex.Change change = scores.add(userId, displayName, delta);
 
-        Map<String, Object> out = new LinkedHashMap<>();
-        out.put("userId", score.getUserId());
-        out.put("displayName", score.getDisplayName());
-        out.put("score", score.getScore());
-        out.put("updatedAt", score.getUpdatedAt().toString());
-
-        return ResponseEntity.ok(out);
+        return ResponseEntity.ok(toDTO(change.standing()));
     }
     @Operation(
             summary = "Set a user's score",
@@ -117,29 +127,9 @@ public class LeaderboardController {
                 : req.displayName.trim();
         int newScore = Math.max(0, req.score);
 
-        LeaderboardScore score = repository.findByUserId(userId).orElseGet(() -> {
-            LeaderboardScore s = new LeaderboardScore();
-            s.setUserId(userId);
-            s.setDisplayName(displayName);
-            s.setScore(0);
-            s.setUpdatedAt(Instant.now());
-            return s;
-        });
-
-        score.setDisplayName(displayName);
-        score.setScore(newScore);
-        score.setUpdatedAt(Instant.now());
-
-        repository.save(score);
-        wsHandler.broadcastLeaderboard();
+        LeaderboardIndex.Change change = scores.set(userId, displayName, newScore);
 
-        Map<String, Object> out = new LinkedHashMap<>();
-        out.put("userId", score.getUserId());
-        out.put("displayName", score.getDisplayName());
-        out.put("score", score.getScore());
-        out.put("updatedAt", score.getUpdatedAt().toString());
-
-        return ResponseEntity.ok(out);
+        return ResponseEntity.ok(toDTO(change.standing()));
     }
     @Operation(
             summary = "Add score using query parameters",
@@ -164,28 +154,25 @@ public class LeaderboardController {
             ? ("User " + userId)
             : displayName.trim();
 
-        LeaderboardScore score = repository.findByUserId(userId).orElseGet(() -> {
-            LeaderboardScore s = new LeaderboardScore();
-            s.setUserId(userId);
-            s.setDisplayName(effectiveName);
-            s.setScore(0);
-            s.setUpdatedAt(Instant.now());
-            return s;
-        });
-
-        score.setDisplayName(effectiveName);
-        score.setScore(Math.max(0, score.getScore() + delta));
-        score.setUpdatedAt(Instant.now());
-        repository.save(score);
-
-        wsHandler.broadcastLeaderboard();
-
-        Map<String, Object> out = new LinkedHashMap<>();
-        out.put("userId", score.getUserId());
-        out.put("displayName", score.getDisplayName());
-        out.put("score", score.getScore());
-        out.put("updatedAt", score.getUpdatedAt().toString());
-        return ResponseEntity.ok(out);
+        LeaderboardIndex.Change change = scores.add(userId, effectiveName, delta);
+
+        return ResponseEntity.ok(toDTO(change.standing()));
+    }
+
+    public static Map<String, Object> toDTO(LeaderboardIndex.Standing s) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("userId", s.userId());
+        m.put("displayName", s.displayName());
+        m.put("score", s.score());
+        m.put("updatedAt", s.updatedAt().toString());
+        return m;
+    }
+
+    public static Map<String, Object> toRankedDTO(LeaderboardIndex.Ranked r) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("rank", r.rank());
+        m.putAll(toDTO(r.standing()));
+        return m;
     }
 
     // --- DTOs for requests ---
@@ -0,0 +1,178 @@
+package onetoone.leaderboard;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The leaderboard, held in memory and ordered by (score desc, updatedAt asc), the order
+ * leaderboard_scores is ranked by. Loaded from the table at startup; every add/set lands here first
+ * and is persisted asynchronously by LeaderboardWriteBehind, so reads never touch the database.
+ *
+ * Top-K, rank(userId) and the players around a user are O(log n) (plus the entries returned).
+ * Readers share a read lock; writers (score changes) take the write lock for the O(log n) update.
+ */
+@Component
+public class LeaderboardIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(LeaderboardIndex.class);
+
+    /** One player's standing. Immutable: a score change replaces it. */
+    public record Standing(String userId, String displayName, int score, Instant updatedAt) {
+    }
+
+    public record Ranked(int rank, Standing standing) {
+    }
+
+    /** A score change as applied: the new standing and how far the score moved (after the floor at 0). */
+    public record Change(Standing standing, int delta) {
+    }
+
+    // userId breaks exact ties so the order is total, which the skip list requires
+    public static final Comparator<Standing> ORDER = Comparator.comparingInt(Standing::score).reversed()
+            .thenComparing(Standing::updatedAt)
+            .thenComparing(Standing::userId);
+
+    private final LeaderboardScoreRepository repository;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Guarded by lock
+    private final RankedSkipList<Standing> ranking = new RankedSkipList<>(ORDER);
+    private final Map<String, Standing> byUser = new HashMap<>();
+    // Changed since the last flush, newest standing per user
+    private final Map<String, Standing> dirty = new ConcurrentHashMap<>();
+
+    public LeaderboardIndex(LeaderboardScoreRepository repository) {
+        this.repository = repository;
+    }
+
+    /** (Re)build the index from leaderboard_scores. */
+    @PostConstruct
+    public void load() {
+        List<LeaderboardScore> rows = repository.findAll();
+        lock.writeLock().lock();
+        try {
+            ranking.clear();
+            byUser.clear();
+            for (LeaderboardScore row : rows) {
+                put(new Standing(row.getUserId(), row.getDisplayName(), row.getScore(), row.getUpdatedAt()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Leaderboard index loaded with {} players", rows.size());
+    }
+
+    /**
+     * Add delta to a user's score (floored at 0), creating them at 0 first if needed. Read and update happen
+     * under the write lock, so concurrent deltas (and concurrent first scores of a new user) are never lost.
+     */
+    public Change add(String userId, String displayName, int delta, Instant now) {
+        lock.writeLock().lock();
+        try {
+            Standing current = byUser.get(userId);
+            int score = Math.max(0, (current == null ? 0 : current.score()) + delta);
+            return replace(current, new Standing(userId, displayName, score, now));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Replace a user's score (floored at 0). */
+    public Change set(String userId, String displayName, int score, Instant now) {
+        lock.writeLock().lock();
+        try {
+            return replace(byUser.get(userId), new Standing(userId, displayName, Math.max(0, score), now));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** The best k players, best first. */
+    public List<Ranked> top(int k) {
+        lock.readLock().lock();
+        try {
+            return ranked(1, ranking.range(1, k));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Optional<Ranked> rank(String userId) {
+        lock.readLock().lock();
+        try {
+            Standing standing = byUser.get(userId);
+            return standing == null ? Optional.empty() : Optional.of(new Ranked(ranking.rankOf(standing), standing));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** The user plus up to {@code above} players ranked above and {@code below} ranked below; empty if unranked. */
+    public List<Ranked> around(String userId, int above, int below) {
+        lock.readLock().lock();
+        try {
+            Standing standing = byUser.get(userId);
+            if (standing == null) {
+                return List.of();
+            }
+            int rank = ranking.rankOf(standing);
+            int from = Math.max(1, rank - Math.max(0, above));
+            return ranked(from, ranking.range(from, rank - from + 1 + Math.max(0, below)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ranking.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Standings changed since they were last persisted. */
+    Map<String, Standing> pendingWrites() {
+        return Map.copyOf(dirty);
+    }
+
+    /** Forget a pending write once persisted, unless the user changed again meanwhile. */
+    void written(Standing standing) {
+        dirty.remove(standing.userId(), standing);
+    }
+
+    private Change replace(Standing current, Standing updated) {
+        if (current != null) {
+            ranking.remove(current);
+        }
+        put(updated);
+        dirty.put(updated.userId(), updated);
+        return new Change(updated, updated.score() - (current == null ? 0 : current.score()));
+    }
+
+    private void put(Standing standing) {
+        ranking.add(standing);
+        byUser.put(standing.userId(), standing);
+    }
+
+    private static List<Ranked> ranked(int firstRank, List<Standing> standings) {
+        List<Ranked> out = new ArrayList<>(standings.size());
+        int rank = firstRank;
+        for (Standing standing : standings) {
+            out.add(new Ranked(rank++, standing));
+        }
+        return out;
+    }
+}
@@ -7,11 +7,13 @@ import java.time.Instant;
 @Table(name = "leaderboard_scores")
 public class LeaderboardScore {
 
+    // Pooled sequence: ids are reserved 50 at a time, so inserts can be JDBC-batched
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "leaderboard_scores_seq")
+    @SequenceGenerator(name = "leaderboard_scores_seq", sequenceName = "leaderboard_scores_seq", allocationSize = 50)
     private Long id;
 
-    @Column(name = "user_id", nullable = false, length = 64)
+    @Column(name = "user_id", nullable = false, length = 64, unique = true)
     private String userId;
 
     @Column(name = "display_name", nullable = false, length = 128)
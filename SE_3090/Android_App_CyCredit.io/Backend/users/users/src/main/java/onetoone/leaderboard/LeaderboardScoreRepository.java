@@ -2,6 +2,7 @@ package onetoone.leaderboard;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -10,4 +11,7 @@ public interface LeaderboardScoreRepository extends JpaRepository<LeaderboardSco
     Optional<LeaderboardScore> findByUserId(String userId);
 
     List<LeaderboardScore> findTop20ByOrderByScoreDescUpdatedAtAsc();
+
+    // LeaderboardWriteBehind: the rows of one flush
+    List<LeaderboardScore> findByUserIdIn(Collection<String> userIds);
 }
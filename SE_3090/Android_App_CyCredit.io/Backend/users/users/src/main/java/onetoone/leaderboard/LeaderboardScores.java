@@ -0,0 +1,133 @@
+package onetoone.leaderboard;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import onetoone.leaderboard.window.WindowedLeaderboard;
+import onetoone.leaderboard.window.WindowedLeaderboardBroadcaster;
+import onetoone.websocket.bus.MessageBus;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Score changes, applied on every node. A change is published on the MessageBus ("leaderboard-scores",
+ * keyed by user) and each node, this one included, applies what arrives to its LeaderboardIndex and
+ * WindowedLeaderboard and marks its boards changed. The bus has one publish order, so every node applies
+ * the same changes in the same order (floors at 0 included) and all indexes hold the same standings.
+ *
+ * Only the node configured as cycredit.leaderboard-owner persists them and ticks the WebSocket topics;
+ * the others keep their index for reads and relay the owner's deltas to their own sessions.
+ *
+ * add/set return once this node has applied the change, so the caller gets the standing it led to.
+ */
+@Component
+public class LeaderboardScores {
+
+    public static final String TOPIC = "leaderboard-scores";
+
+    // How long a request waits for its own change to come back over the bus
+    private static final long APPLY_TIMEOUT_MS = 5000;
+
+    /**
+     * One change on the bus: a delta to add, or (score != null) a new score.
+     * @param id picks out the publisher's own change when it comes back
+     */
+    record Update(String id, String userId, String displayName, int delta, Integer score, String at) {
+    }
+
+    private final LeaderboardIndex index;
+    private final WindowedLeaderboard windows;
+    private final LeaderboardWebSocketHandler wsHandler;
+    private final WindowedLeaderboardBroadcaster windowBroadcaster;
+    private final MessageBus bus;
+    // Changes published here and not yet applied, by id
+    private final Map<String, CompletableFuture<LeaderboardIndex.Change>> waiting = new ConcurrentHashMap<>();
+    private final ObjectWriter writer;
+    private final ObjectReader reader;
+
+    public LeaderboardScores(LeaderboardIndex index, WindowedLeaderboard windows, LeaderboardWebSocketHandler wsHandler,
+                             WindowedLeaderboardBroadcaster windowBroadcaster, MessageBus bus) {
+        this.index = index;
+        this.windows = windows;
+        this.wsHandler = wsHandler;
+        this.windowBroadcaster = windowBroadcaster;
+        this.bus = bus;
+        ObjectMapper om = new ObjectMapper();
+        this.writer = om.writerFor(Update.class);
+        this.reader = om.readerFor(Update.class);
+        bus.subscribe(TOPIC, this::deliver);
+    }
+
+    /** Add delta to a user's score (floored at 0), creating them at 0 first if needed. */
+    public LeaderboardIndex.Change add(String userId, String displayName, int delta) {
+        return publish(userId, displayName, delta, null);
+    }
+
+    /** Replace a user's score (floored at 0). */
+    public LeaderboardIndex.Change set(String userId, String displayName, int score) {
+        return publish(userId, displayName, 0, score);
+    }
+
+    private LeaderboardIndex.Change publish(String userId, String displayName, int delta, Integer score) {
+        Update update = new Update(UUID.randomUUID().toString(), userId, displayName, delta, score,
+                Instant.now().toString());
+        CompletableFuture<LeaderboardIndex.Change> applied = new CompletableFuture<>();
+        waiting.put(update.id(), applied);
+        try {
+            bus.publish(TOPIC, userId, writer.writeValueAsString(update));
+            return applied.get(APPLY_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (JsonProcessingException | ExecutionException e) {
+            throw new IllegalStateException("Leaderboard update for " + userId + " failed", e);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Leaderboard update for " + userId + " was not applied in time");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while updating the leaderboard");
+        } finally {
+            waiting.remove(update.id());
+        }
+    }
+
+    // A change published by any node, this one's included, applied in bus order
+    private void deliver(MessageBus.Message message) {
+        Update update;
+        try {
+            update = reader.readValue(message.payload());
+        } catch (JsonProcessingException e) {
+            return;
+        }
+        // Our own change is answered as soon as the index has it: a failure in the window or broadcast
+        // steps after that must not make the caller time out and publish the change again.
+        CompletableFuture<LeaderboardIndex.Change> applied = bus.nodeId().equals(message.origin())
+                ? waiting.get(update.id()) : null;
+        // Name is refreshed if changed. The windows get the change as applied, so they count exactly
+        // the points the all-time score moved.
+        Instant at = Instant.parse(update.at());
+        LeaderboardIndex.Change change;
+        try {
+            change = update.score() == null
+                    ? index.add(update.userId(), update.displayName(), update.delta(), at)
+                    : index.set(update.userId(), update.displayName(), update.score(), at);
+        } catch (RuntimeException e) {
+            if (applied != null) {
+                applied.completeExceptionally(e);
+            }
+            throw e;
+        }
+        if (applied != null) {
+            applied.complete(change);
+        }
+        windows.add(update.userId(), update.displayName(), change.delta(), at);
+        wsHandler.broadcastLeaderboard();
+        windowBroadcaster.changed();
+    }
+}
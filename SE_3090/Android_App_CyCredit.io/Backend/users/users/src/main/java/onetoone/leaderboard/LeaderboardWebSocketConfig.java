@@ -1,5 +1,7 @@
 package onetoone.leaderboard;
 
+import onetoone.leaderboard.window.LeaderboardWindow;
+import onetoone.leaderboard.window.WindowedLeaderboardBroadcaster;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.socket.config.annotation.EnableWebSocket;
 import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
@@ -10,14 +12,22 @@ import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry
 public class LeaderboardWebSocketConfig implements WebSocketConfigurer {
 
     private final LeaderboardWebSocketHandler leaderboardHandler;
+    private final WindowedLeaderboardBroadcaster windowBroadcaster;
 
-    public LeaderboardWebSocketConfig(LeaderboardWebSocketHandler leaderboardHandler) {
+    public LeaderboardWebSocketConfig(LeaderboardWebSocketHandler leaderboardHandler,
+                                      WindowedLeaderboardBroadcaster windowBroadcaster) {
         this.leaderboardHandler = leaderboardHandler;
+        this.windowBroadcaster = windowBroadcaster;
     }
 
     @Override
     public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
         registry.addHandler(leaderboardHandler, "/ws/leaderboard")
                 .setAllowedOriginPatterns("*"); // mobile app, so allow all origins
+        // One topic per window: /ws/leaderboard/daily, /ws/leaderboard/weekly
+        for (LeaderboardWindow window : LeaderboardWindow.values()) {
+            registry.addHandler(windowBroadcaster.handler(window), "/ws/leaderboard/" + window.path())
+                    .setAllowedOriginPatterns("*");
+        }
     }
 }
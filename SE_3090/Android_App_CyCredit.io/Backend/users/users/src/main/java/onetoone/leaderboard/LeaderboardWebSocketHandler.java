@@ -1,6 +1,12 @@
 package onetoone.leaderboard;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import onetoone.config.GameConfig;
+import onetoone.websocket.OutboundSessions;
+import onetoone.websocket.bus.MessageBus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
@@ -10,79 +16,202 @@ import org.springframework.web.socket.handler.TextWebSocketHandler;
 import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 
+/**
+ * Pushes the live top 20 to /ws/leaderboard clients.
+ *
+ * Score changes only mark the board dirty; a tick every cycredit.leaderboard-broadcast-ms diffs the
+ * top 20 against what was last sent and broadcasts one delta, serialized once for all sessions:
+ *   {"type":"delta","version":7,"baseVersion":6,"rows":[changed rows],"removed":[userIds]}
+ * A client gets a full {"type":"snapshot","version":..,"rows":[..]} on connect, and again whenever it
+ * sends {"type":"resync"} (e.g. after seeing a baseVersion that is not the version it holds).
+ * Messages go out through OutboundSessions, so a slow client never delays the tick.
+ *
+ * Deltas travel over the MessageBus (topic = endpoint) together with the full top 20 they lead to, and
+ * each node sends them to its own sessions. Only the leaderboard owner (cycredit.leaderboard-owner) ticks;
+ * every node's index gets every score change (LeaderboardScores), and the others take the owner's board
+ * and version as their own, so there is one version sequence and every node's snapshots match.
+ *
+ * The bean serves the all-time board; the windowed boards (/ws/leaderboard/daily, ...) are further
+ * instances over their own top-20 supplier, ticked by WindowedLeaderboardBroadcaster.
+ */
 @Component
 public class LeaderboardWebSocketHandler extends TextWebSocketHandler {
 
-    private final LeaderboardScoreRepository repository;
+    public static final int TOP_N = 20;
+
+    private final Supplier<List<LeaderboardIndex.Ranked>> board;
+    private final String endpoint;
     private final ObjectMapper objectMapper;
+    private final OutboundSessions outbound;
+    private final MessageBus bus;
+    private final boolean owner;
     private final Set<WebSocketSession> sessions = new CopyOnWriteArraySet<>();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    // Guarded by this: the board as of the last broadcast, keyed by userId in rank order
+    private long version;
+    private Map<String, Map<String, Object>> lastRows;
+
+    @Autowired
+    public LeaderboardWebSocketHandler(LeaderboardIndex index,
+                                       ObjectMapper objectMapper,
+                                       OutboundSessions outbound,
+                                       MessageBus bus,
+                                       GameConfig config) {
+        this(() -> index.top(TOP_N), "leaderboard", objectMapper, outbound, bus, config.isLeaderboardOwner());
+    }
 
-    public LeaderboardWebSocketHandler(LeaderboardScoreRepository repository,
-                                       ObjectMapper objectMapper) {
-        this.repository = repository;
+    /**
+     * A board other than the all-time one; board supplies its current top TOP_N, endpoint labels it in stats.
+     * Only an owner's ticks publish deltas.
+     */
+    public LeaderboardWebSocketHandler(Supplier<List<LeaderboardIndex.Ranked>> board,
+                                       String endpoint,
+                                       ObjectMapper objectMapper,
+                                       OutboundSessions outbound,
+                                       MessageBus bus,
+                                       boolean owner) {
+        this.board = board;
+        this.endpoint = endpoint;
         this.objectMapper = objectMapper;
+        this.outbound = outbound;
+        this.bus = bus;
+        this.owner = owner;
+        this.lastRows = currentRows(); // version 0: the board as loaded
+        bus.subscribe(endpoint, this::deliver);
     }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
-        sessions.add(session);
-        // Send current leaderboard immediately to this new client
-        sendLeaderboardToSession(session);
+        // Snapshot and registration under the lock, so the first delta this session sees follows its snapshot
+        // A delta lost to a full queue shows up as a baseVersion gap, and the client resyncs
+        outbound.register(session, endpoint, OutboundSessions.Overflow.DROP);
+        synchronized (this) {
+            sendSnapshot(session);
+            sessions.add(session);
+        }
     }
 
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
         sessions.remove(session);
+        outbound.unregister(session);
     }
 
     @Override
     protected void handleTextMessage(WebSocketSession session, TextMessage message) {
-        // For now, ignore client messages (could be used for pings later)
+        try {
+            JsonNode msg = objectMapper.readTree(message.getPayload());
+            if ("resync".equals(msg.path("type").asText())) {
+                synchronized (this) {
+                    sendSnapshot(session);
+                }
+            }
+        } catch (IOException ignored) {
+            // Anything else (pings, malformed text) is ignored
+        }
     }
 
+    /** Mark the board changed; the next tick broadcasts the delta. Cheap enough to call per score update. */
     public void broadcastLeaderboard() {
-        List<Map<String, Object>> payload = buildLeaderboardPayload();
+        dirty.set(true);
+    }
+
+    @Scheduled(fixedDelayString = "${cycredit.leaderboard-broadcast-ms:100}")
+    public void tick() {
+        // Other nodes get the owner's deltas over the bus
+        if (!owner || !dirty.getAndSet(false)) {
+            return;
+        }
+        synchronized (this) {
+            Map<String, Map<String, Object>> rows = currentRows();
+            List<Map<String, Object>> changed = new ArrayList<>();
+            for (Map.Entry<String, Map<String, Object>> row : rows.entrySet()) {
+                if (!row.getValue().equals(lastRows.get(row.getKey()))) {
+                    changed.add(row.getValue());
+                }
+            }
+            List<String> removed = new ArrayList<>();
+            for (String userId : lastRows.keySet()) {
+                if (!rows.containsKey(userId)) {
+                    removed.add(userId);
+                }
+            }
+            if (changed.isEmpty() && removed.isEmpty()) {
+                return;
+            }
+
+            Map<String, Object> delta = new LinkedHashMap<>();
+            delta.put("type", "delta");
+            delta.put("version", version + 1);
+            delta.put("baseVersion", version);
+            delta.put("rows", changed);
+            delta.put("removed", removed);
+            Map<String, Object> published = new LinkedHashMap<>();
+            published.put("delta", delta);
+            published.put("board", new ArrayList<>(rows.values()));
+            try {
+                // Published under the lock, so deltas reach the bus in version order
+                bus.publish(endpoint, String.valueOf(version + 1), objectMapper.writeValueAsString(published));
+            } catch (IOException e) {
+                dirty.set(true); // try again next tick
+                return;
+            }
+            version++;
+            lastRows = rows;
+        }
+    }
+
+    // A delta published by the owner's tick, this node's included: sent to the sessions on this node
+    private void deliver(MessageBus.Message message) {
+        TextMessage msg;
+        List<WebSocketSession> targets;
         try {
-            String json = objectMapper.writeValueAsString(payload);
-            TextMessage msg = new TextMessage(json);
-
-            for (WebSocketSession s : sessions) {
-                if (s.isOpen()) {
-                    try {
-                        s.sendMessage(msg);
-                    } catch (IOException ignored) {
+            JsonNode published = objectMapper.readTree(message.payload());
+            JsonNode delta = published.path("delta");
+            msg = new TextMessage(objectMapper.writeValueAsString(delta));
+            synchronized (this) {
+                if (!bus.nodeId().equals(message.origin())) {
+                    Map<String, Map<String, Object>> rows = new LinkedHashMap<>();
+                    for (JsonNode row : published.path("board")) {
+                        @SuppressWarnings("unchecked")
+                        Map<String, Object> dto = objectMapper.convertValue(row, Map.class);
+                        rows.put(row.path("userId").asText(), dto);
                     }
+                    version = delta.path("version").asLong();
+                    lastRows = rows;
                 }
+                targets = new ArrayList<>(sessions);
             }
-        } catch (Exception ignored) {
+        } catch (IOException e) {
+            return;
+        }
+        for (WebSocketSession s : targets) {
+            outbound.send(s, msg);
         }
     }
 
-    private void sendLeaderboardToSession(WebSocketSession session) {
+    // Caller holds the lock
+    private void sendSnapshot(WebSocketSession session) {
         if (!session.isOpen()) return;
-        List<Map<String, Object>> payload = buildLeaderboardPayload();
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("type", "snapshot");
+        snapshot.put("version", version);
+        snapshot.put("rows", new ArrayList<>(lastRows.values()));
         try {
-            String json = objectMapper.writeValueAsString(payload);
-            session.sendMessage(new TextMessage(json));
+            outbound.send(session, new TextMessage(objectMapper.writeValueAsString(snapshot)));
         } catch (IOException ignored) {
         }
     }
 
-    private List<Map<String, Object>> buildLeaderboardPayload() {
-        List<LeaderboardScore> top = repository.findTop20ByOrderByScoreDescUpdatedAtAsc();
-
-        List<Map<String, Object>> list = new ArrayList<>();
-        int rank = 1;
-        for (LeaderboardScore s : top) {
-            Map<String, Object> m = new LinkedHashMap<>();
-            m.put("rank", rank++);
-            m.put("userId", s.getUserId());
-            m.put("displayName", s.getDisplayName());
-            m.put("score", s.getScore());
-            m.put("updatedAt", s.getUpdatedAt().toString());
-            list.add(m);
+    private Map<String, Map<String, Object>> currentRows() {
+        Map<String, Map<String, Object>> rows = new LinkedHashMap<>();
+        for (LeaderboardIndex.Ranked r : board.get()) {
+            rows.put(r.standing().userId(), LeaderboardController.toRankedDTO(r));
         }
-        return list;
+        return rows;
     }
 }
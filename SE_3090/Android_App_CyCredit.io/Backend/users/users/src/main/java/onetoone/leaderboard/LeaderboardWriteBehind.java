@@ -0,0 +1,99 @@
+package onetoone.leaderboard;
+
+import jakarta.annotation.PreDestroy;
+import onetoone.config.GameConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Persists LeaderboardIndex changes to leaderboard_scores in the background: one batched
+ * transaction per interval with only the latest standing of each changed player, however many
+ * times they scored in between. A failed flush is retried on the next tick; shutdown flushes once more.
+ * Rows get the absolute score, never a delta, and user_id is unique, so a retried flush can neither
+ * double-count nor create a second row for a player.
+ *
+ * Every node's index gets every score change, so only the leaderboard owner (cycredit.leaderboard-owner)
+ * writes; the others drop their pending standings, which the owner writes the same.
+ */
+@Component
+public class LeaderboardWriteBehind {
+
+    private static final Logger log = LoggerFactory.getLogger(LeaderboardWriteBehind.class);
+
+    private final LeaderboardIndex index;
+    private final LeaderboardScoreRepository repository;
+    private final TransactionTemplate tx;
+    private final boolean owner;
+
+    @Autowired
+    public LeaderboardWriteBehind(LeaderboardIndex index, LeaderboardScoreRepository repository,
+                                  PlatformTransactionManager txManager, GameConfig config) {
+        this(index, repository, txManager, config.isLeaderboardOwner());
+    }
+
+    public LeaderboardWriteBehind(LeaderboardIndex index, LeaderboardScoreRepository repository,
+                                  PlatformTransactionManager txManager, boolean owner) {
+        this.index = index;
+        this.repository = repository;
+        this.tx = new TransactionTemplate(txManager);
+        this.owner = owner;
+    }
+
+    @Scheduled(fixedDelayString = "${cycredit.leaderboard-flush-ms:1000}")
+    public synchronized void flush() {
+        Map<String, LeaderboardIndex.Standing> pending = index.pendingWrites();
+        if (pending.isEmpty()) {
+            return;
+        }
+        if (!owner) {
+            pending.values().forEach(index::written);
+            return;
+        }
+        try {
+            tx.executeWithoutResult(status -> write(pending.values()));
+        } catch (Exception e) {
+            log.warn("Leaderboard flush of {} players failed, retrying next tick: {}", pending.size(), e.getMessage());
+            return;
+        }
+        pending.values().forEach(index::written);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flush();
+    }
+
+    private void write(Collection<LeaderboardIndex.Standing> standings) {
+        Map<String, LeaderboardScore> rows = repository.findByUserIdIn(
+                        standings.stream().map(LeaderboardIndex.Standing::userId).toList())
+                .stream()
+                .collect(Collectors.toMap(LeaderboardScore::getUserId, Function.identity()));
+
+        List<LeaderboardScore> inserts = new ArrayList<>();
+        for (LeaderboardIndex.Standing standing : standings) {
+            LeaderboardScore row = rows.get(standing.userId());
+            if (row == null) {
+                row = new LeaderboardScore();
+                row.setUserId(standing.userId());
+                inserts.add(row);
+            }
+            // Managed rows are written by dirty checking at commit
+            row.setDisplayName(standing.displayName());
+            row.setScore(standing.score());
+            row.setUpdatedAt(standing.updatedAt());
+        }
+        repository.saveAll(inserts);
+    }
+}
@@ -0,0 +1,184 @@
+package onetoone.leaderboard;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sorted skip list that also knows positions: every forward link records how many elements it
+ * skips (its span), as in Redis sorted sets. Insert, remove, rank-of and element-at-rank are all
+ * O(log n) expected; reading a run of k neighbours after that is O(k).
+ *
+ * Ranks are 1-based. The comparator must be a total order (no two distinct elements compare equal).
+ * Not thread-safe: LeaderboardIndex guards it with a read/write lock.
+ */
+public final class RankedSkipList<T> {
+
+    private static final int MAX_LEVEL = 32;
+
+    private static final class Node<T> {
+        final T value;
+        final Node<T>[] next;
+        final int[] span;
+
+        @SuppressWarnings("unchecked")
+        Node(T value, int levels) {
+            this.value = value;
+            this.next = (Node<T>[]) new Node[levels];
+            this.span = new int[levels];
+        }
+    }
+
+    private final Comparator<? super T> order;
+    private final Node<T> head = new Node<>(null, MAX_LEVEL);
+    private int level = 1;
+    private int size;
+
+    public RankedSkipList(Comparator<? super T> order) {
+        this.order = order;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void add(T value) {
+        @SuppressWarnings("unchecked")
+        Node<T>[] update = (Node<T>[]) new Node[MAX_LEVEL];
+        int[] rank = new int[MAX_LEVEL];
+
+        Node<T> x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            rank[i] = i == level - 1 ? 0 : rank[i + 1];
+            while (x.next[i] != null && order.compare(x.next[i].value, value) < 0) {
+                rank[i] += x.span[i];
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+
+        int newLevel = randomLevel();
+        if (newLevel > level) {
+            for (int i = level; i < newLevel; i++) {
+                rank[i] = 0;
+                update[i] = head;
+                head.span[i] = size;
+            }
+            level = newLevel;
+        }
+
+        Node<T> node = new Node<>(value, newLevel);
+        for (int i = 0; i < newLevel; i++) {
+            node.next[i] = update[i].next[i];
+            update[i].next[i] = node;
+            // rank[0] - rank[i] = elements between update[i] and the new node's position
+            node.span[i] = update[i].span[i] - (rank[0] - rank[i]);
+            update[i].span[i] = (rank[0] - rank[i]) + 1;
+        }
+        for (int i = newLevel; i < level; i++) {
+            update[i].span[i]++;
+        }
+        size++;
+    }
+
+    /** @return false if the value was not in the list */
+    public boolean remove(T value) {
+        @SuppressWarnings("unchecked")
+        Node<T>[] update = (Node<T>[]) new Node[MAX_LEVEL];
+
+        Node<T> x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && order.compare(x.next[i].value, value) < 0) {
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+
+        Node<T> target = x.next[0];
+        if (target == null || order.compare(target.value, value) != 0) {
+            return false;
+        }
+        for (int i = 0; i < level; i++) {
+            if (update[i].next[i] == target) {
+                update[i].span[i] += target.span[i] - 1;
+                update[i].next[i] = target.next[i];
+            } else {
+                update[i].span[i]--;
+            }
+        }
+        while (level > 1 && head.next[level - 1] == null) {
+            level--;
+        }
+        size--;
+        return true;
+    }
+
+    /** @return the 1-based rank of value, or 0 if it is not in the list */
+    public int rankOf(T value) {
+        int rank = 0;
+        Node<T> x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && order.compare(x.next[i].value, value) <= 0) {
+                rank += x.span[i];
+                x = x.next[i];
+            }
+            if (x != head && order.compare(x.value, value) == 0) {
+                return rank;
+            }
+        }
+        return 0;
+    }
+
+    /** @return the element at a 1-based rank, or null if out of range */
+    public T get(int rank) {
+        Node<T> node = nodeAt(rank);
+        return node == null ? null : node.value;
+    }
+
+    /** Up to count elements starting at a 1-based rank, in order. */
+    public List<T> range(int fromRank, int count) {
+        List<T> out = new ArrayList<>(Math.max(0, Math.min(count, size - fromRank + 1)));
+        for (Node<T> x = nodeAt(fromRank); x != null && out.size() < count; x = x.next[0]) {
+            out.add(x.value);
+        }
+        return out;
+    }
+
+    public void clear() {
+        for (int i = 0; i < MAX_LEVEL; i++) {
+            head.next[i] = null;
+            head.span[i] = 0;
+        }
+        level = 1;
+        size = 0;
+    }
+
+    private Node<T> nodeAt(int rank) {
+        if (rank < 1 || rank > size) {
+            return null;
+        }
+        int traversed = 0;
+        Node<T> x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && traversed + x.span[i] <= rank) {
+                traversed += x.span[i];
+                x = x.next[i];
+            }
+            if (traversed == rank) {
+                return x;
+            }
+        }
+        return null;
+    }
+
+    // P(level > k) = 4^-k, which keeps about 1.33 links per element
+    private static int randomLevel() {
+        int level = 1;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (level < MAX_LEVEL && random.nextInt(4) == 0) {
+            level++;
+        }
+        return level;
+    }
+}
@@ -0,0 +1,65 @@
+package onetoone.leaderboard.window;
+
+import onetoone.leaderboard.LeaderboardIndex;
+import onetoone.leaderboard.LeaderboardIndex.Ranked;
+import onetoone.leaderboard.LeaderboardIndex.Standing;
+import onetoone.leaderboard.RankedSkipList;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * One ranked board (a window bucket, or a guild within it), in LeaderboardIndex order.
+ * Not thread-safe; WindowedLeaderboard guards every board with its lock.
+ */
+final class Board {
+
+    private final RankedSkipList<Standing> ranking = new RankedSkipList<>(LeaderboardIndex.ORDER);
+    private final Map<String, Standing> byUser = new HashMap<>();
+
+    Standing get(String userId) {
+        return byUser.get(userId);
+    }
+
+    /** Insert or replace the user's standing. */
+    void put(Standing standing) {
+        Standing old = byUser.put(standing.userId(), standing);
+        if (old != null) {
+            ranking.remove(old);
+        }
+        ranking.add(standing);
+    }
+
+    void remove(String userId) {
+        Standing old = byUser.remove(userId);
+        if (old != null) {
+            ranking.remove(old);
+        }
+    }
+
+    List<Ranked> top(int k) {
+        List<Ranked> out = new ArrayList<>();
+        int rank = 1;
+        for (Standing standing : ranking.range(1, k)) {
+            out.add(new Ranked(rank++, standing));
+        }
+        return out;
+    }
+
+    Optional<Ranked> rank(String userId) {
+        Standing standing = byUser.get(userId);
+        return standing == null ? Optional.empty() : Optional.of(new Ranked(ranking.rankOf(standing), standing));
+    }
+
+    Collection<Standing> standings() {
+        return byUser.values();
+    }
+
+    int size() {
+        return ranking.size();
+    }
+}
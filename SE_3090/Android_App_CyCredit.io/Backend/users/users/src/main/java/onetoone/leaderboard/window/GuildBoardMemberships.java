@@ -0,0 +1,74 @@
+package onetoone.leaderboard.window;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import onetoone.events.DomainEvent;
+import onetoone.events.DomainEventSubscriber;
+import onetoone.events.GuildJoined;
+import onetoone.events.GuildLeft;
+import onetoone.websocket.bus.MessageBus;
+import org.springframework.stereotype.Component;
+
+/**
+ * Guild membership changes for the guild boards, applied on every node. GuildJoined and GuildLeft only
+ * reach the node that ran the request, so they are republished on the MessageBus ("leaderboard-guilds",
+ * keyed by user) and each node, this one included, applies what arrives to its WindowedLeaderboard.
+ * One publish order means a join and a leave of the same user land in the same order everywhere.
+ */
+@Component
+public class GuildBoardMemberships implements DomainEventSubscriber {
+
+    public static final String TOPIC = "leaderboard-guilds";
+
+    /** One membership change on the bus. */
+    record Change(String userId, int guildId, boolean joined) {
+    }
+
+    private final WindowedLeaderboard windows;
+    private final MessageBus bus;
+    private final ObjectWriter writer;
+    private final ObjectReader reader;
+
+    public GuildBoardMemberships(WindowedLeaderboard windows, MessageBus bus) {
+        this.windows = windows;
+        this.bus = bus;
+        ObjectMapper om = new ObjectMapper();
+        this.writer = om.writerFor(Change.class);
+        this.reader = om.readerFor(Change.class);
+        bus.subscribe(TOPIC, this::deliver);
+    }
+
+    @Override
+    public void onEvent(DomainEvent event) {
+        if (event instanceof GuildJoined joined) {
+            publish(new Change(String.valueOf(joined.userId()), joined.guildId(), true));
+        } else if (event instanceof GuildLeft left) {
+            publish(new Change(String.valueOf(left.userId()), left.guildId(), false));
+        }
+    }
+
+    private void publish(Change change) {
+        try {
+            bus.publish(TOPIC, change.userId(), writer.writeValueAsString(change));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Guild membership change for " + change.userId() + " failed", e);
+        }
+    }
+
+    // A change published by any node, this one's included, applied in bus order
+    private void deliver(MessageBus.Message message) {
+        Change change;
+        try {
+            change = reader.readValue(message.payload());
+        } catch (JsonProcessingException e) {
+            return;
+        }
+        if (change.joined()) {
+            windows.joined(change.userId(), change.guildId());
+        } else {
+            windows.left(change.userId(), change.guildId());
+        }
+    }
+}
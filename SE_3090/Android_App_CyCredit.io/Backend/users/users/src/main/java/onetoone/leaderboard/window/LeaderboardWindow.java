@@ -0,0 +1,51 @@
+package onetoone.leaderboard.window;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * A rolling leaderboard window. Each window is a series of calendar buckets (a day; a week starting
+ * Monday) identified by their first day; a bucket's scores are the points earned inside it.
+ */
+public enum LeaderboardWindow {
+
+    DAILY(ChronoUnit.DAYS),
+    WEEKLY(ChronoUnit.WEEKS);
+
+    private final ChronoUnit unit;
+
+    LeaderboardWindow(ChronoUnit unit) {
+        this.unit = unit;
+    }
+
+    /** First day of the bucket containing the instant, in the given zone. */
+    public LocalDate bucketOf(Instant at, ZoneId zone) {
+        LocalDate day = LocalDate.ofInstant(at, zone);
+        return this == WEEKLY ? day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)) : day;
+    }
+
+    /** The bucket n buckets before the given one. */
+    public LocalDate minus(LocalDate bucket, int n) {
+        return bucket.minus(n, unit);
+    }
+
+    /** Lower-case name used in URLs and WebSocket topics ("daily", "weekly"). */
+    public String path() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    public static Optional<LeaderboardWindow> fromPath(String path) {
+        for (LeaderboardWindow window : values()) {
+            if (window.path().equalsIgnoreCase(path)) {
+                return Optional.of(window);
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,94 @@
+package onetoone.leaderboard.window;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * A player's points in one bucket of a window. Written behind WindowedLeaderboard; closed buckets are
+ * compacted to their top rows by WindowedLeaderboardMaintenance.
+ */
+@Entity
+@Table(name = "leaderboard_window_scores",
+        uniqueConstraints = @UniqueConstraint(name = "uk_leaderboard_window_scores_bucket_user",
+                columnNames = {"window_type", "bucket_start", "user_id"}))
+public class LeaderboardWindowScore {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "leaderboard_window_scores_seq")
+    @SequenceGenerator(name = "leaderboard_window_scores_seq", sequenceName = "leaderboard_window_scores_seq", allocationSize = 50)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "window_type", nullable = false)
+    private LeaderboardWindow windowType;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDate bucketStart;
+
+    @Column(name = "user_id", nullable = false, length = 64)
+    private String userId;
+
+    @Column(name = "display_name", nullable = false, length = 128)
+    private String displayName;
+
+    @Column(name = "score", nullable = false)
+    private int score;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    // --- Getters / setters ---
+
+    public Long getId() {
+        return id;
+    }
+
+    public LeaderboardWindow getWindowType() {
+        return windowType;
+    }
+
+    public void setWindowType(LeaderboardWindow windowType) {
+        this.windowType = windowType;
+    }
+
+    public LocalDate getBucketStart() {
+        return bucketStart;
+    }
+
+    public void setBucketStart(LocalDate bucketStart) {
+        this.bucketStart = bucketStart;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public void setDisplayName(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public void setScore(int score) {
+        this.score = score;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
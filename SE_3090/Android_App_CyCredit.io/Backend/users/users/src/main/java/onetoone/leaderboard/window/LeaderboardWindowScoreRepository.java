@@ -0,0 +1,35 @@
+package onetoone.leaderboard.window;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+public interface LeaderboardWindowScoreRepository extends JpaRepository<LeaderboardWindowScore, Long> {
+
+    // WindowedLeaderboard.load: the current bucket of a window
+    List<LeaderboardWindowScore> findByWindowTypeAndBucketStart(LeaderboardWindow windowType, LocalDate bucketStart);
+
+    // Write-behind: the rows of one flush within a bucket
+    List<LeaderboardWindowScore> findByWindowTypeAndBucketStartAndUserIdIn(LeaderboardWindow windowType,
+                                                                          LocalDate bucketStart,
+                                                                          Collection<String> userIds);
+
+    // History of a closed bucket, and the rows compaction keeps
+    List<LeaderboardWindowScore> findByWindowTypeAndBucketStartOrderByScoreDescUpdatedAtAscUserIdAsc(
+            LeaderboardWindow windowType, LocalDate bucketStart, Pageable page);
+
+    long countByWindowTypeAndBucketStart(LeaderboardWindow windowType, LocalDate bucketStart);
+
+    @Query("select distinct s.bucketStart from LeaderboardWindowScore s where s.windowType = :window")
+    List<LocalDate> findBucketStarts(@Param("window") LeaderboardWindow window);
+
+    @Modifying
+    @Query("delete from LeaderboardWindowScore s where s.windowType = :window and s.bucketStart < :before")
+    int deleteBucketsBefore(@Param("window") LeaderboardWindow window, @Param("before") LocalDate before);
+}
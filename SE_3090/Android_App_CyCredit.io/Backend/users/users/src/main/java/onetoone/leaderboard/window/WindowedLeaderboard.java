@@ -0,0 +1,327 @@
+package onetoone.leaderboard.window;
+
+import jakarta.annotation.PostConstruct;
+import onetoone.config.GameConfig;
+import onetoone.guild.GuildMembershipRepository;
+import onetoone.leaderboard.LeaderboardIndex.Ranked;
+import onetoone.leaderboard.LeaderboardIndex.Standing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Daily and weekly leaderboards, held in memory next to the all-time LeaderboardIndex.
+ *
+ * Each window keeps only its current bucket (today, this week): a board of everyone who scored in it,
+ * plus one board per guild over the same standings, so top-K and rank are O(log n) per window and per
+ * guild. A score change is applied to every window's bucket; a change stamped past the end of a bucket
+ * rolls that window over first, and WindowedLeaderboardMaintenance rolls idle windows over on schedule.
+ * Changed standings are persisted to leaderboard_window_scores by the maintenance job, which also
+ * compacts closed buckets.
+ *
+ * Guild boards follow guild_membership: loaded at startup, kept current by joined/left (which
+ * GuildBoardMemberships applies on every node, in bus order) and reloaded at every rollover.
+ * A new member brings the points already earned in the current buckets; a leaving one takes them along.
+ */
+@Component
+public class WindowedLeaderboard {
+
+    private static final Logger log = LoggerFactory.getLogger(WindowedLeaderboard.class);
+
+    /** Identifies one persisted row: a user's standing in one bucket. */
+    public record Key(LeaderboardWindow window, LocalDate bucket, String userId) {
+    }
+
+    private static final class Bucket {
+        final LocalDate start;
+        final Board all = new Board();
+        final Map<Integer, Board> guilds = new HashMap<>();
+
+        Bucket(LocalDate start) {
+            this.start = start;
+        }
+    }
+
+    private final LeaderboardWindowScoreRepository repository;
+    private final GuildMembershipRepository memberships;
+    private final ZoneId zone;
+    private final Clock clock;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Guarded by lock
+    private final Map<LeaderboardWindow, Bucket> current = new EnumMap<>(LeaderboardWindow.class);
+    private Map<String, Set<Integer>> guildsOf = new HashMap<>();
+    // Changed since the last flush, newest standing per user and bucket
+    private final Map<Key, Standing> dirty = new ConcurrentHashMap<>();
+
+    @Autowired
+    public WindowedLeaderboard(LeaderboardWindowScoreRepository repository, GuildMembershipRepository memberships,
+                               GameConfig config) {
+        this(repository, memberships, ZoneId.of(config.getLeaderboardZone()), Clock.systemUTC());
+    }
+
+    public WindowedLeaderboard(LeaderboardWindowScoreRepository repository, GuildMembershipRepository memberships,
+                               ZoneId zone, Clock clock) {
+        this.repository = repository;
+        this.memberships = memberships;
+        this.zone = zone;
+        this.clock = clock;
+    }
+
+    /** (Re)build the current bucket of every window from leaderboard_window_scores, and the guild boards. */
+    @PostConstruct
+    public void load() {
+        Instant now = clock.instant();
+        Map<LeaderboardWindow, List<LeaderboardWindowScore>> rows = new EnumMap<>(LeaderboardWindow.class);
+        for (LeaderboardWindow window : LeaderboardWindow.values()) {
+            rows.put(window, repository.findByWindowTypeAndBucketStart(window, window.bucketOf(now, zone)));
+        }
+        Map<String, Set<Integer>> guilds = loadGuilds();
+
+        lock.writeLock().lock();
+        try {
+            guildsOf = guilds;
+            for (LeaderboardWindow window : LeaderboardWindow.values()) {
+                Bucket bucket = new Bucket(window.bucketOf(now, zone));
+                for (LeaderboardWindowScore row : rows.get(window)) {
+                    put(bucket, new Standing(row.getUserId(), row.getDisplayName(), row.getScore(), row.getUpdatedAt()));
+                }
+                current.put(window, bucket);
+                log.info("{} leaderboard loaded for {} with {} players", window, bucket.start, bucket.all.size());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Apply a score change to the current bucket of every window (floored at 0). A negative delta only
+     * lowers a player who already scored in the bucket.
+     */
+    public void add(String userId, String displayName, int delta, Instant now) {
+        if (delta == 0) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            for (LeaderboardWindow window : LeaderboardWindow.values()) {
+                Bucket bucket = bucketAt(window, now);
+                Standing before = bucket.all.get(userId);
+                if (before == null && delta < 0) {
+                    continue;
+                }
+                int score = Math.max(0, (before == null ? 0 : before.score()) + delta);
+                Standing updated = new Standing(userId, displayName, score, now);
+                put(bucket, updated);
+                dirty.put(new Key(window, bucket.start, userId), updated);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Start new, empty buckets for every window whose current bucket ended before now.
+     * @return the windows that rolled over
+     */
+    public List<LeaderboardWindow> rollover(Instant now) {
+        List<LeaderboardWindow> rolled = new ArrayList<>();
+        lock.writeLock().lock();
+        try {
+            for (LeaderboardWindow window : LeaderboardWindow.values()) {
+                Bucket before = current.get(window);
+                if (bucketAt(window, now) != before) {
+                    rolled.add(window);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return rolled;
+    }
+
+    /** Reload guild memberships and rebuild every guild board from the window standings. */
+    public void refreshGuilds() {
+        Map<String, Set<Integer>> guilds = loadGuilds();
+        lock.writeLock().lock();
+        try {
+            guildsOf = guilds;
+            for (Bucket bucket : current.values()) {
+                bucket.guilds.clear();
+                for (Standing standing : bucket.all.standings()) {
+                    putInGuilds(bucket, standing);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** The first day of a window's current bucket. */
+    public LocalDate bucketStart(LeaderboardWindow window) {
+        lock.readLock().lock();
+        try {
+            return current.get(window).start;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** The best k players of a window's current bucket, best first. */
+    public List<Ranked> top(LeaderboardWindow window, int k) {
+        lock.readLock().lock();
+        try {
+            return current.get(window).all.top(k);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Optional<Ranked> rank(LeaderboardWindow window, String userId) {
+        lock.readLock().lock();
+        try {
+            return current.get(window).all.rank(userId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size(LeaderboardWindow window) {
+        lock.readLock().lock();
+        try {
+            return current.get(window).all.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** The best k members of a guild in a window's current bucket; empty if none of them scored. */
+    public List<Ranked> guildTop(LeaderboardWindow window, int guildId, int k) {
+        lock.readLock().lock();
+        try {
+            Board board = current.get(window).guilds.get(guildId);
+            return board == null ? List.of() : board.top(k);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** A member's rank within their guild in a window's current bucket. */
+    public Optional<Ranked> guildRank(LeaderboardWindow window, int guildId, String userId) {
+        lock.readLock().lock();
+        try {
+            Board board = current.get(window).guilds.get(guildId);
+            return board == null ? Optional.empty() : board.rank(userId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int guildSize(LeaderboardWindow window, int guildId) {
+        lock.readLock().lock();
+        try {
+            Board board = current.get(window).guilds.get(guildId);
+            return board == null ? 0 : board.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Standings changed since they were last persisted. */
+    Map<Key, Standing> pendingWrites() {
+        return Map.copyOf(dirty);
+    }
+
+    /** Forget a pending write once persisted, unless the user changed again meanwhile. */
+    void written(Key key, Standing standing) {
+        dirty.remove(key, standing);
+    }
+
+    /** Add a user to a guild's boards, with what they already scored in the current buckets. */
+    public void joined(String userId, int guildId) {
+        lock.writeLock().lock();
+        try {
+            Set<Integer> guilds = guildsOf.computeIfAbsent(userId, u -> new HashSet<>());
+            if (!guilds.add(guildId)) {
+                return;
+            }
+            for (Bucket bucket : current.values()) {
+                Standing standing = bucket.all.get(userId);
+                if (standing != null) {
+                    bucket.guilds.computeIfAbsent(guildId, g -> new Board()).put(standing);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Take a user off a guild's boards. */
+    public void left(String userId, int guildId) {
+        lock.writeLock().lock();
+        try {
+            Set<Integer> guilds = guildsOf.get(userId);
+            if (guilds == null || !guilds.remove(guildId)) {
+                return;
+            }
+            for (Bucket bucket : current.values()) {
+                Board board = bucket.guilds.get(guildId);
+                if (board != null) {
+                    board.remove(userId);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Caller holds the write lock. Rolls the window over if now is past its current bucket; a change
+    // stamped before the current bucket (in flight across the rollover) counts toward the current one.
+    private Bucket bucketAt(LeaderboardWindow window, Instant now) {
+        Bucket bucket = current.get(window);
+        LocalDate start = window.bucketOf(now, zone);
+        if (start.isAfter(bucket.start)) {
+            log.info("{} leaderboard for {} closed with {} players; starting {}",
+                    window, bucket.start, bucket.all.size(), start);
+            bucket = new Bucket(start);
+            current.put(window, bucket);
+        }
+        return bucket;
+    }
+
+    // Caller holds the write lock
+    private void put(Bucket bucket, Standing standing) {
+        bucket.all.put(standing);
+        putInGuilds(bucket, standing);
+    }
+
+    private void putInGuilds(Bucket bucket, Standing standing) {
+        for (Integer guildId : guildsOf.getOrDefault(standing.userId(), Set.of())) {
+            bucket.guilds.computeIfAbsent(guildId, g -> new Board()).put(standing);
+        }
+    }
+
+    // Leaderboard user ids are the app's numeric user ids as strings
+    private Map<String, Set<Integer>> loadGuilds() {
+        Map<String, Set<Integer>> guilds = new HashMap<>();
+        for (Object[] row : memberships.findUserGuildIds()) {
+            guilds.computeIfAbsent(String.valueOf(row[0]), u -> new HashSet<>()).add((Integer) row[1]);
+        }
+        return guilds;
+    }
+}
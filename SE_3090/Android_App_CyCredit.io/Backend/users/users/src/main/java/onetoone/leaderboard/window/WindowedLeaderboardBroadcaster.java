@@ -0,0 +1,47 @@
+package onetoone.leaderboard.window;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import onetoone.config.GameConfig;
+import onetoone.leaderboard.LeaderboardWebSocketHandler;
+import onetoone.websocket.OutboundSessions;
+import onetoone.websocket.bus.MessageBus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * One WebSocket topic per window (/ws/leaderboard/daily, /ws/leaderboard/weekly), with the same
+ * snapshot/delta protocol as /ws/leaderboard over the window's current bucket. A rollover shows up
+ * as an ordinary delta that removes last bucket's players. As with /ws/leaderboard, only the leaderboard
+ * owner's ticks publish.
+ */
+@Component
+public class WindowedLeaderboardBroadcaster {
+
+    private final Map<LeaderboardWindow, LeaderboardWebSocketHandler> handlers = new EnumMap<>(LeaderboardWindow.class);
+
+    public WindowedLeaderboardBroadcaster(WindowedLeaderboard board, ObjectMapper objectMapper,
+                                          OutboundSessions outbound, MessageBus bus, GameConfig config) {
+        for (LeaderboardWindow window : LeaderboardWindow.values()) {
+            handlers.put(window, new LeaderboardWebSocketHandler(
+                    () -> board.top(window, LeaderboardWebSocketHandler.TOP_N),
+                    "leaderboard/" + window.path(), objectMapper, outbound, bus, config.isLeaderboardOwner()));
+        }
+    }
+
+    public LeaderboardWebSocketHandler handler(LeaderboardWindow window) {
+        return handlers.get(window);
+    }
+
+    /** Mark every window changed; the next tick broadcasts what actually moved. */
+    public void changed() {
+        handlers.values().forEach(LeaderboardWebSocketHandler::broadcastLeaderboard);
+    }
+
+    @Scheduled(fixedDelayString = "${cycredit.leaderboard-broadcast-ms:100}")
+    public void tick() {
+        handlers.values().forEach(LeaderboardWebSocketHandler::tick);
+    }
+}
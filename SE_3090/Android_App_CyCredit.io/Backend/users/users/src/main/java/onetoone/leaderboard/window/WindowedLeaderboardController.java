@@ -0,0 +1,167 @@
+package onetoone.leaderboard.window;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import onetoone.leaderboard.LeaderboardController;
+import onetoone.leaderboard.LeaderboardIndex;
+import onetoone.util.ApiError;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+@RestController
+@RequestMapping("/api/leaderboard/window")
+@CrossOrigin(origins = "*")
+public class WindowedLeaderboardController {
+
+    private static final int MAX_HISTORY = 200;
+
+    private final WindowedLeaderboard board;
+    private final LeaderboardWindowScoreRepository repository;
+
+    public WindowedLeaderboardController(WindowedLeaderboard board, LeaderboardWindowScoreRepository repository) {
+        this.board = board;
+        this.repository = repository;
+    }
+    @Operation(
+            summary = "Get the top of a daily or weekly leaderboard",
+            description = "Returns the top N players by points earned today (daily) or this week (weekly)."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Top of the window returned successfully"),
+            @ApiResponse(responseCode = "400", description = "Unknown window")
+    })
+    @GetMapping("/{window}/top")
+    public ResponseEntity<?> top(@PathVariable String window,
+                                 @RequestParam(name = "limit", defaultValue = "20") int limit) {
+        Optional<LeaderboardWindow> w = LeaderboardWindow.fromPath(window);
+        if (w.isEmpty()) {
+            return unknownWindow(window);
+        }
+        return ResponseEntity.ok(toDTOs(board.top(w.get(), limit > 0 ? limit : 20)));
+    }
+    @Operation(
+            summary = "Get a user's rank in a daily or weekly leaderboard",
+            description = "Returns the user's rank and points in the current day or week, and how many players scored in it."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Rank returned successfully"),
+            @ApiResponse(responseCode = "400", description = "Unknown window"),
+            @ApiResponse(responseCode = "404", description = "User has not scored in this window")
+    })
+    @GetMapping("/{window}/rank")
+    public ResponseEntity<?> rank(@PathVariable String window, @RequestParam("userId") String userId) {
+        Optional<LeaderboardWindow> w = LeaderboardWindow.fromPath(window);
+        if (w.isEmpty()) {
+            return unknownWindow(window);
+        }
+        Optional<LeaderboardIndex.Ranked> ranked = board.rank(w.get(), userId.trim());
+        if (ranked.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ApiError(ApiError.USER_NOT_FOUND, "No " + w.get().path() + " score for user " + userId));
+        }
+        Map<String, Object> out = LeaderboardController.toRankedDTO(ranked.get());
+        out.put("bucketStart", board.bucketStart(w.get()).toString());
+        out.put("totalPlayers", board.size(w.get()));
+        return ResponseEntity.ok(out);
+    }
+    @Operation(
+            summary = "Get the top of a guild's daily or weekly leaderboard",
+            description = "Returns the guild's top N members by points earned today (daily) or this week (weekly)."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Top of the guild returned successfully"),
+            @ApiResponse(responseCode = "400", description = "Unknown window")
+    })
+    @GetMapping("/{window}/guild/{guildId}/top")
+    public ResponseEntity<?> guildTop(@PathVariable String window,
+                                      @PathVariable int guildId,
+                                      @RequestParam(name = "limit", defaultValue = "20") int limit) {
+        Optional<LeaderboardWindow> w = LeaderboardWindow.fromPath(window);
+        if (w.isEmpty()) {
+            return unknownWindow(window);
+        }
+        return ResponseEntity.ok(toDTOs(board.guildTop(w.get(), guildId, limit > 0 ? limit : 20)));
+    }
+    @Operation(
+            summary = "Get a member's rank in a guild's daily or weekly leaderboard",
+            description = "Returns the member's rank within the guild for the current day or week."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Rank returned successfully"),
+            @ApiResponse(responseCode = "400", description = "Unknown window"),
+            @ApiResponse(responseCode = "404", description = "User is not a guild member who scored in this window")
+    })
+    @GetMapping("/{window}/guild/{guildId}/rank")
+    public ResponseEntity<?> guildRank(@PathVariable String window,
+                                       @PathVariable int guildId,
+                                       @RequestParam("userId") String userId) {
+        Optional<LeaderboardWindow> w = LeaderboardWindow.fromPath(window);
+        if (w.isEmpty()) {
+            return unknownWindow(window);
+        }
+        Optional<LeaderboardIndex.Ranked> ranked = board.guildRank(w.get(), guildId, userId.trim());
+        if (ranked.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ApiError(ApiError.USER_NOT_FOUND,
+                            "No " + w.get().path() + " score for user " + userId + " in guild " + guildId));
+        }
+        Map<String, Object> out = LeaderboardController.toRankedDTO(ranked.get());
+        out.put("bucketStart", board.bucketStart(w.get()).toString());
+        out.put("totalPlayers", board.guildSize(w.get(), guildId));
+        return ResponseEntity.ok(out);
+    }
+    @Operation(
+            summary = "Get the final standings of a past day or week",
+            description = "Returns the top N of a closed bucket (bucket = its first day, yyyy-MM-dd; weeks start on Monday). "
+                    + "Closed buckets keep their top rows for a limited number of days or weeks."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Standings returned (empty if the bucket has expired)"),
+            @ApiResponse(responseCode = "400", description = "Unknown window or bad bucket date")
+    })
+    @GetMapping("/{window}/history")
+    public ResponseEntity<?> history(@PathVariable String window,
+                                     @RequestParam("bucket") String bucket,
+                                     @RequestParam(name = "limit", defaultValue = "20") int limit) {
+        Optional<LeaderboardWindow> w = LeaderboardWindow.fromPath(window);
+        if (w.isEmpty()) {
+            return unknownWindow(window);
+        }
+        LocalDate start;
+        try {
+            start = LocalDate.parse(bucket);
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().body(new ApiError(ApiError.BAD_REQUEST, "bucket must be yyyy-MM-dd"));
+        }
+        int size = Math.min(limit > 0 ? limit : 20, MAX_HISTORY);
+        List<LeaderboardWindowScore> rows = repository.findByWindowTypeAndBucketStartOrderByScoreDescUpdatedAtAscUserIdAsc(
+                w.get(), start, PageRequest.of(0, size));
+        List<Map<String, Object>> out = new ArrayList<>();
+        int rank = 1;
+        for (LeaderboardWindowScore row : rows) {
+            out.add(LeaderboardController.toRankedDTO(new LeaderboardIndex.Ranked(rank++, new LeaderboardIndex.Standing(
+                    row.getUserId(), row.getDisplayName(), row.getScore(), row.getUpdatedAt()))));
+        }
+        return ResponseEntity.ok(out);
+    }
+
+    private static List<Map<String, Object>> toDTOs(List<LeaderboardIndex.Ranked> ranked) {
+        List<Map<String, Object>> out = new ArrayList<>();
+        for (LeaderboardIndex.Ranked r : ranked) {
+            out.add(LeaderboardController.toRankedDTO(r));
+        }
+        return out;
+    }
+
+    private static ResponseEntity<ApiError> unknownWindow(String window) {
+        return ResponseEntity.badRequest()
+                .body(new ApiError(ApiError.BAD_REQUEST, "Unknown leaderboard window " + window + " (daily or weekly)"));
+    }
+}
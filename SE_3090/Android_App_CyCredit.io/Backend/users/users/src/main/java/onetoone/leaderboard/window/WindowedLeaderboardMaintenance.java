@@ -0,0 +1,176 @@
+package onetoone.leaderboard.window;
+
+import jakarta.annotation.PreDestroy;
+import onetoone.config.GameConfig;
+import onetoone.leaderboard.LeaderboardIndex.Standing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Background upkeep of the windowed leaderboards:
+ *   - flush: writes changed window standings to leaderboard_window_scores, one batched transaction
+ *     per interval with only the latest standing per user and bucket (retried on the next tick if it fails)
+ *   - rollover: starts new buckets once a day/week ends, even if nobody scores, then reloads guild
+ *     memberships, pushes the emptied boards to the window topics and compacts
+ *   - compact: closed buckets keep only their top leaderboard-archive-top rows (their final standings,
+ *     served by /history), and buckets older than the retention are deleted
+ *
+ * Every node rolls its own buckets over, but only the leaderboard owner (cycredit.leaderboard-owner)
+ * writes and compacts; the others drop their pending standings, which the owner writes the same.
+ */
+@Component
+public class WindowedLeaderboardMaintenance {
+
+    private static final Logger log = LoggerFactory.getLogger(WindowedLeaderboardMaintenance.class);
+
+    private final WindowedLeaderboard board;
+    private final LeaderboardWindowScoreRepository repository;
+    private final WindowedLeaderboardBroadcaster broadcaster;
+    private final TransactionTemplate tx;
+    private final Map<LeaderboardWindow, Integer> retention = new EnumMap<>(LeaderboardWindow.class);
+    private final int archiveTop;
+    private final boolean owner;
+    // Guarded by this: the bucket each window was in at the last rollover check
+    private final Map<LeaderboardWindow, LocalDate> seen = new EnumMap<>(LeaderboardWindow.class);
+
+    public WindowedLeaderboardMaintenance(WindowedLeaderboard board, LeaderboardWindowScoreRepository repository,
+                                          WindowedLeaderboardBroadcaster broadcaster,
+                                          PlatformTransactionManager txManager, GameConfig config) {
+        this.board = board;
+        this.repository = repository;
+        this.broadcaster = broadcaster;
+        this.tx = new TransactionTemplate(txManager);
+        this.retention.put(LeaderboardWindow.DAILY, config.getLeaderboardDailyRetention());
+        this.retention.put(LeaderboardWindow.WEEKLY, config.getLeaderboardWeeklyRetention());
+        this.archiveTop = config.getLeaderboardArchiveTop();
+        this.owner = config.isLeaderboardOwner();
+        for (LeaderboardWindow window : LeaderboardWindow.values()) {
+            seen.put(window, board.bucketStart(window));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${cycredit.leaderboard-flush-ms:1000}")
+    public synchronized void flush() {
+        Map<WindowedLeaderboard.Key, Standing> pending = board.pendingWrites();
+        if (pending.isEmpty()) {
+            return;
+        }
+        if (!owner) {
+            pending.forEach(board::written);
+            return;
+        }
+        try {
+            tx.executeWithoutResult(status -> write(pending));
+        } catch (Exception e) {
+            log.warn("Windowed leaderboard flush of {} standings failed, retrying next tick: {}",
+                    pending.size(), e.getMessage());
+            return;
+        }
+        pending.forEach(board::written);
+    }
+
+    @Scheduled(fixedDelayString = "${cycredit.leaderboard-rollover-check-ms:10000}")
+    public void rollover() {
+        rollover(Instant.now());
+    }
+
+    /** Roll windows whose bucket ended before now; the upkeep also runs for a window a late score already rolled. */
+    public synchronized void rollover(Instant now) {
+        board.rollover(now);
+        boolean rolled = false;
+        for (LeaderboardWindow window : LeaderboardWindow.values()) {
+            LocalDate start = board.bucketStart(window);
+            if (!start.equals(seen.put(window, start))) {
+                rolled = true;
+            }
+        }
+        if (!rolled) {
+            return;
+        }
+        broadcaster.changed();
+        board.refreshGuilds();
+        flush(); // the closed buckets' last standings, before they are compacted
+        compact();
+    }
+
+    /**
+     * Trim closed buckets to their top rows and delete buckets past the retention. Idempotent.
+     * @return rows deleted
+     */
+    public synchronized int compact() {
+        if (!owner) {
+            return 0;
+        }
+        Integer deleted = tx.execute(status -> {
+            int n = 0;
+            for (LeaderboardWindow window : LeaderboardWindow.values()) {
+                LocalDate current = board.bucketStart(window);
+                n += repository.deleteBucketsBefore(window, window.minus(current, retention.get(window)));
+                for (LocalDate bucket : repository.findBucketStarts(window)) {
+                    if (bucket.isBefore(current) && repository.countByWindowTypeAndBucketStart(window, bucket) > archiveTop) {
+                        List<LeaderboardWindowScore> rows = repository
+                                .findByWindowTypeAndBucketStartOrderByScoreDescUpdatedAtAscUserIdAsc(window, bucket, Pageable.unpaged());
+                        repository.deleteAllInBatch(rows.subList(archiveTop, rows.size()));
+                        n += rows.size() - archiveTop;
+                    }
+                }
+            }
+            return n;
+        });
+        if (deleted != null && deleted > 0) {
+            log.info("Windowed leaderboard compaction deleted {} rows", deleted);
+        }
+        return deleted == null ? 0 : deleted;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flush();
+    }
+
+    private void write(Map<WindowedLeaderboard.Key, Standing> pending) {
+        Map<LeaderboardWindow, Map<LocalDate, List<Standing>>> byBucket = new EnumMap<>(LeaderboardWindow.class);
+        pending.forEach((key, standing) -> byBucket
+                .computeIfAbsent(key.window(), w -> new HashMap<>())
+                .computeIfAbsent(key.bucket(), b -> new ArrayList<>())
+                .add(standing));
+
+        List<LeaderboardWindowScore> inserts = new ArrayList<>();
+        byBucket.forEach((window, buckets) -> buckets.forEach((bucket, standings) -> {
+            Map<String, LeaderboardWindowScore> rows = repository.findByWindowTypeAndBucketStartAndUserIdIn(
+                            window, bucket, standings.stream().map(Standing::userId).toList())
+                    .stream()
+                    .collect(Collectors.toMap(LeaderboardWindowScore::getUserId, Function.identity()));
+            for (Standing standing : standings) {
+                LeaderboardWindowScore row = rows.get(standing.userId());
+                if (row == null) {
+                    row = new LeaderboardWindowScore();
+                    row.setWindowType(window);
+                    row.setBucketStart(bucket);
+                    row.setUserId(standing.userId());
+                    inserts.add(row);
+                }
+                // Managed rows are written by dirty checking at commit
+                row.setDisplayName(standing.displayName());
+                row.setScore(standing.score());
+                row.setUpdatedAt(standing.updatedAt());
+            }
+        }));
+        repository.saveAll(inserts);
+    }
+}
@@ -9,10 +9,11 @@ import onetoone.Resource.Resource;
 import onetoone.Resource.ResourceRepository;
 import onetoone.Users.User;
 import onetoone.Users.UserRepository;
-import onetoone.achievements.AchievementsController;
 import onetoone.billing.BillingService;
 import onetoone.billing.Transaction;
 import onetoone.config.GameConfig;
+import onetoone.events.DomainEventBus;
+import onetoone.events.QuestionMastered;
 import onetoone.game.GameService;
 import onetoone.util.ApiError;
 import onetoone.util.Money;
@@ -38,7 +39,7 @@ public class LibraryController {
     private final ResourceRepository resourceRepo;
     private final BillingService billingService;
     private final GameService gameService;
-    private final AchievementsController achievementsController;
+    private final DomainEventBus eventBus;
     private final GameConfig config;
     private final ObjectMapper objectMapper;
 
@@ -48,7 +49,7 @@ public class LibraryController {
                             ResourceRepository resourceRepo,
                             BillingService billingService,
                             GameService gameService,
-                            AchievementsController achievementsController,
+                            DomainEventBus eventBus,
                             GameConfig config) {
         this.questionRepo = questionRepo;
         this.attemptRepo = attemptRepo;
@@ -56,7 +57,7 @@ public class LibraryController {
         this.resourceRepo = resourceRepo;
         this.billingService = billingService;
         this.gameService = gameService;
-        this.achievementsController = achievementsController;
+        this.eventBus = eventBus;
         this.config = config;
         this.objectMapper = new ObjectMapper();
         seedQuestions();
@@ -190,11 +191,8 @@ public class LibraryController {
                             rewardMoney, "Reward", Transaction.TransactionType.REWARD);
                 }
 
-                // Check for achievement unlocks
-                List<QuestionAttempt> mastered = attemptRepo.findByUser_IdAndIsMasteredTrue(userId);
-                if (mastered.size() >= 10) {
-                    achievementsController.unlockAchievement(userId, "MASTER_10");
-                }
+                // Achievement unlocks are checked off the request thread once this commits
+                eventBus.publish(new QuestionMastered(userId, questionId));
             }
             // If already mastered, no reward is granted (idempotent)
 
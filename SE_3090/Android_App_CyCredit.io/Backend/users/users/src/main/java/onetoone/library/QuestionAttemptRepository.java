@@ -11,5 +11,6 @@ public interface QuestionAttemptRepository extends JpaRepository<QuestionAttempt
     List<QuestionAttempt> findByUser_Id(Integer userId);
     Optional<QuestionAttempt> findByUser_IdAndQuestion_Id(Integer userId, Long questionId);
     List<QuestionAttempt> findByUser_IdAndIsMasteredTrue(Integer userId);
+    long countByUser_IdAndIsMasteredTrue(Integer userId);
 }
 
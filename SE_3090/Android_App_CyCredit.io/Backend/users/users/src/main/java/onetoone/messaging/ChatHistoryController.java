@@ -3,10 +3,11 @@ package onetoone.messaging;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import onetoone.messaging.chat.ChatHistoryCache;
 import onetoone.messaging.chat.ChatMessage;
-import onetoone.messaging.chat.ChatMessageRepository;
+import onetoone.util.ApiError;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -15,11 +16,12 @@ import java.util.List;
 @RequestMapping("/api/chat")
 @CrossOrigin(origins = "*")
 public class ChatHistoryController {
-    @Autowired ChatMessageRepository repo;
+    @Autowired ChatHistoryCache history;
     @Operation(
-            summary = "Fetch recent chat messages",
-            description = "Returns the most recent messages for a specific chat channel and scope. " +
-                    "The number of messages returned can be limited (max 200)."
+            summary = "Fetch chat messages",
+            description = "Returns messages for a specific chat channel and scope, at most limit (max 200). " +
+                    "Without a cursor: the most recent, newest first. With before=<id>: the page older than " +
+                    "that message, newest first. With after=<id>: the messages newer than that one, oldest first."
     )
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Messages fetched successfully"),
@@ -27,8 +29,23 @@ public class ChatHistoryController {
             @ApiResponse(responseCode = "500", description = "Server error")
     })
     @GetMapping("/{scope}/{channel}/history")
-    public List<ChatMessage> history(@PathVariable String scope, @PathVariable String channel,
-                                     @RequestParam(defaultValue = "50") int limit){
-        return repo.recent(scope, channel, PageRequest.of(0, Math.min(Math.max(limit,1), 200)));
+    public ResponseEntity<?> history(@PathVariable String scope, @PathVariable String channel,
+                                     @RequestParam(defaultValue = "50") int limit,
+                                     @RequestParam(required = false) Integer before,
+                                     @RequestParam(required = false) Integer after){
+        if (before != null && after != null) {
+            return ResponseEntity.badRequest().body(new ApiError(ApiError.BAD_REQUEST, "Use either before or after, not both"));
+        }
+        int n = Math.min(Math.max(limit,1), 200);
+        // Served from the room's in-memory buffer when it covers the page; the database otherwise
+        List<ChatMessage> page;
+        if (before != null) {
+            page = history.before(scope, channel, before, n);
+        } else if (after != null) {
+            page = history.after(scope, channel, after, n);
+        } else {
+            page = history.recent(scope, channel, n);
+        }
+        return ResponseEntity.ok(page);
     }
 }
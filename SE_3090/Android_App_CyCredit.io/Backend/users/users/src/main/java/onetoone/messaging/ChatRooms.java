@@ -0,0 +1,51 @@
+package onetoone.messaging;
+
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Who is in which chat room, keyed by "scope:channel".
+ *
+ * Each room is an immutable snapshot list that a join or leave replaces atomically (copy-on-write), so
+ * a broadcast reads the current snapshot and iterates it without a lock or a per-message copy. Joins and
+ * leaves are rare next to messages; a room is removed when its last session leaves.
+ */
+public final class ChatRooms {
+
+    private final ConcurrentHashMap<String, List<WebSocketSession>> rooms = new ConcurrentHashMap<>();
+
+    public void join(String room, WebSocketSession session) {
+        rooms.compute(room, (k, current) -> {
+            if (current == null) {
+                return List.of(session);
+            }
+            if (current.contains(session)) {
+                return current;
+            }
+            List<WebSocketSession> next = new ArrayList<>(current.size() + 1);
+            next.addAll(current);
+            next.add(session);
+            return List.copyOf(next);
+        });
+    }
+
+    public void leave(String room, WebSocketSession session) {
+        rooms.computeIfPresent(room, (k, current) -> {
+            List<WebSocketSession> next = new ArrayList<>(current);
+            next.remove(session);
+            return next.isEmpty() ? null : List.copyOf(next);
+        });
+    }
+
+    /** The sessions in a room as of now (immutable; later joins and leaves do not change it). */
+    public List<WebSocketSession> members(String room) {
+        return rooms.getOrDefault(room, List.of());
+    }
+
+    public int roomCount() {
+        return rooms.size();
+    }
+}
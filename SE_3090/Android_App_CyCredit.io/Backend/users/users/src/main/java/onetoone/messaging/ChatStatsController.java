@@ -0,0 +1,35 @@
+package onetoone.messaging;
+
+import onetoone.messaging.chat.ChatHistoryCache;
+import onetoone.messaging.chat.ChatWriteBehind;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Health of chat persistence and history: write-behind queue depth, batch sizes and flush lag;
+ * history cache rooms, hits and evictions.
+ */
+@CrossOrigin(origins = "*")
+@RestController
+@RequestMapping("/chat")
+public class ChatStatsController {
+
+    private final ChatWriteBehind chatLog;
+    private final ChatHistoryCache history;
+
+    public ChatStatsController(ChatWriteBehind chatLog, ChatHistoryCache history) {
+        this.chatLog = chatLog;
+        this.history = history;
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("writeBehind", chatLog.stats());
+        stats.put("history", history.stats());
+        return ResponseEntity.ok(stats);
+    }
+}
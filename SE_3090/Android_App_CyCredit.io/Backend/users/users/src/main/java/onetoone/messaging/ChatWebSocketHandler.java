@@ -1,32 +1,149 @@
 package onetoone.messaging;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import onetoone.config.GameConfig;
+import onetoone.messaging.chat.ChatDtos;
+import onetoone.messaging.chat.ChatHistoryCache;
 import onetoone.messaging.chat.ChatMessage;
-import onetoone.messaging.chat.ChatMessageRepository;
+import onetoone.messaging.chat.ChatWriteBehind;
+import onetoone.websocket.OutboundSessions;
+import onetoone.websocket.bus.MessageBus;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.*;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
+import java.io.IOException;
 import java.time.Instant;
-import java.util.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Chat rooms over /ws/chat/{scope}/{channel}/{username}. Each message gets its id and is queued for
+ * saving (ChatWriteBehind, which inserts in batches behind the broadcast), added to the room's cached
+ * history (ChatHistoryCache), and serialized once into a single frame that is queued to every session
+ * of the room's current snapshot (ChatRooms) through OutboundSessions, without holding any room lock
+ * or waiting on the database.
+ *
+ * A room can span nodes, so messages go through the MessageBus rather than straight to the room. The
+ * node a client sends on submits the message without an id ("chat-submit", keyed by room). Only the chat
+ * owner (cycredit.chat-owner) numbers and saves messages: it gives each submitted message its id and
+ * publishes the frame ("chat"), one room at a time, so a room's ids rise in the order its frames are
+ * delivered on every node, whichever node each message was sent on. Every node delivers the frames to
+ * the sessions connected to it and adds them to its cached history, for /history and reconnect replay.
+ *
+ * A client reconnecting with ?lastSeenId=N first gets the messages it missed (ids above N, oldest first),
+ * then live ones. Live frames for it are held while the gap is sent, so nothing falls in between and
+ * nothing arrives twice. A gap over replayMax messages is cut to its newest replayMax; the client can page
+ * back from the first one it got with /history?before=.
+ */
 @Component
 public class ChatWebSocketHandler extends TextWebSocketHandler {
 
-    @Autowired ChatMessageRepository repo;
-    private final ObjectMapper om = new ObjectMapper();
+    // Column lengths of chat_messages; longer values are cut so one message cannot fail a whole batch
+    private static final int MAX_CONTENT = 2000;
+    private static final int MAX_USERNAME = 64;
 
-    // room key: scope + ":" + channel
-    private final Map<String, Set<WebSocketSession>> rooms = new ConcurrentHashMap<>();
+    /** Live frames for a session whose reconnect replay is still being sent. */
+    private static final class Replay {
+        final List<Held> held = new ArrayList<>();
+        boolean done;
+    }
+
+    private record Held(int id, TextMessage frame) {}
+
+    private final ChatWriteBehind chatLog;
+    private final ChatHistoryCache history;
+    private final OutboundSessions outbound;
+    private final MessageBus bus;
+    private final int replayMax;
+    private final ChatRooms rooms = new ChatRooms();
+    // Owner only: numbering and publishing a message is one step per room; rooms are striped over these
+    private final Object[] numbering = new Object[64];
+    // Keyed by session id; empty except while reconnects are being replayed
+    private final Map<String, Replay> replaying = new ConcurrentHashMap<>();
+    // Readers and writers are immutable and thread-safe; resolved once instead of per message
+    private final ObjectReader inboundReader;
+    private final ObjectWriter outboundWriter;
+    private final ObjectReader outboundReader;
+
+    @Autowired
+    public ChatWebSocketHandler(ChatWriteBehind chatLog, ChatHistoryCache history, OutboundSessions outbound,
+                                MessageBus bus, GameConfig config) {
+        this(chatLog, history, outbound, bus, config.isChatOwner(), config.getChatReplayMax());
+    }
+
+    /** @param owner whether this node numbers and saves the messages of every node */
+    public ChatWebSocketHandler(ChatWriteBehind chatLog, ChatHistoryCache history, OutboundSessions outbound,
+                                MessageBus bus, boolean owner, int replayMax) {
+        this.chatLog = chatLog;
+        this.history = history;
+        this.outbound = outbound;
+        this.bus = bus;
+        this.replayMax = replayMax;
+        for (int i = 0; i < numbering.length; i++) {
+            numbering[i] = new Object();
+        }
+        ObjectMapper om = new ObjectMapper();
+        this.inboundReader = om.readerFor(ChatDtos.Inbound.class);
+        this.outboundWriter = om.writerFor(ChatDtos.Outbound.class);
+        this.outboundReader = om.readerFor(ChatDtos.Outbound.class);
+        if (owner) {
+            bus.subscribe("chat-submit", this::number);
+        }
+        bus.subscribe("chat", this::deliver);
+    }
 
     @Override
-    public void afterConnectionEstablished(WebSocketSession session) {
+    public void afterConnectionEstablished(WebSocketSession session) throws IOException {
+        outbound.register(session, "chat");
+        Integer lastSeenId = (Integer) session.getAttributes().get("lastSeenId");
+        if (lastSeenId == null) {
+            rooms.join(roomKey(session), session);
+            return;
+        }
+        Replay replay = new Replay();
+        replaying.put(session.getId(), replay);
+        try {
+            // Joined before the gap is read, so a message sent meanwhile is either in the gap or held
+            rooms.join(roomKey(session), session);
+            Set<Integer> replayed = new HashSet<>();
+            for (ChatMessage m : missed(session, lastSeenId)) {
+                outbound.send(session, frame(m));
+                replayed.add(m.getId());
+            }
+            synchronized (replay) {
+                for (Held h : replay.held) {
+                    if (!replayed.contains(h.id())) {
+                        outbound.send(session, h.frame());
+                    }
+                }
+                replay.done = true;
+            }
+        } finally {
+            replaying.remove(session.getId());
+        }
+    }
+
+    // The messages after lastSeenId, oldest first; only the newest replayMax if there are more
+    private List<ChatMessage> missed(WebSocketSession session, int lastSeenId) {
         String scope   = (String) session.getAttributes().getOrDefault("scope","public");
         String channel = (String) session.getAttributes().getOrDefault("channel","global");
-        String key = scope + ":" + channel;
-        rooms.computeIfAbsent(key, k -> Collections.synchronizedSet(new HashSet<>())).add(session);
+        List<ChatMessage> gap = history.after(scope, channel, lastSeenId, replayMax + 1);
+        if (gap.size() <= replayMax) {
+            return gap;
+        }
+        List<ChatMessage> newest = new ArrayList<>(history.recent(scope, channel, replayMax));
+        Collections.reverse(newest);
+        return newest;
     }
 
     @Override
@@ -35,46 +152,113 @@ public class ChatWebSocketHandler extends TextWebSocketHandler {
         String channel = (String) session.getAttributes().getOrDefault("channel","global");
         String user    = (String) session.getAttributes().getOrDefault("username","user");
 
-        Map<String,Object> in = om.readValue(message.getPayload(), Map.class);
-        Integer fromId = in.get("fromUserId")==null ? null : (Integer) (in.get("fromUserId") instanceof Integer ? in.get("fromUserId") : null);
-        String content = String.valueOf(in.getOrDefault("content",""));
+        ChatDtos.Inbound in;
+        try {
+            in = inboundReader.readValue(message.getPayload());
+        } catch (JsonProcessingException e) {
+            return; // not a chat message (malformed or a ping); the connection stays up
+        }
 
         ChatMessage m = new ChatMessage();
         m.setScope(scope);
         m.setChannel(channel);
-        m.setFromUserId(fromId);
+        m.setFromUserId(in.fromUserId());
         // prefer explicit username field from payload, otherwise path var
-        String uname = in.get("username")==null ? user : String.valueOf(in.get("username"));
-        m.setUsername(uname);
-        m.setContent(content);
+        m.setUsername(clip(in.username() == null ? user : in.username(), MAX_USERNAME));
+        m.setContent(clip(in.content() == null ? "" : in.content(), MAX_CONTENT));
         m.setCreatedAt(Instant.now());
-        repo.save(m);
-
-        Map<String,Object> out = new LinkedHashMap<>();
-        out.put("id", m.getId());
-        out.put("scope", m.getScope());
-        out.put("channel", m.getChannel());
-        out.put("fromUserId", m.getFromUserId());
-        out.put("username", m.getUsername());
-        out.put("content", m.getContent());
-        out.put("createdAt", m.getCreatedAt().toString());
-        String json = om.writeValueAsString(out);
-
-        String key = scope + ":" + channel;
-        Set<WebSocketSession> sessions = rooms.getOrDefault(key, Collections.emptySet());
-        synchronized (sessions) {
-            for (WebSocketSession s : sessions) {
-                if (s.isOpen()) s.sendMessage(new TextMessage(json));
+        bus.publish("chat-submit", scope + ":" + channel, outboundWriter.writeValueAsString(ChatDtos.Outbound.of(m)));
+    }
+
+    // Owner only: a message submitted on any node gets its id and goes out to every node's room
+    private void number(MessageBus.Message message) {
+        ChatDtos.Outbound dto = parse(message.payload());
+        if (dto == null) {
+            return;
+        }
+        ChatMessage m = dto.toMessage();
+        // Numbered and published under the room's stripe, so no later id of the room reaches the bus first
+        synchronized (numbering[Math.floorMod(message.key().hashCode(), numbering.length)]) {
+            chatLog.append(m);
+            history.add(m); // before the broadcast, so a client that sees the frame also finds it in history
+            String frame;
+            try {
+                frame = outboundWriter.writeValueAsString(ChatDtos.Outbound.of(m));
+            } catch (JsonProcessingException e) {
+                return;
             }
+            bus.publish("chat", message.key(), frame);
+        }
+    }
+
+    // A numbered message from the owner: queued to the room's sessions on this node
+    private void deliver(MessageBus.Message message) {
+        Integer id = null;
+        if (!bus.nodeId().equals(message.origin())) {
+            ChatDtos.Outbound dto = parse(message.payload());
+            if (dto == null) {
+                return;
+            }
+            history.add(dto.toMessage());
+            id = dto.id();
+        }
+        // One frame for the whole room: the same TextMessage is queued to every session
+        TextMessage frame = new TextMessage(message.payload());
+        for (WebSocketSession s : rooms.members(message.key())) {
+            if (!replaying.isEmpty()) {
+                if (id == null) {
+                    ChatDtos.Outbound dto = parse(message.payload());
+                    id = dto == null ? -1 : dto.id();
+                }
+                if (held(s, id, frame)) {
+                    continue;
+                }
+            }
+            outbound.send(s, frame);
+        }
+    }
+
+    private ChatDtos.Outbound parse(String payload) {
+        try {
+            return outboundReader.readValue(payload);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    private TextMessage frame(ChatMessage m) throws JsonProcessingException {
+        return new TextMessage(outboundWriter.writeValueAsString(ChatDtos.Outbound.of(m)));
+    }
+
+    // True if the session is still being replayed to, in which case the frame waits for the replay to finish
+    private boolean held(WebSocketSession session, int id, TextMessage frame) {
+        Replay replay = replaying.get(session.getId());
+        if (replay == null) {
+            return false;
+        }
+        synchronized (replay) {
+            if (replay.done) {
+                return false;
+            }
+            replay.held.add(new Held(id, frame));
+            return true;
         }
     }
 
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        rooms.leave(roomKey(session), session);
+        outbound.unregister(session);
+    }
+
+    private static String clip(String s, int max) {
+        return s.length() <= max ? s : s.substring(0, max);
+    }
+
+    // room key: scope + ":" + channel
+    private static String roomKey(WebSocketSession session) {
         String scope   = (String) session.getAttributes().getOrDefault("scope","public");
         String channel = (String) session.getAttributes().getOrDefault("channel","global");
-        String key = scope + ":" + channel;
-        Set<WebSocketSession> sessions = rooms.get(key);
-        if (sessions != null) sessions.remove(session);
+        return scope + ":" + channel;
     }
 }
@@ -4,6 +4,7 @@ import org.springframework.http.server.ServerHttpRequest;
 import org.springframework.http.server.ServerHttpResponse;
 import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import java.util.Map;
 
@@ -23,6 +24,15 @@ public class WsPathVarsInterceptor implements HandshakeInterceptor {
             attrs.put("channel", parts[4]);
             attrs.put("username", parts[5]);
         }
+        // ?lastSeenId=N on a reconnect: the handler replays what came after N before going live
+        String lastSeenId = UriComponentsBuilder.fromUri(req.getURI()).build().getQueryParams().getFirst("lastSeenId");
+        if (lastSeenId != null) {
+            try {
+                attrs.put("lastSeenId", Integer.parseInt(lastSeenId));
+            } catch (NumberFormatException ignored) {
+                // not a message id: connect without a replay
+            }
+        }
         return true;
     }
 
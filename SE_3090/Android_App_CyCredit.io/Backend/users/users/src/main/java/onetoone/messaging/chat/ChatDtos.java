@@ -0,0 +1,38 @@
+package onetoone.messaging.chat;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.time.Instant;
+
+public final class ChatDtos {
+    private ChatDtos() {}
+
+    /** A message a client sends on /ws/chat/{scope}/{channel}/{username}; scope and channel come from the path. */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Inbound(Integer fromUserId, String username, String content) {
+    }
+
+    /** The frame every session in the room receives for a saved message. */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Outbound(Integer id, String scope, String channel, Integer fromUserId, String username,
+                           String content, String createdAt) {
+
+        public static Outbound of(ChatMessage m) {
+            return new Outbound(m.getId(), m.getScope(), m.getChannel(), m.getFromUserId(), m.getUsername(),
+                    m.getContent(), m.getCreatedAt().toString());
+        }
+
+        /** The message back from a frame, e.g. one sent on another node. */
+        public ChatMessage toMessage() {
+            ChatMessage m = new ChatMessage();
+            m.setId(id);
+            m.setScope(scope);
+            m.setChannel(channel);
+            m.setFromUserId(fromUserId);
+            m.setUsername(username);
+            m.setContent(content);
+            m.setCreatedAt(Instant.parse(createdAt));
+            return m;
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package onetoone.messaging.chat;
+
+import onetoone.config.GameConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * The last bufferSize messages of each chat room (scope:channel), newest first, so opening a chat does
+ * not query chat_messages. A room is loaded from the database on its first history request and kept
+ * current by every send (add), including messages ChatWriteBehind has not inserted yet. Requests for
+ * more than the buffer holds, or for a cursor further back than it reaches, go to the database.
+ *
+ * Rooms not read or written for idleMs are evicted by sweep(), and past maxRooms the least recently
+ * used go first, so thousands of quiet DM and guild channels do not accumulate.
+ */
+@Component
+public class ChatHistoryCache {
+
+    /** One room's ring buffer, ordered by id (oldest at start). */
+    private static final class Room {
+        final ChatMessage[] ring;
+        int start;
+        int size;
+        // The database has been read, so the ring holds the room's latest messages rather than only new ones
+        volatile boolean loaded;
+        // Loaded with fewer rows than the ring holds and nothing dropped since: the ring has the room's whole history
+        boolean complete;
+        // A message has been pushed out of the full ring, or did not fit into it
+        boolean dropped;
+        volatile long lastAccess;
+
+        Room(int capacity, long now) {
+            this.ring = new ChatMessage[capacity];
+            this.lastAccess = now;
+        }
+
+        // Keeps id order: a message whose id was assigned before another's can be added after it
+        synchronized void add(ChatMessage m) {
+            int pos = size;
+            while (pos > 0) {
+                ChatMessage prev = at(pos - 1);
+                if (prev.getId() < m.getId()) {
+                    break;
+                }
+                if (prev.getId().equals(m.getId())) {
+                    return;
+                }
+                pos--;
+            }
+            if (size == ring.length) {
+                // The oldest message from now on is only in the database
+                dropped = true;
+                complete = false;
+                if (pos == 0) {
+                    return; // older than everything kept
+                }
+                start = (start + 1) % ring.length;
+                size--;
+                pos--;
+            }
+            for (int i = size; i > pos; i--) {
+                set(i, at(i - 1));
+            }
+            set(pos, m);
+            size++;
+        }
+
+        synchronized void load(List<ChatMessage> newestFirst) {
+            for (ChatMessage m : newestFirst) {
+                add(m);
+            }
+            loaded = true;
+            complete = !dropped && newestFirst.size() < ring.length;
+        }
+
+        /** Up to limit messages older than beforeId, newest first, or null if the ring cannot answer for that many. */
+        synchronized List<ChatMessage> before(int beforeId, int limit) {
+            if (!loaded) {
+                return null;
+            }
+            int end = size; // messages at 0..end-1 are older than beforeId
+            while (end > 0 && at(end - 1).getId() >= beforeId) {
+                end--;
+            }
+            if (end < limit && !complete) {
+                return null;
+            }
+            List<ChatMessage> out = new ArrayList<>(Math.min(limit, end));
+            for (int i = end - 1; i >= 0 && out.size() < limit; i--) {
+                out.add(at(i));
+            }
+            return out;
+        }
+
+        /** Up to limit messages newer than afterId, oldest first, or null if some may be older than the ring. */
+        synchronized List<ChatMessage> after(int afterId, int limit) {
+            // The ring holds every message of the room from its oldest entry on
+            if (!loaded || !(complete || (size > 0 && at(0).getId() <= afterId))) {
+                return null;
+            }
+            int from = size;
+            while (from > 0 && at(from - 1).getId() > afterId) {
+                from--;
+            }
+            List<ChatMessage> out = new ArrayList<>(Math.min(limit, size - from));
+            for (int i = from; i < size && out.size() < limit; i++) {
+                out.add(at(i));
+            }
+            return out;
+        }
+
+        private ChatMessage at(int i) {
+            return ring[(start + i) % ring.length];
+        }
+
+        private void set(int i, ChatMessage m) {
+            ring[(start + i) % ring.length] = m;
+        }
+    }
+
+    private final ChatMessageRepository repo;
+    private final int bufferSize;
+    private final long idleMs;
+    private final int maxRooms;
+    private final Clock clock;
+    private final Map<String, Room> rooms = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    @Autowired
+    public ChatHistoryCache(ChatMessageRepository repo, GameConfig config) {
+        this(repo, config.getChatHistoryBufferSize(), config.getChatHistoryIdleMs(), config.getChatHistoryMaxRooms(),
+                Clock.systemUTC());
+    }
+
+    public ChatHistoryCache(ChatMessageRepository repo, int bufferSize, long idleMs, int maxRooms, Clock clock) {
+        if (bufferSize <= 0 || maxRooms <= 0) {
+            throw new IllegalArgumentException("Chat history needs a positive buffer size and room limit");
+        }
+        this.repo = repo;
+        this.bufferSize = bufferSize;
+        this.idleMs = idleMs;
+        this.maxRooms = maxRooms;
+        this.clock = clock;
+    }
+
+    /** Record a sent message (its id already assigned). */
+    public void add(ChatMessage m) {
+        long now = clock.millis();
+        // compute, so a sweep cannot evict the room between lookup and add
+        rooms.compute(key(m.getScope(), m.getChannel()), (k, room) -> {
+            if (room == null) {
+                room = new Room(bufferSize, now);
+            }
+            room.add(m);
+            room.lastAccess = now;
+            return room;
+        });
+    }
+
+    /** The room's latest messages, newest first, as ChatMessageRepository.recent would return them. */
+    public List<ChatMessage> recent(String scope, String channel, int limit) {
+        return before(scope, channel, Integer.MAX_VALUE, limit);
+    }
+
+    /** Messages older than beforeId, newest first, as ChatMessageRepository.before would return them. */
+    public List<ChatMessage> before(String scope, String channel, int beforeId, int limit) {
+        Supplier<List<ChatMessage>> fromDb = beforeId == Integer.MAX_VALUE
+                ? () -> repo.recent(scope, channel, PageRequest.of(0, limit))
+                : () -> repo.before(scope, channel, beforeId, PageRequest.of(0, limit));
+        if (limit > bufferSize) {
+            misses.increment(); // more than any ring holds
+            return fromDb.get();
+        }
+        return read(scope, channel, room -> room.before(beforeId, limit), fromDb);
+    }
+
+    /**
+     * Messages newer than afterId, oldest first, as ChatMessageRepository.after would return them.
+     * Served from memory whatever the limit when the ring reaches back to afterId.
+     */
+    public List<ChatMessage> after(String scope, String channel, int afterId, int limit) {
+        return read(scope, channel, room -> room.after(afterId, limit),
+                () -> repo.after(scope, channel, afterId, PageRequest.of(0, limit)));
+    }
+
+    private List<ChatMessage> read(String scope, String channel, Function<Room, List<ChatMessage>> fromRing,
+                                   Supplier<List<ChatMessage>> fromDb) {
+        long now = clock.millis();
+        Room room = rooms.computeIfAbsent(key(scope, channel), k -> new Room(bufferSize, now));
+        room.lastAccess = now;
+        List<ChatMessage> cached = fromRing.apply(room);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        if (!room.loaded) {
+            // Read outside the room lock; sends meanwhile are merged by id
+            loads.increment();
+            room.load(repo.recent(scope, channel, PageRequest.of(0, bufferSize)));
+            cached = fromRing.apply(room);
+        }
+        // A cursor further back than the ring reaches
+        return cached != null ? cached : fromDb.get();
+    }
+
+    /** Evict rooms idle past idleMs, then the least recently used beyond maxRooms. */
+    @Scheduled(fixedDelayString = "${cycredit.chat-history-sweep-ms:60000}")
+    public void sweep() {
+        long cutoff = clock.millis() - idleMs;
+        for (String key : rooms.keySet()) {
+            rooms.computeIfPresent(key, (k, room) -> {
+                if (room.lastAccess > cutoff) {
+                    return room;
+                }
+                evicted.increment();
+                return null;
+            });
+        }
+        int excess = rooms.size() - maxRooms;
+        if (excess > 0) {
+            List<Map.Entry<String, Long>> oldest = rooms.entrySet().stream()
+                    .map(e -> Map.entry(e.getKey(), e.getValue().lastAccess))
+                    .sorted(Map.Entry.comparingByValue())
+                    .limit(excess)
+                    .toList();
+            for (Map.Entry<String, Long> e : oldest) {
+                // Skipped if the room was used since it was picked
+                rooms.computeIfPresent(e.getKey(), (k, room) -> {
+                    if (room.lastAccess != e.getValue()) {
+                        return room;
+                    }
+                    evicted.increment();
+                    return null;
+                });
+            }
+        }
+    }
+
+    public int roomCount() {
+        return rooms.size();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("bufferSize", bufferSize);
+        stats.put("idleMs", idleMs);
+        stats.put("maxRooms", maxRooms);
+        stats.put("rooms", rooms.size());
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("loads", loads.sum());
+        stats.put("evicted", evicted.sum());
+        return stats;
+    }
+
+    private static String key(String scope, String channel) {
+        return scope + ":" + channel;
+    }
+}
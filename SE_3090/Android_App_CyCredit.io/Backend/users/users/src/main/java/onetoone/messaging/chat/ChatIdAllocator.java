@@ -0,0 +1,69 @@
+package onetoone.messaging.chat;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Hands out chat message ids in memory, reserving them BLOCK at a time from chat_messages_seq, so a
+ * message has its final id the moment it is sent and the row can be inserted later (ChatWriteBehind).
+ *
+ * Reservations follow Hibernate's pooled optimizer, which assigned ids from the same sequence before:
+ * a sequence value v owns ids v-49..v. On MySQL the sequence is the single-row table from changeset 004,
+ * bumped in its own transaction; on H2 it is a real sequence.
+ *
+ * Blocks make ids rise per node only, so with several nodes only the chat owner numbers messages
+ * (ChatWebSocketHandler) and a room's ids follow the order its messages are delivered in.
+ */
+@Component
+public class ChatIdAllocator {
+
+    /** Must match the increment of chat_messages_seq (changeset 004). */
+    static final int BLOCK = 50;
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private volatile Boolean h2;
+
+    // Guarded by this: the rest of the current block; exhausted when next > last
+    private long next = 1;
+    private long last = 0;
+
+    public ChatIdAllocator(JdbcTemplate jdbc, PlatformTransactionManager txManager) {
+        this.jdbc = jdbc;
+        this.tx = new TransactionTemplate(txManager);
+        // Commits the reservation even when called inside a request's transaction that later rolls back
+        this.tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public synchronized int next() {
+        if (next > last) {
+            long hi = tx.execute(status -> reserve());
+            next = Math.max(1, hi - BLOCK + 1);
+            last = hi;
+        }
+        return Math.toIntExact(next++);
+    }
+
+    private long reserve() {
+        if (isH2()) {
+            return jdbc.queryForObject("select next value for chat_messages_seq", Long.class);
+        }
+        Long value = jdbc.queryForObject("select next_val from chat_messages_seq for update", Long.class);
+        jdbc.update("update chat_messages_seq set next_val = ? where next_val = ?", value + BLOCK, value);
+        return value;
+    }
+
+    private boolean isH2() {
+        Boolean resolved = h2;
+        if (resolved == null) {
+            resolved = jdbc.execute((ConnectionCallback<Boolean>) conn ->
+                    "H2".equalsIgnoreCase(conn.getMetaData().getDatabaseProductName()));
+            h2 = resolved;
+        }
+        return resolved;
+    }
+}
@@ -1,14 +1,22 @@
 package onetoone.messaging.chat;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
 import java.time.Instant;
 
 @Entity
 @Table(name="chat_messages")
-public class ChatMessage {
-    @Id @GeneratedValue(strategy=GenerationType.IDENTITY)
+public class ChatMessage implements Persistable<Integer> {
+    // Assigned before the insert by ChatIdAllocator (from chat_messages_seq), so the broadcast can carry it
+    @Id
     private Integer id;
 
+    // Tells save() to insert without first selecting by the assigned id
+    @Transient
+    private boolean isNew = true;
+
     @Column(nullable=false,length=16)
     private String scope; // public | guild | dm
 
@@ -27,7 +35,15 @@ public class ChatMessage {
     private Instant createdAt = Instant.now();
 
 
+    @PostLoad @PostPersist
+    void markNotNew(){this.isNew=false;}
+
+    @Override @JsonIgnore
+    public boolean isNew(){return isNew;}
+
+    @Override
     public Integer getId(){return id;}
+    public void setId(Integer id){this.id=id;}
     public String getScope(){return scope;}
     public void setScope(String s){this.scope=s;}
     public String getChannel(){return channel;}
@@ -10,4 +10,13 @@ public interface ChatMessageRepository extends JpaRepository<ChatMessage, Intege
 
     @Query("SELECT m FROM ChatMessage m WHERE m.scope=:scope AND m.channel=:channel ORDER BY m.id DESC")
     List<ChatMessage> recent(@Param("scope") String scope, @Param("channel") String channel, org.springframework.data.domain.Pageable page);
+
+    // Cursor pages: a range scan on idx_chat_messages_scope_channel_id from the cursor, however deep the history
+    /** Older than the cursor, newest first. */
+    @Query("SELECT m FROM ChatMessage m WHERE m.scope=:scope AND m.channel=:channel AND m.id < :before ORDER BY m.id DESC")
+    List<ChatMessage> before(@Param("scope") String scope, @Param("channel") String channel, @Param("before") int before, org.springframework.data.domain.Pageable page);
+
+    /** Newer than the cursor, oldest first. */
+    @Query("SELECT m FROM ChatMessage m WHERE m.scope=:scope AND m.channel=:channel AND m.id > :after ORDER BY m.id ASC")
+    List<ChatMessage> after(@Param("scope") String scope, @Param("channel") String channel, @Param("after") int after, org.springframework.data.domain.Pageable page);
 }
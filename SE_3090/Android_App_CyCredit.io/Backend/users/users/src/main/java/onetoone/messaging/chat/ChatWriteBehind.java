@@ -0,0 +1,260 @@
+package onetoone.messaging.chat;
+
+import jakarta.annotation.PreDestroy;
+import onetoone.config.GameConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+
+/**
+ * Persists chat messages behind the broadcast. append() gives a message its final id (ChatIdAllocator)
+ * and queues it; the caller can send it to the room straight away. A single flusher thread inserts what
+ * is queued in one transaction, JDBC-batched, as soon as batchSize messages are waiting or flushMs after
+ * the oldest of them was queued, whichever comes first.
+ *
+ * The queue is bounded: when the database falls that far behind, senders wait for space instead of
+ * messages being dropped. A failed batch is retried, then written row by row so one bad row cannot take
+ * the rest with it. Shutdown stops the flusher only after everything queued has been written, and
+ * anything appended after that is written inline.
+ */
+@Component
+public class ChatWriteBehind {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatWriteBehind.class);
+    private static final int ATTEMPTS = 3;
+    private static final long RETRY_BACKOFF_MS = 100;
+    private static final long SHUTDOWN_DRAIN_MS = 10_000;
+
+    private record Pending(ChatMessage message, long enqueuedAt) {}
+
+    private final IntSupplier ids;
+    private final Consumer<List<ChatMessage>> writer;
+    private final int batchSize;
+    private final long flushNanos;
+    private final int queueCapacity;
+    private final BlockingQueue<Pending> queue;
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    private final LongAdder appended = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final AtomicLong maxBatchSize = new AtomicLong();
+    private volatile int lastBatchSize;
+    private final LongAdder lagNanosTotal = new LongAdder();
+    private final AtomicLong lagNanosMax = new AtomicLong();
+    private volatile long lastLagNanos;
+
+    @Autowired
+    public ChatWriteBehind(ChatIdAllocator ids, ChatMessageRepository repo, PlatformTransactionManager txManager,
+                           GameConfig config) {
+        this(ids::next, batchWriter(repo, new TransactionTemplate(txManager)), config.getChatFlushBatchSize(),
+                config.getChatFlushMs(), config.getChatWriteQueueCapacity());
+    }
+
+    /**
+     * @param ids    source of message ids
+     * @param writer inserts one batch atomically, throwing if it could not
+     */
+    public ChatWriteBehind(IntSupplier ids, Consumer<List<ChatMessage>> writer, int batchSize, long flushMs,
+                           int queueCapacity) {
+        if (batchSize <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("Chat write-behind needs a positive batch size and queue capacity");
+        }
+        this.ids = ids;
+        this.writer = writer;
+        this.batchSize = batchSize;
+        this.flushNanos = TimeUnit.MILLISECONDS.toNanos(flushMs);
+        this.queueCapacity = queueCapacity;
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        this.flusher = new Thread(this::run, "chat-write-behind");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /** Inserts through the repository; ChatMessage is Persistable, so saveAll issues plain batched inserts. */
+    private static Consumer<List<ChatMessage>> batchWriter(ChatMessageRepository repo, TransactionTemplate tx) {
+        return batch -> tx.executeWithoutResult(status -> repo.saveAll(batch));
+    }
+
+    /**
+     * Assign the message its id and queue it for insertion; blocks only while the queue is full.
+     * @return the same message, with its id set
+     */
+    public ChatMessage append(ChatMessage message) {
+        message.setId(ids.getAsInt());
+        appended.increment();
+        if (!running) {
+            write(List.of(new Pending(message, System.nanoTime())));
+            return message;
+        }
+        try {
+            queue.put(new Pending(message, System.nanoTime()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            write(List.of(new Pending(message, System.nanoTime())));
+            return message;
+        }
+        if (!running) {
+            drainRemaining(); // shutdown began meanwhile: the flusher may already be gone
+        }
+        return message;
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = first.enqueuedAt() + flushNanos;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long wait = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || wait <= 0 || !running) {
+                        break;
+                    }
+                    Pending next = queue.poll(wait, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+        }
+    }
+
+    private synchronized void drainRemaining() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void write(List<Pending> batch) {
+        List<ChatMessage> messages = batch.stream().map(Pending::message).toList();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                writer.accept(messages);
+                break;
+            } catch (RuntimeException e) {
+                if (attempt == ATTEMPTS) {
+                    log.warn("Chat batch of {} messages failed {} times, writing them one by one: {}",
+                            batch.size(), ATTEMPTS, e.getMessage());
+                    writeOneByOne(batch);
+                    return;
+                }
+                try {
+                    Thread.sleep(RETRY_BACKOFF_MS * attempt);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+        recordBatch(batch);
+    }
+
+    private void writeOneByOne(List<Pending> batch) {
+        List<Pending> done = new ArrayList<>();
+        for (Pending p : batch) {
+            try {
+                writer.accept(List.of(p.message()));
+                done.add(p);
+            } catch (RuntimeException e) {
+                failed.increment();
+                log.error("Chat message {} in {}:{} could not be saved", p.message().getId(),
+                        p.message().getScope(), p.message().getChannel(), e);
+            }
+        }
+        if (!done.isEmpty()) {
+            recordBatch(done);
+        }
+    }
+
+    private void recordBatch(List<Pending> batch) {
+        long now = System.nanoTime();
+        long oldest = now;
+        for (Pending p : batch) {
+            long lag = now - p.enqueuedAt();
+            lagNanosTotal.add(lag);
+            oldest = Math.min(oldest, p.enqueuedAt());
+        }
+        lastLagNanos = now - oldest;
+        lagNanosMax.accumulateAndGet(lastLagNanos, Math::max);
+        lastBatchSize = batch.size();
+        maxBatchSize.accumulateAndGet(batch.size(), Math::max);
+        batches.increment();
+        written.add(batch.size());
+    }
+
+    /**
+     * Stop the flusher once everything queued is written.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        flusher.join(SHUTDOWN_DRAIN_MS);
+        if (flusher.isAlive()) {
+            log.warn("Chat flusher still busy after {} ms; writing the rest inline", SHUTDOWN_DRAIN_MS);
+        }
+        drainRemaining();
+    }
+
+    /**
+     * Queue depth, rows written, batch sizes, and flush lag: queued to committed, per message on average and
+     * for the oldest message of the last batch and of any batch.
+     */
+    public Map<String, Object> stats() {
+        Pending head = queue.peek();
+        long rows = written.sum();
+        long flushes = batches.sum();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("batchSizeLimit", batchSize);
+        stats.put("flushMs", flushNanos / 1_000_000);
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("queueDepth", queue.size());
+        stats.put("oldestQueuedMs", head == null ? 0.0 : (System.nanoTime() - head.enqueuedAt()) / 1e6);
+        stats.put("appended", appended.sum());
+        stats.put("written", rows);
+        stats.put("failed", failed.sum());
+        stats.put("batches", flushes);
+        stats.put("lastBatchSize", lastBatchSize);
+        stats.put("avgBatchSize", flushes == 0 ? 0.0 : (double) rows / flushes);
+        stats.put("maxBatchSize", maxBatchSize.get());
+        stats.put("lastFlushLagMs", lastLagNanos / 1e6);
+        stats.put("avgFlushLagMs", rows == 0 ? 0.0 : lagNanosTotal.sum() / 1e6 / rows);
+        stats.put("maxFlushLagMs", lagNanosMax.get() / 1e6);
+        return stats;
+    }
+}
@@ -0,0 +1,105 @@
+package onetoone.monthend;
+
+import onetoone.util.ApiError;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class-wide month-end batch (admin). Runs execute in the background; poll GET /runs/{id} for progress.
+ */
+@CrossOrigin(origins = "*")
+@RestController
+@RequestMapping("/game/month-end")
+public class MonthEndBatchController {
+
+    private final MonthEndBatchService batchService;
+
+    public MonthEndBatchController(MonthEndBatchService batchService) {
+        this.batchService = batchService;
+    }
+
+    @PostMapping("/runs")
+    public ResponseEntity<?> startRun(
+            @RequestParam(required = false) Integer partitionSize,
+            @RequestParam(required = false) Integer chunkSize,
+            @RequestParam(required = false) Integer parallelism) {
+        try {
+            MonthEndRun run = batchService.startAsync(partitionSize, chunkSize, parallelism);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(toDTO(run));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new ApiError(ApiError.BAD_REQUEST, e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(new ApiError(ApiError.BAD_REQUEST, e.getMessage()));
+        }
+    }
+
+    @PostMapping("/runs/{id}/resume")
+    public ResponseEntity<?> resumeRun(@PathVariable long id) {
+        try {
+            MonthEndRun run = batchService.resumeAsync(id);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(toDTO(run));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new ApiError(ApiError.BAD_REQUEST, e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ApiError(ApiError.BAD_REQUEST, e.getMessage()));
+        }
+    }
+
+    @GetMapping("/runs/{id}")
+    public ResponseEntity<?> getRun(@PathVariable long id) {
+        try {
+            return ResponseEntity.ok(toDTO(batchService.getRun(id)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ApiError(ApiError.BAD_REQUEST, e.getMessage()));
+        }
+    }
+
+    private Map<String, Object> toDTO(MonthEndRun run) {
+        Map<String, Object> dto = new HashMap<>();
+        dto.put("id", run.getId());
+        dto.put("status", run.getStatus().name());
+        dto.put("attempts", run.getAttempts());
+        dto.put("partitionSize", run.getPartitionSize());
+        dto.put("chunkSize", run.getChunkSize());
+        dto.put("parallelism", run.getParallelism());
+        dto.put("usersProcessed", run.getUsersProcessed());
+        dto.put("usersFailed", run.getUsersFailed());
+        dto.put("elapsedMs", run.getElapsedMs());
+        dto.put("usersPerSecond", MonthEndBatchService.throughput(run));
+        dto.put("startedAt", run.getStartedAt() != null ? run.getStartedAt().toString() : null);
+        dto.put("finishedAt", run.getFinishedAt() != null ? run.getFinishedAt().toString() : null);
+        dto.put("lastError", run.getLastError());
+
+        List<Map<String, Object>> partitions = new ArrayList<>();
+        for (MonthEndPartition partition : batchService.getPartitions(run.getId())) {
+            Map<String, Object> p = new HashMap<>();
+            p.put("index", partition.getPartitionIndex());
+            p.put("idFrom", partition.getIdFrom());
+            p.put("idTo", partition.getIdTo());
+            p.put("checkpointUserId", partition.getCheckpointUserId());
+            p.put("status", partition.getStatus().name());
+            p.put("processed", partition.getProcessed());
+            p.put("failed", partition.getFailed());
+            p.put("chunks", partition.getChunks());
+            p.put("elapsedMs", partition.getElapsedMs());
+            p.put("maxChunkMs", partition.getMaxChunkMs());
+            p.put("msPerUser", partition.getProcessed() == 0 ? 0.0
+                    : (double) partition.getElapsedMs() / partition.getProcessed());
+            p.put("lastError", partition.getLastError());
+            partitions.add(p);
+        }
+        dto.put("partitions", partitions);
+        return dto;
+    }
+}
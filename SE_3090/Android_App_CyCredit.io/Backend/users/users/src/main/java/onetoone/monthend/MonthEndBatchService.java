@@ -0,0 +1,339 @@
+package onetoone.monthend;
+
+import jakarta.annotation.PreDestroy;
+import onetoone.Resource.ResourceRepository;
+import onetoone.config.GameConfig;
+import onetoone.game.GameService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Closes the month for every player at once, built on GameService.endMonth.
+ *
+ * Users (those with a Resource) are split into id-range partitions, and partitions run concurrently
+ * on a bounded worker pool. Each partition walks its range in chunks of chunkSize users; a chunk's
+ * endMonth calls and the partition checkpoint advance commit in ONE transaction. A crash therefore
+ * loses at most the uncommitted chunk, and resuming the run restarts right after the last committed
+ * checkpoint, so no user is closed (or charged interest) twice. If one user in a chunk fails, the chunk
+ * is redone one user per transaction so the rest still close; the failure is counted and skipped.
+ */
+@Service
+public class MonthEndBatchService {
+
+    private static final Logger log = LoggerFactory.getLogger(MonthEndBatchService.class);
+
+    private static final Set<MonthEndRun.RunStatus> UNFINISHED =
+            EnumSet.of(MonthEndRun.RunStatus.PENDING, MonthEndRun.RunStatus.RUNNING, MonthEndRun.RunStatus.FAILED);
+
+    // Partitions an execution (re)starts. RUNNING is included for a process that died before
+    // it could record the partition's outcome.
+    private static final Set<MonthEndPartition.PartitionStatus> TO_RUN = EnumSet.of(
+            MonthEndPartition.PartitionStatus.PENDING, MonthEndPartition.PartitionStatus.FAILED,
+            MonthEndPartition.PartitionStatus.RUNNING);
+
+    private final GameService gameService;
+    private final ResourceRepository resourceRepo;
+    private final MonthEndRunRepository runRepo;
+    private final MonthEndPartitionRepository partitionRepo;
+    private final TransactionTemplate txTemplate;
+    private final GameConfig config;
+
+    // Runs executing in this JVM (a RUNNING run that is not in here was interrupted by a crash)
+    private final Set<Long> activeRuns = ConcurrentHashMap.newKeySet();
+    private final ExecutorService coordinator = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "month-end-coordinator");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public MonthEndBatchService(GameService gameService, ResourceRepository resourceRepo,
+                                MonthEndRunRepository runRepo, MonthEndPartitionRepository partitionRepo,
+                                PlatformTransactionManager txManager, GameConfig config) {
+        this.gameService = gameService;
+        this.resourceRepo = resourceRepo;
+        this.runRepo = runRepo;
+        this.partitionRepo = partitionRepo;
+        this.txTemplate = new TransactionTemplate(txManager);
+        this.config = config;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        coordinator.shutdownNow();
+    }
+
+    /**
+     * Create a run and its partitions over the current user-id range. Null sizes use the configured defaults.
+     * @throws IllegalStateException if an earlier run has not finished (resume it instead)
+     */
+    public MonthEndRun createRun(Integer partitionSize, Integer chunkSize, Integer parallelism) {
+        int partitions = positive(partitionSize, config.getMonthEndPartitionSize(), "partitionSize");
+        int chunk = positive(chunkSize, config.getMonthEndChunkSize(), "chunkSize");
+        int workers = positive(parallelism, config.getMonthEndParallelism(), "parallelism");
+
+        return txTemplate.execute(status -> {
+            runRepo.findFirstByStatusInOrderByIdDesc(UNFINISHED).ifPresent(unfinished -> {
+                throw new IllegalStateException("Month-end run " + unfinished.getId()
+                        + " has not finished (" + unfinished.getStatus() + "); resume it first");
+            });
+            MonthEndRun run = runRepo.save(new MonthEndRun(partitions, chunk, workers));
+            Integer minId = resourceRepo.findMinUserId();
+            Integer maxId = resourceRepo.findMaxUserId();
+            if (minId != null) {
+                int index = 0;
+                for (long from = minId; from <= maxId; from += partitions) {
+                    int to = (int) Math.min(from + partitions - 1, maxId);
+                    partitionRepo.save(new MonthEndPartition(run, index++, (int) from, to));
+                }
+            }
+            log.info("Created month-end run {}: users {}..{}, partitionSize={}, chunkSize={}, parallelism={}",
+                    run.getId(), minId, maxId, partitions, chunk, workers);
+            return run;
+        });
+    }
+
+    public MonthEndRun startAsync(Integer partitionSize, Integer chunkSize, Integer parallelism) {
+        MonthEndRun run = createRun(partitionSize, chunkSize, parallelism);
+        coordinator.submit(() -> execute(run.getId()));
+        return run;
+    }
+
+    /**
+     * Resume a crashed or failed run in the background from its partition checkpoints.
+     */
+    public MonthEndRun resumeAsync(long runId) {
+        MonthEndRun run = getRun(runId);
+        if (run.getStatus().isFinished()) {
+            throw new IllegalStateException("Month-end run " + runId + " already finished");
+        }
+        if (activeRuns.contains(runId)) {
+            throw new IllegalStateException("Month-end run " + runId + " is already executing");
+        }
+        coordinator.submit(() -> execute(runId));
+        return run;
+    }
+
+    public MonthEndRun getRun(long runId) {
+        return runRepo.findById(runId)
+                .orElseThrow(() -> new IllegalArgumentException("Month-end run not found: " + runId));
+    }
+
+    public List<MonthEndPartition> getPartitions(long runId) {
+        return partitionRepo.findByRun_IdOrderByPartitionIndex(runId);
+    }
+
+    /**
+     * Execute (or resume) a run and block until every unfinished partition has been processed.
+     * A partition that dies leaves its checkpoint at the last committed chunk and is marked FAILED, as is the run;
+     * the other partitions still run to completion.
+     */
+    public MonthEndRun execute(long runId) {
+        if (!activeRuns.add(runId)) {
+            throw new IllegalStateException("Month-end run " + runId + " is already executing");
+        }
+        long started = System.nanoTime();
+        try {
+            MonthEndRun run = getRun(runId);
+            if (run.getStatus().isFinished()) {
+                return run;
+            }
+            run.setStatus(MonthEndRun.RunStatus.RUNNING);
+            run.setAttempts(run.getAttempts() + 1);
+            run.setLastError(null);
+            if (run.getStartedAt() == null) {
+                run.setStartedAt(OffsetDateTime.now());
+            }
+            runRepo.save(run);
+
+            List<MonthEndPartition> pending = new ArrayList<>();
+            for (MonthEndPartition partition : getPartitions(runId)) {
+                if (TO_RUN.contains(partition.getStatus())) {
+                    pending.add(partition);
+                }
+            }
+
+            String error = null;
+            ExecutorService workers = Executors.newFixedThreadPool(
+                    Math.max(1, Math.min(run.getParallelism(), pending.size())), workerThreads());
+            try {
+                List<Future<?>> results = new ArrayList<>();
+                for (MonthEndPartition partition : pending) {
+                    results.add(workers.submit(() -> processPartition(partition, run.getChunkSize())));
+                }
+                for (Future<?> result : results) {
+                    try {
+                        result.get();
+                    } catch (ExecutionException e) {
+                        error = String.valueOf(e.getCause());
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                error = "Interrupted";
+            } finally {
+                workers.shutdownNow();
+            }
+            return finish(runId, error, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        } finally {
+            activeRuns.remove(runId);
+        }
+    }
+
+    private void processPartition(MonthEndPartition partition, int chunkSize) {
+        long started = System.nanoTime();
+        Long partitionId = partition.getId();
+        txTemplate.executeWithoutResult(status ->
+                partitionRepo.updateStatus(partitionId, MonthEndPartition.PartitionStatus.RUNNING, 0));
+        MonthEndPartition.PartitionStatus outcome = MonthEndPartition.PartitionStatus.RUNNING;
+        try {
+            int checkpoint = partition.getCheckpointUserId();
+            while (true) {
+                List<Integer> userIds = resourceRepo.findUserIdsInRange(checkpoint, partition.getIdTo(),
+                        PageRequest.of(0, chunkSize));
+                if (userIds.isEmpty()) {
+                    break;
+                }
+                checkpoint = processChunk(partitionId, userIds);
+            }
+            outcome = MonthEndPartition.PartitionStatus.COMPLETED;
+        } catch (RuntimeException | Error e) {
+            outcome = MonthEndPartition.PartitionStatus.FAILED;
+            log.error("Month-end partition {} stopped: {}", partition.getPartitionIndex(), e.toString());
+            txTemplate.executeWithoutResult(status -> partitionRepo.recordError(partitionId, truncate(e.toString())));
+            throw e;
+        } finally {
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            MonthEndPartition.PartitionStatus finalStatus = outcome;
+            txTemplate.executeWithoutResult(status -> partitionRepo.updateStatus(partitionId, finalStatus, elapsedMs));
+        }
+    }
+
+    /**
+     * Close one chunk in a single transaction together with its checkpoint.
+     * @return the partition's checkpoint after the chunk
+     */
+    private int processChunk(Long partitionId, List<Integer> userIds) {
+        long started = System.nanoTime();
+        int lastUserId = userIds.get(userIds.size() - 1);
+        try {
+            Boolean claimed = txTemplate.execute(status -> {
+                // Claim first: this row-locks the partition for the rest of the transaction
+                if (partitionRepo.advanceCheckpoint(partitionId, lastUserId, userIds.size(), 0) == 0) {
+                    return false;
+                }
+                for (int userId : userIds) {
+                    gameService.endMonth(userId);
+                }
+                partitionRepo.recordChunk(partitionId, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+                return true;
+            });
+            if (!Boolean.TRUE.equals(claimed)) {
+                // Another executor already committed past these users
+                return partitionRepo.findById(partitionId).orElseThrow().getCheckpointUserId();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Month-end chunk ending at userId={} rolled back ({}); retrying one user at a time",
+                    lastUserId, e.getMessage());
+            for (int userId : userIds) {
+                processSingleUser(partitionId, userId);
+            }
+        }
+        return lastUserId;
+    }
+
+    private void processSingleUser(Long partitionId, int userId) {
+        try {
+            txTemplate.executeWithoutResult(status -> {
+                if (partitionRepo.advanceCheckpoint(partitionId, userId, 1, 0) == 1) {
+                    gameService.endMonth(userId);
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("Month-end failed for userId={}: {}", userId, e.getMessage());
+            txTemplate.executeWithoutResult(status -> {
+                partitionRepo.advanceCheckpoint(partitionId, userId, 0, 1);
+                partitionRepo.recordError(partitionId, truncate("userId=" + userId + ": " + e.getMessage()));
+            });
+        }
+    }
+
+    private MonthEndRun finish(long runId, String error, long elapsedMs) {
+        return txTemplate.execute(status -> {
+            MonthEndRun run = getRun(runId);
+            int processed = 0;
+            int failed = 0;
+            for (MonthEndPartition partition : getPartitions(runId)) {
+                processed += partition.getProcessed();
+                failed += partition.getFailed();
+            }
+            run.setUsersProcessed(processed);
+            run.setUsersFailed(failed);
+            run.setElapsedMs(run.getElapsedMs() + elapsedMs);
+            if (error != null) {
+                run.setStatus(MonthEndRun.RunStatus.FAILED);
+                run.setLastError(truncate(error));
+            } else {
+                run.setStatus(failed > 0 ? MonthEndRun.RunStatus.COMPLETED_WITH_FAILURES
+                        : MonthEndRun.RunStatus.COMPLETED);
+                run.setFinishedAt(OffsetDateTime.now());
+            }
+            log.info("Month-end run {} attempt {} {}: {} users closed, {} failed, {} ms ({} users/s)",
+                    runId, run.getAttempts(), run.getStatus(), processed, failed, run.getElapsedMs(),
+                    String.format("%.1f", throughput(run)));
+            return runRepo.save(run);
+        });
+    }
+
+    /**
+     * Users closed per second of execution time, over all attempts.
+     */
+    public static double throughput(MonthEndRun run) {
+        return run.getElapsedMs() == 0 ? 0.0 : run.getUsersProcessed() * 1000.0 / run.getElapsedMs();
+    }
+
+    /**
+     * Virtual threads on JDK 21+ (looked up reflectively; the build targets 17), platform threads otherwise.
+     * Either way the fixed pool size is what bounds concurrency, keeping it under the JDBC pool.
+     */
+    static ThreadFactory workerThreads() {
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, "month-end-", 0L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            AtomicInteger count = new AtomicInteger();
+            return r -> new Thread(r, "month-end-" + count.getAndIncrement());
+        }
+    }
+
+    private static int positive(Integer requested, int fallback, String name) {
+        int value = requested != null ? requested : fallback;
+        if (value <= 0) {
+            throw new IllegalArgumentException(name + " must be positive");
+        }
+        return value;
+    }
+
+    private static String truncate(String message) {
+        return message == null || message.length() <= 500 ? message : message.substring(0, 500);
+    }
+}
@@ -0,0 +1,125 @@
+package onetoone.monthend;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+
+/**
+ * A user-id range (idFrom..idTo, inclusive) of a month-end run. A partition that dies is marked FAILED
+ * and picked up again, from its checkpoint, when the run is resumed.
+ * checkpointUserId is the last user whose month-end has committed; it starts at idFrom - 1
+ * and only ever moves forward (see MonthEndPartitionRepository.advanceCheckpoint).
+ */
+@Entity
+@Table(name = "month_end_partitions")
+public class MonthEndPartition {
+
+    public enum PartitionStatus {
+        PENDING, RUNNING, COMPLETED, FAILED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "run_id")
+    private MonthEndRun run;
+
+    @Column(name = "partition_index", nullable = false)
+    private int partitionIndex;
+
+    @Column(name = "id_from", nullable = false)
+    private int idFrom;
+
+    @Column(name = "id_to", nullable = false)
+    private int idTo;
+
+    @Column(name = "checkpoint_user_id", nullable = false)
+    private int checkpointUserId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private PartitionStatus status = PartitionStatus.PENDING;
+
+    @Column(name = "processed", nullable = false)
+    private int processed;
+
+    @Column(name = "failed", nullable = false)
+    private int failed;
+
+    @Column(name = "chunks", nullable = false)
+    private int chunks;
+
+    @Column(name = "elapsed_ms", nullable = false)
+    private long elapsedMs;
+
+    @Column(name = "max_chunk_ms", nullable = false)
+    private long maxChunkMs;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    public MonthEndPartition() {
+    }
+
+    public MonthEndPartition(MonthEndRun run, int partitionIndex, int idFrom, int idTo) {
+        this.run = run;
+        this.partitionIndex = partitionIndex;
+        this.idFrom = idFrom;
+        this.idTo = idTo;
+        this.checkpointUserId = idFrom - 1;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public MonthEndRun getRun() {
+        return run;
+    }
+
+    public int getPartitionIndex() {
+        return partitionIndex;
+    }
+
+    public int getIdFrom() {
+        return idFrom;
+    }
+
+    public int getIdTo() {
+        return idTo;
+    }
+
+    public int getCheckpointUserId() {
+        return checkpointUserId;
+    }
+
+    public PartitionStatus getStatus() {
+        return status;
+    }
+
+    public int getProcessed() {
+        return processed;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public int getChunks() {
+        return chunks;
+    }
+
+    public long getElapsedMs() {
+        return elapsedMs;
+    }
+
+    public long getMaxChunkMs() {
+        return maxChunkMs;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+}
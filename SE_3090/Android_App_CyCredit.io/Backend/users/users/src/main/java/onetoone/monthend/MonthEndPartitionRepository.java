@@ -0,0 +1,44 @@
+package onetoone.monthend;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+/**
+ * Partition progress is only ever changed through these bulk updates (never by saving a loaded
+ * entity), so a stale copy can't roll a checkpoint back.
+ */
+public interface MonthEndPartitionRepository extends JpaRepository<MonthEndPartition, Long> {
+
+    List<MonthEndPartition> findByRun_IdOrderByPartitionIndex(Long runId);
+
+    /**
+     * Move the checkpoint forward to {@code checkpoint}, counting the users covered.
+     * Runs inside the chunk's transaction: it row-locks the partition, so a second executor of the
+     * same partition waits, and returns 0 (nothing claimed) once the checkpoint is already past.
+     */
+    @Modifying
+    @Query("UPDATE MonthEndPartition p SET p.checkpointUserId = :checkpoint, " +
+           "p.processed = p.processed + :processed, p.failed = p.failed + :failed " +
+           "WHERE p.id = :id AND p.checkpointUserId < :checkpoint")
+    int advanceCheckpoint(@Param("id") Long id, @Param("checkpoint") int checkpoint,
+                          @Param("processed") int processed, @Param("failed") int failed);
+
+    @Modifying
+    @Query("UPDATE MonthEndPartition p SET p.chunks = p.chunks + 1, " +
+           "p.maxChunkMs = CASE WHEN p.maxChunkMs < :chunkMs THEN :chunkMs ELSE p.maxChunkMs END " +
+           "WHERE p.id = :id")
+    int recordChunk(@Param("id") Long id, @Param("chunkMs") long chunkMs);
+
+    @Modifying
+    @Query("UPDATE MonthEndPartition p SET p.status = :status, p.elapsedMs = p.elapsedMs + :elapsedMs WHERE p.id = :id")
+    int updateStatus(@Param("id") Long id, @Param("status") MonthEndPartition.PartitionStatus status,
+                     @Param("elapsedMs") long elapsedMs);
+
+    @Modifying
+    @Query("UPDATE MonthEndPartition p SET p.lastError = :error WHERE p.id = :id")
+    int recordError(@Param("id") Long id, @Param("error") String error);
+}
@@ -0,0 +1,158 @@
+package onetoone.monthend;
+
+import jakarta.persistence.*;
+
+import java.time.OffsetDateTime;
+
+/**
+ * One class-wide month-end batch. Counters are totals over all partitions and all attempts;
+ * attempts > 1 means the run was resumed after a crash or failure.
+ */
+@Entity
+@Table(name = "month_end_runs")
+public class MonthEndRun {
+
+    public enum RunStatus {
+        PENDING, RUNNING, COMPLETED, COMPLETED_WITH_FAILURES, FAILED;
+
+        public boolean isFinished() {
+            return this == COMPLETED || this == COMPLETED_WITH_FAILURES;
+        }
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private RunStatus status = RunStatus.PENDING;
+
+    @Column(name = "partition_size", nullable = false)
+    private int partitionSize;
+
+    @Column(name = "chunk_size", nullable = false)
+    private int chunkSize;
+
+    @Column(name = "parallelism", nullable = false)
+    private int parallelism;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "users_processed", nullable = false)
+    private int usersProcessed;
+
+    @Column(name = "users_failed", nullable = false)
+    private int usersFailed;
+
+    // Wall-clock time spent executing, summed over attempts
+    @Column(name = "elapsed_ms", nullable = false)
+    private long elapsedMs;
+
+    @Column(name = "created_at")
+    private OffsetDateTime createdAt;
+
+    @Column(name = "started_at")
+    private OffsetDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private OffsetDateTime finishedAt;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    public MonthEndRun() {
+    }
+
+    public MonthEndRun(int partitionSize, int chunkSize, int parallelism) {
+        this.partitionSize = partitionSize;
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+        this.createdAt = OffsetDateTime.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public RunStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(RunStatus status) {
+        this.status = status;
+    }
+
+    public int getPartitionSize() {
+        return partitionSize;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public int getUsersProcessed() {
+        return usersProcessed;
+    }
+
+    public void setUsersProcessed(int usersProcessed) {
+        this.usersProcessed = usersProcessed;
+    }
+
+    public int getUsersFailed() {
+        return usersFailed;
+    }
+
+    public void setUsersFailed(int usersFailed) {
+        this.usersFailed = usersFailed;
+    }
+
+    public long getElapsedMs() {
+        return elapsedMs;
+    }
+
+    public void setElapsedMs(long elapsedMs) {
+        this.elapsedMs = elapsedMs;
+    }
+
+    public OffsetDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public OffsetDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(OffsetDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public OffsetDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(OffsetDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+}
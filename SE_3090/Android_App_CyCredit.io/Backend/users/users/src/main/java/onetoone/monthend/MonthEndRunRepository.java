@@ -0,0 +1,11 @@
+package onetoone.monthend;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Collection;
+import java.util.Optional;
+
+public interface MonthEndRunRepository extends JpaRepository<MonthEndRun, Long> {
+
+    Optional<MonthEndRun> findFirstByStatusInOrderByIdDesc(Collection<MonthEndRun.RunStatus> statuses);
+}
@@ -1,7 +1,10 @@
 
 package onetoone.store;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import onetoone.util.Money;
+import onetoone.util.MoneyCentsConverter;
 
 @Entity
 @Table(name = "store_items")
@@ -13,7 +16,9 @@ public class StoreItem {
     
     private String name;
     private String description;
-    private double price;
+    @Column(name = "price")
+    @Convert(converter = MoneyCentsConverter.class)
+    private long priceCents; // Fixed-point cents
     private String category;
     private String iconName;  // Icon resource name for frontend
 
@@ -22,20 +27,20 @@ public class StoreItem {
     public StoreItem(String n, String d, double p) {
         this.name = n;
         this.description = d;
-        this.price = p;
+        this.priceCents = Money.toCents(p);
     }
 
     public StoreItem(String n, String d, double p, String cat) {
         this.name = n;
         this.description = d;
-        this.price = p;
+        this.priceCents = Money.toCents(p);
         this.category = cat;
     }
 
     public StoreItem(String n, String d, double p, String cat, String icon) {
         this.name = n;
         this.description = d;
-        this.price = p;
+        this.priceCents = Money.toCents(p);
         this.category = cat;
         this.iconName = icon;
     }
@@ -52,7 +57,12 @@ public class StoreItem {
     }
 
     public double getPrice() {
-        return price;
+        return Money.fromCents(priceCents);
+    }
+
+    @JsonIgnore
+    public long getPriceCents() {
+        return priceCents;
     }
 
 
@@ -69,7 +79,11 @@ public class StoreItem {
     }
 
     public void setPrice(double price) {
-        this.price = price;
+        this.priceCents = Money.toCents(price);
+    }
+
+    public void setPriceCents(long priceCents) {
+        this.priceCents = priceCents;
     }
 
     public String getCategory() {
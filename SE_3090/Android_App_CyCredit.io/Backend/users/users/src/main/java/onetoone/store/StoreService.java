@@ -3,6 +3,8 @@ package onetoone.store;
 import onetoone.Resource.Resource;
 import onetoone.Resource.ResourceRepository;
 import onetoone.billing.BillingService;
+import onetoone.events.DomainEventBus;
+import onetoone.events.PurchaseCompleted;
 import onetoone.game.GameService;
 import onetoone.util.Money;
 import org.springframework.stereotype.Service;
@@ -21,12 +23,15 @@ public class StoreService {
     private final StoreItemRepository repo;
     private final ResourceRepository resourceRepo;
     private final GameService gameService;
+    private final DomainEventBus eventBus;
 
-    public StoreService(BillingService billing, StoreItemRepository repo, ResourceRepository resourceRepo, GameService gameService) {
+    public StoreService(BillingService billing, StoreItemRepository repo, ResourceRepository resourceRepo,
+                        GameService gameService, DomainEventBus eventBus) {
         this.billing = billing;
         this.repo = repo;
         this.resourceRepo = resourceRepo;
         this.gameService = gameService;
+        this.eventBus = eventBus;
         seedStoreItems();
     }
     
@@ -154,6 +159,7 @@ public class StoreService {
 
         // Apply charge (uses normalized transaction model) with purchaseNonce for idempotency
         billing.applyCharge(userId, "Memorial Union - " + item.getName(), total, "MU Purchase", OffsetDateTime.now(), purchaseNonce);
+        eventBus.publish(new PurchaseCompleted(userId, itemId, item.getName(), q, total));
 
         // Return updated money (rounded)
         Resource updated = resourceRepo.findByUserId(userId);
@@ -4,61 +4,145 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 
 /**
- * Utility class for money calculations using BigDecimal to avoid floating-point errors.
+ * Utility class for money calculations using fixed-point cents (long) to avoid floating-point errors.
  * All amounts are stored as positive values in the database.
+ *
+ * Results are identical to the previous BigDecimal implementation
+ * (BigDecimal.valueOf(x) arithmetic, scale 2, HALF_UP) but the common case allocates nothing:
+ * - values that are already whole cents are added/subtracted as exact long cents
+ * - multiply/divide round the scaled double HALF_UP directly
+ * - only results within a few ulps of a half-cent tie (or non-cent inputs to add/subtract)
+ *   fall back to BigDecimal so rounding still follows the decimal value exactly
  */
 public class Money {
-    
+
     private static final int SCALE = 2;
     private static final RoundingMode ROUNDING_MODE = RoundingMode.HALF_UP;
-    
+    private static final double CENTS_PER_UNIT = 100.0;
+
+    // Above this many cents a double can no longer represent every cent value exactly
+    private static final double MAX_EXACT_CENTS = 1e15;
+    // Distance from a half-cent tie (in ulps) inside which the double result is not trusted
+    private static final int TIE_ULPS = 4;
+    // Marker for "fast path cannot decide, use BigDecimal"
+    private static final long NO_FAST_PATH = Long.MIN_VALUE;
+
+    // ---- Fixed-point cents API ----
+
+    /**
+     * Convert a double amount to cents, rounding HALF_UP to 2 decimal places.
+     */
+    public static long toCents(double value) {
+        long cents = wholeCents(value);
+        if (cents != NO_FAST_PATH) {
+            return cents;
+        }
+        cents = roundHalfUp(value * CENTS_PER_UNIT);
+        if (cents != NO_FAST_PATH) {
+            return cents;
+        }
+        return round2(BigDecimal.valueOf(value)).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Convert cents back to a double amount (the nearest double to cents / 100).
+     */
+    public static double fromCents(long cents) {
+        return cents / CENTS_PER_UNIT;
+    }
+
     /**
-     * Round a double to 2 decimal places using BigDecimal.
+     * Multiply cents by a multiplier, rounding HALF_UP to whole cents.
+     */
+    public static long multiplyCents(long cents, double multiplier) {
+        long result = roundHalfUp(cents * multiplier);
+        if (result != NO_FAST_PATH) {
+            return result;
+        }
+        return round2(BigDecimal.valueOf(cents, SCALE).multiply(BigDecimal.valueOf(multiplier)))
+                .unscaledValue().longValueExact();
+    }
+
+    /**
+     * Divide cents by a divisor, rounding HALF_UP to whole cents.
+     */
+    public static long divideCents(long cents, double divisor) {
+        if (divisor == 0) {
+            throw new IllegalArgumentException("Cannot divide by zero");
+        }
+        long result = roundHalfUp(cents / divisor);
+        if (result != NO_FAST_PATH) {
+            return result;
+        }
+        return BigDecimal.valueOf(cents, SCALE).divide(BigDecimal.valueOf(divisor), SCALE, ROUNDING_MODE)
+                .unscaledValue().longValueExact();
+    }
+
+    // ---- Double API (backed by cents) ----
+
+    /**
+     * Round a double to 2 decimal places (HALF_UP).
      */
     public static double round2(double value) {
-        return BigDecimal.valueOf(value)
-                .setScale(SCALE, ROUNDING_MODE)
-                .doubleValue();
+        return fromCents(toCents(value));
     }
-    
+
     /**
      * Round a BigDecimal to 2 decimal places.
      */
     public static BigDecimal round2(BigDecimal value) {
         return value.setScale(SCALE, ROUNDING_MODE);
     }
-    
+
     /**
-     * Add two money values using BigDecimal.
+     * Add two money values.
      */
     public static double add(double a, double b) {
+        long ca = wholeCents(a);
+        long cb = wholeCents(b);
+        if (ca != NO_FAST_PATH && cb != NO_FAST_PATH) {
+            return fromCents(ca + cb);
+        }
         return round2(BigDecimal.valueOf(a).add(BigDecimal.valueOf(b))).doubleValue();
     }
-    
+
     /**
-     * Subtract two money values using BigDecimal.
+     * Subtract two money values.
      */
     public static double subtract(double a, double b) {
+        long ca = wholeCents(a);
+        long cb = wholeCents(b);
+        if (ca != NO_FAST_PATH && cb != NO_FAST_PATH) {
+            return fromCents(ca - cb);
+        }
         return round2(BigDecimal.valueOf(a).subtract(BigDecimal.valueOf(b))).doubleValue();
     }
-    
+
     /**
-     * Multiply a money value by a multiplier using BigDecimal.
+     * Multiply a money value by a multiplier.
      */
     public static double multiply(double amount, double multiplier) {
+        long cents = wholeCents(amount);
+        if (cents != NO_FAST_PATH) {
+            return fromCents(multiplyCents(cents, multiplier));
+        }
         return round2(BigDecimal.valueOf(amount).multiply(BigDecimal.valueOf(multiplier))).doubleValue();
     }
-    
+
     /**
-     * Divide a money value by a divisor using BigDecimal.
+     * Divide a money value by a divisor.
      */
     public static double divide(double amount, double divisor) {
         if (divisor == 0) {
             throw new IllegalArgumentException("Cannot divide by zero");
         }
+        long cents = wholeCents(amount);
+        if (cents != NO_FAST_PATH) {
+            return fromCents(divideCents(cents, divisor));
+        }
         return round2(BigDecimal.valueOf(amount).divide(BigDecimal.valueOf(divisor), SCALE, ROUNDING_MODE)).doubleValue();
     }
-    
+
     /**
      * Validate that an amount is positive and non-zero.
      */
@@ -67,7 +151,7 @@ public class Money {
             throw new IllegalArgumentException("Amount must be positive: " + amount);
         }
     }
-    
+
     /**
      * Validate that an amount is non-negative.
      */
@@ -76,5 +160,38 @@ public class Money {
             throw new IllegalArgumentException("Amount must be non-negative: " + amount);
         }
     }
+
+    // ---- Internals ----
+
+    /**
+     * Exact cents if the double is the nearest double to a whole-cent decimal
+     * (so its shortest decimal form has at most 2 places), else NO_FAST_PATH.
+     */
+    private static long wholeCents(double value) {
+        double scaled = value * CENTS_PER_UNIT;
+        if (!(Math.abs(scaled) < MAX_EXACT_CENTS)) {
+            return NO_FAST_PATH; // Also rejects NaN and infinities
+        }
+        long cents = Math.round(scaled);
+        return fromCents(cents) == value ? cents : NO_FAST_PATH;
+    }
+
+    /**
+     * HALF_UP rounding of an approximate scaled value, or NO_FAST_PATH if it lies
+     * too close to a .5 tie for the double error to be ruled out.
+     */
+    private static long roundHalfUp(double scaled) {
+        double abs = Math.abs(scaled);
+        if (!(abs < MAX_EXACT_CENTS)) {
+            return NO_FAST_PATH;
+        }
+        double floor = Math.floor(abs);
+        double distanceFromTie = abs - floor - 0.5;
+        if (Math.abs(distanceFromTie) <= TIE_ULPS * Math.ulp(abs)) {
+            return NO_FAST_PATH;
+        }
+        long rounded = (long) floor + (distanceFromTie > 0 ? 1 : 0);
+        return scaled < 0 ? -rounded : rounded;
+    }
 }
 
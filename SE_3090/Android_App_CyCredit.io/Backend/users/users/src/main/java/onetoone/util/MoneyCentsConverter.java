@@ -0,0 +1,23 @@
+package onetoone.util;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Persists a long cents field in an existing decimal-dollar DOUBLE column,
+ * so entities can hold fixed-point Money without a schema change.
+ * Apply per field with @Convert (not autoApply, since ids are Long too).
+ */
+@Converter
+public class MoneyCentsConverter implements AttributeConverter<Long, Double> {
+
+    @Override
+    public Double convertToDatabaseColumn(Long cents) {
+        return cents != null ? Money.fromCents(cents) : null;
+    }
+
+    @Override
+    public Long convertToEntityAttribute(Double amount) {
+        return amount != null ? Money.toCents(amount) : 0L;
+    }
+}
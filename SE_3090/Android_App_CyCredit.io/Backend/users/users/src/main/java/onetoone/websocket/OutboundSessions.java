@@ -0,0 +1,314 @@
+package onetoone.websocket;
+
+import jakarta.annotation.PreDestroy;
+import onetoone.config.GameConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Asynchronous outbound side of every WebSocket endpoint (chat rooms, leaderboard).
+ *
+ * Handlers enqueue instead of calling sendMessage, so a broadcast never waits on a socket.
+ * Each session has a bounded queue that a shared sender pool drains one message at a time
+ * (in order, never two sends to the same session at once):
+ *   - queue full: the session is evicted, so its client reconnects and catches up (chat replays what it
+ *     missed); a session registered with Overflow.DROP instead loses the new message, counted, for
+ *     streams that show the client its gaps (leaderboard deltas carry their baseVersion)
+ *   - more than the buffer-size limit queued, or one send running past the send-time limit:
+ *     the session is evicted (closed with SESSION_NOT_RELIABLE) so it cannot hold memory or a sender
+ *
+ * Eviction only marks the session and discards its queue on the caller's thread; the close itself runs
+ * on a separate executor, since closing waits for a hung send to give up and the caller is a room
+ * broadcast or a leaderboard tick. A watchdog evicts sessions whose send is past the limit even when
+ * nothing more is sent to them.
+ */
+@Component
+public class OutboundSessions {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboundSessions.class);
+
+    /** What a full queue does to a session. */
+    public enum Overflow {
+        /** Close the session; nothing is lost without the client knowing. */
+        EVICT,
+        /** Drop the new message and keep the session; the stream must let the client detect the gap. */
+        DROP
+    }
+
+    /** One session's outbound queue. */
+    private final class Outbound {
+        final WebSocketSession session;
+        final String endpoint;
+        final Overflow overflow;
+        final ArrayBlockingQueue<TextMessage> queue;
+        final AtomicLong queuedBytes = new AtomicLong();
+        final AtomicBoolean draining = new AtomicBoolean();
+        final AtomicBoolean evicted = new AtomicBoolean();
+        final LongAdder sent = new LongAdder();
+        final LongAdder dropped = new LongAdder();
+        // System.nanoTime() when the in-flight send started, 0 when idle
+        volatile long sendStartedAt;
+
+        Outbound(WebSocketSession session, String endpoint, Overflow overflow) {
+            this.session = session;
+            this.endpoint = endpoint;
+            this.overflow = overflow;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        }
+    }
+
+    private final Executor senders;
+    private final Executor closer;
+    private final int queueCapacity;
+    private final long bufferSizeLimit;
+    private final long sendTimeLimitNanos;
+    private final Map<String, Outbound> sessions = new ConcurrentHashMap<>();
+
+    private final LongAdder sentTotal = new LongAdder();
+    private final LongAdder droppedTotal = new LongAdder();
+    private final LongAdder evictedTotal = new LongAdder();
+
+    @Autowired
+    public OutboundSessions(GameConfig config) {
+        this(newPool("ws-sender-", config.getWsSenderThreads()), newPool("ws-closer-", 0),
+                config.getWsSendQueueCapacity(), config.getWsBufferSizeLimitBytes(),
+                Duration.ofMillis(config.getWsSendTimeLimitMs()));
+    }
+
+    /** Evicted sessions are closed on the senders executor. */
+    public OutboundSessions(Executor senders, int queueCapacity, long bufferSizeLimit, Duration sendTimeLimit) {
+        this(senders, senders, queueCapacity, bufferSizeLimit, sendTimeLimit);
+    }
+
+    public OutboundSessions(Executor senders, Executor closer, int queueCapacity, long bufferSizeLimit,
+                            Duration sendTimeLimit) {
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("queueCapacity must be positive");
+        }
+        this.senders = senders;
+        this.closer = closer;
+        this.queueCapacity = queueCapacity;
+        this.bufferSizeLimit = bufferSizeLimit;
+        this.sendTimeLimitNanos = sendTimeLimit.toNanos();
+    }
+
+    /** Start queueing for a newly connected session, evicted if its queue fills; endpoint labels it in stats (e.g. "chat"). */
+    public void register(WebSocketSession session, String endpoint) {
+        register(session, endpoint, Overflow.EVICT);
+    }
+
+    public void register(WebSocketSession session, String endpoint, Overflow overflow) {
+        sessions.put(session.getId(), new Outbound(session, endpoint, overflow));
+    }
+
+    /** Forget a closed session; anything still queued for it is discarded. */
+    public void unregister(WebSocketSession session) {
+        Outbound out = sessions.remove(session.getId());
+        if (out != null) {
+            out.queue.clear();
+            out.queuedBytes.set(0);
+        }
+    }
+
+    /**
+     * Queue a message for a session and return immediately. The same TextMessage can be
+     * shared by every session of a broadcast.
+     * @return false if the message was dropped (session unknown, closed, evicted or full; a full EVICT session is evicted)
+     */
+    public boolean send(WebSocketSession session, TextMessage msg) {
+        Outbound out = sessions.get(session.getId());
+        if (out == null || out.evicted.get() || !session.isOpen()) {
+            if (out != null) {
+                drop(out);
+            } else {
+                droppedTotal.increment();
+            }
+            return false;
+        }
+
+        long started = out.sendStartedAt;
+        if (started != 0 && System.nanoTime() - started > sendTimeLimitNanos) {
+            drop(out);
+            evict(out, "send blocked for over " + Duration.ofNanos(sendTimeLimitNanos).toMillis() + " ms");
+            return false;
+        }
+        int bytes = msg.getPayloadLength();
+        if (out.queuedBytes.get() + bytes > bufferSizeLimit) {
+            drop(out);
+            evict(out, "over " + bufferSizeLimit + " bytes queued");
+            return false;
+        }
+        if (!out.queue.offer(msg)) {
+            drop(out);
+            if (out.overflow == Overflow.EVICT) {
+                evict(out, "over " + queueCapacity + " messages queued");
+            }
+            return false;
+        }
+        out.queuedBytes.addAndGet(bytes);
+        scheduleDrain(out);
+        return true;
+    }
+
+    /** Queued messages for a session (0 if unknown). */
+    public int queueDepth(WebSocketSession session) {
+        Outbound out = sessions.get(session.getId());
+        return out == null ? 0 : out.queue.size();
+    }
+
+    /** Totals plus queue depth and drops per session, deepest queue first. */
+    public Map<String, Object> stats() {
+        long now = System.nanoTime();
+        List<Map<String, Object>> perSession = new ArrayList<>();
+        int depth = 0;
+        for (Outbound out : sessions.values()) {
+            int size = out.queue.size();
+            depth += size;
+            long started = out.sendStartedAt;
+            Map<String, Object> s = new LinkedHashMap<>();
+            s.put("sessionId", out.session.getId());
+            s.put("endpoint", out.endpoint);
+            s.put("queueDepth", size);
+            s.put("queuedBytes", out.queuedBytes.get());
+            s.put("sent", out.sent.sum());
+            s.put("dropped", out.dropped.sum());
+            s.put("sendingForMs", started == 0 ? 0 : (now - started) / 1_000_000);
+            perSession.add(s);
+        }
+        perSession.sort((a, b) -> Integer.compare((Integer) b.get("queueDepth"), (Integer) a.get("queueDepth")));
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("sessions", perSession.size());
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("bufferSizeLimitBytes", bufferSizeLimit);
+        stats.put("sendTimeLimitMs", sendTimeLimitNanos / 1_000_000);
+        stats.put("queueDepth", depth);
+        stats.put("sent", sentTotal.sum());
+        stats.put("dropped", droppedTotal.sum());
+        stats.put("evicted", evictedTotal.sum());
+        stats.put("perSession", perSession);
+        return stats;
+    }
+
+    /** Evict every session whose in-flight send has run past the send-time limit. */
+    @Scheduled(fixedDelayString = "${cycredit.ws-send-watchdog-ms:1000}")
+    public void evictStuckSends() {
+        long now = System.nanoTime();
+        for (Outbound out : sessions.values()) {
+            long started = out.sendStartedAt;
+            if (started != 0 && now - started > sendTimeLimitNanos) {
+                evict(out, "send blocked for over " + Duration.ofNanos(sendTimeLimitNanos).toMillis() + " ms");
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (senders instanceof ExecutorService pool) {
+            pool.shutdownNow();
+        }
+        if (closer instanceof ExecutorService pool) {
+            pool.shutdownNow();
+        }
+    }
+
+    private void scheduleDrain(Outbound out) {
+        if (out.draining.compareAndSet(false, true)) {
+            senders.execute(() -> drain(out));
+        }
+    }
+
+    private void drain(Outbound out) {
+        try {
+            TextMessage msg;
+            while (!out.evicted.get() && (msg = out.queue.poll()) != null) {
+                out.queuedBytes.addAndGet(-msg.getPayloadLength());
+                if (!out.session.isOpen()) {
+                    continue;
+                }
+                out.sendStartedAt = System.nanoTime();
+                try {
+                    out.session.sendMessage(msg);
+                    out.sent.increment();
+                    sentTotal.increment();
+                } catch (IOException | RuntimeException e) {
+                    drop(out);
+                    evict(out, "send failed: " + e.getMessage());
+                } finally {
+                    out.sendStartedAt = 0;
+                }
+            }
+        } finally {
+            out.draining.set(false);
+        }
+        // A message queued after the last poll but before draining was cleared would otherwise wait
+        if (!out.queue.isEmpty() && !out.evicted.get()) {
+            scheduleDrain(out);
+        }
+    }
+
+    private void drop(Outbound out) {
+        out.dropped.increment();
+        droppedTotal.increment();
+    }
+
+    // Drops everything still queued and closes the session; the handler's afterConnectionClosed unregisters it
+    private void evict(Outbound out, String reason) {
+        if (!out.evicted.compareAndSet(false, true)) {
+            return;
+        }
+        int discarded = out.queue.size();
+        out.queue.clear();
+        out.queuedBytes.set(0);
+        out.dropped.add(discarded);
+        droppedTotal.add(discarded);
+        evictedTotal.increment();
+        log.warn("Evicting slow {} WebSocket session {} ({}), {} queued messages dropped",
+                out.endpoint, out.session.getId(), reason, discarded);
+        try {
+            closer.execute(() -> {
+                try {
+                    out.session.close(CloseStatus.SESSION_NOT_RELIABLE);
+                } catch (IOException | RuntimeException ignored) {
+                }
+            });
+        } catch (RejectedExecutionException ignored) {
+            // shutting down
+        }
+    }
+
+    // threads 0: grows as needed (closes are rare, and each may wait out a hung send)
+    private static ExecutorService newPool(String prefix, int threads) {
+        AtomicInteger n = new AtomicInteger();
+        ThreadFactory factory = r -> {
+            Thread t = new Thread(r, prefix + n.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        };
+        return threads > 0 ? Executors.newFixedThreadPool(threads, factory) : Executors.newCachedThreadPool(factory);
+    }
+}
@@ -0,0 +1,26 @@
+package onetoone.websocket;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Health of the WebSocket outbound queues: depth and drops per session, evictions.
+ */
+@CrossOrigin(origins = "*")
+@RestController
+@RequestMapping("/websocket")
+public class OutboundSessionsController {
+
+    private final OutboundSessions outbound;
+
+    public OutboundSessionsController(OutboundSessions outbound) {
+        this.outbound = outbound;
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        return ResponseEntity.ok(outbound.stats());
+    }
+}
@@ -0,0 +1,114 @@
+package onetoone.websocket.bus;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Several nodes' buses inside one JVM, to run a multi-node deployment in a test or benchmark.
+ *
+ * Like a broker hop, publishing only queues: the message goes to every node's inbox (the publisher's
+ * too) and each node's own thread delivers it to that node's subscribers. Inboxes are filled under one
+ * lock, so every node sees the same publish order.
+ */
+public final class InMemoryCluster implements AutoCloseable {
+
+    private final List<Node> nodes = new CopyOnWriteArrayList<>();
+    private final Object publishLock = new Object();
+    private final AtomicLong published = new AtomicLong();
+
+    /** A new node; it receives what is published from now on. */
+    public MessageBus join(String nodeId) {
+        Node node = new Node(nodeId);
+        nodes.add(node);
+        node.deliverer.start();
+        return node;
+    }
+
+    /** Messages published on any node. */
+    public long published() {
+        return published.get();
+    }
+
+    /**
+     * Wait until every node has delivered everything published so far.
+     * @return false if the timeout elapsed first
+     */
+    public boolean awaitDelivered(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        for (Node node : nodes) {
+            while (node.pending.get() > 0) {
+                if (System.nanoTime() >= deadline) {
+                    return false;
+                }
+                Thread.sleep(1);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void close() {
+        for (Node node : nodes) {
+            node.deliverer.interrupt();
+        }
+    }
+
+    private final class Node implements MessageBus {
+        final String nodeId;
+        final BlockingQueue<Message> inbox = new LinkedBlockingQueue<>();
+        // Queued plus being delivered
+        final AtomicLong pending = new AtomicLong();
+        final Map<String, List<Consumer<Message>>> listeners = new ConcurrentHashMap<>();
+        final Thread deliverer;
+
+        Node(String nodeId) {
+            this.nodeId = nodeId;
+            this.deliverer = new Thread(this::run, "bus-" + nodeId);
+            this.deliverer.setDaemon(true);
+        }
+
+        @Override
+        public String nodeId() {
+            return nodeId;
+        }
+
+        @Override
+        public void publish(String topic, String key, String payload) {
+            Message message = new Message(topic, key, payload, nodeId);
+            synchronized (publishLock) {
+                published.incrementAndGet();
+                for (Node node : nodes) {
+                    node.pending.incrementAndGet();
+                    node.inbox.add(message);
+                }
+            }
+        }
+
+        @Override
+        public void subscribe(String topic, Consumer<Message> listener) {
+            listeners.computeIfAbsent(topic, t -> new CopyOnWriteArrayList<>()).add(listener);
+        }
+
+        private void run() {
+            try {
+                while (true) {
+                    Message message = inbox.take();
+                    try {
+                        LocalMessageBus.deliver(listeners.get(message.topic()), message);
+                    } finally {
+                        pending.decrementAndGet();
+                    }
+                }
+            } catch (InterruptedException e) {
+                // closed
+            }
+        }
+    }
+}
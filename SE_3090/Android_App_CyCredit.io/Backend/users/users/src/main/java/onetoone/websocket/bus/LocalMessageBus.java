@@ -0,0 +1,59 @@
+package onetoone.websocket.bus;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * The single-node bus: publish hands the message straight to this JVM's subscribers, on the
+ * publishing thread. Subscribers only queue to OutboundSessions, so that stays cheap.
+ */
+public class LocalMessageBus implements MessageBus {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalMessageBus.class);
+
+    private final String nodeId;
+    private final Map<String, List<Consumer<Message>>> listeners = new ConcurrentHashMap<>();
+
+    public LocalMessageBus() {
+        this("local");
+    }
+
+    public LocalMessageBus(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    @Override
+    public String nodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public void publish(String topic, String key, String payload) {
+        deliver(listeners.get(topic), new Message(topic, key, payload, nodeId));
+    }
+
+    @Override
+    public void subscribe(String topic, Consumer<Message> listener) {
+        listeners.computeIfAbsent(topic, t -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    static void deliver(List<Consumer<Message>> subscribers, Message message) {
+        if (subscribers == null) {
+            return;
+        }
+        for (Consumer<Message> listener : subscribers) {
+            try {
+                listener.accept(message);
+            } catch (RuntimeException e) {
+                // One failing subscriber must not keep the message from the others, or fail the publisher
+                log.error("Message bus subscriber failed on {} {}", message.topic(), message.key(), e);
+            }
+        }
+    }
+}
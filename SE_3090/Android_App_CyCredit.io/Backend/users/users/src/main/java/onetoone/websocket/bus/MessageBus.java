@@ -0,0 +1,30 @@
+package onetoone.websocket.bus;
+
+import java.util.function.Consumer;
+
+/**
+ * Publish/subscribe between backend nodes for WebSocket traffic (chat rooms, leaderboard deltas).
+ *
+ * A handler publishes what its clients should see instead of sending it, and subscribes to deliver
+ * whatever arrives on the topic to the sessions connected to this node only. A message reaches every
+ * subscribed node, the publisher included, once, in one publish order per topic. Without a broker
+ * there is one node: LocalMessageBus. InMemoryCluster runs several nodes in one JVM.
+ */
+public interface MessageBus {
+
+    /**
+     * A delivered message.
+     * @param key    what the topic's subscriber routes on (a chat room, a leaderboard version)
+     * @param origin nodeId of the publisher
+     */
+    record Message(String topic, String key, String payload, String origin) {
+    }
+
+    /** This node's name in messages it publishes. */
+    String nodeId();
+
+    void publish(String topic, String key, String payload);
+
+    /** Receive every message published to topic from now on, on any node. */
+    void subscribe(String topic, Consumer<Message> listener);
+}
@@ -0,0 +1,18 @@
+package onetoone.websocket.bus;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The in-process bus unless another MessageBus bean (a broker-backed one) is defined.
+ */
+@Configuration
+public class MessageBusConfig {
+
+    @Bean
+    @ConditionalOnMissingBean(MessageBus.class)
+    public MessageBus messageBus() {
+        return new LocalMessageBus();
+    }
+}
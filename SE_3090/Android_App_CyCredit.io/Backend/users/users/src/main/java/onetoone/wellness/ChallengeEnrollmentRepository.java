@@ -3,6 +3,7 @@ package onetoone.wellness;
 import onetoone.Users.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -10,5 +11,6 @@ public interface ChallengeEnrollmentRepository extends JpaRepository<ChallengeEn
     List<ChallengeEnrollment> findByUserOrderByEnrolledAtDesc(User user);
     List<ChallengeEnrollment> findByUser_IdOrderByEnrolledAtDesc(Integer userId);
     Optional<ChallengeEnrollment> findByUser_IdAndChallenge_Id(Integer userId, Long challengeId);
+    long countByUser_IdAndStatusIn(Integer userId, Collection<String> statuses);
 }
 
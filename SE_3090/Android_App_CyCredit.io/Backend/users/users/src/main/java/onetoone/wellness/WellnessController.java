@@ -1,16 +1,15 @@
 package onetoone.wellness;
 
-import onetoone.Resource.Resource;
-import onetoone.Resource.ResourceRepository;
 import onetoone.Users.User;
 import onetoone.Users.UserRepository;
-import onetoone.achievements.AchievementsController;
 import onetoone.billing.BillingService;
 import onetoone.billing.Transaction;
 import onetoone.config.GameConfig;
+import onetoone.events.ChallengeClaimed;
+import onetoone.events.ChallengeCompleted;
+import onetoone.events.DomainEventBus;
 import onetoone.game.GameService;
 import onetoone.util.ApiError;
-import onetoone.util.Money;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
@@ -31,27 +30,24 @@ public class WellnessController {
     private final WellnessChallengeRepository challengeRepo;
     private final ChallengeEnrollmentRepository enrollmentRepo;
     private final UserRepository userRepo;
-    private final ResourceRepository resourceRepo;
     private final BillingService billingService;
     private final GameService gameService;
-    private final AchievementsController achievementsController;
+    private final DomainEventBus eventBus;
     private final GameConfig config;
 
     public WellnessController(WellnessChallengeRepository challengeRepo,
                              ChallengeEnrollmentRepository enrollmentRepo,
                              UserRepository userRepo,
-                             ResourceRepository resourceRepo,
                              BillingService billingService,
                              GameService gameService,
-                             AchievementsController achievementsController,
+                             DomainEventBus eventBus,
                              GameConfig config) {
         this.challengeRepo = challengeRepo;
         this.enrollmentRepo = enrollmentRepo;
         this.userRepo = userRepo;
-        this.resourceRepo = resourceRepo;
         this.billingService = billingService;
         this.gameService = gameService;
-        this.achievementsController = achievementsController;
+        this.eventBus = eventBus;
         this.config = config;
         seedChallenges();
     }
@@ -143,14 +139,9 @@ public class WellnessController {
                 if (enrollment.getProgressCount() >= enrollment.getTargetCount()) {
                     enrollment.setStatus("COMPLETED");
                     enrollment.setCompletedAt(OffsetDateTime.now());
-                    // Unlock FIRST_WEEK achievement if this is the first completed challenge
-                    List<ChallengeEnrollment> completed = enrollmentRepo.findByUser_IdOrderByEnrolledAtDesc(userId);
-                    long completedCount = completed.stream()
-                            .filter(e -> "COMPLETED".equals(e.getStatus()) || "CLAIMED".equals(e.getStatus()))
-                            .count();
-                    if (completedCount == 1) {
-                        achievementsController.unlockAchievement(userId, "FIRST_WEEK");
-                    }
+                    // FIRST_WEEK is unlocked off the request thread once this commits
+                    eventBus.publish(new ChallengeCompleted(userId, enrollment.getId(),
+                            enrollment.getChallenge().getId()));
                 }
                 enrollmentRepo.save(enrollment);
             }
@@ -200,10 +191,8 @@ public class WellnessController {
 
             // Grant rewards (first time only)
             WellnessChallenge challenge = enrollment.getChallenge();
-            Resource res = resourceRepo.findByUserId(userId);
-            if (res != null) {
-                res.setMoney(Money.add(res.getMoney(), challenge.getRewardCash()));
-                resourceRepo.save(res);
+            // Atomic credit: saving a loaded Resource could undo a concurrent reward or turn spend
+            if (gameService.addMoney(userId, challenge.getRewardCash())) {
 
                 // Create reward transaction with positive amount (normalized model)
                 billingService.createTransaction(userId, "State Gym - Wellness Reward",
@@ -213,6 +202,8 @@ public class WellnessController {
             enrollment.setStatus("CLAIMED");
             enrollment.setClaimedAt(OffsetDateTime.now());
             enrollmentRepo.save(enrollment);
+            eventBus.publish(new ChallengeClaimed(userId, enrollment.getId(), challenge.getId(),
+                    challenge.getRewardCash()));
 
             Map<String, Object> response = new HashMap<>();
             response.put("rewardCash", challenge.getRewardCash());
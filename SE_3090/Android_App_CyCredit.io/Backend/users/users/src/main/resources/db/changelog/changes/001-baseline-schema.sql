@@ -0,0 +1,755 @@
+--liquibase formatted sql
+
+-- Baseline schema: the tables Hibernate (ddl-auto=update) created before migrations were introduced.
+-- Databases that already have them mark this changeset as ran instead of executing it.
+
+--changeset cycredit:001-baseline-schema-mysql dbms:mysql
+--preconditions onFail:MARK_RAN
+--precondition-sql-check expectedResult:0 select count(*) from information_schema.tables where table_schema = schema() and upper(table_name) = 'TRANSACTIONS'
+create table achievement_definitions (
+    reward_cash float(53),
+    reward_xp float(53),
+    description varchar(1000),
+    achievement_id varchar(255) not null,
+    badge_name varchar(255),
+    title varchar(255) not null,
+    primary key (achievement_id)
+) engine=InnoDB;
+
+create table avatar (
+    id integer not null auto_increment,
+    user_id integer,
+    avatar_name varchar(255),
+    description varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table challenge_enrollments (
+    progress_count integer,
+    target_count integer,
+    user_id integer not null,
+    challenge_id bigint not null,
+    claimed_at datetime(6),
+    completed_at datetime(6),
+    enrolled_at datetime(6),
+    id bigint not null auto_increment,
+    status varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table chat_messages (
+    from_user_id integer,
+    id integer not null auto_increment,
+    created_at datetime(6) not null,
+    scope varchar(16) not null,
+    channel varchar(64) not null,
+    username varchar(64),
+    content varchar(2000) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table guild_invites (
+    guild_id integer,
+    id integer not null auto_increment,
+    receiver_user_id integer not null,
+    sender_user_id integer not null,
+    created_at datetime(6) not null,
+    status enum ('ACCEPTED','DECLINED','PENDING') not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table guild_membership (
+    guild_id integer,
+    id integer not null auto_increment,
+    user_id integer not null,
+    joined_at datetime(6) not null,
+    role enum ('LEADER','MEMBER') not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table guilds (
+    created_by integer not null,
+    id integer not null auto_increment,
+    created_at datetime(6) not null,
+    name varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table gym_memberships (
+    current_streak integer,
+    total_workouts integer,
+    user_id integer,
+    workouts_today integer,
+    expires_at datetime(6),
+    id bigint not null auto_increment,
+    subscribed_at datetime(6),
+    last_workout_date varchar(255),
+    tier enum ('BASIC','NONE','PREMIUM','VIP'),
+    primary key (id)
+) engine=InnoDB;
+
+create table job_runs (
+    passed bit not null,
+    reward_cash float(53),
+    reward_xp float(53),
+    score integer not null,
+    soft_cap_applied bit,
+    streak_bonus float(53),
+    user_id integer not null,
+    duration_ms bigint,
+    id bigint not null auto_increment,
+    run_at datetime(6),
+    difficulty varchar(255) not null,
+    game_type varchar(255) not null,
+    run_nonce varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table leaderboard_scores (
+    score integer not null,
+    id bigint not null auto_increment,
+    updated_at datetime(6) not null,
+    user_id varchar(64) not null,
+    display_name varchar(128) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table library_questions (
+    correct_index integer,
+    id bigint not null auto_increment,
+    explanation varchar(1000),
+    prompt varchar(1000) not null,
+    choices varchar(2000),
+    difficulty varchar(255) not null,
+    topic varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table location (
+    id integer not null auto_increment,
+    x_percent float(53) not null,
+    y_percent float(53) not null,
+    description varchar(512),
+    category varchar(255),
+    image_url varchar(255),
+    name varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table question_attempts (
+    answer_index integer,
+    is_correct bit,
+    is_mastered bit,
+    user_id integer not null,
+    attempted_at datetime(6),
+    id bigint not null auto_increment,
+    question_id bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table quests (
+    reward_points integer not null,
+    created_at datetime(6) not null,
+    updated_at datetime(6),
+    quest_id varchar(64) not null,
+    description varchar(255) not null,
+    title varchar(255) not null,
+    primary key (quest_id)
+) engine=InnoDB;
+
+create table resource (
+    credit float(53) not null,
+    credit_limit float(53) not null,
+    current_month integer not null,
+    id integer not null auto_increment,
+    money float(53),
+    turns_left integer not null,
+    user_id integer,
+    primary key (id)
+) engine=InnoDB;
+
+create table role (
+    access_level integer,
+    id integer not null auto_increment,
+    role_name varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table room_items (
+    is_starter bit,
+    rotation float(53) not null,
+    user_id integer not null,
+    x float(53) not null,
+    y float(53) not null,
+    z integer not null,
+    id bigint not null auto_increment,
+    item_code varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table statements (
+    due_date date,
+    fees float(53),
+    interest_rate float(53),
+    minimum_due float(53),
+    month_number integer,
+    period_end date,
+    period_start date,
+    statement_date date,
+    total_due float(53),
+    user_id integer not null,
+    created_at datetime(6),
+    id bigint not null auto_increment,
+    status enum ('OPEN','OVERDUE','PAID'),
+    primary key (id)
+) engine=InnoDB;
+
+create table store_items (
+    id integer not null auto_increment,
+    price float(53),
+    category varchar(255),
+    description varchar(255),
+    icon_name varchar(255),
+    name varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table transactions (
+    amount float(53),
+    user_id integer not null,
+    id bigint not null auto_increment,
+    statement_id bigint,
+    timestamp datetime(6),
+    category varchar(255),
+    merchant varchar(255),
+    purchase_nonce varchar(255),
+    transaction_type enum ('FEE','INCOME','INTEREST','PAYMENT','PURCHASE','REWARD'),
+    primary key (id)
+) engine=InnoDB;
+
+create table user (
+    avatar_id integer,
+    id integer not null auto_increment,
+    resource_id integer,
+    role_id integer,
+    email_id varchar(255),
+    name varchar(255),
+    password varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table user_achievements (
+    user_id integer not null,
+    id bigint not null auto_increment,
+    unlocked_at datetime(6),
+    achievement_id varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table user_quest_progress (
+    progress_percent integer not null,
+    quest_id varchar(64) not null,
+    user_id varchar(64) not null,
+    completed_at_iso varchar(255),
+    status varchar(255) not null,
+    primary key (quest_id, user_id)
+) engine=InnoDB;
+
+create table wellness_challenges (
+    end_date date,
+    is_active bit,
+    reward_cash float(53),
+    reward_xp float(53),
+    start_date date,
+    target_count integer,
+    id bigint not null auto_increment,
+    description varchar(1000),
+    title varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+alter table avatar 
+   add constraint UK_n6rcv8e9ik29v4v9m62o3rmup unique (user_id);
+
+alter table guilds 
+   add constraint UK_jdl3u9rp7vaqkdowxq64ddhso unique (name);
+
+alter table gym_memberships 
+   add constraint UK_o2nfsvrk4enmuq0x0fjbg6e0a unique (user_id);
+
+alter table job_runs 
+   add constraint UK_t164g9tluddox6waty45gkrkm unique (run_nonce);
+
+alter table question_attempts 
+   add constraint UK7alsi7adn1rse7gngbnc1p1sq unique (user_id, question_id);
+
+alter table resource 
+   add constraint UK_jxdy8bryv19kw1c8cghxvi3de unique (user_id);
+
+alter table transactions 
+   add constraint UK_qca6flabth45du7ad2yioxiy5 unique (purchase_nonce);
+
+alter table user 
+   add constraint UK_1wch7xpck1m4hv6371lijpnq3 unique (avatar_id);
+
+alter table user 
+   add constraint UK_a6n0ads6w5i1d2rrsx8bn0030 unique (resource_id);
+
+alter table user 
+   add constraint UK_qleu8ddawkdltal07p8e6hgva unique (role_id);
+
+alter table avatar 
+   add constraint FK424996avyt89fp16dknjxyda 
+   foreign key (user_id) 
+   references user (id);
+
+alter table challenge_enrollments 
+   add constraint FK7gs5o1pyxuuxc1q3khb9doxgw 
+   foreign key (challenge_id) 
+   references wellness_challenges (id);
+
+alter table challenge_enrollments 
+   add constraint FK96gp4og6yld06dx3l0ollk01s 
+   foreign key (user_id) 
+   references user (id);
+
+alter table guild_invites 
+   add constraint FK6ybkpfmgfqd5cpyjk0gwu9tch 
+   foreign key (guild_id) 
+   references guilds (id);
+
+alter table guild_membership 
+   add constraint FKm28yuda00eilul26lxtistwcy 
+   foreign key (guild_id) 
+   references guilds (id);
+
+alter table gym_memberships 
+   add constraint FK2h0d4rrrgciavwnrgmj74niyd 
+   foreign key (user_id) 
+   references user (id);
+
+alter table job_runs 
+   add constraint FKfpqtfxis6vhqbn777ckmld1l4 
+   foreign key (user_id) 
+   references user (id);
+
+alter table question_attempts 
+   add constraint FKtcptod36qli1knapb6tqj4rc2 
+   foreign key (question_id) 
+   references library_questions (id);
+
+alter table question_attempts 
+   add constraint FKgas125jghcx72fntxrbk7f8uy 
+   foreign key (user_id) 
+   references user (id);
+
+alter table resource 
+   add constraint FKgverld5ylkmwkhca8tcjwggps 
+   foreign key (user_id) 
+   references user (id);
+
+alter table room_items 
+   add constraint FKc7kkfoorelci1fqkyseretfot 
+   foreign key (user_id) 
+   references user (id);
+
+alter table statements 
+   add constraint FK368ydrk0q3hdik03qx54t8bmr 
+   foreign key (user_id) 
+   references user (id);
+
+alter table transactions 
+   add constraint FKk78y4qgfbojbdvnh6lulwp2xs 
+   foreign key (statement_id) 
+   references statements (id);
+
+alter table transactions 
+   add constraint FK9e5ssu5c6n40gw5bgt5dg4mph 
+   foreign key (user_id) 
+   references user (id);
+
+alter table user 
+   add constraint FK6n5ap7vmm9hqir4f2tw23epc7 
+   foreign key (avatar_id) 
+   references avatar (id);
+
+alter table user 
+   add constraint FK71b5i6oeispxer2mex00ykjau 
+   foreign key (resource_id) 
+   references resource (id);
+
+alter table user 
+   add constraint FKn82ha3ccdebhokx3a8fgdqeyy 
+   foreign key (role_id) 
+   references role (id);
+
+alter table user_achievements 
+   add constraint FKkh1rrfjmvj4mu2t9duc4q9frp 
+   foreign key (achievement_id) 
+   references achievement_definitions (achievement_id);
+
+alter table user_achievements 
+   add constraint FK2gp4wt3thphhd9yucjl9p6jui 
+   foreign key (user_id) 
+   references user (id);
+
+--changeset cycredit:001-baseline-schema-h2 dbms:h2
+--preconditions onFail:MARK_RAN
+--precondition-sql-check expectedResult:0 select count(*) from information_schema.tables where table_schema = schema() and upper(table_name) = 'TRANSACTIONS'
+create table achievement_definitions (
+    reward_cash float(53),
+    reward_xp float(53),
+    description varchar(1000),
+    achievement_id varchar(255) not null,
+    badge_name varchar(255),
+    title varchar(255) not null,
+    primary key (achievement_id)
+);
+
+create table avatar (
+    id integer generated by default as identity,
+    user_id integer unique,
+    avatar_name varchar(255),
+    description varchar(255),
+    primary key (id)
+);
+
+create table challenge_enrollments (
+    progress_count integer,
+    target_count integer,
+    user_id integer not null,
+    challenge_id bigint not null,
+    claimed_at timestamp(6) with time zone,
+    completed_at timestamp(6) with time zone,
+    enrolled_at timestamp(6) with time zone,
+    id bigint generated by default as identity,
+    status varchar(255) not null,
+    primary key (id)
+);
+
+create table chat_messages (
+    from_user_id integer,
+    id integer generated by default as identity,
+    created_at timestamp(6) with time zone not null,
+    scope varchar(16) not null,
+    channel varchar(64) not null,
+    username varchar(64),
+    content varchar(2000) not null,
+    primary key (id)
+);
+
+create table guild_invites (
+    guild_id integer,
+    id integer generated by default as identity,
+    receiver_user_id integer not null,
+    sender_user_id integer not null,
+    created_at timestamp(6) with time zone not null,
+    status varchar(255) not null check (status in ('PENDING','ACCEPTED','DECLINED')),
+    primary key (id)
+);
+
+create table guild_membership (
+    guild_id integer,
+    id integer generated by default as identity,
+    user_id integer not null,
+    joined_at timestamp(6) with time zone not null,
+    role varchar(255) not null check (role in ('LEADER','MEMBER')),
+    primary key (id)
+);
+
+create table guilds (
+    created_by integer not null,
+    id integer generated by default as identity,
+    created_at timestamp(6) with time zone not null,
+    name varchar(255) not null unique,
+    primary key (id)
+);
+
+create table gym_memberships (
+    current_streak integer,
+    total_workouts integer,
+    user_id integer unique,
+    workouts_today integer,
+    expires_at timestamp(6) with time zone,
+    id bigint generated by default as identity,
+    subscribed_at timestamp(6) with time zone,
+    last_workout_date varchar(255),
+    tier varchar(255) check (tier in ('NONE','BASIC','PREMIUM','VIP')),
+    primary key (id)
+);
+
+create table job_runs (
+    passed boolean not null,
+    reward_cash float(53),
+    reward_xp float(53),
+    score integer not null,
+    soft_cap_applied boolean,
+    streak_bonus float(53),
+    user_id integer not null,
+    duration_ms bigint,
+    id bigint generated by default as identity,
+    run_at timestamp(6) with time zone,
+    difficulty varchar(255) not null,
+    game_type varchar(255) not null,
+    run_nonce varchar(255) unique,
+    primary key (id)
+);
+
+create table leaderboard_scores (
+    score integer not null,
+    id bigint generated by default as identity,
+    updated_at timestamp(6) with time zone not null,
+    user_id varchar(64) not null,
+    display_name varchar(128) not null,
+    primary key (id)
+);
+
+create table library_questions (
+    correct_index integer,
+    id bigint generated by default as identity,
+    explanation varchar(1000),
+    prompt varchar(1000) not null,
+    choices varchar(2000),
+    difficulty varchar(255) not null,
+    topic varchar(255) not null,
+    primary key (id)
+);
+
+create table location (
+    id integer generated by default as identity,
+    x_percent float(53) not null,
+    y_percent float(53) not null,
+    description varchar(512),
+    category varchar(255),
+    image_url varchar(255),
+    name varchar(255),
+    primary key (id)
+);
+
+create table question_attempts (
+    answer_index integer,
+    is_correct boolean,
+    is_mastered boolean,
+    user_id integer not null,
+    attempted_at timestamp(6) with time zone,
+    id bigint generated by default as identity,
+    question_id bigint not null,
+    primary key (id),
+    constraint UK7alsi7adn1rse7gngbnc1p1sq unique (user_id, question_id)
+);
+
+create table quests (
+    reward_points integer not null,
+    created_at timestamp(6) with time zone not null,
+    updated_at timestamp(6) with time zone,
+    quest_id varchar(64) not null,
+    description varchar(255) not null,
+    title varchar(255) not null,
+    primary key (quest_id)
+);
+
+create table resource (
+    credit float(53) not null,
+    credit_limit float(53) not null,
+    current_month integer not null,
+    id integer generated by default as identity,
+    money float(53),
+    turns_left integer not null,
+    user_id integer unique,
+    primary key (id)
+);
+
+create table role (
+    access_level integer,
+    id integer generated by default as identity,
+    role_name varchar(255),
+    primary key (id)
+);
+
+create table room_items (
+    is_starter boolean,
+    rotation float(53) not null,
+    user_id integer not null,
+    x float(53) not null,
+    y float(53) not null,
+    z integer not null,
+    id bigint generated by default as identity,
+    item_code varchar(255) not null,
+    primary key (id)
+);
+
+create table statements (
+    due_date date,
+    fees float(53),
+    interest_rate float(53),
+    minimum_due float(53),
+    month_number integer,
+    period_end date,
+    period_start date,
+    statement_date date,
+    total_due float(53),
+    user_id integer not null,
+    created_at timestamp(6) with time zone,
+    id bigint generated by default as identity,
+    status varchar(255) check (status in ('OPEN','PAID','OVERDUE')),
+    primary key (id)
+);
+
+create table store_items (
+    id integer generated by default as identity,
+    price float(53),
+    category varchar(255),
+    description varchar(255),
+    icon_name varchar(255),
+    name varchar(255),
+    primary key (id)
+);
+
+create table transactions (
+    amount float(53),
+    user_id integer not null,
+    id bigint generated by default as identity,
+    statement_id bigint,
+    timestamp timestamp(6) with time zone,
+    category varchar(255),
+    merchant varchar(255),
+    purchase_nonce varchar(255) unique,
+    transaction_type varchar(255) check (transaction_type in ('PURCHASE','PAYMENT','INCOME','INTEREST','FEE','REWARD')),
+    primary key (id)
+);
+
+create table user (
+    avatar_id integer unique,
+    id integer generated by default as identity,
+    resource_id integer unique,
+    role_id integer unique,
+    email_id varchar(255),
+    name varchar(255),
+    password varchar(255),
+    primary key (id)
+);
+
+create table user_achievements (
+    user_id integer not null,
+    id bigint generated by default as identity,
+    unlocked_at timestamp(6) with time zone,
+    achievement_id varchar(255) not null,
+    primary key (id)
+);
+
+create table user_quest_progress (
+    progress_percent integer not null,
+    quest_id varchar(64) not null,
+    user_id varchar(64) not null,
+    completed_at_iso varchar(255),
+    status varchar(255) not null,
+    primary key (quest_id, user_id)
+);
+
+create table wellness_challenges (
+    end_date date,
+    is_active boolean,
+    reward_cash float(53),
+    reward_xp float(53),
+    start_date date,
+    target_count integer,
+    id bigint generated by default as identity,
+    description varchar(1000),
+    title varchar(255) not null,
+    primary key (id)
+);
+
+alter table if exists avatar 
+   add constraint FK424996avyt89fp16dknjxyda 
+   foreign key (user_id) 
+   references user;
+
+alter table if exists challenge_enrollments 
+   add constraint FK7gs5o1pyxuuxc1q3khb9doxgw 
+   foreign key (challenge_id) 
+   references wellness_challenges;
+
+alter table if exists challenge_enrollments 
+   add constraint FK96gp4og6yld06dx3l0ollk01s 
+   foreign key (user_id) 
+   references user;
+
+alter table if exists guild_invites 
+   add constraint FK6ybkpfmgfqd5cpyjk0gwu9tch 
+   foreign key (guild_id) 
+   references guilds;
+
+alter table if exists guild_membership 
+   add constraint FKm28yuda00eilul26lxtistwcy 
+   foreign key (guild_id) 
+   references guilds;
+
+alter table if exists gym_memberships 
+   add constraint FK2h0d4rrrgciavwnrgmj74niyd 
+   foreign key (user_id) 
+   references user;
+
+alter table if exists job_runs 
+   add constraint FKfpqtfxis6vhqbn777ckmld1l4 
+   foreign key (user_id) 
+   references user;
+
+alter table if exists question_attempts 
+   add constraint FKtcptod36qli1knapb6tqj4rc2 
+   foreign key (question_id) 
+   references library_questions;
+
+alter table if exists question_attempts 
+   add constraint FKgas125jghcx72fntxrbk7f8uy 
+   foreign key (user_id) 
+   references user;
+
+alter table if exists resource 
+   add constraint FKgverld5ylkmwkhca8tcjwggps 
+   foreign key (user_id) 
+   references user;
+
+alter table if exists room_items 
+   add constraint FKc7kkfoorelci1fqkyseretfot 
+   foreign key (user_id) 
+   references user;
+
+alter table if exists statements 
+   add constraint FK368ydrk0q3hdik03qx54t8bmr 
+   foreign key (user_id) 
+   references user;
+
+alter table if exists transactions 
+   add constraint FKk78y4qgfbojbdvnh6lulwp2xs 
+   foreign key (statement_id) 
+   references statements;
+
+alter table if exists transactions 
+   add constraint FK9e5ssu5c6n40gw5bgt5dg4mph 
+   foreign key (user_id) 
+   references user;
+
+alter table if exists user 
+   add constraint FK6n5ap7vmm9hqir4f2tw23epc7 
+   foreign key (avatar_id) 
+   references avatar;
+
+alter table if exists user 
+   add constraint FK71b5i6oeispxer2mex00ykjau 
+   foreign key (resource_id) 
+   references resource;
+
+alter table if exists user 
+   add constraint FKn82ha3ccdebhokx3a8fgdqeyy 
+   foreign key (role_id) 
+   references role;
+
+alter table if exists user_achievements 
+   add constraint FKkh1rrfjmvj4mu2t9duc4q9frp 
+   foreign key (achievement_id) 
+   references achievement_definitions;
+
+alter table if exists user_achievements 
+   add constraint FK2gp4wt3thphhd9yucjl9p6jui 
+   foreign key (user_id) 
+   references user;
@@ -0,0 +1,43 @@
+--liquibase formatted sql
+
+-- Composite indexes for the hot repository queries.
+-- Every index leads with the equality columns and ends with the ORDER BY / range column,
+-- so lookups and the "newest first" sorts are served from the index.
+
+--changeset cycredit:002-hot-path-indexes
+-- TransactionRepository: history (user_id ORDER BY timestamp), month-end slice, unbilled ranges
+create index idx_transactions_user_timestamp on transactions (user_id, timestamp);
+
+-- TransactionRepository: statement linking (user_id, statement_id IS NULL)
+create index idx_transactions_user_statement on transactions (user_id, statement_id);
+
+-- StatementRepository: latest statement by status, statement by month
+create index idx_statements_user_status_month on statements (user_id, status, month_number);
+
+-- ChatMessageRepository.recent (scope, channel ORDER BY id DESC)
+create index idx_chat_messages_scope_channel_id on chat_messages (scope, channel, id);
+
+-- JobRunRepository: runs by user ORDER BY run_at, passed runs after a time
+create index idx_job_runs_user_run_at on job_runs (user_id, run_at);
+
+-- LeaderboardScoreRepository top-N (ORDER BY score DESC, updated_at ASC)
+create index idx_leaderboard_scores_rank on leaderboard_scores (score desc, updated_at);
+
+-- One leaderboard row per user: keep the best (then newest) row before adding the constraint.
+-- MySQL cannot reference the target table in a subquery of its DELETE, hence the join form.
+
+--changeset cycredit:002-leaderboard-dedupe-mysql dbms:mysql
+delete stale from leaderboard_scores stale
+join leaderboard_scores keep
+  on keep.user_id = stale.user_id
+ and (keep.score > stale.score or (keep.score = stale.score and keep.id > stale.id));
+
+--changeset cycredit:002-leaderboard-dedupe-h2 dbms:h2
+delete from leaderboard_scores
+where exists (select 1 from leaderboard_scores keep
+              where keep.user_id = leaderboard_scores.user_id
+                and (keep.score > leaderboard_scores.score
+                     or (keep.score = leaderboard_scores.score and keep.id > leaderboard_scores.id)));
+
+--changeset cycredit:002-leaderboard-unique-user
+alter table leaderboard_scores add constraint uk_leaderboard_scores_user_id unique (user_id);
@@ -0,0 +1,47 @@
+--liquibase formatted sql
+
+-- Frozen per-statement aggregates, maintained by BillingService as transactions are linked or posted,
+-- so credit-score history and month-end summaries read statement rows instead of the ledger.
+
+--changeset cycredit:003-statement-aggregates-mysql dbms:mysql
+alter table statements
+    add column amount_paid float(53) default 0 not null,
+    add column on_time_payments integer default 0 not null,
+    add column late_payments integer default 0 not null,
+    add column first_payment_at datetime(6),
+    add column paid_on_time bit default 0 not null,
+    add column interest_charged float(53) default 0 not null,
+    add column fees_charged float(53) default 0 not null;
+
+--changeset cycredit:003-statement-aggregates-h2 dbms:h2
+alter table statements add column amount_paid float(53) default 0 not null;
+alter table statements add column on_time_payments integer default 0 not null;
+alter table statements add column late_payments integer default 0 not null;
+alter table statements add column first_payment_at timestamp(6) with time zone;
+alter table statements add column paid_on_time boolean default false not null;
+alter table statements add column interest_charged float(53) default 0 not null;
+alter table statements add column fees_charged float(53) default 0 not null;
+
+-- Backfill existing statements from their linked transactions.
+-- A payment is on time if it was made before the due date (same rule as BillingService).
+
+--changeset cycredit:003-statement-aggregates-backfill
+update statements set
+    amount_paid = coalesce((select sum(t.amount) from transactions t
+                            where t.statement_id = statements.id and t.transaction_type = 'PAYMENT'), 0),
+    on_time_payments = (select count(*) from transactions t
+                        where t.statement_id = statements.id and t.transaction_type = 'PAYMENT'
+                          and cast(t.timestamp as date) < statements.due_date),
+    late_payments = (select count(*) from transactions t
+                     where t.statement_id = statements.id and t.transaction_type = 'PAYMENT'
+                       and (statements.due_date is null or t.timestamp is null
+                            or cast(t.timestamp as date) >= statements.due_date)),
+    first_payment_at = (select min(t.timestamp) from transactions t
+                        where t.statement_id = statements.id and t.transaction_type = 'PAYMENT'),
+    interest_charged = coalesce((select sum(t.amount) from transactions t
+                                 where t.statement_id = statements.id and t.transaction_type = 'INTEREST'), 0),
+    fees_charged = coalesce((select sum(t.amount) from transactions t
+                             where t.statement_id = statements.id and t.transaction_type = 'FEE'), 0);
+
+update statements set paid_on_time = (cast(first_payment_at as date) < due_date)
+where first_payment_at is not null and due_date is not null;
@@ -0,0 +1,28 @@
+--liquibase formatted sql
+
+-- Pooled id sequences for the high-write entities (Transaction, ChatMessage, JobRun, LeaderboardScore).
+-- Hibernate reserves 50 ids per sequence call, so inserts no longer need the IDENTITY round trip
+-- and can be JDBC-batched. The id columns keep their auto-increment default for raw SQL inserts.
+--
+-- MySQL has no sequences: Hibernate emulates each one with a single-row table (next_val).
+-- Each table starts 51 past the current max id, so the first pooled block
+-- (next_val - 49 .. next_val) never reuses an existing id.
+
+--changeset cycredit:004-pooled-id-sequences-mysql dbms:mysql
+create table transactions_seq (next_val bigint) engine=InnoDB;
+insert into transactions_seq (next_val) select coalesce(max(id), 0) + 51 from transactions;
+
+create table chat_messages_seq (next_val bigint) engine=InnoDB;
+insert into chat_messages_seq (next_val) select coalesce(max(id), 0) + 51 from chat_messages;
+
+create table job_runs_seq (next_val bigint) engine=InnoDB;
+insert into job_runs_seq (next_val) select coalesce(max(id), 0) + 51 from job_runs;
+
+create table leaderboard_scores_seq (next_val bigint) engine=InnoDB;
+insert into leaderboard_scores_seq (next_val) select coalesce(max(id), 0) + 51 from leaderboard_scores;
+
+--changeset cycredit:004-pooled-id-sequences-h2 dbms:h2
+create sequence transactions_seq start with 1 increment by 50;
+create sequence chat_messages_seq start with 1 increment by 50;
+create sequence job_runs_seq start with 1 increment by 50;
+create sequence leaderboard_scores_seq start with 1 increment by 50;
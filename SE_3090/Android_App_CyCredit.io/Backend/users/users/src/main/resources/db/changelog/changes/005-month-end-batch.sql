@@ -0,0 +1,80 @@
+--liquibase formatted sql
+
+-- Checkpoint tables for the class-wide month-end batch (MonthEndBatchService).
+-- A run is split into user-id-range partitions; each partition's checkpoint_user_id is advanced
+-- in the same transaction as the month-end charges of the chunk it covers, so a resumed run
+-- continues exactly after the last committed chunk and never closes a user's month twice.
+
+--changeset cycredit:005-month-end-batch-mysql dbms:mysql
+create table month_end_runs (
+    attempts integer not null,
+    chunk_size integer not null,
+    parallelism integer not null,
+    partition_size integer not null,
+    users_failed integer not null,
+    users_processed integer not null,
+    created_at datetime(6),
+    elapsed_ms bigint not null,
+    finished_at datetime(6),
+    id bigint not null auto_increment,
+    started_at datetime(6),
+    last_error varchar(500),
+    status enum ('PENDING','RUNNING','COMPLETED','COMPLETED_WITH_FAILURES','FAILED') not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table month_end_partitions (
+    checkpoint_user_id integer not null,
+    chunks integer not null,
+    failed integer not null,
+    id_from integer not null,
+    id_to integer not null,
+    partition_index integer not null,
+    processed integer not null,
+    elapsed_ms bigint not null,
+    id bigint not null auto_increment,
+    max_chunk_ms bigint not null,
+    run_id bigint not null,
+    last_error varchar(500),
+    status enum ('PENDING','RUNNING','COMPLETED') not null,
+    primary key (id),
+    constraint uk_month_end_partitions_run_index unique (run_id, partition_index),
+    constraint fk_month_end_partitions_run foreign key (run_id) references month_end_runs (id)
+) engine=InnoDB;
+
+--changeset cycredit:005-month-end-batch-h2 dbms:h2
+create table month_end_runs (
+    attempts integer not null,
+    chunk_size integer not null,
+    parallelism integer not null,
+    partition_size integer not null,
+    users_failed integer not null,
+    users_processed integer not null,
+    created_at timestamp(6) with time zone,
+    elapsed_ms bigint not null,
+    finished_at timestamp(6) with time zone,
+    id bigint generated by default as identity,
+    started_at timestamp(6) with time zone,
+    last_error varchar(500),
+    status varchar(255) not null check (status in ('PENDING','RUNNING','COMPLETED','COMPLETED_WITH_FAILURES','FAILED')),
+    primary key (id)
+);
+
+create table month_end_partitions (
+    checkpoint_user_id integer not null,
+    chunks integer not null,
+    failed integer not null,
+    id_from integer not null,
+    id_to integer not null,
+    partition_index integer not null,
+    processed integer not null,
+    elapsed_ms bigint not null,
+    id bigint generated by default as identity,
+    max_chunk_ms bigint not null,
+    run_id bigint not null,
+    last_error varchar(500),
+    status varchar(255) not null check (status in ('PENDING','RUNNING','COMPLETED')),
+    primary key (id),
+    constraint uk_month_end_partitions_run_index unique (run_id, partition_index),
+    constraint fk_month_end_partitions_run foreign key (run_id) references month_end_runs (id)
+);
@@ -0,0 +1,40 @@
+--liquibase formatted sql
+
+-- Daily and weekly leaderboard buckets (WindowedLeaderboard). One row per window, bucket and user,
+-- holding the points earned in that bucket. The open bucket of each window is loaded at startup and
+-- written behind; closed buckets are trimmed to their top rows and dropped after the retention.
+
+--changeset cycredit:006-leaderboard-windows-mysql dbms:mysql
+create table leaderboard_window_scores (
+    bucket_start date not null,
+    score integer not null,
+    id bigint not null auto_increment,
+    updated_at datetime(6) not null,
+    user_id varchar(64) not null,
+    display_name varchar(128) not null,
+    window_type enum ('DAILY','WEEKLY') not null,
+    primary key (id),
+    constraint uk_leaderboard_window_scores_bucket_user unique (window_type, bucket_start, user_id)
+) engine=InnoDB;
+
+create table leaderboard_window_scores_seq (next_val bigint) engine=InnoDB;
+insert into leaderboard_window_scores_seq (next_val) values (1);
+
+--changeset cycredit:006-leaderboard-windows-h2 dbms:h2
+create table leaderboard_window_scores (
+    bucket_start date not null,
+    score integer not null,
+    id bigint generated by default as identity,
+    updated_at timestamp(6) with time zone not null,
+    user_id varchar(64) not null,
+    display_name varchar(128) not null,
+    window_type varchar(255) not null check (window_type in ('DAILY','WEEKLY')),
+    primary key (id),
+    constraint uk_leaderboard_window_scores_bucket_user unique (window_type, bucket_start, user_id)
+);
+
+create sequence leaderboard_window_scores_seq start with 1 increment by 50;
+
+-- Ranked read of one bucket (history, compaction)
+--changeset cycredit:006-leaderboard-windows-rank-index
+create index idx_leaderboard_window_scores_rank on leaderboard_window_scores (window_type, bucket_start, score desc, updated_at);
@@ -0,0 +1,24 @@
+--liquibase formatted sql
+
+-- Per-user ledger aggregate maintained by BillingService (AccountBalance). Not part of the baseline,
+-- so it is created on every database; a user without a row has it rebuilt from the ledger on first read.
+
+--changeset cycredit:007-account-balances-mysql dbms:mysql
+create table account_balances (
+    balance float(53) not null,
+    unbilled_balance float(53) not null,
+    unbilled_spend float(53) not null,
+    user_id integer not null,
+    updated_at datetime(6),
+    primary key (user_id)
+) engine=InnoDB;
+
+--changeset cycredit:007-account-balances-h2 dbms:h2
+create table account_balances (
+    balance float(53) not null,
+    unbilled_balance float(53) not null,
+    unbilled_spend float(53) not null,
+    user_id integer not null,
+    updated_at timestamp(6) with time zone,
+    primary key (user_id)
+);
@@ -0,0 +1,18 @@
+--liquibase formatted sql
+
+-- A partition that dies is now marked FAILED (instead of staying RUNNING), so resume can tell
+-- a crashed partition from one another executor is still working on.
+
+--changeset cycredit:008-month-end-partition-failed-mysql dbms:mysql
+alter table month_end_partitions
+    modify status enum ('PENDING','RUNNING','COMPLETED','FAILED') not null;
+
+--changeset cycredit:008-month-end-partition-failed-h2 dbms:h2
+-- The check constraint from 005 is unnamed; replacing the column drops it with the column
+alter table month_end_partitions add column status_new varchar(255);
+update month_end_partitions set status_new = status;
+alter table month_end_partitions drop column status;
+alter table month_end_partitions alter column status_new rename to status;
+alter table month_end_partitions alter column status set not null;
+alter table month_end_partitions add constraint ck_month_end_partitions_status
+    check (status in ('PENDING','RUNNING','COMPLETED','FAILED'));
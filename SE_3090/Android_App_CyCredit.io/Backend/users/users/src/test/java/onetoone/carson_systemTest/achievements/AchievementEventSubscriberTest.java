@@ -0,0 +1,148 @@
+package onetoone.carson_systemTest.achievements;
+
+import jakarta.persistence.EntityManager;
+import onetoone.Resource.Resource;
+import onetoone.Resource.ResourceRepository;
+import onetoone.Users.User;
+import onetoone.Users.UserRepository;
+import onetoone.achievements.AchievementDefinitionRepository;
+import onetoone.achievements.AchievementEventSubscriber;
+import onetoone.achievements.AchievementsController;
+import onetoone.achievements.UserAchievementRepository;
+import onetoone.billing.AccountBalanceRepository;
+import onetoone.billing.BillingService;
+import onetoone.billing.StatementRepository;
+import onetoone.billing.TransactionRepository;
+import onetoone.config.GameConfig;
+import onetoone.events.DomainEventBus;
+import onetoone.events.JobRunRecorded;
+import onetoone.game.GameService;
+import onetoone.game.GameStateCache;
+import onetoone.job.JobRun;
+import onetoone.job.JobRunRepository;
+import onetoone.library.QuestionAttemptRepository;
+import onetoone.wellness.ChallengeEnrollmentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Milestone unlocks driven through the real event bus against H2: the event is only seen
+ * after the publishing transaction commits, and the reward lands exactly once.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AchievementEventSubscriberTest {
+
+    @Autowired
+    private EntityManager em;
+    @Autowired
+    private PlatformTransactionManager txManager;
+    @Autowired
+    private UserRepository userRepo;
+    @Autowired
+    private ResourceRepository resourceRepo;
+    @Autowired
+    private TransactionRepository txRepo;
+    @Autowired
+    private AccountBalanceRepository balanceRepo;
+    @Autowired
+    private StatementRepository statementRepo;
+    @Autowired
+    private AchievementDefinitionRepository defRepo;
+    @Autowired
+    private UserAchievementRepository userAchievementRepo;
+    @Autowired
+    private JobRunRepository runRepo;
+    @Autowired
+    private QuestionAttemptRepository attemptRepo;
+    @Autowired
+    private ChallengeEnrollmentRepository enrollmentRepo;
+
+    private TransactionTemplate txTemplate;
+    private DomainEventBus bus;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        txTemplate = new TransactionTemplate(txManager);
+        BillingService billingService = new BillingService(txRepo, userRepo, resourceRepo, balanceRepo, statementRepo);
+        GameService gameService = new GameService(resourceRepo, userRepo, txRepo, statementRepo, billingService,
+                new GameConfig(), new GameStateCache(100, Duration.ofMinutes(1), System::nanoTime));
+        AchievementsController achievements = new AchievementsController(defRepo, userAchievementRepo, userRepo,
+                billingService, gameService);
+        AchievementEventSubscriber subscriber = new AchievementEventSubscriber(achievements, runRepo, attemptRepo,
+                enrollmentRepo);
+        bus = new DomainEventBus(() -> List.of(subscriber), txTemplate, 2, 100, 100);
+
+        user = userRepo.save(new User("Worker", "worker@test.com", "pw"));
+        Resource res = new Resource(3, 500.0, 700.0);
+        res.setUser(user);
+        resourceRepo.save(res);
+        for (int i = 0; i < 10; i++) {
+            JobRun run = new JobRun();
+            run.setUser(user);
+            run.setGameType("TYPING");
+            run.setDifficulty("EASY");
+            run.setScore(90);
+            run.setPassed(true);
+            run.setRunAt(OffsetDateTime.now());
+            runRepo.save(run);
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        bus.shutdown();
+        txTemplate.executeWithoutResult(status -> {
+            for (String entity : List.of("UserAchievement", "AchievementDefinition", "JobRun", "Transaction",
+                    "AccountBalance", "Resource", "User")) {
+                em.createQuery("delete from " + entity).executeUpdate();
+            }
+        });
+    }
+
+    @Test
+    void testTenthPassUnlocksAndPaysOnceAfterCommit() throws InterruptedException {
+        int userId = user.getId();
+        JobRunRecorded event = new JobRunRecorded(userId, 10L, true, 1, 12.5);
+
+        txTemplate.executeWithoutResult(status -> {
+            bus.publish(event);
+            bus.publish(event); // a retried request must not pay twice
+            assertEquals(0L, bus.stats().get("published"));
+        });
+        assertTrue(bus.awaitIdle(Duration.ofSeconds(5)));
+
+        assertTrue(userAchievementRepo.findByUser_IdAndAchievement_AchievementId(userId, "JOB_10_PASSES").isPresent());
+        assertEquals(1, userAchievementRepo.findByUser_Id(userId).size());
+        assertEquals(515.0, resourceRepo.findByUserId(userId).getMoney(), 0.001);
+        assertEquals(0L, bus.stats().get("subscriberFailures"));
+    }
+
+    @Test
+    void testRolledBackRunUnlocksNothing() throws InterruptedException {
+        int userId = user.getId();
+
+        txTemplate.executeWithoutResult(status -> {
+            bus.publish(new JobRunRecorded(userId, 10L, true, 1, 12.5));
+            status.setRollbackOnly();
+        });
+        assertTrue(bus.awaitIdle(Duration.ofSeconds(5)));
+
+        assertTrue(userAchievementRepo.findByUser_Id(userId).isEmpty());
+        assertEquals(500.0, resourceRepo.findByUserId(userId).getMoney(), 0.001);
+    }
+}
@@ -0,0 +1,168 @@
+package onetoone.carson_systemTest.events;
+
+import onetoone.events.DomainEvent;
+import onetoone.events.DomainEventBus;
+import onetoone.events.DomainEventSubscriber;
+import onetoone.events.QuestionMastered;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * DomainEventBus delivery guarantees: per-user order, after-commit only, bounded queues, isolated failures.
+ */
+class DomainEventBusTest {
+
+    private DomainEventBus bus;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (bus != null) {
+            bus.shutdown();
+        }
+    }
+
+    @Test
+    void testEventsOfOneUserArriveInPublishOrder() throws Exception {
+        Map<Integer, List<Long>> seen = new ConcurrentHashMap<>();
+        bus = newBus(List.of(event -> {
+            QuestionMastered mastered = (QuestionMastered) event;
+            seen.computeIfAbsent(mastered.userId(), k -> Collections.synchronizedList(new ArrayList<>()))
+                    .add(mastered.questionId());
+        }), 4, 1000);
+
+        // 20 users, each publishing its own sequence from its own thread, all at once
+        ExecutorService pool = Executors.newFixedThreadPool(20);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int user = 1; user <= 20; user++) {
+            int userId = user;
+            pool.submit(() -> {
+                start.await();
+                for (long seq = 0; seq < 200; seq++) {
+                    bus.publish(new QuestionMastered(userId, seq));
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        assertTrue(bus.awaitIdle(Duration.ofSeconds(10)));
+
+        assertEquals(20, seen.size());
+        for (List<Long> sequence : seen.values()) {
+            assertEquals(200, sequence.size());
+            for (int i = 0; i < sequence.size(); i++) {
+                assertEquals(i, sequence.get(i));
+            }
+        }
+        assertEquals(4000L, bus.stats().get("delivered"));
+    }
+
+    @Test
+    void testEventIsDeliveredOnlyAfterCommit() throws Exception {
+        List<DomainEvent> seen = new CopyOnWriteArrayList<>();
+        bus = newBus(List.of(seen::add), 1, 10);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            bus.publish(new QuestionMastered(1, 1L));
+            assertTrue(bus.awaitIdle(Duration.ofSeconds(1)));
+            assertTrue(seen.isEmpty());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertTrue(bus.awaitIdle(Duration.ofSeconds(5)));
+        assertEquals(List.of(new QuestionMastered(1, 1L)), seen);
+    }
+
+    @Test
+    void testRolledBackEventIsNeverDelivered() throws Exception {
+        List<DomainEvent> seen = new CopyOnWriteArrayList<>();
+        bus = newBus(List.of(seen::add), 1, 10);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            bus.publish(new QuestionMastered(1, 1L));
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertTrue(bus.awaitIdle(Duration.ofSeconds(1)));
+        assertTrue(seen.isEmpty());
+        assertEquals(0L, bus.stats().get("published"));
+    }
+
+    @Test
+    void testFullQueueDropsAndCountsInsteadOfBlockingForever() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch firstTaken = new CountDownLatch(1);
+        bus = newBus(List.of(event -> {
+            firstTaken.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }), 1, 2);
+
+        bus.publish(new QuestionMastered(1, 0L));
+        assertTrue(firstTaken.await(5, TimeUnit.SECONDS)); // worker is now stuck on event 0
+        for (long seq = 1; seq <= 4; seq++) {
+            bus.publish(new QuestionMastered(1, seq));
+        }
+
+        Map<String, Object> stats = bus.stats();
+        assertEquals(2, stats.get("queueDepth"));
+        assertEquals(2L, stats.get("dropped"));
+        assertEquals(5L, stats.get("published"));
+        assertTrue((Double) stats.get("lagMs") > 0);
+
+        release.countDown();
+        assertTrue(bus.awaitIdle(Duration.ofSeconds(5)));
+        assertEquals(3L, bus.stats().get("delivered"));
+    }
+
+    @Test
+    void testFailingSubscriberDoesNotStopOthers() throws Exception {
+        AtomicInteger healthy = new AtomicInteger();
+        bus = newBus(List.of(
+                event -> {
+                    throw new IllegalStateException("boom");
+                },
+                event -> healthy.incrementAndGet()), 2, 10);
+
+        bus.publish(new QuestionMastered(1, 1L));
+        bus.publish(new QuestionMastered(2, 1L));
+        assertTrue(bus.awaitIdle(Duration.ofSeconds(5)));
+
+        assertEquals(2, healthy.get());
+        assertEquals(2L, bus.stats().get("subscriberFailures"));
+        assertEquals(2L, bus.stats().get("delivered"));
+    }
+
+    private static DomainEventBus newBus(List<DomainEventSubscriber> subscribers, int lanes, int capacity) {
+        return new DomainEventBus(() -> subscribers, TransactionOperations.withoutTransaction(), lanes, capacity, 20);
+    }
+}
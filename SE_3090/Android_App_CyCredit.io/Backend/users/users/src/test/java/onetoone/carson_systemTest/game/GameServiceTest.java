@@ -7,6 +7,7 @@ import onetoone.Users.UserRepository;
 import onetoone.billing.*;
 import onetoone.config.GameConfig;
 import onetoone.game.GameService;
+import onetoone.game.GameStateCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -15,6 +16,9 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -22,6 +26,8 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.mockito.Mockito.lenient;
@@ -44,6 +50,8 @@ class GameServiceTest {
     private BillingService billingService;
     @Mock
     private GameConfig gameConfig;
+    @Mock
+    private GameStateCache stateCache;
 
     @InjectMocks
     private GameService gameService;
@@ -78,29 +86,28 @@ class GameServiceTest {
 
     @Test
     void testConsumeTurn_Success() {
-        when(resourceRepo.findByUserId(1)).thenReturn(testResource);
+        when(resourceRepo.takeTurns(1, 1)).thenReturn(1);
 
         boolean result = gameService.consumeTurn(1);
 
         assertTrue(result);
-        assertEquals(9, testResource.getTurnsLeft());
-        verify(resourceRepo).save(testResource);
+        verify(resourceRepo, never()).save(any());
     }
 
     @Test
     void testConsumeTurn_NoTurnsLeft() {
-        testResource.setTurnsLeft(0);
-        when(resourceRepo.findByUserId(1)).thenReturn(testResource);
+        when(resourceRepo.takeTurns(1, 1)).thenReturn(0);
+        when(resourceRepo.existsByUser_Id(1)).thenReturn(true);
 
         boolean result = gameService.consumeTurn(1);
 
         assertFalse(result);
-        assertEquals(0, testResource.getTurnsLeft());
     }
 
     @Test
     void testConsumeTurn_ResourceNotFound() {
-        when(resourceRepo.findByUserId(1)).thenReturn(null);
+        when(resourceRepo.takeTurns(1, 1)).thenReturn(0);
+        when(resourceRepo.existsByUser_Id(1)).thenReturn(false);
 
         IllegalStateException exception = assertThrows(IllegalStateException.class, () -> {
             gameService.consumeTurn(1);
@@ -108,6 +115,12 @@ class GameServiceTest {
         assertTrue(exception.getMessage().contains("Resource not found"));
     }
 
+    @Test
+    void testReserveTurns_RejectsNonPositiveCount() {
+        assertThrows(IllegalArgumentException.class, () -> gameService.reserveTurns(1, 0));
+        verifyNoInteractions(resourceRepo);
+    }
+
     @Test
     void testGetGameState() {
         when(resourceRepo.findByUserId(1)).thenReturn(testResource);
@@ -154,7 +167,7 @@ class GameServiceTest {
         List<Transaction> transactions = new ArrayList<>();
         transactions.add(purchase1);
         transactions.add(purchase2);
-        when(txRepo.findByUser_IdOrderByTimestampDesc(1)).thenReturn(transactions);
+        when(txRepo.findMonthEndSlice(eq(1), any(), any())).thenReturn(transactions);
         
         // No previous statements
         when(statementRepo.findByUser_IdAndMonthNumber(1, 1)).thenReturn(Optional.empty());
@@ -191,6 +204,132 @@ class GameServiceTest {
         assertEquals(5, testResource.getTurnsLeft()); // maxTurnsPerMonth from config
     }
 
+    /**
+     * Month-end loads the ledger slice exactly once and reports per-stage timings.
+     */
+    @Test
+    void testEndMonth_SinglePassLedgerLoad() {
+        when(resourceRepo.findByUserId(1)).thenReturn(testResource);
+        when(userRepo.findById(1)).thenReturn(Optional.of(testUser));
+
+        // Purchase in last calendar month (statement period) and one this month
+        Transaction lastMonth = new Transaction();
+        lastMonth.setUser(testUser);
+        lastMonth.setAmount(120.0);
+        lastMonth.setCategory("Food");
+        lastMonth.setType(Transaction.TransactionType.PURCHASE);
+        lastMonth.setTimestamp(java.time.OffsetDateTime.now().withDayOfMonth(1).minusMonths(1).plusDays(3));
+
+        Transaction thisMonth = new Transaction();
+        thisMonth.setUser(testUser);
+        thisMonth.setAmount(40.0);
+        thisMonth.setCategory("Food");
+        thisMonth.setType(Transaction.TransactionType.PURCHASE);
+        thisMonth.setTimestamp(java.time.OffsetDateTime.now());
+
+        when(txRepo.findMonthEndSlice(eq(1), any(), any())).thenReturn(List.of(thisMonth, lastMonth));
+        when(statementRepo.findByUser_IdAndMonthNumber(1, 1)).thenReturn(Optional.empty());
+        when(statementRepo.findByUser_IdOrderByMonthNumberDesc(1)).thenReturn(Collections.emptyList());
+        when(statementRepo.save(any(Statement.class))).thenAnswer(invocation -> {
+            Statement s = invocation.getArgument(0);
+            s.setId(1L);
+            return s;
+        });
+
+        var summary = gameService.endMonth(1);
+
+        // Only the period purchase is billed and summarized; linking is one bulk update
+        verify(billingService, times(1)).linkUnbilledToStatement(
+                eq(1), argThat(st -> st.getTotalDue() == 120.0), any(), any());
+        verify(txRepo, never()).save(any(Transaction.class));
+        assertEquals(120.0, summary.totalSpend, 0.01);
+        assertEquals(120.0, summary.categorySpend.get("Food"), 0.01);
+
+        // Ledger is read once; balance comes from the aggregate
+        verify(txRepo, times(1)).findMonthEndSlice(eq(1), any(), any());
+        verify(txRepo, never()).findByUser_IdOrderByTimestampDesc(anyInt());
+        assertEquals(List.of("load", "statement", "interest", "creditScore", "summary"),
+                new ArrayList<>(summary.stageTimingsMs.keySet()));
+    }
+
+    /**
+     * A purchase stored with another offset is billed by the same server-day boundaries it is linked by.
+     */
+    @Test
+    void testEndMonth_LedgerUsesTheLinkingDayBoundaries() {
+        when(resourceRepo.findByUserId(1)).thenReturn(testResource);
+        when(userRepo.findById(1)).thenReturn(Optional.of(testUser));
+
+        ZoneId zone = ZoneId.systemDefault();
+        ZonedDateTime monthStart = LocalDate.now().withDayOfMonth(1).atStartOfDay(zone);
+        Transaction inPeriod = new Transaction();
+        inPeriod.setUser(testUser);
+        inPeriod.setAmount(120.0);
+        inPeriod.setCategory("Food");
+        inPeriod.setType(Transaction.TransactionType.PURCHASE);
+        inPeriod.setTimestamp(monthStart.minusDays(10).toOffsetDateTime());
+
+        // An hour into this month on the server, but still the period's last day in the offset it was stored with
+        Transaction afterPeriod = new Transaction();
+        afterPeriod.setUser(testUser);
+        afterPeriod.setAmount(40.0);
+        afterPeriod.setCategory("Food");
+        afterPeriod.setType(Transaction.TransactionType.PURCHASE);
+        ZoneOffset serverOffset = monthStart.plusHours(1).getOffset();
+        afterPeriod.setTimestamp(monthStart.plusHours(1).toOffsetDateTime()
+                .withOffsetSameInstant(ZoneOffset.ofTotalSeconds(serverOffset.getTotalSeconds() - 5 * 3600)));
+        assertTrue(afterPeriod.getTimestamp().toLocalDate().isBefore(monthStart.toLocalDate()));
+
+        when(txRepo.findMonthEndSlice(eq(1), any(), any())).thenReturn(List.of(inPeriod, afterPeriod));
+        when(statementRepo.findByUser_IdAndMonthNumber(1, 1)).thenReturn(Optional.empty());
+        when(statementRepo.findByUser_IdOrderByMonthNumberDesc(1)).thenReturn(Collections.emptyList());
+        when(statementRepo.save(any(Statement.class))).thenAnswer(invocation -> {
+            Statement s = invocation.getArgument(0);
+            s.setId(1L);
+            return s;
+        });
+
+        var summary = gameService.endMonth(1);
+
+        // Linked up to the server's month start, and the total covers exactly what falls before it
+        verify(billingService).linkUnbilledToStatement(eq(1), argThat(st -> st.getTotalDue() == 120.0), any(),
+                argThat(to -> to.isEqual(monthStart.toOffsetDateTime())));
+        assertEquals(120.0, summary.totalSpend, 0.01);
+    }
+
+    /**
+     * Payment history comes from the statements' frozen on-time flags; the ledger is only read for the period.
+     */
+    @Test
+    void testEndMonth_CreditHistoryReadsStatementAggregates() {
+        when(resourceRepo.findByUserId(1)).thenReturn(testResource);
+        when(userRepo.findById(1)).thenReturn(Optional.of(testUser));
+        when(txRepo.findMonthEndSlice(eq(1), any(), any())).thenReturn(Collections.emptyList());
+        when(statementRepo.save(any(Statement.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Statement current = new Statement();
+        current.setId(2L);
+        current.setMonthNumber(1);
+        current.setDueDate(LocalDate.now().plusDays(5));
+        current.setAmountPaidCents(4000L);
+        current.setOnTimePayments(2);
+        current.setInterestChargedCents(150L);
+        when(statementRepo.findByUser_IdAndMonthNumber(1, 1)).thenReturn(Optional.of(current));
+
+        Statement paidOnTime = new Statement();
+        paidOnTime.setStatus(Statement.StatementStatus.PAID);
+        paidOnTime.setPaidOnTime(true);
+        when(statementRepo.findByUser_IdOrderByMonthNumberDesc(1)).thenReturn(List.of(current, paidOnTime));
+
+        var summary = gameService.endMonth(1);
+
+        assertEquals(50.0, summary.paymentHistoryDelta, 0.01);
+        assertEquals(40.0, summary.totalPaid, 0.01);
+        assertEquals(2, summary.onTimePayments);
+        assertEquals(1.5, summary.interestCharged, 0.01);
+        verify(txRepo, never()).findByUser_IdOrderByTimestampDesc(anyInt());
+    }
+
     /**
      * Test 4: Test the new Gym endpoints (membership and workout functionality).
      * This tests that Gym features integrate with the billing system.
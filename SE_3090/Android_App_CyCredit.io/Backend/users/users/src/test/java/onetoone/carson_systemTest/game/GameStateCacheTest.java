@@ -0,0 +1,189 @@
+package onetoone.carson_systemTest.game;
+
+import onetoone.Resource.Resource;
+import onetoone.Resource.ResourceRepository;
+import onetoone.Users.User;
+import onetoone.Users.UserRepository;
+import onetoone.game.GameService;
+import onetoone.game.GameStateCache;
+import onetoone.game.GameStateCacheListener;
+import onetoone.game.GameStateSnapshot;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * GameStateCache eviction and metrics, plus write-through of committed Resource changes
+ * against an in-memory H2 database.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import({GameStateCacheListener.class, GameStateCacheTest.CacheConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class GameStateCacheTest {
+
+    @TestConfiguration
+    static class CacheConfig {
+        @Bean
+        GameStateCache gameStateCache() {
+            return new GameStateCache(100, Duration.ofMinutes(1), System::nanoTime);
+        }
+    }
+
+    @Autowired
+    private GameStateCache cache;
+    @Autowired
+    private ResourceRepository resourceRepo;
+    @Autowired
+    private UserRepository userRepo;
+    @Autowired
+    private PlatformTransactionManager txManager;
+
+    private TransactionTemplate txTemplate;
+    private GameService gameService;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        txTemplate = new TransactionTemplate(txManager);
+        gameService = new GameService(resourceRepo, userRepo, null, null, null, null, cache);
+        user = userRepo.save(new User("Cached", "cached@test.com", "pw"));
+        Resource res = new Resource(10, 100.0, 700.0);
+        res.setUser(user);
+        resourceRepo.save(res);
+    }
+
+    @AfterEach
+    void tearDown() {
+        Resource res = resourceRepo.findByUserId(user.getId());
+        if (res != null) {
+            resourceRepo.delete(res);
+        }
+        userRepo.delete(user);
+    }
+
+    @Test
+    void testLeastRecentlyUsedEntryIsEvictedPastMaxSize() {
+        GameStateCache small = new GameStateCache(2, Duration.ofMinutes(1), System::nanoTime);
+        small.put(state(1));
+        small.put(state(2));
+        small.get(1);
+        small.put(state(3));
+
+        assertTrue(small.get(1).isPresent());
+        assertTrue(small.get(2).isEmpty());
+        assertTrue(small.get(3).isPresent());
+        assertEquals(1L, small.stats().get("sizeEvictions"));
+        assertEquals(3L, small.stats().get("hits"));
+        assertEquals(1L, small.stats().get("misses"));
+    }
+
+    @Test
+    void testEntriesExpireAfterTtl() {
+        AtomicLong clock = new AtomicLong();
+        GameStateCache ttl = new GameStateCache(10, Duration.ofSeconds(30), clock::get);
+        ttl.put(state(1));
+
+        clock.addAndGet(Duration.ofSeconds(29).toNanos());
+        assertTrue(ttl.get(1).isPresent());
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertTrue(ttl.get(1).isEmpty());
+        assertEquals(1L, ttl.stats().get("expirations"));
+    }
+
+    @Test
+    void testMissLoadIsNotCachedOverANewerWrite() {
+        GameStateCache c = new GameStateCache(10, Duration.ofMinutes(1), System::nanoTime);
+        long generation = c.generation(1);
+        GameStateSnapshot loaded = state(1); // read from the database before the write below committed
+        c.put(new GameStateSnapshot(1, 2, 10000, 700.0, 1500.0, 1)); // committed write-through
+
+        assertFalse(c.putIfUnchanged(loaded, generation));
+        assertEquals(2, c.get(1).orElseThrow().getTurnsLeft());
+
+        generation = c.generation(2);
+        c.invalidate(2);
+        assertFalse(c.putIfUnchanged(state(2), generation));
+        assertTrue(c.get(2).isEmpty());
+        assertEquals(2L, c.stats().get("stalePutsSkipped"));
+
+        generation = c.generation(3);
+        assertTrue(c.putIfUnchanged(state(3), generation));
+        assertTrue(c.get(3).isPresent());
+    }
+
+    @Test
+    void testForgottenGenerationsStillSkipStalePuts() {
+        GameStateCache small = new GameStateCache(2, Duration.ofMinutes(1), System::nanoTime);
+        long generation = small.generation(1);
+        small.invalidate(1);
+        small.invalidate(2);
+        small.invalidate(3); // user 1's generation is no longer tracked
+
+        assertFalse(small.putIfUnchanged(state(1), generation));
+        assertTrue(small.get(1).isEmpty());
+    }
+
+    @Test
+    void testCommittedSaveIsWrittenThrough() {
+        // Creating the resource in setUp already cached it
+        assertEquals(10, cache.get(user.getId()).orElseThrow().getTurnsLeft());
+
+        txTemplate.executeWithoutResult(status -> {
+            Resource res = resourceRepo.findByUserId(user.getId());
+            res.setMoney(250.0);
+            resourceRepo.save(res);
+        });
+
+        assertEquals(250.0, cache.get(user.getId()).orElseThrow().getMoney(), 0.001);
+    }
+
+    @Test
+    void testRolledBackSaveNeverReachesCache() {
+        txTemplate.executeWithoutResult(status -> {
+            Resource res = resourceRepo.findByUserId(user.getId());
+            res.setMoney(999.0);
+            resourceRepo.save(res);
+            status.setRollbackOnly();
+        });
+
+        assertEquals(100.0, cache.get(user.getId()).orElseThrow().getMoney(), 0.001);
+    }
+
+    @Test
+    void testTurnReservationUpdatesCachedState() {
+        txTemplate.executeWithoutResult(status -> assertTrue(gameService.reserveTurns(user.getId(), 3)));
+
+        assertEquals(7, cache.get(user.getId()).orElseThrow().getTurnsLeft());
+        assertEquals(7, gameService.getGameStateSnapshot(user.getId()).getTurnsLeft());
+    }
+
+    @Test
+    void testMissLoadsFromDatabaseAndDeleteInvalidates() {
+        cache.invalidate(user.getId());
+
+        GameStateSnapshot loaded = gameService.getGameStateSnapshot(user.getId());
+        assertEquals(10, loaded.getTurnsLeft());
+        assertTrue(cache.get(user.getId()).isPresent());
+
+        resourceRepo.delete(resourceRepo.findByUserId(user.getId()));
+        assertTrue(cache.get(user.getId()).isEmpty());
+    }
+
+    private static GameStateSnapshot state(int userId) {
+        return new GameStateSnapshot(userId, 5, 10000, 700.0, 1500.0, 1);
+    }
+}
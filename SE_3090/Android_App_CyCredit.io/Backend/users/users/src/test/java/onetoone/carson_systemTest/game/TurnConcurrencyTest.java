@@ -0,0 +1,144 @@
+package onetoone.carson_systemTest.game;
+
+import onetoone.Resource.Resource;
+import onetoone.Resource.ResourceRepository;
+import onetoone.Users.User;
+import onetoone.Users.UserRepository;
+import onetoone.game.GameService;
+import onetoone.game.GameStateCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Turn consumption and cash spending under contention: 64 callers race for the same user's
+ * turns or money against an in-memory H2 database, each in its own committed transaction.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TurnConcurrencyTest {
+
+    private static final int CALLERS = 64;
+
+    @Autowired
+    private ResourceRepository resourceRepo;
+    @Autowired
+    private UserRepository userRepo;
+    @Autowired
+    private PlatformTransactionManager txManager;
+
+    private GameService gameService;
+    private TransactionTemplate txTemplate;
+    private User user;
+    private Resource resource;
+
+    @BeforeEach
+    void setUp() {
+        // consumeTurn/reserveTurns only touch the resource repository
+        gameService = new GameService(resourceRepo, userRepo, null, null, null, null,
+                new GameStateCache(100, Duration.ofMinutes(1), System::nanoTime));
+        txTemplate = new TransactionTemplate(txManager);
+        user = userRepo.save(new User("Racer", "racer@test.com", "pw"));
+        resource = new Resource(40, 100.0, 700.0);
+        resource.setUser(user);
+        resource = resourceRepo.save(resource);
+    }
+
+    @AfterEach
+    void tearDown() {
+        resourceRepo.delete(resource);
+        userRepo.delete(user);
+    }
+
+    @Test
+    void testConcurrentConsumeNeverOversubscribes() throws Exception {
+        int taken = race(() -> gameService.consumeTurn(user.getId()));
+
+        assertEquals(40, taken);
+        assertEquals(0, resourceRepo.findByUserId(user.getId()).getTurnsLeft());
+    }
+
+    @Test
+    void testConcurrentReservationsAreAllOrNothing() throws Exception {
+        // 40 turns, reservations of 3: 13 succeed and 1 turn is left over
+        int taken = race(() -> gameService.reserveTurns(user.getId(), 3));
+
+        assertEquals(13, taken);
+        assertEquals(1, resourceRepo.findByUserId(user.getId()).getTurnsLeft());
+    }
+
+    @Test
+    void testConcurrentSpendsNeverOverdrawAndKeepTurns() throws Exception {
+        // $100 in spends of $7.50: 13 succeed and $2.50 is left, which can still be spent exactly
+        int spent = race(() -> gameService.spendMoney(user.getId(), 7.50));
+
+        assertEquals(13, spent);
+        Resource after = resourceRepo.findByUserId(user.getId());
+        assertEquals(2.50, after.getMoney(), 0.001);
+        assertEquals(40, after.getTurnsLeft());
+        assertEquals(Boolean.TRUE, txTemplate.execute(status -> gameService.spendMoney(user.getId(), 2.50)));
+        assertEquals(Boolean.FALSE, txTemplate.execute(status -> gameService.spendMoney(user.getId(), 0.01)));
+    }
+
+    @Test
+    void testFailedActionHandsReservedTurnsBack() {
+        assertThrows(IllegalStateException.class, () -> txTemplate.executeWithoutResult(status -> {
+            assertTrue(gameService.reserveTurns(user.getId(), 5));
+            throw new IllegalStateException("step 2 failed");
+        }));
+
+        assertEquals(40, resourceRepo.findByUserId(user.getId()).getTurnsLeft());
+    }
+
+    /**
+     * Release all callers at once and count how many got their turns.
+     */
+    private int race(Callable<Boolean> attempt) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(CALLERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    // Same transaction boundary the Spring proxy gives the controllers
+                    return txTemplate.execute(status -> {
+                        try {
+                            return attempt.call();
+                        } catch (Exception e) {
+                            throw new IllegalStateException(e);
+                        }
+                    });
+                }));
+            }
+            start.countDown();
+            int taken = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get(30, TimeUnit.SECONDS)) {
+                    taken++;
+                }
+            }
+            return taken;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
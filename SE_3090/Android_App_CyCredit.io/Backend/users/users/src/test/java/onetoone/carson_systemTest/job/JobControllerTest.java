@@ -4,9 +4,9 @@ import onetoone.Resource.Resource;
 import onetoone.Resource.ResourceRepository;
 import onetoone.Users.User;
 import onetoone.Users.UserRepository;
-import onetoone.achievements.AchievementsController;
 import onetoone.billing.BillingService;
 import onetoone.config.GameConfig;
+import onetoone.events.DomainEventBus;
 import onetoone.game.GameService;
 import onetoone.job.JobController;
 import onetoone.job.JobRunRepository;
@@ -39,7 +39,7 @@ class JobControllerTest {
     @Mock
     private GameService gameService;
     @Mock
-    private AchievementsController achievementsController;
+    private DomainEventBus eventBus;
     @Mock
     private GameConfig config;
 
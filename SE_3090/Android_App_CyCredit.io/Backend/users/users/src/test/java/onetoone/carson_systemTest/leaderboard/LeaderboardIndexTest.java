@@ -0,0 +1,152 @@
+package onetoone.carson_systemTest.leaderboard;
+
+import onetoone.leaderboard.LeaderboardIndex;
+import onetoone.leaderboard.LeaderboardScoreRepository;
+import onetoone.leaderboard.RankedSkipList;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Ranking operations of the in-memory leaderboard, checked against a plain sorted list.
+ */
+@ExtendWith(MockitoExtension.class)
+class LeaderboardIndexTest {
+
+    private static final Instant T0 = Instant.parse("2025-01-01T00:00:00Z");
+
+    @Mock
+    private LeaderboardScoreRepository repository;
+
+    private LeaderboardIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new LeaderboardIndex(repository);
+    }
+
+    @Test
+    void testSkipListMatchesSortedListUnderRandomChurn() {
+        Random random = new Random(42);
+        RankedSkipList<Integer> list = new RankedSkipList<>(Comparator.naturalOrder());
+        List<Integer> expected = new ArrayList<>();
+
+        for (int step = 0; step < 5000; step++) {
+            int value = random.nextInt(2000);
+            int at = Collections.binarySearch(expected, value);
+            if (at >= 0) {
+                assertTrue(list.remove(value));
+                expected.remove(at);
+            } else {
+                list.add(value);
+                expected.add(-at - 1, value);
+            }
+            if (step % 250 == 0) {
+                assertMatches(expected, list);
+            }
+        }
+        assertMatches(expected, list);
+        assertFalse(list.remove(-1));
+        assertEquals(0, list.rankOf(-1));
+        assertNull(list.get(0));
+        assertNull(list.get(expected.size() + 1));
+    }
+
+    @Test
+    void testTopOrdersByScoreThenEarliestUpdate() {
+        index.set("a", "A", 50, T0.plusSeconds(2));
+        index.set("b", "B", 70, T0.plusSeconds(3));
+        index.set("c", "C", 50, T0.plusSeconds(1)); // ties with a, but got there first
+
+        List<LeaderboardIndex.Ranked> top = index.top(10);
+
+        assertEquals(List.of("b", "c", "a"), top.stream().map(r -> r.standing().userId()).toList());
+        assertEquals(List.of(1, 2, 3), top.stream().map(LeaderboardIndex.Ranked::rank).toList());
+        assertEquals(2, index.top(2).size());
+    }
+
+    @Test
+    void testAddMovesPlayerAndFloorsAtZero() {
+        for (int i = 1; i <= 10; i++) {
+            index.set("p" + i, "P" + i, i * 10, T0);
+        }
+
+        index.add("p1", "P1", 95, T0.plusSeconds(1)); // 10 -> 105, now first
+        assertEquals(1, index.rank("p1").orElseThrow().rank());
+        assertEquals(105, index.rank("p1").orElseThrow().standing().score());
+        assertEquals(2, index.rank("p10").orElseThrow().rank());
+
+        index.add("p1", "P1", -500, T0.plusSeconds(2));
+        assertEquals(0, index.rank("p1").orElseThrow().standing().score());
+        assertEquals(10, index.rank("p1").orElseThrow().rank());
+        assertEquals(10, index.size());
+
+        index.add("new", "New", 25, T0.plusSeconds(3));
+        assertEquals(9, index.rank("new").orElseThrow().rank()); // above p2 (20) and p1 (0)
+        assertTrue(index.rank("nobody").isEmpty());
+    }
+
+    @Test
+    void testAroundClipsAtBothEnds() {
+        for (int i = 1; i <= 10; i++) {
+            index.set("p" + i, "P" + i, i * 10, T0); // p10 is rank 1, p1 is rank 10
+        }
+
+        List<LeaderboardIndex.Ranked> middle = index.around("p5", 2, 2);
+        assertEquals(List.of(4, 5, 6, 7, 8), middle.stream().map(LeaderboardIndex.Ranked::rank).toList());
+        assertEquals("p5", middle.get(2).standing().userId());
+
+        assertEquals(List.of("p10", "p9", "p8"),
+                index.around("p10", 5, 2).stream().map(r -> r.standing().userId()).toList());
+        assertEquals(List.of("p2", "p1"),
+                index.around("p1", 1, 5).stream().map(r -> r.standing().userId()).toList());
+        assertTrue(index.around("nobody", 1, 1).isEmpty());
+    }
+
+    @Test
+    void testRankStaysConsistentWithSortedOrderAfterManyUpdates() {
+        Random random = new Random(7);
+        for (int step = 0; step < 3000; step++) {
+            String user = "u" + random.nextInt(300);
+            if (random.nextBoolean()) {
+                index.add(user, user, random.nextInt(200) - 80, T0.plusMillis(step));
+            } else {
+                index.set(user, user, random.nextInt(1000), T0.plusMillis(step));
+            }
+        }
+
+        List<LeaderboardIndex.Ranked> all = index.top(Integer.MAX_VALUE);
+        assertEquals(index.size(), all.size());
+        for (int i = 0; i < all.size(); i++) {
+            LeaderboardIndex.Ranked r = all.get(i);
+            assertEquals(i + 1, r.rank());
+            assertEquals(r, index.rank(r.standing().userId()).orElseThrow());
+            if (i > 0) {
+                LeaderboardIndex.Standing prev = all.get(i - 1).standing();
+                assertTrue(prev.score() > r.standing().score()
+                        || (prev.score() == r.standing().score()
+                        && !prev.updatedAt().isAfter(r.standing().updatedAt())));
+            }
+        }
+    }
+
+    private static void assertMatches(List<Integer> expected, RankedSkipList<Integer> list) {
+        assertEquals(expected.size(), list.size());
+        assertEquals(expected, list.range(1, Integer.MAX_VALUE));
+        for (int i = 0; i < expected.size(); i += 7) {
+            assertEquals(expected.get(i), list.get(i + 1));
+            assertEquals(i + 1, list.rankOf(expected.get(i)));
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package onetoone.carson_systemTest.leaderboard;
+
+import onetoone.leaderboard.LeaderboardIndex;
+import onetoone.leaderboard.LeaderboardScores;
+import onetoone.leaderboard.LeaderboardWebSocketHandler;
+import onetoone.leaderboard.window.WindowedLeaderboard;
+import onetoone.leaderboard.window.WindowedLeaderboardBroadcaster;
+import onetoone.websocket.bus.LocalMessageBus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * A score change is answered once the index has it, whatever happens in the broadcast steps after.
+ */
+@ExtendWith(MockitoExtension.class)
+class LeaderboardScoresTest {
+
+    @Mock
+    private LeaderboardIndex index;
+    @Mock
+    private WindowedLeaderboard windows;
+    @Mock
+    private LeaderboardWebSocketHandler wsHandler;
+    @Mock
+    private WindowedLeaderboardBroadcaster windowBroadcaster;
+
+    private LeaderboardScores scores;
+
+    @BeforeEach
+    void setUp() {
+        scores = new LeaderboardScores(index, windows, wsHandler, windowBroadcaster, new LocalMessageBus());
+    }
+
+    @Test
+    void testBroadcastFailureDoesNotFailOrDelayTheAppliedChange() {
+        LeaderboardIndex.Change change = new LeaderboardIndex.Change(
+                new LeaderboardIndex.Standing("u1", "One", 15, Instant.now()), 5);
+        when(index.add(eq("u1"), eq("One"), eq(5), any())).thenReturn(change);
+        doThrow(new IllegalStateException("socket gone")).when(wsHandler).broadcastLeaderboard();
+
+        LeaderboardIndex.Change result = assertTimeoutPreemptively(Duration.ofSeconds(1),
+                () -> scores.add("u1", "One", 5));
+
+        assertSame(change, result);
+        // Applied once: the caller was not left to time out and publish the change again
+        verify(index, times(1)).add(any(), any(), anyInt(), any());
+    }
+
+    @Test
+    void testIndexFailureFailsTheCallerAtOnce() {
+        when(index.set(eq("u1"), eq("One"), eq(40), any())).thenThrow(new IllegalArgumentException("bad score"));
+
+        IllegalStateException e = assertTimeoutPreemptively(Duration.ofSeconds(1),
+                () -> assertThrows(IllegalStateException.class, () -> scores.set("u1", "One", 40)));
+
+        assertInstanceOf(IllegalArgumentException.class, e.getCause().getCause());
+        verifyNoInteractions(windows, wsHandler, windowBroadcaster);
+    }
+}
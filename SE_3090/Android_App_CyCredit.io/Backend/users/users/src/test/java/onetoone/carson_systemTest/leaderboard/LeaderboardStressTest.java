@@ -0,0 +1,159 @@
+package onetoone.carson_systemTest.leaderboard;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import onetoone.config.GameConfig;
+import onetoone.guild.GuildMembershipRepository;
+import onetoone.leaderboard.LeaderboardController;
+import onetoone.leaderboard.LeaderboardIndex;
+import onetoone.leaderboard.LeaderboardScore;
+import onetoone.leaderboard.LeaderboardScoreRepository;
+import onetoone.leaderboard.LeaderboardScores;
+import onetoone.leaderboard.LeaderboardWebSocketHandler;
+import onetoone.leaderboard.LeaderboardWriteBehind;
+import onetoone.leaderboard.window.LeaderboardWindowScore;
+import onetoone.leaderboard.window.LeaderboardWindowScoreRepository;
+import onetoone.leaderboard.window.WindowedLeaderboard;
+import onetoone.leaderboard.window.WindowedLeaderboardBroadcaster;
+import onetoone.leaderboard.window.WindowedLeaderboardMaintenance;
+import onetoone.websocket.OutboundSessions;
+import onetoone.websocket.bus.LocalMessageBus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static onetoone.leaderboard.window.LeaderboardWindow.DAILY;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Concurrent score updates through LeaderboardController while the write-behind flushes, on H2:
+ * no delta is lost and every player ends up with exactly one row holding the exact total.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class LeaderboardStressTest {
+
+    private static final int THREADS = 8;
+    private static final int UPDATES_PER_THREAD = 2500;
+    private static final int PLAYERS = 50;
+
+    @Autowired
+    private LeaderboardScoreRepository repository;
+    @Autowired
+    private LeaderboardWindowScoreRepository windowRepository;
+    @Autowired
+    private GuildMembershipRepository memberships;
+    @Autowired
+    private PlatformTransactionManager txManager;
+
+    @AfterEach
+    void tearDown() {
+        repository.deleteAll();
+        windowRepository.deleteAll();
+    }
+
+    @Test
+    void testConcurrentFirstScoresAndDeltasAreExact() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        OutboundSessions outbound = new OutboundSessions(Runnable::run, 64, 1 << 20, Duration.ofSeconds(5));
+        LeaderboardIndex index = new LeaderboardIndex(repository);
+        index.load();
+        WindowedLeaderboard windows = new WindowedLeaderboard(windowRepository, memberships, ZoneOffset.UTC, Clock.systemUTC());
+        windows.load();
+        GameConfig config = new GameConfig();
+        LocalMessageBus bus = new LocalMessageBus();
+        WindowedLeaderboardBroadcaster windowBroadcaster = new WindowedLeaderboardBroadcaster(windows, mapper, outbound,
+                bus, config);
+        LeaderboardController controller = new LeaderboardController(index, new LeaderboardScores(index, windows,
+                new LeaderboardWebSocketHandler(index, mapper, outbound, bus, config), windowBroadcaster, bus));
+        LeaderboardWriteBehind writeBehind = new LeaderboardWriteBehind(index, repository, txManager, config);
+        WindowedLeaderboardMaintenance maintenance = new WindowedLeaderboardMaintenance(windows, windowRepository,
+                windowBroadcaster, txManager, config);
+
+        // Every player is new, so the first updates race to create them
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS + 1);
+        CountDownLatch go = new CountDownLatch(1);
+        AtomicBoolean done = new AtomicBoolean();
+        Future<?> flusher = pool.submit(() -> {
+            while (!done.get()) {
+                writeBehind.flush();
+                maintenance.flush();
+                Thread.sleep(5);
+            }
+            return null;
+        });
+        List<Future<long[]>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            workers.add(pool.submit(() -> {
+                long[] sent = new long[PLAYERS + 1];
+                go.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < UPDATES_PER_THREAD; i++) {
+                    int player = 1 + random.nextInt(PLAYERS);
+                    int delta = 1 + random.nextInt(10);
+                    if (i % 2 == 0) {
+                        LeaderboardController.UpdateRequest req = new LeaderboardController.UpdateRequest();
+                        req.userId = String.valueOf(player);
+                        req.displayName = "Player " + player;
+                        req.delta = delta;
+                        controller.addScore(req);
+                    } else {
+                        controller.addScoreForUser(String.valueOf(player), "Player " + player, delta);
+                    }
+                    sent[player] += delta;
+                }
+                return sent;
+            }));
+        }
+
+        long started = System.nanoTime();
+        go.countDown();
+        long[] expected = new long[PLAYERS + 1];
+        for (Future<long[]> worker : workers) {
+            long[] sent = worker.get(60, TimeUnit.SECONDS);
+            for (int p = 1; p <= PLAYERS; p++) {
+                expected[p] += sent[p];
+            }
+        }
+        double perSecond = THREADS * UPDATES_PER_THREAD / ((System.nanoTime() - started) / 1e9);
+        done.set(true);
+        flusher.get(60, TimeUnit.SECONDS);
+        pool.shutdown();
+        writeBehind.flush();
+        maintenance.flush();
+
+        assertTrue(perSecond >= 1000, "only " + (long) perSecond + " updates/s");
+        List<LeaderboardScore> rows = repository.findAll();
+        assertEquals(PLAYERS, rows.size());
+        Map<String, Long> daily = new HashMap<>(); // summed over days, in case the run crosses midnight
+        for (LeaderboardWindowScore row : windowRepository.findAll()) {
+            if (row.getWindowType() == DAILY) {
+                daily.merge(row.getUserId(), (long) row.getScore(), Long::sum);
+            }
+        }
+        for (LeaderboardScore row : rows) {
+            int player = Integer.parseInt(row.getUserId());
+            assertEquals(expected[player], row.getScore(), "all-time score of player " + player);
+            assertEquals(expected[player], daily.get(row.getUserId()), "daily score of player " + player);
+            assertEquals(expected[player], index.rank(row.getUserId()).orElseThrow().standing().score());
+        }
+    }
+}
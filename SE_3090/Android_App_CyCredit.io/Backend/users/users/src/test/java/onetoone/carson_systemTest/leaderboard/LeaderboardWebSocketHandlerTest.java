@@ -0,0 +1,156 @@
+package onetoone.carson_systemTest.leaderboard;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import onetoone.config.GameConfig;
+import onetoone.leaderboard.LeaderboardIndex;
+import onetoone.leaderboard.LeaderboardScoreRepository;
+import onetoone.leaderboard.LeaderboardWebSocketHandler;
+import onetoone.websocket.OutboundSessions;
+import onetoone.websocket.bus.LocalMessageBus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Coalesced, versioned leaderboard pushes: snapshot on connect or resync, one delta per tick.
+ */
+@ExtendWith(MockitoExtension.class)
+class LeaderboardWebSocketHandlerTest {
+
+    private static final Instant T0 = Instant.parse("2025-01-01T00:00:00Z");
+
+    @Mock
+    private LeaderboardScoreRepository repository;
+    @Mock
+    private WebSocketSession alice;
+    @Mock
+    private WebSocketSession bob;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private LeaderboardIndex index;
+    private LeaderboardWebSocketHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        index = new LeaderboardIndex(repository);
+        for (int i = 1; i <= 25; i++) {
+            index.set("p" + i, "P" + i, i * 10, T0); // p25 leads, p6 is 20th
+        }
+        // Inline sender so queued messages are on the mock session when the call returns
+        OutboundSessions outbound = new OutboundSessions(Runnable::run, 64, 1 << 20, Duration.ofSeconds(5));
+        handler = new LeaderboardWebSocketHandler(index, mapper, outbound, new LocalMessageBus(), new GameConfig());
+        lenient().when(alice.getId()).thenReturn("alice");
+        lenient().when(bob.getId()).thenReturn("bob");
+        lenient().when(alice.isOpen()).thenReturn(true);
+        lenient().when(bob.isOpen()).thenReturn(true);
+    }
+
+    @Test
+    void testConnectSendsVersionedSnapshotOfTop20() throws Exception {
+        handler.afterConnectionEstablished(alice);
+
+        JsonNode snapshot = only(sent(alice));
+        assertEquals("snapshot", snapshot.get("type").asText());
+        assertEquals(0, snapshot.get("version").asLong());
+        assertEquals(20, snapshot.get("rows").size());
+        assertEquals("p25", snapshot.get("rows").get(0).get("userId").asText());
+    }
+
+    @Test
+    void testBurstOfUpdatesBecomesOneDeltaSerializedOnce() throws Exception {
+        handler.afterConnectionEstablished(alice);
+        handler.afterConnectionEstablished(bob);
+        clearInvocations(alice, bob);
+
+        for (int i = 0; i < 50; i++) {
+            index.add("p7", "P7", 1, T0.plusSeconds(i)); // 70 -> 120: passes p8..p11, ties p12 who got there first
+            handler.broadcastLeaderboard();
+        }
+        handler.tick();
+
+        ArgumentCaptor<TextMessage> toAlice = ArgumentCaptor.forClass(TextMessage.class);
+        ArgumentCaptor<TextMessage> toBob = ArgumentCaptor.forClass(TextMessage.class);
+        verify(alice, times(1)).sendMessage(toAlice.capture());
+        verify(bob, times(1)).sendMessage(toBob.capture());
+        assertSame(toAlice.getValue(), toBob.getValue());
+
+        JsonNode delta = mapper.readTree(toAlice.getValue().getPayload());
+        assertEquals("delta", delta.get("type").asText());
+        assertEquals(1, delta.get("version").asLong());
+        assertEquals(0, delta.get("baseVersion").asLong());
+        // p7 moved from 19th to 15th; p11..p8 each slipped one place. Nobody else changed.
+        List<String> moved = new ArrayList<>();
+        delta.get("rows").forEach(row -> moved.add(row.get("userId").asText()));
+        assertEquals(List.of("p7", "p11", "p10", "p9", "p8"), moved);
+        assertEquals(0, delta.get("removed").size());
+    }
+
+    @Test
+    void testDropOutOfTopIsReportedAsRemovedAndVersionsIncrease() throws Exception {
+        handler.afterConnectionEstablished(alice);
+        clearInvocations(alice);
+
+        index.set("p6", "P6", 0, T0.plusSeconds(1)); // 20th -> out, p5 comes in
+        handler.broadcastLeaderboard();
+        handler.tick();
+        handler.tick(); // nothing changed since: no message
+
+        index.add("p1", "P1", 1000, T0.plusSeconds(2));
+        handler.broadcastLeaderboard();
+        handler.tick();
+
+        List<JsonNode> deltas = sent(alice);
+        assertEquals(2, deltas.size());
+        assertEquals("p6", deltas.get(0).get("removed").get(0).asText());
+        assertEquals("p5", deltas.get(0).get("rows").get(0).get("userId").asText());
+        assertEquals(1, deltas.get(0).get("version").asLong());
+        assertEquals(2, deltas.get(1).get("version").asLong());
+        assertEquals(1, deltas.get(1).get("baseVersion").asLong());
+    }
+
+    @Test
+    void testResyncSendsCurrentSnapshot() throws Exception {
+        handler.afterConnectionEstablished(alice);
+        index.add("p1", "P1", 1000, T0.plusSeconds(1));
+        handler.broadcastLeaderboard();
+        handler.tick();
+        clearInvocations(alice);
+
+        handler.handleMessage(alice, new TextMessage("{\"type\":\"resync\"}"));
+        handler.handleMessage(alice, new TextMessage("not json"));
+
+        JsonNode snapshot = only(sent(alice));
+        assertEquals("snapshot", snapshot.get("type").asText());
+        assertEquals(1, snapshot.get("version").asLong());
+        assertEquals("p1", snapshot.get("rows").get(0).get("userId").asText());
+    }
+
+    private List<JsonNode> sent(WebSocketSession session) throws Exception {
+        ArgumentCaptor<TextMessage> captor = ArgumentCaptor.forClass(TextMessage.class);
+        verify(session, atLeast(0)).sendMessage(captor.capture());
+        List<JsonNode> out = new ArrayList<>();
+        for (TextMessage msg : captor.getAllValues()) {
+            out.add(mapper.readTree(msg.getPayload()));
+        }
+        return out;
+    }
+
+    private static JsonNode only(List<JsonNode> messages) {
+        assertEquals(1, messages.size());
+        return messages.get(0);
+    }
+}
@@ -0,0 +1,91 @@
+package onetoone.carson_systemTest.leaderboard;
+
+import onetoone.leaderboard.LeaderboardIndex;
+import onetoone.leaderboard.LeaderboardScore;
+import onetoone.leaderboard.LeaderboardScoreRepository;
+import onetoone.leaderboard.LeaderboardWriteBehind;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Write-behind of the in-memory leaderboard to leaderboard_scores, and reloading it at startup, on H2.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class LeaderboardWriteBehindTest {
+
+    private static final Instant T0 = Instant.parse("2025-01-01T00:00:00Z");
+
+    @Autowired
+    private LeaderboardScoreRepository repository;
+    @Autowired
+    private PlatformTransactionManager txManager;
+
+    @AfterEach
+    void tearDown() {
+        repository.deleteAll();
+    }
+
+    @Test
+    void testFlushWritesOnlyTheLatestStandingPerPlayer() {
+        LeaderboardScore existing = new LeaderboardScore();
+        existing.setUserId("alice");
+        existing.setDisplayName("Alice");
+        existing.setScore(40);
+        existing.setUpdatedAt(T0);
+        repository.save(existing);
+
+        LeaderboardIndex index = loadedIndex();
+        LeaderboardWriteBehind writeBehind = new LeaderboardWriteBehind(index, repository, txManager, true);
+        assertEquals(1, index.rank("alice").orElseThrow().rank());
+
+        index.add("alice", "Alice", 10, T0.plusSeconds(1));
+        index.add("alice", "Alice B.", 5, T0.plusSeconds(2));
+        index.add("bob", "Bob", 70, T0.plusSeconds(3));
+        assertEquals(40, repository.findByUserId("alice").orElseThrow().getScore()); // not written yet
+
+        writeBehind.flush();
+
+        LeaderboardScore alice = repository.findByUserId("alice").orElseThrow();
+        assertEquals(55, alice.getScore());
+        assertEquals("Alice B.", alice.getDisplayName());
+        assertEquals(70, repository.findByUserId("bob").orElseThrow().getScore());
+        assertEquals(2, repository.count());
+
+        // Nothing pending any more: a second flush writes nothing
+        repository.deleteAll();
+        writeBehind.flush();
+        assertEquals(0, repository.count());
+    }
+
+    @Test
+    void testRestartRebuildsRanksFromTable() {
+        LeaderboardIndex before = loadedIndex();
+        LeaderboardWriteBehind writeBehind = new LeaderboardWriteBehind(before, repository, txManager, true);
+        for (int i = 1; i <= 30; i++) {
+            before.set("p" + i, "P" + i, i * 3, T0.plusSeconds(i));
+        }
+        writeBehind.flush();
+
+        LeaderboardIndex after = loadedIndex();
+
+        assertEquals(30, after.size());
+        assertEquals(before.top(30), after.top(30));
+        assertEquals(before.around("p15", 3, 3), after.around("p15", 3, 3));
+    }
+
+    private LeaderboardIndex loadedIndex() {
+        LeaderboardIndex index = new LeaderboardIndex(repository);
+        index.load();
+        return index;
+    }
+}
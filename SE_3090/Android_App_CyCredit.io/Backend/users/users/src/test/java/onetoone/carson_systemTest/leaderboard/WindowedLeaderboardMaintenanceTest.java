@@ -0,0 +1,125 @@
+package onetoone.carson_systemTest.leaderboard;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import onetoone.config.GameConfig;
+import onetoone.guild.GuildMembershipRepository;
+import onetoone.leaderboard.window.LeaderboardWindowScore;
+import onetoone.leaderboard.window.LeaderboardWindowScoreRepository;
+import onetoone.leaderboard.window.WindowedLeaderboard;
+import onetoone.leaderboard.window.WindowedLeaderboardBroadcaster;
+import onetoone.leaderboard.window.WindowedLeaderboardMaintenance;
+import onetoone.websocket.OutboundSessions;
+import onetoone.websocket.bus.LocalMessageBus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static onetoone.leaderboard.window.LeaderboardWindow.DAILY;
+import static onetoone.leaderboard.window.LeaderboardWindow.WEEKLY;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Write-behind of the windowed leaderboards to leaderboard_window_scores, reload, and compaction, on H2.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class WindowedLeaderboardMaintenanceTest {
+
+    private static final Instant WEDNESDAY = Instant.parse("2025-01-08T12:00:00Z");
+
+    @Autowired
+    private LeaderboardWindowScoreRepository repository;
+    @Autowired
+    private GuildMembershipRepository memberships;
+    @Autowired
+    private PlatformTransactionManager txManager;
+
+    @AfterEach
+    void tearDown() {
+        repository.deleteAll();
+    }
+
+    @Test
+    void testFlushWritesEachBucketAndRestartReloadsTheOpenOnes() {
+        WindowedLeaderboard board = loadedBoard(WEDNESDAY);
+        WindowedLeaderboardMaintenance maintenance = maintenance(board, 14, 8, 100);
+
+        board.add("1", "Ann", 10, WEDNESDAY);
+        board.add("1", "Ann B.", 15, WEDNESDAY.plusSeconds(1));
+        board.add("2", "Ben", 40, WEDNESDAY.plusSeconds(2));
+        maintenance.flush();
+
+        assertEquals(4, repository.count()); // two users, daily and weekly
+        List<LeaderboardWindowScore> weekly = repository.findByWindowTypeAndBucketStart(WEEKLY, LocalDate.parse("2025-01-06"));
+        assertEquals(2, weekly.size());
+        LeaderboardWindowScore ann = weekly.stream().filter(r -> r.getUserId().equals("1")).findFirst().orElseThrow();
+        assertEquals(25, ann.getScore());
+        assertEquals("Ann B.", ann.getDisplayName());
+
+        // Thursday: yesterday's standings stay in the table, but the reloaded daily board starts empty
+        WindowedLeaderboard restarted = loadedBoard(WEDNESDAY.plus(Duration.ofDays(1)));
+        assertEquals(0, restarted.size(DAILY));
+        assertEquals(board.top(WEEKLY, 10), restarted.top(WEEKLY, 10));
+    }
+
+    @Test
+    void testRolloverCompactsClosedBucketsAndDropsExpiredOnes() {
+        Instant start = WEDNESDAY.minus(Duration.ofDays(3)); // Sunday
+        WindowedLeaderboard board = loadedBoard(start);
+        WindowedLeaderboardMaintenance maintenance = maintenance(board, 2, 8, 3);
+
+        // Four days of 5 players each: Sunday .. Wednesday
+        for (int day = 0; day < 4; day++) {
+            Instant at = start.plus(Duration.ofDays(day));
+            for (int p = 1; p <= 5; p++) {
+                board.add("p" + p, "P" + p, p * 10 + day, at.plusSeconds(p));
+            }
+            maintenance.rollover(at); // a daily rollover on each day after the first
+        }
+        maintenance.flush();
+
+        // Wednesday (open) is untouched, Tuesday and Monday keep their top 3, Sunday is past the 2-day retention
+        assertEquals(5, repository.countByWindowTypeAndBucketStart(DAILY, LocalDate.parse("2025-01-08")));
+        assertEquals(3, repository.countByWindowTypeAndBucketStart(DAILY, LocalDate.parse("2025-01-07")));
+        assertEquals(3, repository.countByWindowTypeAndBucketStart(DAILY, LocalDate.parse("2025-01-06")));
+        assertEquals(0, repository.countByWindowTypeAndBucketStart(DAILY, LocalDate.parse("2025-01-05")));
+        List<String> mondayTop = repository.findByWindowTypeAndBucketStartOrderByScoreDescUpdatedAtAscUserIdAsc(
+                DAILY, LocalDate.parse("2025-01-06"), Pageable.unpaged()).stream()
+                .map(LeaderboardWindowScore::getUserId).toList();
+        assertEquals(List.of("p5", "p4", "p3"), mondayTop);
+
+        // The week that ended Sunday is closed too: 5 players trimmed to 3
+        assertEquals(3, repository.countByWindowTypeAndBucketStart(WEEKLY, LocalDate.parse("2024-12-30")));
+        assertEquals(0, maintenance.compact()); // nothing left to do
+    }
+
+    private WindowedLeaderboard loadedBoard(Instant now) {
+        WindowedLeaderboard board = new WindowedLeaderboard(repository, memberships, ZoneOffset.UTC,
+                Clock.fixed(now, ZoneOffset.UTC));
+        board.load();
+        return board;
+    }
+
+    private WindowedLeaderboardMaintenance maintenance(WindowedLeaderboard board, int dailyRetention,
+                                                       int weeklyRetention, int archiveTop) {
+        GameConfig config = new GameConfig();
+        config.setLeaderboardDailyRetention(dailyRetention);
+        config.setLeaderboardWeeklyRetention(weeklyRetention);
+        config.setLeaderboardArchiveTop(archiveTop);
+        WindowedLeaderboardBroadcaster broadcaster = new WindowedLeaderboardBroadcaster(board, new ObjectMapper(),
+                new OutboundSessions(Runnable::run, 64, 1 << 20, Duration.ofSeconds(5)), new LocalMessageBus(), config);
+        return new WindowedLeaderboardMaintenance(board, repository, broadcaster, txManager, config);
+    }
+}
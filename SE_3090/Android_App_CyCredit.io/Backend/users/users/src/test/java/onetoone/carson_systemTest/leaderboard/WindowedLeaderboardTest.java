@@ -0,0 +1,179 @@
+package onetoone.carson_systemTest.leaderboard;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import onetoone.config.GameConfig;
+import onetoone.guild.GuildMembershipRepository;
+import onetoone.leaderboard.LeaderboardIndex;
+import onetoone.leaderboard.window.LeaderboardWindow;
+import onetoone.leaderboard.window.LeaderboardWindowScoreRepository;
+import onetoone.leaderboard.window.WindowedLeaderboard;
+import onetoone.leaderboard.window.WindowedLeaderboardBroadcaster;
+import onetoone.websocket.OutboundSessions;
+import onetoone.websocket.bus.LocalMessageBus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static onetoone.leaderboard.window.LeaderboardWindow.DAILY;
+import static onetoone.leaderboard.window.LeaderboardWindow.WEEKLY;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Daily/weekly buckets, guild boards within them, rollover, and the per-window WebSocket topic.
+ */
+@ExtendWith(MockitoExtension.class)
+class WindowedLeaderboardTest {
+
+    // A Sunday: the weekly bucket started Monday 2024-12-30
+    private static final Instant SUNDAY_NOON = Instant.parse("2025-01-05T12:00:00Z");
+    private static final Instant MONDAY_1AM = Instant.parse("2025-01-06T01:00:00Z");
+    private static final Instant TUESDAY_1AM = Instant.parse("2025-01-07T01:00:00Z");
+
+    @Mock
+    private LeaderboardWindowScoreRepository repository;
+    @Mock
+    private GuildMembershipRepository memberships;
+
+    private WindowedLeaderboard board;
+
+    @BeforeEach
+    void setUp() {
+        // users 1 and 2 are in guild 10, user 3 in guild 20
+        lenient().when(memberships.findUserGuildIds())
+                .thenReturn(List.of(new Object[]{1, 10}, new Object[]{2, 10}, new Object[]{3, 20}));
+        board = new WindowedLeaderboard(repository, memberships, ZoneOffset.UTC, Clock.fixed(SUNDAY_NOON, ZoneOffset.UTC));
+        board.load();
+    }
+
+    @Test
+    void testScoresLandInEveryWindowAndRankPerGuild() {
+        board.add("1", "Ann", 30, SUNDAY_NOON);
+        board.add("2", "Ben", 50, SUNDAY_NOON.plusSeconds(1));
+        board.add("3", "Cat", 40, SUNDAY_NOON.plusSeconds(2));
+        board.add("4", "Dan", 10, SUNDAY_NOON.plusSeconds(3)); // in no guild
+
+        assertEquals(LocalDate.parse("2025-01-05"), board.bucketStart(DAILY));
+        assertEquals(LocalDate.parse("2024-12-30"), board.bucketStart(WEEKLY));
+        for (LeaderboardWindow window : LeaderboardWindow.values()) {
+            assertEquals(List.of("2", "3", "1", "4"), userIds(board.top(window, 10)));
+            assertEquals(3, board.rank(window, "1").orElseThrow().rank());
+        }
+
+        assertEquals(List.of("2", "1"), userIds(board.guildTop(DAILY, 10, 10)));
+        assertEquals(2, board.guildRank(WEEKLY, 10, "1").orElseThrow().rank());
+        assertEquals(1, board.guildRank(DAILY, 20, "3").orElseThrow().rank());
+        assertTrue(board.guildRank(DAILY, 20, "1").isEmpty());
+        assertEquals(List.of(), board.guildTop(DAILY, 99, 10));
+    }
+
+    @Test
+    void testNegativeDeltasFloorAtZeroAndNeverCreatePlayers() {
+        board.add("1", "Ann", 20, SUNDAY_NOON);
+        board.add("1", "Ann", -50, SUNDAY_NOON.plusSeconds(1));
+        board.add("2", "Ben", -5, SUNDAY_NOON.plusSeconds(2));
+        board.add("3", "Cat", 0, SUNDAY_NOON.plusSeconds(3));
+
+        assertEquals(0, board.rank(DAILY, "1").orElseThrow().standing().score());
+        assertTrue(board.rank(DAILY, "2").isEmpty());
+        assertTrue(board.rank(DAILY, "3").isEmpty());
+        assertEquals(1, board.size(WEEKLY));
+    }
+
+    @Test
+    void testJoiningAGuildBringsPointsAlreadyEarned() {
+        board.add("4", "Dan", 70, SUNDAY_NOON);
+        assertTrue(board.guildRank(DAILY, 10, "4").isEmpty());
+
+        board.joined("4", 10);
+
+        assertEquals(List.of("4"), userIds(board.guildTop(DAILY, 10, 10)));
+        board.add("1", "Ann", 80, SUNDAY_NOON.plusSeconds(1));
+        assertEquals(List.of("1", "4"), userIds(board.guildTop(WEEKLY, 10, 10)));
+    }
+
+    @Test
+    void testLeavingAGuildTakesTheMemberOffItsBoards() {
+        board.add("1", "Ann", 30, SUNDAY_NOON);
+        board.add("2", "Ben", 50, SUNDAY_NOON.plusSeconds(1));
+
+        board.left("2", 10);
+
+        assertEquals(List.of("1"), userIds(board.guildTop(DAILY, 10, 10)));
+        assertEquals(1, board.guildSize(WEEKLY, 10));
+        board.add("2", "Ben", 5, SUNDAY_NOON.plusSeconds(2)); // later scores stay off the guild board
+        assertEquals(List.of("1"), userIds(board.guildTop(DAILY, 10, 10)));
+        assertEquals(List.of("2", "1"), userIds(board.top(DAILY, 10)));
+    }
+
+    @Test
+    void testBucketsRollOverOnScheduleOrOnALateScore() {
+        board.add("1", "Ann", 30, SUNDAY_NOON);
+
+        // Monday: a new day and a new week. The score stamped after midnight rolls both windows itself.
+        board.add("2", "Ben", 5, MONDAY_1AM);
+        assertEquals(LocalDate.parse("2025-01-06"), board.bucketStart(DAILY));
+        assertEquals(LocalDate.parse("2025-01-06"), board.bucketStart(WEEKLY));
+        assertEquals(List.of("2"), userIds(board.top(DAILY, 10)));
+        assertEquals(List.of("2"), userIds(board.top(WEEKLY, 10)));
+        assertTrue(board.guildRank(DAILY, 10, "1").isEmpty());
+
+        // Tuesday with nobody scoring: only the daily window rolls
+        assertEquals(List.of(DAILY), board.rollover(TUESDAY_1AM));
+        assertEquals(0, board.size(DAILY));
+        assertEquals(List.of("2"), userIds(board.top(WEEKLY, 10)));
+        assertEquals(List.of(), board.rollover(TUESDAY_1AM.plusSeconds(60)));
+    }
+
+    @Test
+    void testWindowTopicPushesScoresAndRolloverAsDeltas() throws Exception {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("s1");
+        when(session.isOpen()).thenReturn(true);
+        ObjectMapper mapper = new ObjectMapper();
+        WindowedLeaderboardBroadcaster broadcaster = new WindowedLeaderboardBroadcaster(board, mapper,
+                new OutboundSessions(Runnable::run, 64, 1 << 20, Duration.ofSeconds(5)), new LocalMessageBus(), new GameConfig());
+
+        broadcaster.handler(DAILY).afterConnectionEstablished(session);
+        board.add("1", "Ann", 30, SUNDAY_NOON);
+        broadcaster.changed();
+        broadcaster.tick();
+        board.rollover(MONDAY_1AM);
+        broadcaster.changed();
+        broadcaster.tick();
+
+        ArgumentCaptor<TextMessage> sent = ArgumentCaptor.forClass(TextMessage.class);
+        verify(session, times(3)).sendMessage(sent.capture());
+        List<JsonNode> messages = sent.getAllValues().stream().map(m -> read(mapper, m)).toList();
+        assertEquals("snapshot", messages.get(0).get("type").asText());
+        assertEquals(0, messages.get(0).get("rows").size());
+        assertEquals("1", messages.get(1).get("rows").get(0).get("userId").asText());
+        assertEquals("1", messages.get(2).get("removed").get(0).asText()); // the new day starts empty
+        assertEquals(2, messages.get(2).get("version").asLong());
+    }
+
+    private static List<String> userIds(List<LeaderboardIndex.Ranked> ranked) {
+        return ranked.stream().map(r -> r.standing().userId()).toList();
+    }
+
+    private static JsonNode read(ObjectMapper mapper, TextMessage message) {
+        try {
+            return mapper.readTree(message.getPayload());
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+}
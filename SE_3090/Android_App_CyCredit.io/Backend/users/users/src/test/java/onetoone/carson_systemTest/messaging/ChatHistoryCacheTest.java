@@ -0,0 +1,156 @@
+package onetoone.carson_systemTest.messaging;
+
+import onetoone.messaging.chat.ChatHistoryCache;
+import onetoone.messaging.chat.ChatMessage;
+import onetoone.messaging.chat.ChatMessageRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Per-room history rings: one lazy load, then memory (cursor pages too); unsaved sends included;
+ * idle and excess rooms evicted.
+ */
+@ExtendWith(MockitoExtension.class)
+class ChatHistoryCacheTest {
+
+    @Mock
+    private ChatMessageRepository repo;
+    @Mock
+    private Clock clock;
+
+    private ChatHistoryCache cache;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(clock.millis()).thenReturn(0L);
+        cache = new ChatHistoryCache(repo, 5, 1000, 3, clock);
+    }
+
+    @Test
+    void testRoomIsLoadedOnceThenServedFromMemoryWithNewSends() {
+        when(repo.recent("guild", "7", PageRequest.of(0, 5))).thenReturn(newestFirst(1, 8)); // 8 rows in the table
+
+        assertEquals(List.of(8, 7, 6), ids(cache.recent("guild", "7", 3)));
+        cache.add(message("guild", "7", 9));
+        cache.add(message("guild", "8", 10)); // another room
+        assertEquals(List.of(9, 8, 7, 6, 5), ids(cache.recent("guild", "7", 5)));
+        verify(repo, times(1)).recent(any(), any(), any());
+
+        // More than the ring holds goes to the database
+        cache.recent("guild", "7", 6);
+        verify(repo).recent("guild", "7", PageRequest.of(0, 6));
+        assertEquals(1L, cache.stats().get("hits"));
+        assertEquals(2L, cache.stats().get("misses"));
+    }
+
+    @Test
+    void testSendsNotYetSavedAreMergedWithTheLoadInIdOrder() {
+        // 12 and 11 were broadcast but are still queued for insertion; 11 reached the cache after 12
+        cache.add(message("dm", "1-2", 12));
+        cache.add(message("dm", "1-2", 11));
+        when(repo.recent("dm", "1-2", PageRequest.of(0, 5))).thenReturn(newestFirst(9, 10));
+
+        assertEquals(List.of(12, 11, 10, 9), ids(cache.recent("dm", "1-2", 5))); // the whole room
+        assertEquals(List.of(12, 11, 10, 9), ids(cache.recent("dm", "1-2", 4)));
+        verify(repo, times(1)).recent(any(), any(), any());
+    }
+
+    @Test
+    void testCursorPagesComeFromTheRingUntilTheCursorPassesIt() {
+        when(repo.recent("guild", "7", PageRequest.of(0, 5))).thenReturn(newestFirst(11, 20)); // ring: 16..20
+
+        assertEquals(List.of(17, 18, 19, 20), ids(cache.after("guild", "7", 16, 10)));
+        assertEquals(List.of(17, 16), ids(cache.before("guild", "7", 18, 2)));
+        verify(repo, times(1)).recent(any(), any(), any());
+
+        // Older than the ring reaches, or a gap that may start before it: the database
+        cache.before("guild", "7", 18, 3);
+        verify(repo).before("guild", "7", 18, PageRequest.of(0, 3));
+        cache.after("guild", "7", 12, 5);
+        verify(repo).after("guild", "7", 12, PageRequest.of(0, 5));
+    }
+
+    @Test
+    void testRoomThatOutgrowsItsRingIsNoLongerServedAsComplete() {
+        when(repo.recent("guild", "7", PageRequest.of(0, 5))).thenReturn(List.of()); // a new room
+        assertEquals(List.of(), cache.recent("guild", "7", 5));
+        for (int id = 1; id <= 8; id++) {
+            cache.add(message("guild", "7", id)); // ring: 4..8; 1..3 only in the table
+        }
+        when(repo.before("guild", "7", 4, PageRequest.of(0, 3))).thenReturn(newestFirst(1, 3));
+        when(repo.after("guild", "7", 1, PageRequest.of(0, 10))).thenReturn(
+                IntStream.rangeClosed(2, 8).mapToObj(id -> message("guild", "7", id)).toList());
+
+        assertEquals(List.of(8, 7, 6, 5, 4), ids(cache.recent("guild", "7", 5)));
+        assertEquals(List.of(3, 2, 1), ids(cache.before("guild", "7", 4, 3)));
+        assertEquals(List.of(2, 3, 4, 5, 6, 7, 8), ids(cache.after("guild", "7", 1, 10)));
+        verify(repo).before("guild", "7", 4, PageRequest.of(0, 3));
+        verify(repo).after("guild", "7", 1, PageRequest.of(0, 10));
+    }
+
+    @Test
+    void testIdleRoomsAreEvictedAndReloaded() {
+        when(repo.recent(eq("public"), eq("global"), any())).thenReturn(newestFirst(1, 2));
+        cache.recent("public", "global", 2);
+        when(clock.millis()).thenReturn(600L);
+        cache.add(message("guild", "7", 3));
+
+        when(clock.millis()).thenReturn(1500L);
+        cache.sweep(); // public:global last used at 0, guild:7 at 600
+
+        assertEquals(1, cache.roomCount());
+        assertEquals(1L, cache.stats().get("evicted"));
+        cache.recent("public", "global", 2);
+        verify(repo, times(2)).recent(eq("public"), eq("global"), any());
+    }
+
+    @Test
+    void testLeastRecentlyUsedRoomsGoPastTheRoomLimit() {
+        for (int i = 0; i < 5; i++) {
+            when(clock.millis()).thenReturn((long) i);
+            cache.add(message("guild", "g" + i, 100 + i));
+        }
+        when(clock.millis()).thenReturn(5L);
+        cache.add(message("guild", "g0", 200)); // g0 is used again
+
+        cache.sweep();
+
+        assertEquals(3, cache.roomCount());
+        assertEquals(2L, cache.stats().get("evicted"));
+        when(repo.recent(any(), any(), any())).thenReturn(List.of());
+        assertEquals(List.of(200, 100), ids(cache.recent("guild", "g0", 5)));
+        assertEquals(List.of(), ids(cache.recent("guild", "g1", 5))); // evicted, reloaded from an empty table
+    }
+
+    private static List<ChatMessage> newestFirst(int from, int to) {
+        List<ChatMessage> rows = new ArrayList<>();
+        IntStream.rangeClosed(from, to).forEach(id -> rows.add(0, message("any", "any", id)));
+        return rows;
+    }
+
+    private static ChatMessage message(String scope, String channel, int id) {
+        ChatMessage m = new ChatMessage();
+        m.setId(id);
+        m.setScope(scope);
+        m.setChannel(channel);
+        m.setContent("m" + id);
+        return m;
+    }
+
+    private static List<Integer> ids(List<ChatMessage> messages) {
+        return messages.stream().map(ChatMessage::getId).toList();
+    }
+}
@@ -0,0 +1,220 @@
+package onetoone.carson_systemTest.messaging;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import onetoone.messaging.ChatRooms;
+import onetoone.messaging.ChatWebSocketHandler;
+import onetoone.messaging.chat.ChatMessage;
+import onetoone.messaging.chat.ChatHistoryCache;
+import onetoone.messaging.chat.ChatMessageRepository;
+import onetoone.messaging.chat.ChatWriteBehind;
+import onetoone.websocket.OutboundSessions;
+import onetoone.websocket.bus.LocalMessageBus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Room fan-out: one typed parse, one queued row, one history entry and one shared frame per message,
+ * sent to the room's snapshot; reconnects get the gap, then live messages, each exactly once.
+ */
+@ExtendWith(MockitoExtension.class)
+class ChatWebSocketHandlerTest {
+
+    @Mock
+    private ChatMessageRepository repo;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final List<ChatMessage> saved = new CopyOnWriteArrayList<>();
+    private final AtomicInteger ids = new AtomicInteger(100);
+    private ChatWriteBehind chatLog;
+    private ChatHistoryCache history;
+    private ChatWebSocketHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        // Flushes each message as it arrives; the tests shut it down before looking at what was saved
+        chatLog = new ChatWriteBehind(ids::incrementAndGet, saved::addAll, 1, 0, 100);
+        history = new ChatHistoryCache(repo, 50, 60_000, 100, Clock.systemUTC()); // the table starts empty
+        handler = handler(3);
+    }
+
+    private ChatWebSocketHandler handler(int replayMax) {
+        // Inline sender so queued frames are on the mock sessions when the call returns
+        return new ChatWebSocketHandler(chatLog, history,
+                new OutboundSessions(Runnable::run, 64, 1 << 20, Duration.ofSeconds(5)), new LocalMessageBus(), true, replayMax);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        chatLog.shutdown();
+    }
+
+    @Test
+    void testMessageIsSavedAndOneFrameGoesToEveryoneInTheRoomOnly() throws Exception {
+        WebSocketSession ann = session("ann", "guild", "7");
+        WebSocketSession ben = session("ben", "guild", "7");
+        WebSocketSession cat = session("cat", "guild", "8");
+        handler.afterConnectionEstablished(ann);
+        handler.afterConnectionEstablished(ben);
+        handler.afterConnectionEstablished(cat);
+
+        handler.handleMessage(ann, new TextMessage("{\"fromUserId\":12,\"content\":\"hi\",\"extra\":true}"));
+
+        chatLog.shutdown();
+        ChatMessage row = saved.get(0);
+        assertEquals(1, saved.size());
+        assertEquals(101, row.getId());
+        assertEquals("guild", row.getScope());
+        assertEquals("7", row.getChannel());
+        assertEquals(12, row.getFromUserId());
+        assertEquals("ann", row.getUsername()); // from the path when the payload has none
+        assertEquals(List.of(row), history.recent("guild", "7", 10));
+
+        ArgumentCaptor<TextMessage> toAnn = ArgumentCaptor.forClass(TextMessage.class);
+        ArgumentCaptor<TextMessage> toBen = ArgumentCaptor.forClass(TextMessage.class);
+        verify(ann).sendMessage(toAnn.capture());
+        verify(ben).sendMessage(toBen.capture());
+        assertSame(toAnn.getValue(), toBen.getValue());
+        verify(cat, never()).sendMessage(any());
+
+        JsonNode frame = mapper.readTree(toAnn.getValue().getPayload());
+        assertEquals(List.of("id", "scope", "channel", "fromUserId", "username", "content", "createdAt"),
+                names(frame.fieldNames()));
+        assertEquals(101, frame.get("id").asInt()); // the id the row is saved under, before it is saved
+        assertEquals("hi", frame.get("content").asText());
+        assertEquals(12, frame.get("fromUserId").asInt());
+    }
+
+    @Test
+    void testMalformedFrameIsIgnoredAndClosedSessionsLeaveTheRoom() throws Exception {
+        WebSocketSession ann = session("ann", "public", "global");
+        WebSocketSession ben = session("ben", "public", "global");
+        handler.afterConnectionEstablished(ann);
+        handler.afterConnectionEstablished(ben);
+
+        handler.handleMessage(ann, new TextMessage("not json"));
+        assertEquals(0L, chatLog.stats().get("appended"));
+
+        handler.afterConnectionClosed(ben, CloseStatus.NORMAL);
+        handler.handleMessage(ann, new TextMessage("{\"username\":\"Ann B.\",\"content\":\"still here?\"}"));
+
+        verify(ann).sendMessage(any());
+        verify(ben, never()).sendMessage(any());
+    }
+
+    @Test
+    void testReconnectReplaysTheGapThenGoesLive() throws Exception {
+        WebSocketSession ann = session("ann", "guild", "7");
+        handler.afterConnectionEstablished(ann);
+        for (int i = 1; i <= 4; i++) {
+            handler.handleMessage(ann, new TextMessage("{\"content\":\"m" + i + "\"}")); // ids 101..104
+        }
+
+        WebSocketSession ben = session("ben", "guild", "7", 102);
+        handler.afterConnectionEstablished(ben);
+        handler.handleMessage(ann, new TextMessage("{\"content\":\"live\"}"));
+
+        assertEquals(List.of(103, 104, 105), frameIds(ben));
+
+        // Further behind than replayMax: the newest three, contiguous with live delivery
+        WebSocketSession cat = session("cat", "guild", "7", 100);
+        handler.afterConnectionEstablished(cat);
+        assertEquals(List.of(103, 104, 105), frameIds(cat));
+    }
+
+    @Test
+    void testMessageSentWhileTheGapIsReadArrivesOnce() throws Exception {
+        WebSocketSession ann = session("ann", "guild", "7");
+        handler.afterConnectionEstablished(ann);
+        handler.handleMessage(ann, new TextMessage("{\"content\":\"before the drop\"}")); // 101
+        handler.handleMessage(ann, new TextMessage("{\"content\":\"missed\"}")); // 102
+        // ann sends while the room's history is being loaded for ben's replay
+        when(repo.recent(eq("guild"), eq("7"), any())).thenAnswer(inv -> {
+            handler.handleMessage(ann, new TextMessage("{\"content\":\"during replay\"}")); // 103
+            return List.of();
+        });
+
+        WebSocketSession ben = session("ben", "guild", "7", 101);
+        handler.afterConnectionEstablished(ben);
+        handler.handleMessage(ann, new TextMessage("{\"content\":\"after\"}")); // 104
+
+        assertEquals(List.of(102, 103, 104), frameIds(ben));
+    }
+
+    @Test
+    void testRoomSnapshotsAreImmutableAndEmptyRoomsAreRemoved() {
+        ChatRooms rooms = new ChatRooms();
+        WebSocketSession ann = mock(WebSocketSession.class);
+        WebSocketSession ben = mock(WebSocketSession.class);
+
+        rooms.join("dm:1-2", ann);
+        List<WebSocketSession> before = rooms.members("dm:1-2");
+        rooms.join("dm:1-2", ben);
+        rooms.join("dm:1-2", ben);
+
+        assertEquals(List.of(ann), before); // a broadcast in progress keeps the snapshot it started with
+        assertEquals(List.of(ann, ben), rooms.members("dm:1-2"));
+        assertThrows(UnsupportedOperationException.class, () -> rooms.members("dm:1-2").clear());
+
+        rooms.leave("dm:1-2", ann);
+        rooms.leave("dm:1-2", ben);
+        assertEquals(0, rooms.roomCount());
+        assertEquals(List.of(), rooms.members("dm:1-2"));
+    }
+
+    private List<Integer> frameIds(WebSocketSession session) throws Exception {
+        ArgumentCaptor<TextMessage> captor = ArgumentCaptor.forClass(TextMessage.class);
+        verify(session, atLeast(0)).sendMessage(captor.capture());
+        List<Integer> out = new ArrayList<>();
+        for (TextMessage msg : captor.getAllValues()) {
+            out.add(mapper.readTree(msg.getPayload()).get("id").asInt());
+        }
+        return out;
+    }
+
+    private static WebSocketSession session(String username, String scope, String channel, int lastSeenId) {
+        WebSocketSession session = session(username, scope, channel);
+        session.getAttributes().put("lastSeenId", lastSeenId);
+        return session;
+    }
+
+    private static WebSocketSession session(String username, String scope, String channel) {
+        WebSocketSession session = mock(WebSocketSession.class);
+        Map<String, Object> attrs = new HashMap<>();
+        attrs.put("scope", scope);
+        attrs.put("channel", channel);
+        attrs.put("username", username);
+        lenient().when(session.getAttributes()).thenReturn(attrs);
+        lenient().when(session.getId()).thenReturn(username);
+        lenient().when(session.isOpen()).thenReturn(true);
+        return session;
+    }
+
+    private static List<String> names(Iterator<String> it) {
+        List<String> out = new ArrayList<>();
+        it.forEachRemaining(out::add);
+        return out;
+    }
+}
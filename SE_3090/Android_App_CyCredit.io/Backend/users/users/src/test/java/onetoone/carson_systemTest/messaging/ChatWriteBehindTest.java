@@ -0,0 +1,153 @@
+package onetoone.carson_systemTest.messaging;
+
+import onetoone.config.GameConfig;
+import onetoone.messaging.chat.ChatIdAllocator;
+import onetoone.messaging.chat.ChatMessage;
+import onetoone.messaging.chat.ChatMessageRepository;
+import onetoone.messaging.chat.ChatWriteBehind;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Chat write-behind on H2: ids up front, batches by size or by time, and nothing lost on shutdown.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ChatWriteBehindTest {
+
+    @Autowired
+    private ChatMessageRepository repo;
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private PlatformTransactionManager txManager;
+
+    private ChatIdAllocator ids;
+    private final List<ChatWriteBehind> started = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ids = new ChatIdAllocator(new JdbcTemplate(dataSource), txManager);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (ChatWriteBehind writeBehind : started) {
+            writeBehind.shutdown();
+        }
+        repo.deleteAll();
+    }
+
+    @Test
+    void testIdsAreKnownBeforeTheInsertAndFullBatchesFlushWithoutWaiting() throws Exception {
+        ChatWriteBehind chatLog = writeBehind(5, 60_000);
+
+        List<Integer> assigned = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            assigned.add(chatLog.append(message("m" + i)).getId());
+        }
+        for (int i = 1; i < assigned.size(); i++) {
+            assertTrue(assigned.get(i) > assigned.get(i - 1));
+        }
+
+        waitUntil(() -> repo.count() == 10); // two full batches, long before the 60 s interval
+        assertEquals("m7", repo.findById(assigned.get(7)).orElseThrow().getContent());
+        assertEquals(2L, chatLog.stats().get("batches"));
+        assertEquals(5L, chatLog.stats().get("maxBatchSize"));
+
+        // Another node (or a restart) reserves its own block from the same sequence
+        ChatIdAllocator other = new ChatIdAllocator(new JdbcTemplate(dataSource), txManager);
+        Set<Integer> seen = new HashSet<>(assigned);
+        for (int i = 0; i < 60; i++) {
+            assertTrue(seen.add(other.next()));
+            assertTrue(seen.add(ids.next()));
+        }
+    }
+
+    @Test
+    void testPartialBatchIsFlushedAfterTheInterval() throws Exception {
+        ChatWriteBehind chatLog = writeBehind(100, 50);
+
+        chatLog.append(message("a"));
+        chatLog.append(message("b"));
+        chatLog.append(message("c"));
+
+        waitUntil(() -> repo.count() == 3);
+        assertEquals(1L, chatLog.stats().get("batches"));
+        assertEquals(3, chatLog.stats().get("lastBatchSize"));
+        assertTrue((Double) chatLog.stats().get("lastFlushLagMs") >= 40.0);
+        assertEquals(0, chatLog.stats().get("queueDepth"));
+    }
+
+    @Test
+    void testShutdownWritesEverythingQueuedAndLaterMessagesInline() throws Exception {
+        ChatWriteBehind chatLog = writeBehind(1000, 60_000);
+        for (int i = 0; i < 250; i++) {
+            chatLog.append(message("m" + i));
+        }
+
+        chatLog.shutdown();
+        assertEquals(250, repo.count());
+
+        ChatMessage late = chatLog.append(message("late"));
+        assertTrue(repo.existsById(late.getId()));
+        assertEquals(251L, chatLog.stats().get("written"));
+    }
+
+    @Test
+    void testBadRowFailsAloneAfterRetries() throws Exception {
+        ChatWriteBehind chatLog = writeBehind(3, 60_000);
+
+        chatLog.append(message("ok 1"));
+        chatLog.append(message(null)); // content is not null in chat_messages
+        chatLog.append(message("ok 2"));
+
+        waitUntil(() -> (Long) chatLog.stats().get("written") == 2L);
+        assertEquals(1L, chatLog.stats().get("failed"));
+        assertEquals(2, repo.count());
+    }
+
+    private ChatWriteBehind writeBehind(int batchSize, long flushMs) {
+        GameConfig config = new GameConfig();
+        config.setChatFlushBatchSize(batchSize);
+        config.setChatFlushMs(flushMs);
+        config.setChatWriteQueueCapacity(10_000);
+        ChatWriteBehind writeBehind = new ChatWriteBehind(ids, repo, txManager, config);
+        started.add(writeBehind);
+        return writeBehind;
+    }
+
+    private static ChatMessage message(String content) {
+        ChatMessage m = new ChatMessage();
+        m.setScope("guild");
+        m.setChannel("7");
+        m.setUsername("ann");
+        m.setContent(content);
+        return m;
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "timed out");
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package onetoone.carson_systemTest.monthend;
+
+import jakarta.persistence.EntityManager;
+import onetoone.Resource.Resource;
+import onetoone.Resource.ResourceRepository;
+import onetoone.Users.User;
+import onetoone.Users.UserRepository;
+import onetoone.billing.AccountBalanceRepository;
+import onetoone.billing.BillingService;
+import onetoone.billing.StatementRepository;
+import onetoone.billing.Transaction;
+import onetoone.billing.TransactionRepository;
+import onetoone.config.GameConfig;
+import onetoone.game.GameService;
+import onetoone.game.GameStateCache;
+import onetoone.monthend.MonthEndBatchService;
+import onetoone.monthend.MonthEndPartition;
+import onetoone.monthend.MonthEndPartitionRepository;
+import onetoone.monthend.MonthEndRun;
+import onetoone.monthend.MonthEndRunRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Partitioned, checkpointed month-end batch against an in-memory H2 database.
+ * Every chunk commits for real, so a simulated crash leaves exactly what a dead JVM would.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class MonthEndBatchTest {
+
+    private static final int USERS = 12;
+
+    @Autowired
+    private EntityManager em;
+    @Autowired
+    private PlatformTransactionManager txManager;
+    @Autowired
+    private TransactionRepository txRepo;
+    @Autowired
+    private UserRepository userRepo;
+    @Autowired
+    private ResourceRepository resourceRepo;
+    @Autowired
+    private AccountBalanceRepository balanceRepo;
+    @Autowired
+    private StatementRepository statementRepo;
+    @Autowired
+    private MonthEndRunRepository runRepo;
+    @Autowired
+    private MonthEndPartitionRepository partitionRepo;
+
+    private TransactionTemplate txTemplate;
+    private BillingService billingService;
+    private GameConfig config;
+    private final List<Integer> userIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        txTemplate = new TransactionTemplate(txManager);
+        billingService = new BillingService(txRepo, userRepo, resourceRepo, balanceRepo, statementRepo);
+        config = new GameConfig();
+
+        // Each player bought something last month, so closing the month charges interest exactly once
+        ZoneId zone = ZoneId.systemDefault();
+        LocalDate lastMonth = LocalDate.now().withDayOfMonth(1).minusMonths(1).plusDays(9);
+        for (int i = 0; i < USERS; i++) {
+            User user = userRepo.save(new User("Player" + i, "player" + i + "@test.com", "pw"));
+            Resource res = new Resource(3, 500.0, 700.0);
+            res.setUser(user);
+            resourceRepo.save(res);
+            userIds.add(user.getId());
+            txTemplate.executeWithoutResult(status -> billingService.postTransaction(
+                    new Transaction(user, "Campus Store", 100.0, "Food",
+                            lastMonth.atTime(12, 0).atZone(zone).toOffsetDateTime(),
+                            Transaction.TransactionType.PURCHASE)));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        txTemplate.executeWithoutResult(status -> {
+            for (String entity : List.of("MonthEndPartition", "MonthEndRun", "Transaction", "Statement",
+                    "AccountBalance", "Resource", "User")) {
+                em.createQuery("delete from " + entity).executeUpdate();
+            }
+        });
+    }
+
+    @Test
+    void testRunClosesEveryPlayerOnceAcrossParallelPartitions() {
+        MonthEndBatchService batch = batchService(gameService());
+
+        MonthEndRun run = batch.execute(batch.createRun(4, 2, 3).getId());
+
+        assertEquals(MonthEndRun.RunStatus.COMPLETED, run.getStatus());
+        assertEquals(USERS, run.getUsersProcessed());
+        assertEquals(0, run.getUsersFailed());
+        List<MonthEndPartition> partitions = batch.getPartitions(run.getId());
+        assertEquals(3, partitions.size());
+        for (MonthEndPartition partition : partitions) {
+            assertEquals(MonthEndPartition.PartitionStatus.COMPLETED, partition.getStatus());
+            assertEquals(4, partition.getProcessed());
+            assertEquals(2, partition.getChunks());
+        }
+        assertEveryPlayerClosedExactlyOnce();
+    }
+
+    @Test
+    void testCrashedRunResumesWithoutDoubleCharging() {
+        // Die on the 6th endMonth call: the second user of partition 1's first chunk.
+        // With one worker that is after partition 0 (users 1-4) and user 5 ran in the same chunk.
+        AtomicInteger calls = new AtomicInteger();
+        GameService crashing = new GameService(resourceRepo, userRepo, txRepo, statementRepo, billingService,
+                config, new GameStateCache(100, Duration.ofMinutes(1), System::nanoTime)) {
+            @Override
+            public GameService.MonthlySummaryDTO endMonth(int userId) {
+                if (calls.incrementAndGet() == 6) {
+                    throw new OutOfMemoryError("simulated crash");
+                }
+                return super.endMonth(userId);
+            }
+        };
+        MonthEndRun created = batchService(crashing).createRun(4, 2, 1);
+
+        MonthEndRun crashed = batchService(crashing).execute(created.getId());
+        assertEquals(MonthEndRun.RunStatus.FAILED, crashed.getStatus());
+        MonthEndPartition stopped = batchService(crashing).getPartitions(created.getId()).get(1);
+        assertEquals(MonthEndPartition.PartitionStatus.FAILED, stopped.getStatus());
+        // The chunk holding users 5 and 6 rolled back with its checkpoint
+        assertEquals(stopped.getIdFrom() - 1, stopped.getCheckpointUserId());
+        assertEquals(1, resourceRepo.findByUserId(userIds.get(4)).getCurrentMonth());
+
+        MonthEndRun resumed = batchService(gameService()).execute(created.getId());
+
+        assertEquals(MonthEndRun.RunStatus.COMPLETED, resumed.getStatus());
+        assertEquals(2, resumed.getAttempts());
+        assertEquals(USERS, resumed.getUsersProcessed());
+        assertEveryPlayerClosedExactlyOnce();
+    }
+
+    @Test
+    void testFailingPlayerIsSkippedAndRestOfChunkStillCloses() {
+        int broken = userIds.get(2);
+        GameService failing = new GameService(resourceRepo, userRepo, txRepo, statementRepo, billingService,
+                config, new GameStateCache(100, Duration.ofMinutes(1), System::nanoTime)) {
+            @Override
+            public GameService.MonthlySummaryDTO endMonth(int userId) {
+                GameService.MonthlySummaryDTO summary = super.endMonth(userId);
+                if (userId == broken) {
+                    throw new IllegalStateException("bad data for " + userId);
+                }
+                return summary;
+            }
+        };
+        MonthEndBatchService batch = batchService(failing);
+
+        MonthEndRun run = batch.execute(batch.createRun(4, 4, 2).getId());
+
+        assertEquals(MonthEndRun.RunStatus.COMPLETED_WITH_FAILURES, run.getStatus());
+        assertEquals(USERS - 1, run.getUsersProcessed());
+        assertEquals(1, run.getUsersFailed());
+        // The failed user's work rolled back; its chunk-mates were redone one per transaction
+        assertEquals(1, resourceRepo.findByUserId(broken).getCurrentMonth());
+        assertEquals(2, resourceRepo.findByUserId(userIds.get(3)).getCurrentMonth());
+        assertTrue(batch.getPartitions(run.getId()).get(0).getLastError().contains("bad data"));
+    }
+
+    @Test
+    void testUnfinishedRunBlocksNewRun() {
+        MonthEndBatchService batch = batchService(gameService());
+        batch.createRun(4, 2, 2);
+
+        assertThrows(IllegalStateException.class, () -> batch.createRun(4, 2, 2));
+    }
+
+    private void assertEveryPlayerClosedExactlyOnce() {
+        for (int userId : userIds) {
+            Resource res = resourceRepo.findByUserId(userId);
+            assertEquals(2, res.getCurrentMonth(), "userId=" + userId);
+            assertEquals(config.getMaxTurnsPerMonth(), res.getTurnsLeft());
+            assertEquals(1, statementRepo.findByUser_IdOrderByMonthNumberDesc(userId).size());
+            long interestCharges = txRepo.findByUser_IdOrderByTimestampDesc(userId).stream()
+                    .filter(tx -> tx.getType() == Transaction.TransactionType.INTEREST)
+                    .count();
+            assertEquals(1, interestCharges, "userId=" + userId);
+        }
+    }
+
+    private GameService gameService() {
+        return new GameService(resourceRepo, userRepo, txRepo, statementRepo, billingService, config,
+                new GameStateCache(100, Duration.ofMinutes(1), System::nanoTime));
+    }
+
+    private MonthEndBatchService batchService(GameService gameService) {
+        return new MonthEndBatchService(gameService, resourceRepo, runRepo, partitionRepo, txManager, config);
+    }
+}
@@ -0,0 +1,421 @@
+package onetoone.carson_systemTest.websocket;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import onetoone.config.GameConfig;
+import onetoone.events.GuildJoined;
+import onetoone.events.GuildLeft;
+import onetoone.guild.GuildMembershipRepository;
+import onetoone.leaderboard.LeaderboardIndex;
+import onetoone.leaderboard.LeaderboardScore;
+import onetoone.leaderboard.LeaderboardScoreRepository;
+import onetoone.leaderboard.LeaderboardScores;
+import onetoone.leaderboard.LeaderboardWebSocketHandler;
+import onetoone.leaderboard.LeaderboardWriteBehind;
+import onetoone.leaderboard.window.GuildBoardMemberships;
+import onetoone.leaderboard.window.LeaderboardWindowScoreRepository;
+import onetoone.leaderboard.window.WindowedLeaderboard;
+import onetoone.leaderboard.window.WindowedLeaderboardBroadcaster;
+import onetoone.messaging.ChatWebSocketHandler;
+import onetoone.messaging.chat.ChatHistoryCache;
+import onetoone.messaging.chat.ChatMessage;
+import onetoone.messaging.chat.ChatMessageRepository;
+import onetoone.messaging.chat.ChatWriteBehind;
+import onetoone.websocket.OutboundSessions;
+import onetoone.websocket.bus.InMemoryCluster;
+import onetoone.websocket.bus.MessageBus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.lang.reflect.Proxy;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntSupplier;
+
+import static onetoone.leaderboard.window.LeaderboardWindow.DAILY;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Three nodes in one JVM over InMemoryCluster: a chat room and a leaderboard whose sessions are spread
+ * across the nodes, and score updates arriving on different nodes. Measures cross-node delivery latency
+ * and checks that nothing is lost, duplicated or reordered.
+ */
+class MessageBusClusterTest {
+
+    private static final int NODES = 3;
+    private static final int SESSIONS_PER_NODE = 2;
+    private static final int MESSAGES_PER_NODE = 400;
+    // About 2000 messages/s per node into one room: busy, but not a backlog that latency would only measure
+    private static final long SEND_INTERVAL_NANOS = 500_000;
+    private static final int WARMUP_MESSAGES = 500;
+    // Ids a node reserves from chat_messages_seq at a time, as ChatIdAllocator does
+    private static final int ID_BLOCK = 50;
+
+    /** A frame as a session got it. */
+    private record Received(long nanos, String payload) {}
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    // chat_messages_seq: the highest id reserved by any node
+    private final AtomicInteger sequence = new AtomicInteger();
+    private final List<ChatWriteBehind> chatLogs = new ArrayList<>();
+    private InMemoryCluster cluster;
+
+    @BeforeEach
+    void setUp() {
+        cluster = new InMemoryCluster();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (ChatWriteBehind chatLog : chatLogs) {
+            chatLog.shutdown();
+        }
+        cluster.close();
+    }
+
+    @Test
+    void testChatRoomSpanningNodesGetsEveryMessageOnceInOneOrder() throws Exception {
+        List<ChatWebSocketHandler> handlers = new ArrayList<>();
+        List<ChatHistoryCache> histories = new ArrayList<>();
+        Map<WebSocketSession, Integer> nodeOf = new HashMap<>();
+        Map<WebSocketSession, List<Received>> received = new HashMap<>();
+        for (int n = 0; n < NODES; n++) {
+            MessageBus bus = cluster.join("node-" + n);
+            // Each node would number from its own block of the shared sequence; nothing is saved
+            ChatWriteBehind chatLog = new ChatWriteBehind(idBlocks(), rows -> {}, 100, 200, 10_000);
+            chatLogs.add(chatLog);
+            ChatHistoryCache history = new ChatHistoryCache(mock(ChatMessageRepository.class), 50, 60_000, 100,
+                    Clock.systemUTC());
+            histories.add(history);
+            ChatWebSocketHandler handler = new ChatWebSocketHandler(chatLog, history,
+                    new OutboundSessions(Runnable::run, 4096, 64 << 20, Duration.ofSeconds(5)), bus, n == 0, 100);
+            handlers.add(handler);
+            for (int i = 0; i < SESSIONS_PER_NODE; i++) {
+                List<Received> frames = new CopyOnWriteArrayList<>();
+                WebSocketSession s = recording("n" + n + "s" + i, frames);
+                nodeOf.put(s, n);
+                received.put(s, frames);
+                handler.afterConnectionEstablished(s);
+            }
+        }
+
+        // The owner numbers every node's messages; warm that path up in another room so latency is steady state
+        for (int n = 0; n < NODES; n++) {
+            WebSocketSession warm = recording("warm" + n, "warmup", new ArrayList<>());
+            for (int i = 0; i < WARMUP_MESSAGES; i++) {
+                handlers.get(n).handleMessage(warm, new TextMessage("{\"content\":\"warm\"}"));
+            }
+        }
+        assertTrue(cluster.awaitDelivered(Duration.ofSeconds(30)));
+        long warmupPublished = cluster.published();
+
+        // Every node's first session sends at once; content carries the sender node, a sequence and the send time
+        ExecutorService senders = Executors.newFixedThreadPool(NODES);
+        CountDownLatch start = new CountDownLatch(1);
+        List<WebSocketSession> sessions = new ArrayList<>(received.keySet());
+        for (int n = 0; n < NODES; n++) {
+            int node = n;
+            WebSocketSession from = sessions.stream()
+                    .filter(s -> nodeOf.get(s) == node && s.getId().endsWith("s0")).findFirst().orElseThrow();
+            senders.submit(() -> {
+                start.await();
+                for (int seq = 0; seq < MESSAGES_PER_NODE; seq++) {
+                    String content = node + ":" + seq + ":" + System.nanoTime();
+                    handlers.get(node).handleMessage(from, new TextMessage("{\"content\":\"" + content + "\"}"));
+                    LockSupport.parkNanos(SEND_INTERVAL_NANOS);
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        senders.shutdown();
+        assertTrue(senders.awaitTermination(30, TimeUnit.SECONDS));
+        assertTrue(cluster.awaitDelivered(Duration.ofSeconds(30)));
+        // Each message crosses the bus twice: submitted to the owner, then numbered to every node
+        assertEquals(2L * NODES * MESSAGES_PER_NODE, cluster.published() - warmupPublished);
+
+        List<Integer> firstOrder = null;
+        List<Long> crossNodeNanos = new ArrayList<>();
+        for (WebSocketSession s : sessions) {
+            List<Integer> order = new ArrayList<>();
+            int[] lastSeq = new int[NODES];
+            Arrays.fill(lastSeq, -1);
+            for (Received r : received.get(s)) {
+                JsonNode frame = mapper.readTree(r.payload());
+                order.add(frame.get("id").asInt());
+                String[] parts = frame.get("content").asText().split(":");
+                int sender = Integer.parseInt(parts[0]);
+                int seq = Integer.parseInt(parts[1]);
+                assertEquals(lastSeq[sender] + 1, seq, "gap or reorder from node " + sender + " at " + s.getId());
+                lastSeq[sender] = seq;
+                if (sender != nodeOf.get(s)) {
+                    crossNodeNanos.add(r.nanos() - Long.parseLong(parts[2]));
+                }
+            }
+            // No loss and no duplicates, and ids rise in delivery order whichever node sent the message
+            assertEquals(NODES * MESSAGES_PER_NODE, order.size(), s.getId());
+            assertEquals(order.size(), new HashSet<>(order).size(), s.getId());
+            for (int i = 1; i < order.size(); i++) {
+                assertTrue(order.get(i) > order.get(i - 1), "id " + order.get(i) + " after " + order.get(i - 1));
+            }
+            // The bus's one publish order, on every node
+            if (firstOrder == null) {
+                firstOrder = order;
+            } else {
+                assertEquals(firstOrder, order, s.getId());
+            }
+        }
+
+        Collections.sort(crossNodeNanos);
+        long p50 = crossNodeNanos.get(crossNodeNanos.size() / 2);
+        long p99 = crossNodeNanos.get(crossNodeNanos.size() * 99 / 100);
+        long max = crossNodeNanos.get(crossNodeNanos.size() - 1);
+        System.out.printf("cross-node chat delivery over %d frames: p50 %d us, p99 %d us, max %d us%n",
+                crossNodeNanos.size(), p50 / 1000, p99 / 1000, max / 1000);
+        assertTrue(p99 < TimeUnit.MILLISECONDS.toNanos(250), "p99 " + p99 / 1000 + " us");
+
+        // Messages sent on other nodes are in each node's history too, for /history and reconnect replay
+        for (ChatHistoryCache history : histories) {
+            List<ChatMessage> recent = history.recent("public", "global", 50);
+            assertEquals(50, recent.size());
+            assertEquals(firstOrder.get(firstOrder.size() - 1), recent.get(0).getId());
+        }
+
+        // A client on another node that last saw the 31st newest message is sent exactly the 30 after it
+        List<Received> replayed = new CopyOnWriteArrayList<>();
+        WebSocketSession back = recording("back", replayed);
+        back.getAttributes().put("lastSeenId", firstOrder.get(firstOrder.size() - 31));
+        handlers.get(NODES - 1).afterConnectionEstablished(back);
+        List<Integer> replayedIds = new ArrayList<>();
+        for (Received r : replayed) {
+            replayedIds.add(mapper.readTree(r.payload()).get("id").asInt());
+        }
+        assertEquals(firstOrder.subList(firstOrder.size() - 30, firstOrder.size()), replayedIds);
+    }
+
+    @Test
+    void testLeaderboardDeltaFromOneNodeReachesSessionsAndSnapshotsOnAnother() throws Exception {
+        Instant t0 = Instant.parse("2025-01-01T00:00:00Z");
+        LeaderboardIndex producerIndex = new LeaderboardIndex(mock(LeaderboardScoreRepository.class));
+        LeaderboardIndex otherIndex = new LeaderboardIndex(mock(LeaderboardScoreRepository.class));
+        LeaderboardWebSocketHandler producer = leaderboard(producerIndex, cluster.join("node-0"));
+        LeaderboardWebSocketHandler other = leaderboard(otherIndex, cluster.join("node-1"));
+
+        List<Received> onProducer = new CopyOnWriteArrayList<>();
+        List<Received> onOther = new CopyOnWriteArrayList<>();
+        producer.afterConnectionEstablished(recording("a", onProducer));
+        other.afterConnectionEstablished(recording("b", onOther));
+
+        producerIndex.set("p1", "P1", 50, t0);
+        producerIndex.set("p2", "P2", 70, t0);
+        producer.broadcastLeaderboard();
+        producer.tick();
+        assertTrue(cluster.awaitDelivered(Duration.ofSeconds(5)));
+
+        assertEquals(2, onProducer.size());
+        assertEquals(2, onOther.size());
+        assertEquals(onProducer.get(1).payload(), onOther.get(1).payload());
+        JsonNode delta = mapper.readTree(onOther.get(1).payload());
+        assertEquals("delta", delta.get("type").asText());
+        assertEquals(1, delta.get("version").asLong());
+        assertEquals(0, delta.get("baseVersion").asLong());
+        assertEquals(2, delta.get("rows").size());
+
+        // A client connecting to the other node now starts from the producer's board
+        List<Received> late = new CopyOnWriteArrayList<>();
+        other.afterConnectionEstablished(recording("c", late));
+        JsonNode snapshot = mapper.readTree(late.get(0).payload());
+        assertEquals(1, snapshot.get("version").asLong());
+        assertEquals("p2", snapshot.get("rows").get(0).get("userId").asText());
+        assertEquals(2, snapshot.get("rows").get(1).get("rank").asInt());
+    }
+
+    @Test
+    void testScoreUpdatesOnDifferentNodesReachEveryIndexAndAreWrittenOnce() throws Exception {
+        int players = 10;
+        int updatesPerNode = 300;
+        List<LeaderboardIndex> indexes = new ArrayList<>();
+        List<WindowedLeaderboard> windows = new ArrayList<>();
+        List<LeaderboardScores> scores = new ArrayList<>();
+        List<LeaderboardWebSocketHandler> handlers = new ArrayList<>();
+        List<LeaderboardWriteBehind> writers = new ArrayList<>();
+        List<LeaderboardScoreRepository> repositories = new ArrayList<>();
+        List<List<Received>> frames = new ArrayList<>();
+        for (int n = 0; n < 2; n++) {
+            MessageBus bus = cluster.join("node-" + n);
+            GameConfig config = new GameConfig();
+            config.setLeaderboardOwner(n == 0);
+            LeaderboardScoreRepository repository = mock(LeaderboardScoreRepository.class);
+            LeaderboardIndex index = new LeaderboardIndex(repository);
+            WindowedLeaderboard window = new WindowedLeaderboard(mock(LeaderboardWindowScoreRepository.class),
+                    mock(GuildMembershipRepository.class), ZoneOffset.UTC, Clock.systemUTC());
+            window.load();
+            OutboundSessions outbound = new OutboundSessions(Runnable::run, 64, 1 << 20, Duration.ofSeconds(5));
+            LeaderboardWebSocketHandler handler = new LeaderboardWebSocketHandler(index, mapper, outbound, bus, config);
+            scores.add(new LeaderboardScores(index, window, handler,
+                    new WindowedLeaderboardBroadcaster(window, mapper, outbound, bus, config), bus));
+            writers.add(new LeaderboardWriteBehind(index, repository, mock(PlatformTransactionManager.class), config));
+            indexes.add(index);
+            windows.add(window);
+            handlers.add(handler);
+            repositories.add(repository);
+            List<Received> received = new CopyOnWriteArrayList<>();
+            handler.afterConnectionEstablished(recording("n" + n, received));
+            frames.add(received);
+        }
+
+        // Both nodes take updates for the same players at once
+        ExecutorService senders = Executors.newFixedThreadPool(2);
+        List<Future<long[]>> sent = new ArrayList<>();
+        for (LeaderboardScores node : scores) {
+            sent.add(senders.submit(() -> {
+                long[] total = new long[players];
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < updatesPerNode; i++) {
+                    int player = random.nextInt(players);
+                    int delta = 1 + random.nextInt(10);
+                    node.add("p" + player, "P" + player, delta);
+                    total[player] += delta;
+                }
+                return total;
+            }));
+        }
+        long[] expected = new long[players];
+        for (Future<long[]> node : sent) {
+            long[] total = node.get(30, TimeUnit.SECONDS);
+            for (int p = 0; p < players; p++) {
+                expected[p] += total[p];
+            }
+        }
+        senders.shutdown();
+        assertTrue(cluster.awaitDelivered(Duration.ofSeconds(5)));
+
+        // Every node holds every update, in the same order
+        assertEquals(indexes.get(0).top(players), indexes.get(1).top(players));
+        assertEquals(windows.get(0).top(DAILY, players), windows.get(1).top(DAILY, players));
+        for (int p = 0; p < players; p++) {
+            assertEquals(expected[p], indexes.get(1).rank("p" + p).orElseThrow().standing().score(), "p" + p);
+        }
+
+        // Only the owner writes, and it writes the totals of both nodes' updates
+        writers.forEach(LeaderboardWriteBehind::flush);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<LeaderboardScore>> saved = ArgumentCaptor.forClass(List.class);
+        verify(repositories.get(0)).saveAll(saved.capture());
+        assertEquals(players, saved.getValue().size());
+        for (LeaderboardScore row : saved.getValue()) {
+            assertEquals(expected[Integer.parseInt(row.getUserId().substring(1))], row.getScore(), row.getUserId());
+        }
+        verifyNoInteractions(repositories.get(1));
+
+        // Only the owner ticks: one delta, the same on both nodes
+        handlers.forEach(LeaderboardWebSocketHandler::tick);
+        assertTrue(cluster.awaitDelivered(Duration.ofSeconds(5)));
+        for (List<Received> received : frames) {
+            assertEquals(2, received.size());
+            JsonNode delta = mapper.readTree(received.get(1).payload());
+            assertEquals(1, delta.get("version").asLong());
+            assertEquals(players, delta.get("rows").size());
+        }
+        assertEquals(frames.get(0).get(1).payload(), frames.get(1).get(1).payload());
+    }
+
+    @Test
+    void testGuildJoinAndLeaveOnOneNodeReachEveryNodesGuildBoards() throws Exception {
+        List<WindowedLeaderboard> windows = new ArrayList<>();
+        List<GuildBoardMemberships> memberships = new ArrayList<>();
+        for (int n = 0; n < 2; n++) {
+            MessageBus bus = cluster.join("node-" + n);
+            WindowedLeaderboard window = new WindowedLeaderboard(mock(LeaderboardWindowScoreRepository.class),
+                    mock(GuildMembershipRepository.class), ZoneOffset.UTC, Clock.systemUTC());
+            window.load();
+            window.add("4", "Dan", 70, Instant.now());
+            windows.add(window);
+            memberships.add(new GuildBoardMemberships(window, bus));
+        }
+
+        // Domain events only fire on the node that handled the request
+        memberships.get(0).onEvent(new GuildJoined(4, 10));
+        assertTrue(cluster.awaitDelivered(Duration.ofSeconds(5)));
+        for (WindowedLeaderboard window : windows) {
+            assertEquals(1, window.guildRank(DAILY, 10, "4").orElseThrow().rank());
+        }
+
+        memberships.get(0).onEvent(new GuildLeft(4, 10));
+        assertTrue(cluster.awaitDelivered(Duration.ofSeconds(5)));
+        for (WindowedLeaderboard window : windows) {
+            assertTrue(window.guildRank(DAILY, 10, "4").isEmpty());
+            assertEquals(1, window.rank(DAILY, "4").orElseThrow().rank()); // still on the window board
+        }
+    }
+
+    // A node's id source: the next block of the shared sequence whenever its own block runs out
+    private IntSupplier idBlocks() {
+        int[] block = {1, 0}; // next, last
+        return () -> {
+            synchronized (block) {
+                if (block[0] > block[1]) {
+                    block[1] = sequence.addAndGet(ID_BLOCK);
+                    block[0] = block[1] - ID_BLOCK + 1;
+                }
+                return block[0]++;
+            }
+        };
+    }
+
+    private LeaderboardWebSocketHandler leaderboard(LeaderboardIndex index, MessageBus bus) {
+        return new LeaderboardWebSocketHandler(index, mapper,
+                new OutboundSessions(Runnable::run, 64, 1 << 20, Duration.ofSeconds(5)), bus, new GameConfig());
+    }
+
+    // A session in a public room (global unless given) that records each frame and when it was handed to it. A plain
+    // proxy rather than a mock, so recording invocations does not add to the measured latency.
+    private static WebSocketSession recording(String id, List<Received> frames) {
+        return recording(id, "global", frames);
+    }
+
+    private static WebSocketSession recording(String id, String channel, List<Received> frames) {
+        Map<String, Object> attrs = new HashMap<>();
+        attrs.put("scope", "public");
+        attrs.put("channel", channel);
+        attrs.put("username", id);
+        return (WebSocketSession) Proxy.newProxyInstance(WebSocketSession.class.getClassLoader(),
+                new Class<?>[] {WebSocketSession.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "getAttributes" -> attrs;
+                    case "getId" -> id;
+                    case "isOpen" -> true;
+                    case "sendMessage" -> {
+                        frames.add(new Received(System.nanoTime(), ((TextMessage) args[0]).getPayload()));
+                        yield null;
+                    }
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> id;
+                    default -> null;
+                });
+    }
+}
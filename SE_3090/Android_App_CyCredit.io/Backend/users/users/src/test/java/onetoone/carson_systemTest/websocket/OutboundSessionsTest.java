@@ -0,0 +1,233 @@
+package onetoone.carson_systemTest.websocket;
+
+import onetoone.websocket.OutboundSessions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Per-session outbound queues: a stuck phone backs up only itself, and is evicted past the limits.
+ */
+@ExtendWith(MockitoExtension.class)
+class OutboundSessionsTest {
+
+    @Mock
+    private WebSocketSession fast;
+    @Mock
+    private WebSocketSession stuck;
+
+    private final CountDownLatch unstick = new CountDownLatch(1);
+    private final CountDownLatch stuckSending = new CountDownLatch(1);
+    private final List<String> fastReceived = new CopyOnWriteArrayList<>();
+    private ExecutorService senders;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        senders = Executors.newFixedThreadPool(2);
+        lenient().when(fast.getId()).thenReturn("fast");
+        lenient().when(stuck.getId()).thenReturn("stuck");
+        lenient().when(fast.isOpen()).thenReturn(true);
+        lenient().when(stuck.isOpen()).thenReturn(true);
+        lenient().doAnswer(inv -> {
+            fastReceived.add(inv.<TextMessage>getArgument(0).getPayload());
+            return null;
+        }).when(fast).sendMessage(any());
+        // The first send to the stuck session never completes until the test lets it go
+        lenient().doAnswer(inv -> {
+            stuckSending.countDown();
+            unstick.await();
+            return null;
+        }).when(stuck).sendMessage(any());
+    }
+
+    @AfterEach
+    void tearDown() {
+        unstick.countDown();
+        senders.shutdownNow();
+    }
+
+    @Test
+    void testStuckSessionDoesNotHoldUpOthersAndOverflowEvictsIt() throws Exception {
+        OutboundSessions outbound = new OutboundSessions(senders, 3, 1 << 20, Duration.ofSeconds(30));
+        outbound.register(fast, "chat");
+        outbound.register(stuck, "chat");
+
+        for (int i = 0; i < 10; i++) {
+            TextMessage msg = new TextMessage("m" + i);
+            outbound.send(fast, msg);
+            outbound.send(stuck, msg);
+            if (i == 0) {
+                assertTrue(stuckSending.await(5, TimeUnit.SECONDS)); // m0 is in flight, the rest queue up
+            }
+            int delivered = i + 1;
+            waitUntil(() -> fastReceived.size() == delivered); // the fast phone keeps up
+        }
+
+        assertEquals(List.of("m0", "m1", "m2", "m3", "m4", "m5", "m6", "m7", "m8", "m9"), fastReceived);
+        // m4 did not fit: the session is closed, so its client reconnects and replays rather than miss m4 unseen
+        verify(stuck, timeout(5000)).close(CloseStatus.SESSION_NOT_RELIABLE); // closed on the senders pool
+        assertEquals(0, outbound.queueDepth(stuck));
+        assertEquals(1L, outbound.stats().get("evicted"));
+        assertEquals(9L, session(outbound.stats(), "stuck").get("dropped")); // m1..m9
+        assertEquals(0L, session(outbound.stats(), "fast").get("dropped"));
+        verify(fast, never()).close(any());
+    }
+
+    @Test
+    void testOverflowOfADropSessionIsDroppedAndTheSessionKept() throws Exception {
+        OutboundSessions outbound = new OutboundSessions(senders, 3, 1 << 20, Duration.ofSeconds(30));
+        outbound.register(fast, "leaderboard", OutboundSessions.Overflow.DROP);
+        outbound.register(stuck, "leaderboard", OutboundSessions.Overflow.DROP);
+
+        for (int i = 0; i < 10; i++) {
+            TextMessage msg = new TextMessage("m" + i);
+            outbound.send(fast, msg);
+            outbound.send(stuck, msg);
+            if (i == 0) {
+                assertTrue(stuckSending.await(5, TimeUnit.SECONDS)); // m0 is in flight, the rest queue up
+            }
+            int delivered = i + 1;
+            waitUntil(() -> fastReceived.size() == delivered); // the fast phone keeps up
+        }
+
+        assertEquals(List.of("m0", "m1", "m2", "m3", "m4", "m5", "m6", "m7", "m8", "m9"), fastReceived);
+        assertEquals(3, outbound.queueDepth(stuck)); // m1..m3; m4..m9 did not fit
+        Map<String, Object> stuckStats = session(outbound.stats(), "stuck");
+        assertEquals(6L, stuckStats.get("dropped"));
+        assertEquals(3, stuckStats.get("queueDepth"));
+        assertEquals(0L, session(outbound.stats(), "fast").get("dropped"));
+        verify(stuck, never()).close(any());
+    }
+
+    @Test
+    void testSendBlockedPastTimeLimitEvictsSession() throws Exception {
+        OutboundSessions outbound = new OutboundSessions(senders, 100, 1 << 20, Duration.ofMillis(50));
+        outbound.register(stuck, "leaderboard");
+
+        outbound.send(stuck, new TextMessage("first"));
+        assertTrue(stuckSending.await(5, TimeUnit.SECONDS));
+        assertTrue(outbound.send(stuck, new TextMessage("queued")));
+        Thread.sleep(100);
+
+        assertFalse(outbound.send(stuck, new TextMessage("late")));
+
+        verify(stuck, timeout(5000)).close(CloseStatus.SESSION_NOT_RELIABLE); // closed on the senders pool
+        assertEquals(0, outbound.queueDepth(stuck));
+        assertEquals(1L, outbound.stats().get("evicted"));
+        assertEquals(2L, outbound.stats().get("dropped")); // "queued" and "late"
+        assertFalse(outbound.send(stuck, new TextMessage("after")));
+    }
+
+    @Test
+    void testTooManyBytesQueuedEvictsSession() throws Exception {
+        OutboundSessions outbound = new OutboundSessions(senders, 100, 20, Duration.ofSeconds(30));
+        outbound.register(stuck, "chat");
+
+        outbound.send(stuck, new TextMessage("in flight"));
+        assertTrue(stuckSending.await(5, TimeUnit.SECONDS));
+        assertTrue(outbound.send(stuck, new TextMessage("0123456789")));
+        assertTrue(outbound.send(stuck, new TextMessage("0123456789"))); // exactly 20 bytes queued
+
+        assertFalse(outbound.send(stuck, new TextMessage("x")));
+
+        verify(stuck, timeout(5000)).close(CloseStatus.SESSION_NOT_RELIABLE); // closed on the senders pool
+        assertEquals(1L, outbound.stats().get("evicted"));
+    }
+
+    @Test
+    void testWatchdogEvictsSendStuckPastTimeLimitWithoutFurtherTraffic() throws Exception {
+        OutboundSessions outbound = new OutboundSessions(senders, 100, 1 << 20, Duration.ofMillis(50));
+        outbound.register(stuck, "chat");
+        outbound.register(fast, "chat");
+
+        outbound.send(stuck, new TextMessage("first"));
+        assertTrue(stuckSending.await(5, TimeUnit.SECONDS));
+        outbound.evictStuckSends();
+        verify(stuck, never()).close(any()); // not past the limit yet
+
+        Thread.sleep(100);
+        outbound.evictStuckSends();
+
+        verify(stuck, timeout(5000)).close(CloseStatus.SESSION_NOT_RELIABLE);
+        verify(fast, never()).close(any());
+        assertEquals(1L, outbound.stats().get("evicted"));
+    }
+
+    @Test
+    void testEvictionDoesNotWaitForTheClose() throws Exception {
+        ExecutorService closer = Executors.newSingleThreadExecutor();
+        CountDownLatch closing = new CountDownLatch(1);
+        // Closing a hung session waits for its send to give up
+        doAnswer(inv -> {
+            closing.countDown();
+            unstick.await();
+            return null;
+        }).when(stuck).close(any());
+        try {
+            OutboundSessions outbound = new OutboundSessions(senders, closer, 100, 20, Duration.ofSeconds(30));
+            outbound.register(stuck, "chat");
+            outbound.send(stuck, new TextMessage("in flight"));
+            assertTrue(stuckSending.await(5, TimeUnit.SECONDS));
+
+            assertTimeoutPreemptively(Duration.ofSeconds(1), () -> {
+                assertTrue(outbound.send(stuck, new TextMessage("01234567890123456789")));
+                assertFalse(outbound.send(stuck, new TextMessage("x"))); // over the byte limit: evicted
+            });
+
+            assertTrue(closing.await(5, TimeUnit.SECONDS));
+            assertEquals(1L, outbound.stats().get("evicted"));
+        } finally {
+            unstick.countDown();
+            closer.shutdownNow();
+        }
+    }
+
+    @Test
+    void testUnregisteredOrClosedSessionIsDropped() throws Exception {
+        OutboundSessions outbound = new OutboundSessions(senders, 10, 1 << 20, Duration.ofSeconds(30));
+
+        assertFalse(outbound.send(fast, new TextMessage("nobody home")));
+        outbound.register(fast, "chat");
+        outbound.unregister(fast);
+        assertFalse(outbound.send(fast, new TextMessage("gone")));
+
+        assertEquals(2L, outbound.stats().get("dropped"));
+        assertEquals(0, outbound.stats().get("sessions"));
+        verify(fast, never()).sendMessage(any());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> session(Map<String, Object> stats, String id) {
+        return ((List<Map<String, Object>>) stats.get("perSession")).stream()
+                .filter(s -> id.equals(s.get("sessionId")))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "timed out");
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package onetoone.chase_systemTest.billing;
+
+import onetoone.Resource.ResourceRepository;
+import onetoone.Users.User;
+import onetoone.Users.UserRepository;
+import onetoone.billing.AccountBalance;
+import onetoone.billing.AccountBalanceRepository;
+import onetoone.billing.BillingService;
+import onetoone.billing.StatementRepository;
+import onetoone.billing.Transaction;
+import onetoone.billing.TransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A user's first balance reads, racing each other, build the aggregate row once from the ledger.
+ * Each read commits on its own (no test transaction), as concurrent requests would.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AccountBalanceFirstUseTest {
+
+    private static final int READERS = 4;
+
+    @Autowired
+    private TransactionRepository txRepo;
+    @Autowired
+    private UserRepository userRepo;
+    @Autowired
+    private ResourceRepository resourceRepo;
+    @Autowired
+    private AccountBalanceRepository balanceRepo;
+    @Autowired
+    private StatementRepository statementRepo;
+    @Autowired
+    private PlatformTransactionManager txManager;
+
+    @Test
+    void testConcurrentFirstReadsBuildTheRowOnce() throws Exception {
+        BillingService billingService = new BillingService(txRepo, userRepo, resourceRepo, balanceRepo, statementRepo);
+        // The service's own @Transactional, which a plain instance does not get
+        TransactionTemplate tx = new TransactionTemplate(txManager);
+        User user = userRepo.save(new User("First", "first@test.com", "pw"));
+        // Ledger written before the aggregate existed
+        txRepo.save(new Transaction(user, "Store", 120.40, "Food", OffsetDateTime.now(),
+                Transaction.TransactionType.PURCHASE));
+        txRepo.save(new Transaction(user, "Payment", 20.15, "Payment", OffsetDateTime.now(),
+                Transaction.TransactionType.PAYMENT));
+        assertFalse(balanceRepo.existsById(user.getId()));
+
+        ExecutorService readers = Executors.newFixedThreadPool(READERS);
+        CyclicBarrier start = new CyclicBarrier(READERS);
+        List<Future<Double>> balances = new ArrayList<>();
+        for (int i = 0; i < READERS; i++) {
+            balances.add(readers.submit(() -> {
+                start.await();
+                return tx.execute(s -> billingService.getCurrentBalance(user.getId()));
+            }));
+        }
+        for (Future<Double> balance : balances) {
+            assertEquals(100.25, balance.get(10, TimeUnit.SECONDS), 0.001);
+        }
+        readers.shutdown();
+
+        AccountBalance row = balanceRepo.findById(user.getId()).orElseThrow();
+        assertNotNull(row.getUpdatedAt());
+        assertEquals(10025L, row.getBalanceCents());
+        assertEquals(10025L, row.getUnbilledBalanceCents());
+        assertEquals(12040L, row.getUnbilledSpendCents());
+    }
+}
@@ -4,7 +4,11 @@ import onetoone.Resource.Resource;
 import onetoone.Resource.ResourceRepository;
 import onetoone.Users.User;
 import onetoone.Users.UserRepository;
+import onetoone.billing.AccountBalance;
+import onetoone.billing.AccountBalanceRepository;
 import onetoone.billing.BillingService;
+import onetoone.billing.Statement;
+import onetoone.billing.StatementRepository;
 import onetoone.billing.Transaction;
 import onetoone.billing.TransactionRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -13,6 +17,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
@@ -21,6 +26,7 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.*;
 
 /**
@@ -35,12 +41,18 @@ class BillingServiceTest {
     private UserRepository userRepo;
     @Mock
     private ResourceRepository resourceRepo;
+    @Mock
+    private AccountBalanceRepository balanceRepo;
+    @Mock
+    private StatementRepository statementRepo;
 
     @InjectMocks
     private BillingService billingService;
 
     private User testUser;
     private Resource testResource;
+    // User 1's balance row as the database holds it
+    private AccountBalance row;
 
     @BeforeEach
     void setUp() {
@@ -53,6 +65,14 @@ class BillingServiceTest {
         testResource.setUser(testUser);
         testResource.setMoney(1000.0);
         testResource.setCreditLimit(1500.0);
+
+        // First use inserts the row empty, then locks it and fills it in from the ledger
+        lenient().when(balanceRepo.insertEmpty(1)).thenAnswer(invocation -> {
+            row = new AccountBalance();
+            row.setUserId(1);
+            return 1;
+        });
+        lenient().when(balanceRepo.findForUpdate(1)).thenAnswer(invocation -> Optional.ofNullable(row));
     }
 
     @Test
@@ -183,5 +203,82 @@ class BillingServiceTest {
         // Balance = 200 (purchase) + 10 (interest) - 75 (payment) = 135
         assertEquals(135.0, balance, 0.01);
     }
-}
 
+    @Test
+    void testFirstUseThatLosesTheInsertRaceReadsTheRowTheWinnerBuilt() {
+        AccountBalance built = new AccountBalance(1);
+        built.setBalance(80.0);
+        when(balanceRepo.insertEmpty(1)).thenThrow(new DataIntegrityViolationException("duplicate key"));
+        when(balanceRepo.findForUpdate(1)).thenReturn(Optional.of(built));
+
+        assertEquals(80.0, billingService.getCurrentBalance(1), 0.01);
+        verify(txRepo, never()).findByUser_IdOrderByTimestampDesc(anyInt());
+        verify(balanceRepo, never()).save(any());
+    }
+
+    @Test
+    void testGetSummary_ReadsAggregateWithoutLedgerScan() {
+        AccountBalance agg = new AccountBalance(1);
+        agg.setBalance(420.5);
+        agg.setUnbilledBalance(120.0);
+        agg.setUnbilledSpend(130.0);
+        when(balanceRepo.findById(1)).thenReturn(Optional.of(agg));
+        when(resourceRepo.findByUserId(1)).thenReturn(testResource);
+
+        BillingService.SummaryDTO summary = billingService.getSummary(1);
+
+        assertEquals(420.5, summary.balance, 0.01);
+        assertEquals(130.0, summary.monthlySpend, 0.01);
+        assertEquals(120.0, billingService.getUnbilledBalance(1), 0.01);
+        verify(txRepo, never()).findByUser_IdOrderByTimestampDesc(anyInt());
+    }
+
+    @Test
+    void testApplyPayment_UpdatesAggregateIncrementally() {
+        AccountBalance agg = new AccountBalance(1);
+        agg.setBalance(300.0);
+        agg.setUnbilledBalance(300.0);
+        agg.setUnbilledSpend(300.0);
+        when(userRepo.findById(1)).thenReturn(Optional.of(testUser));
+        when(resourceRepo.findByUserId(1)).thenReturn(testResource);
+        when(balanceRepo.findForUpdate(1)).thenReturn(Optional.of(agg));
+        when(txRepo.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        billingService.applyPayment(1, 100.0, OffsetDateTime.now());
+
+        // Payment reduces total and unbilled balance, but not unbilled purchase spend
+        assertEquals(200.0, agg.getBalance(), 0.01);
+        assertEquals(200.0, agg.getUnbilledBalance(), 0.01);
+        assertEquals(300.0, agg.getUnbilledSpend(), 0.01);
+        verify(balanceRepo).save(agg);
+        verify(txRepo, never()).findByUser_IdOrderByTimestampDesc(anyInt());
+    }
+
+    @Test
+    void testLinkUnbilledToStatement_MovesLinkedTotalsOutOfUnbilled() {
+        AccountBalance agg = new AccountBalance(1);
+        agg.setBalance(175.0);
+        agg.setUnbilledBalance(175.0);
+        agg.setUnbilledSpend(200.0);
+        when(balanceRepo.findForUpdate(1)).thenReturn(Optional.of(agg));
+
+        Statement statement = new Statement();
+        statement.setId(7L);
+        OffsetDateTime from = OffsetDateTime.now().minusDays(30);
+        OffsetDateTime to = OffsetDateTime.now();
+        List<Object[]> totals = new ArrayList<>();
+        totals.add(new Object[]{Transaction.TransactionType.PURCHASE, 15000L});
+        totals.add(new Object[]{Transaction.TransactionType.PAYMENT, 2500L});
+        when(txRepo.sumUnbilledByType(1, from, to)).thenReturn(totals);
+        when(txRepo.linkUnbilledToStatement(statement, 1, from, to)).thenReturn(3);
+
+        int linked = billingService.linkUnbilledToStatement(1, statement, from, to);
+
+        // Total balance is unchanged; only the linked portion leaves the unbilled aggregate
+        assertEquals(3, linked);
+        assertEquals(175.0, agg.getBalance(), 0.01);
+        assertEquals(50.0, agg.getUnbilledBalance(), 0.01);
+        assertEquals(50.0, agg.getUnbilledSpend(), 0.01);
+        verify(txRepo, never()).save(any(Transaction.class));
+    }
+}
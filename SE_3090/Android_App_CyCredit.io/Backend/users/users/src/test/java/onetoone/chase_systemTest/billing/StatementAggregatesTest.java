@@ -0,0 +1,142 @@
+package onetoone.chase_systemTest.billing;
+
+import onetoone.Resource.ResourceRepository;
+import onetoone.Users.User;
+import onetoone.Users.UserRepository;
+import onetoone.billing.AccountBalanceRepository;
+import onetoone.billing.BillingService;
+import onetoone.billing.Statement;
+import onetoone.billing.StatementRepository;
+import onetoone.billing.Transaction;
+import onetoone.billing.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Frozen per-statement aggregates maintained by BillingService, against an in-memory H2 database.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+class StatementAggregatesTest {
+
+    @Autowired
+    private TestEntityManager em;
+    @Autowired
+    private TransactionRepository txRepo;
+    @Autowired
+    private UserRepository userRepo;
+    @Autowired
+    private ResourceRepository resourceRepo;
+    @Autowired
+    private AccountBalanceRepository balanceRepo;
+    @Autowired
+    private StatementRepository statementRepo;
+
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final LocalDate periodStart = LocalDate.of(2025, 9, 1);
+    private final LocalDate dueDate = LocalDate.of(2025, 10, 8);
+
+    private BillingService billingService;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        billingService = new BillingService(txRepo, userRepo, resourceRepo, balanceRepo, statementRepo);
+        user = userRepo.save(new User("Snapshot", "snapshot@test.com", "pw"));
+
+        em.persist(tx("Store", 100.0, periodStart.plusDays(2), Transaction.TransactionType.PURCHASE));
+        em.persist(tx("Payment", 30.0, periodStart.plusDays(5), Transaction.TransactionType.PAYMENT));
+        em.persist(tx("Payment", 20.0, periodStart.plusDays(9), Transaction.TransactionType.PAYMENT));
+        em.persist(tx("Interest Charge", 1.66, periodStart.plusDays(10), Transaction.TransactionType.INTEREST));
+        em.persist(tx("Late Fee", 25.0, periodStart.plusDays(11), Transaction.TransactionType.FEE));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void testLinkFreezesStatementAggregates() {
+        Statement statement = statementRepo.save(newStatement());
+
+        billingService.linkUnbilledToStatement(user.getId(), statement,
+                periodStart.atStartOfDay(zone).toOffsetDateTime(),
+                periodStart.plusMonths(1).atStartOfDay(zone).toOffsetDateTime());
+
+        Statement stored = statementRepo.findById(statement.getId()).orElseThrow();
+        assertEquals(50.0, stored.getAmountPaid(), 0.001);
+        assertEquals(2, stored.getOnTimePayments());
+        assertEquals(0, stored.getLatePayments());
+        assertEquals(periodStart.plusDays(5), stored.getFirstPaymentAt().toLocalDate());
+        assertTrue(stored.isPaidOnTime());
+        assertEquals(1.66, stored.getInterestCharged(), 0.001);
+        assertEquals(25.0, stored.getFeesCharged(), 0.001);
+        // The caller's instance carries the same totals
+        assertEquals(5000L, statement.getAmountPaidCents());
+    }
+
+    @Test
+    void testPostedPaymentUpdatesAggregatesIncrementally() {
+        Statement statement = statementRepo.save(newStatement());
+
+        Transaction late = tx("Statement Payment", 12.5, dueDate.plusDays(3), Transaction.TransactionType.PAYMENT);
+        late.setStatement(statement);
+        billingService.postTransaction(late);
+
+        Transaction onTime = tx("Statement Payment", 7.5, dueDate.minusDays(1), Transaction.TransactionType.PAYMENT);
+        onTime.setStatement(statement);
+        billingService.postTransaction(onTime);
+
+        em.flush();
+        em.clear();
+        Statement stored = statementRepo.findById(statement.getId()).orElseThrow();
+        assertEquals(20.0, stored.getAmountPaid(), 0.001);
+        assertEquals(1, stored.getOnTimePayments());
+        assertEquals(1, stored.getLatePayments());
+        // The earliest payment decides the on-time flag, whatever order payments were posted in
+        assertEquals(dueDate.minusDays(1), stored.getFirstPaymentAt().toLocalDate());
+        assertTrue(stored.isPaidOnTime());
+    }
+
+    @Test
+    void testDeletingLinkedPaymentRebuildsAggregates() {
+        Statement statement = statementRepo.save(newStatement());
+        Transaction first = tx("Statement Payment", 10.0, dueDate.minusDays(2), Transaction.TransactionType.PAYMENT);
+        first.setStatement(statement);
+        billingService.postTransaction(first);
+        Transaction second = tx("Statement Payment", 15.0, dueDate.plusDays(2), Transaction.TransactionType.PAYMENT);
+        second.setStatement(statement);
+        billingService.postTransaction(second);
+
+        billingService.deleteTransaction(first.getId());
+
+        em.flush();
+        em.clear();
+        Statement stored = statementRepo.findById(statement.getId()).orElseThrow();
+        assertEquals(15.0, stored.getAmountPaid(), 0.001);
+        assertEquals(0, stored.getOnTimePayments());
+        assertEquals(1, stored.getLatePayments());
+        assertFalse(stored.isPaidOnTime());
+    }
+
+    private Transaction tx(String merchant, double amount, LocalDate day, Transaction.TransactionType type) {
+        OffsetDateTime when = day.atTime(12, 0).atZone(zone).toOffsetDateTime();
+        return new Transaction(user, merchant, amount, merchant, when, type);
+    }
+
+    private Statement newStatement() {
+        Statement statement = new Statement();
+        statement.setUser(user);
+        statement.setMonthNumber(1);
+        statement.setPeriodStart(periodStart);
+        statement.setPeriodEnd(periodStart.withDayOfMonth(periodStart.lengthOfMonth()));
+        statement.setDueDate(dueDate);
+        return statement;
+    }
+}
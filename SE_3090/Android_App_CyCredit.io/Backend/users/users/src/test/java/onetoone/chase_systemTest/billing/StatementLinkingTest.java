@@ -0,0 +1,166 @@
+package onetoone.chase_systemTest.billing;
+
+import onetoone.Users.User;
+import onetoone.Users.UserRepository;
+import onetoone.billing.Statement;
+import onetoone.billing.StatementRepository;
+import onetoone.billing.Transaction;
+import onetoone.billing.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Repository tests for bulk statement linking against an in-memory H2 database.
+ * Compares the statement totals produced by the old per-row save loop with the
+ * single set-based UPDATE on identical ledgers.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+class StatementLinkingTest {
+
+    @Autowired
+    private TestEntityManager em;
+    @Autowired
+    private TransactionRepository txRepo;
+    @Autowired
+    private StatementRepository statementRepo;
+    @Autowired
+    private UserRepository userRepo;
+
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final LocalDate periodStart = LocalDate.now().withDayOfMonth(1).minusMonths(1);
+    private final LocalDate periodEnd = periodStart.withDayOfMonth(periodStart.lengthOfMonth());
+
+    private User perRowUser;
+    private User bulkUser;
+
+    @BeforeEach
+    void setUp() {
+        perRowUser = userRepo.save(new User("Per Row", "perrow@test.com", "pw"));
+        bulkUser = userRepo.save(new User("Bulk", "bulk@test.com", "pw"));
+        seedLedger(perRowUser);
+        seedLedger(bulkUser);
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void testBulkLinkMatchesPerRowStatementTotals() {
+        OffsetDateTime from = periodStart.atStartOfDay(zone).toOffsetDateTime();
+        OffsetDateTime to = periodEnd.plusDays(1).atStartOfDay(zone).toOffsetDateTime();
+
+        // Before: load every transaction and save each unbilled one in the period
+        Statement perRowStatement = statementRepo.save(newStatement(perRowUser));
+        int perRowLinked = 0;
+        for (Transaction tx : txRepo.findByUser_IdOrderByTimestampDesc(perRowUser.getId())) {
+            LocalDate txDate = tx.getTimestamp().toLocalDate();
+            if (tx.getStatement() == null && !txDate.isBefore(periodStart) && !txDate.isAfter(periodEnd)) {
+                tx.setStatement(perRowStatement);
+                txRepo.save(tx);
+                perRowLinked++;
+            }
+        }
+        em.flush();
+        em.clear();
+
+        // After: one set-based UPDATE
+        Statement bulkStatement = statementRepo.save(newStatement(bulkUser));
+        int bulkLinked = txRepo.linkUnbilledToStatement(bulkStatement, bulkUser.getId(), from, to);
+
+        assertEquals(4, perRowLinked);
+        assertEquals(perRowLinked, bulkLinked);
+        assertEquals(statementTotal(perRowUser, perRowStatement), statementTotal(bulkUser, bulkStatement), 0.001);
+        assertEquals(unbilledCount(perRowUser), unbilledCount(bulkUser));
+    }
+
+    @Test
+    void testBulkLinkLeavesPersistenceContextConsistent() {
+        Statement statement = statementRepo.save(newStatement(bulkUser));
+        // Load the ledger into the persistence context before the bulk update
+        List<Transaction> before = txRepo.findByUser_IdOrderByTimestampDesc(bulkUser.getId());
+        assertTrue(before.stream().anyMatch(tx -> tx.getStatement() == null));
+
+        int linked = txRepo.linkAllUnbilledToStatement(statement, bulkUser.getId());
+
+        // Re-reading must see the new statement links, not stale managed copies
+        List<Transaction> after = txRepo.findByUser_IdOrderByTimestampDesc(bulkUser.getId());
+        assertEquals(6, linked);
+        assertTrue(after.stream().allMatch(tx -> tx.getStatement() != null));
+    }
+
+    @Test
+    void testSumUnbilledByTypeReturnsCentTotals() {
+        OffsetDateTime from = periodStart.atStartOfDay(zone).toOffsetDateTime();
+        OffsetDateTime to = periodEnd.plusDays(1).atStartOfDay(zone).toOffsetDateTime();
+
+        List<Object[]> rows = txRepo.sumUnbilledByType(bulkUser.getId(), from, to);
+
+        // The column stays decimal dollars; the totals come back as exact cents
+        long purchases = 0L;
+        for (Object[] row : rows) {
+            if (row[0] == Transaction.TransactionType.PURCHASE) {
+                purchases = (Long) row[1];
+            }
+        }
+        assertEquals(3, rows.size());
+        assertEquals(7024L, purchases);
+    }
+
+    private void seedLedger(User user) {
+        OffsetDateTime inPeriod = periodStart.plusDays(2).atTime(12, 0).atZone(zone).toOffsetDateTime();
+        OffsetDateTime afterPeriod = periodEnd.plusDays(3).atTime(12, 0).atZone(zone).toOffsetDateTime();
+
+        em.persist(new Transaction(user, "Store", 50.25, "Food", inPeriod, Transaction.TransactionType.PURCHASE));
+        em.persist(new Transaction(user, "Store", 19.99, "Fun", inPeriod.plusDays(1), Transaction.TransactionType.PURCHASE));
+        em.persist(new Transaction(user, "Interest", 1.35, "Interest", inPeriod.plusDays(2), Transaction.TransactionType.INTEREST));
+        em.persist(new Transaction(user, "Payment", 30.0, "Payment", inPeriod.plusDays(3), Transaction.TransactionType.PAYMENT));
+        // Outside the period: stays unbilled
+        em.persist(new Transaction(user, "Store", 12.5, "Food", afterPeriod, Transaction.TransactionType.PURCHASE));
+        em.persist(new Transaction(user, "Job", 40.0, "Income", afterPeriod, Transaction.TransactionType.INCOME));
+
+        // Already billed in the period: must not be relinked
+        Statement old = em.persist(newStatement(user));
+        Transaction billed = new Transaction(user, "Store", 99.0, "Food", inPeriod, Transaction.TransactionType.PURCHASE);
+        billed.setStatement(old);
+        em.persist(billed);
+    }
+
+    private Statement newStatement(User user) {
+        Statement statement = new Statement();
+        statement.setUser(user);
+        statement.setMonthNumber(1);
+        statement.setPeriodStart(periodStart);
+        statement.setPeriodEnd(periodEnd);
+        statement.setStatementDate(periodEnd.plusDays(1));
+        statement.setDueDate(periodEnd.plusDays(22));
+        return statement;
+    }
+
+    private double statementTotal(User user, Statement statement) {
+        double total = 0.0;
+        for (Transaction tx : txRepo.findByUser_IdOrderByTimestampDesc(user.getId())) {
+            if (tx.getStatement() != null && tx.getStatement().getId().equals(statement.getId())) {
+                boolean charge = tx.getType() == Transaction.TransactionType.PURCHASE
+                        || tx.getType() == Transaction.TransactionType.INTEREST
+                        || tx.getType() == Transaction.TransactionType.FEE;
+                total += charge ? tx.getAmount() : -tx.getAmount();
+            }
+        }
+        return total;
+    }
+
+    private long unbilledCount(User user) {
+        return txRepo.findByUser_IdOrderByTimestampDesc(user.getId()).stream()
+                .filter(tx -> tx.getStatement() == null)
+                .count();
+    }
+}
@@ -15,13 +15,12 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import java.util.ArrayList;
 import java.util.Collections;
-import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
@@ -118,8 +117,6 @@ class StatementServiceTest {
         // User has NEW unbilled purchases
         when(billingService.getUnbilledBalance(1)).thenReturn(25.0);
         
-        // Mock for transaction linking
-        when(txRepo.findByUser_IdOrderByTimestampDesc(1)).thenReturn(Collections.emptyList());
         when(statementRepo.findByUser_IdOrderByMonthNumberDesc(1))
                 .thenReturn(Collections.singletonList(paidStatement));
         
@@ -178,9 +175,8 @@ class StatementServiceTest {
         purchase.setType(Transaction.TransactionType.PURCHASE);
         purchase.setStatement(null);
         
-        List<Transaction> transactions = new ArrayList<>();
-        transactions.add(purchase);
-        when(txRepo.findByUser_IdOrderByTimestampDesc(1)).thenReturn(transactions);
+        // Bulk linking reports one unbilled transaction linked
+        when(billingService.linkAllUnbilledToStatement(eq(1), any(Statement.class))).thenReturn(1);
         
         // No existing statements for month number calculation
         when(statementRepo.findByUser_IdOrderByMonthNumberDesc(1))
@@ -193,16 +189,14 @@ class StatementServiceTest {
             return s;
         });
         
-        // Mock transaction save (for linking transactions to statement)
-        when(txRepo.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
-
         Statement result = statementService.getCurrentStatement(1);
 
         assertNotNull(result);
         assertEquals(50.0, result.getTotalDue(), 0.01);
         assertEquals(Statement.StatementStatus.OPEN, result.getStatus());
         verify(statementRepo).save(any(Statement.class));
-        verify(txRepo).save(any(Transaction.class)); // Verify transaction was linked
+        verify(billingService).linkAllUnbilledToStatement(1, result); // Linked in one bulk update
+        verify(txRepo, never()).save(any(Transaction.class)); // No per-row saves
     }
 
     /**
@@ -236,10 +230,7 @@ class StatementServiceTest {
         tx2.setType(Transaction.TransactionType.PURCHASE);
         tx2.setStatement(null);
         
-        List<Transaction> transactions = new ArrayList<>();
-        transactions.add(tx1);
-        transactions.add(tx2);
-        when(txRepo.findByUser_IdOrderByTimestampDesc(1)).thenReturn(transactions);
+        when(billingService.linkAllUnbilledToStatement(eq(1), any(Statement.class))).thenReturn(2);
         when(statementRepo.findByUser_IdOrderByMonthNumberDesc(1))
                 .thenReturn(Collections.emptyList());
         
@@ -248,7 +239,6 @@ class StatementServiceTest {
             s.setId(200L);
             return s;
         });
-        when(txRepo.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         Statement result = statementService.getCurrentStatement(1);
 
@@ -260,8 +250,9 @@ class StatementServiceTest {
         assertEquals(unbilledBalance, result.getTotalDue(), 0.01);
         assertEquals(Statement.StatementStatus.OPEN, result.getStatus());
         
-        // Verify transactions were linked
-        verify(txRepo, times(2)).save(any(Transaction.class));
+        // Verify transactions were linked with one set-based update, not per-row saves
+        verify(billingService, times(1)).linkAllUnbilledToStatement(1, result);
+        verify(txRepo, never()).save(any(Transaction.class));
     }
 
     /**
@@ -297,10 +288,6 @@ class StatementServiceTest {
         purchase2.setType(Transaction.TransactionType.PURCHASE);
         purchase2.setStatement(null);
         
-        List<Transaction> transactions = new ArrayList<>();
-        transactions.add(purchase1);
-        transactions.add(purchase2);
-        when(txRepo.findByUser_IdOrderByTimestampDesc(1)).thenReturn(transactions);
         when(statementRepo.findByUser_IdOrderByMonthNumberDesc(1))
                 .thenReturn(Collections.emptyList());
         
@@ -309,15 +296,12 @@ class StatementServiceTest {
             s.setId(300L);
             return s;
         });
-        when(txRepo.save(any(Transaction.class))).thenAnswer(invocation -> {
-            Transaction tx = invocation.getArgument(0);
-            // Simulate linking: set statement reference
-            if (tx.getStatement() == null) {
-                Statement stmt = new Statement();
-                stmt.setId(300L);
-                tx.setStatement(stmt);
-            }
-            return tx;
+        // Simulate the bulk link: every unbilled transaction gets the statement reference
+        when(billingService.linkAllUnbilledToStatement(eq(1), any(Statement.class))).thenAnswer(invocation -> {
+            Statement stmt = invocation.getArgument(1);
+            purchase1.setStatement(stmt);
+            purchase2.setStatement(stmt);
+            return 2;
         });
 
         // Generate statement (this should link transactions)
@@ -338,8 +322,10 @@ class StatementServiceTest {
         assertNotNull(secondCall);
         assertEquals(result.getId(), secondCall.getId());
         
-        // Verify transactions were saved with statement references
-        verify(txRepo, atLeast(2)).save(any(Transaction.class));
+        // Verify transactions carry the statement reference after the single bulk link
+        verify(billingService, times(1)).linkAllUnbilledToStatement(eq(1), any(Statement.class));
+        assertEquals(result.getId(), purchase1.getStatement().getId());
+        assertEquals(result.getId(), purchase2.getStatement().getId());
     }
 
     @Test
@@ -0,0 +1,86 @@
+package onetoone.chase_systemTest.billing;
+
+import jakarta.persistence.EntityManagerFactory;
+import onetoone.Resource.ResourceRepository;
+import onetoone.Users.User;
+import onetoone.Users.UserRepository;
+import onetoone.billing.AccountBalanceRepository;
+import onetoone.billing.BillingService;
+import onetoone.billing.StatementRepository;
+import onetoone.billing.Transaction;
+import onetoone.billing.TransactionRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pooled-sequence ids plus JDBC batching: a burst of postings is sent as a few batched
+ * statements instead of one INSERT round trip per row.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class TransactionBatchingTest {
+
+    private static final int BURST = 120;
+
+    @Autowired
+    private TestEntityManager em;
+    @Autowired
+    private EntityManagerFactory emf;
+    @Autowired
+    private TransactionRepository txRepo;
+    @Autowired
+    private UserRepository userRepo;
+    @Autowired
+    private ResourceRepository resourceRepo;
+    @Autowired
+    private AccountBalanceRepository balanceRepo;
+    @Autowired
+    private StatementRepository statementRepo;
+
+    private BillingService billingService;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        billingService = new BillingService(txRepo, userRepo, resourceRepo, balanceRepo, statementRepo);
+        user = userRepo.save(new User("Burst", "burst@test.com", "pw"));
+        billingService.reconcileBalance(user.getId());
+        em.flush();
+    }
+
+    @Test
+    void testBurstIsInsertedInJdbcBatches() {
+        List<Transaction> burst = new ArrayList<>();
+        for (int i = 0; i < BURST; i++) {
+            burst.add(new Transaction(user, "Reward " + i, 1.25, "Reward", OffsetDateTime.now(),
+                    Transaction.TransactionType.REWARD));
+        }
+
+        Statistics stats = emf.unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+        List<Transaction> saved = billingService.postTransactions(burst);
+        // Pooled ids are assigned on save, before anything reaches the database
+        assertTrue(saved.stream().allMatch(tx -> tx.getId() != null));
+        em.flush();
+
+        assertEquals(BURST, stats.getEntityInsertCount());
+        // 120 rows: 3 insert batches + 3 sequence calls + the lock and aggregate update, not 120 round trips
+        assertTrue(stats.getPrepareStatementCount() < 15,
+                "prepared statements: " + stats.getPrepareStatementCount());
+        // Rewards reduce the balance; the aggregate was locked once for the whole burst
+        assertEquals(-150.0, balanceRepo.findById(user.getId()).orElseThrow().getBalance(), 0.001);
+    }
+}
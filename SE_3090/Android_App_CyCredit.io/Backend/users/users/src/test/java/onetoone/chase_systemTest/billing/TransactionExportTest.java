@@ -0,0 +1,109 @@
+package onetoone.chase_systemTest.billing;
+
+import onetoone.Resource.ResourceRepository;
+import onetoone.Users.User;
+import onetoone.Users.UserRepository;
+import onetoone.billing.AccountBalanceRepository;
+import onetoone.billing.BillingService;
+import onetoone.billing.Statement;
+import onetoone.billing.StatementRepository;
+import onetoone.billing.Transaction;
+import onetoone.billing.TransactionExportFormat;
+import onetoone.billing.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Streaming ledger export (NDJSON and CSV) against an in-memory H2 database.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+class TransactionExportTest {
+
+    @Autowired
+    private TestEntityManager em;
+    @Autowired
+    private TransactionRepository txRepo;
+    @Autowired
+    private UserRepository userRepo;
+    @Autowired
+    private ResourceRepository resourceRepo;
+    @Autowired
+    private AccountBalanceRepository balanceRepo;
+    @Autowired
+    private StatementRepository statementRepo;
+
+    private BillingService billingService;
+    private User user;
+    private Statement statement;
+
+    @BeforeEach
+    void setUp() {
+        billingService = new BillingService(txRepo, userRepo, resourceRepo, balanceRepo, statementRepo);
+        user = userRepo.save(new User("Exporter", "export@test.com", "pw"));
+        User other = userRepo.save(new User("Other", "other@test.com", "pw"));
+        OffsetDateTime base = OffsetDateTime.of(2025, 10, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+
+        statement = new Statement();
+        statement.setUser(user);
+        statement.setMonthNumber(1);
+        em.persist(statement);
+
+        Transaction billed = new Transaction(user, "Campus Store", 12.3, "Food", base, Transaction.TransactionType.PURCHASE);
+        billed.setStatement(statement);
+        em.persist(billed);
+        em.persist(new Transaction(user, "Joe's \"Best\", Diner", 4.05, "Food", base.plusHours(1),
+                Transaction.TransactionType.PURCHASE));
+        em.persist(new Transaction(user, "Payment", 10.0, "Payment", base.plusHours(2),
+                Transaction.TransactionType.PAYMENT));
+        em.persist(new Transaction(other, "Elsewhere", 5.0, "Food", base, Transaction.TransactionType.PURCHASE));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void testNdjsonWritesOneObjectPerLine() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long count = billingService.exportTransactions(user.getId(), TransactionExportFormat.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, count);
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].startsWith("{\"id\":"), lines[0]);
+        assertTrue(lines[0].contains("\"type\":\"PURCHASE\""), lines[0]);
+        assertTrue(lines[0].contains("\"amount\":12.30"), lines[0]);
+        assertTrue(lines[0].contains("\"statementId\":" + statement.getId() + "}"), lines[0]);
+        assertTrue(lines[1].contains("\"merchant\":\"Joe's \\\"Best\\\", Diner\""), lines[1]);
+        assertTrue(lines[2].contains("\"type\":\"PAYMENT\""), lines[2]);
+        assertTrue(lines[2].endsWith("\"statementId\":null}"), lines[2]);
+    }
+
+    @Test
+    void testCsvHasHeaderAndQuotesSpecialFields() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long count = billingService.exportTransactions(user.getId(), TransactionExportFormat.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(3, count);
+        assertEquals(4, lines.length);
+        assertEquals("id,timestamp,type,amount,merchant,category,statementId", lines[0]);
+        assertTrue(lines[1].endsWith(",PURCHASE,12.30,Campus Store,Food," + statement.getId()), lines[1]);
+        assertTrue(lines[2].contains(",4.05,\"Joe's \"\"Best\"\", Diner\",Food,"), lines[2]);
+        assertTrue(lines[3].endsWith(",PAYMENT,10.00,Payment,Payment,"), lines[3]);
+    }
+
+    @Test
+    void testUnknownFormatIsRejected() {
+        assertEquals(TransactionExportFormat.CSV, TransactionExportFormat.parse("csv"));
+        assertThrows(IllegalArgumentException.class, () -> TransactionExportFormat.parse("xml"));
+    }
+}
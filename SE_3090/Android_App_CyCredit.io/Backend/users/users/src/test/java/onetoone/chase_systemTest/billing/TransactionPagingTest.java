@@ -0,0 +1,125 @@
+package onetoone.chase_systemTest.billing;
+
+import onetoone.Resource.ResourceRepository;
+import onetoone.Users.User;
+import onetoone.Users.UserRepository;
+import onetoone.billing.AccountBalanceRepository;
+import onetoone.billing.BillingService;
+import onetoone.billing.StatementRepository;
+import onetoone.billing.Transaction;
+import onetoone.billing.TransactionPage;
+import onetoone.billing.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Keyset pagination of transaction history against an in-memory H2 database.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+class TransactionPagingTest {
+
+    @Autowired
+    private TestEntityManager em;
+    @Autowired
+    private TransactionRepository txRepo;
+    @Autowired
+    private UserRepository userRepo;
+    @Autowired
+    private ResourceRepository resourceRepo;
+    @Autowired
+    private AccountBalanceRepository balanceRepo;
+    @Autowired
+    private StatementRepository statementRepo;
+
+    private BillingService billingService;
+    private User user;
+    private final OffsetDateTime base = OffsetDateTime.of(2025, 10, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+
+    @BeforeEach
+    void setUp() {
+        billingService = new BillingService(txRepo, userRepo, resourceRepo, balanceRepo, statementRepo);
+        user = userRepo.save(new User("Pager", "pager@test.com", "pw"));
+        User other = userRepo.save(new User("Other", "other@test.com", "pw"));
+
+        // 25 transactions; pairs share a timestamp so the id tiebreak matters
+        for (int i = 0; i < 25; i++) {
+            Transaction.TransactionType type = i % 5 == 0 ? Transaction.TransactionType.PAYMENT
+                    : Transaction.TransactionType.PURCHASE;
+            em.persist(new Transaction(user, "Store " + i, 1.0 + i, i % 2 == 0 ? "Food" : "Fun",
+                    base.plusHours(i / 2), type));
+        }
+        em.persist(new Transaction(other, "Elsewhere", 5.0, "Food", base, Transaction.TransactionType.PURCHASE));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void testPagesCoverHistoryInOrderWithoutDuplicates() {
+        List<Transaction> paged = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            TransactionPage page = billingService.listTransactionsPage(user.getId(), cursor, 10, null, null, null, null);
+            assertTrue(page.getItems().size() <= 10);
+            paged.addAll(page.getItems());
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(3, pages);
+        assertEquals(25, paged.size());
+
+        Set<Long> ids = new HashSet<>();
+        paged.forEach(tx -> ids.add(tx.getId()));
+        assertEquals(25, ids.size());
+
+        Comparator<Transaction> newestFirst = Comparator
+                .comparing((Transaction tx) -> tx.getTimestamp().toInstant())
+                .thenComparing(Transaction::getId)
+                .reversed();
+        List<Transaction> expected = new ArrayList<>(paged);
+        expected.sort(newestFirst);
+        assertEquals(expected, paged);
+    }
+
+    @Test
+    void testFiltersAreAppliedServerSide() {
+        TransactionPage payments = billingService.listTransactionsPage(user.getId(), null, 50,
+                Transaction.TransactionType.PAYMENT, null, null, null);
+        assertEquals(5, payments.getItems().size());
+        assertFalse(payments.hasMore());
+
+        TransactionPage food = billingService.listTransactionsPage(user.getId(), null, 50,
+                null, "Food", null, null);
+        assertEquals(13, food.getItems().size());
+        assertTrue(food.getItems().stream().allMatch(tx -> "Food".equals(tx.getCategory())));
+
+        // [from, to) covers hours 2..4 -> items 4..9
+        TransactionPage range = billingService.listTransactionsPage(user.getId(), null, 50,
+                null, null, base.plusHours(2), base.plusHours(5));
+        assertEquals(6, range.getItems().size());
+    }
+
+    @Test
+    void testLastPageHasNoCursorAndInvalidCursorIsRejected() {
+        TransactionPage all = billingService.listTransactionsPage(user.getId(), null, 25, null, null, null, null);
+        assertEquals(25, all.getItems().size());
+        assertNull(all.getNextCursor());
+
+        assertThrows(IllegalArgumentException.class, () ->
+                billingService.listTransactionsPage(user.getId(), "not-a-cursor", 10, null, null, null, null));
+    }
+}
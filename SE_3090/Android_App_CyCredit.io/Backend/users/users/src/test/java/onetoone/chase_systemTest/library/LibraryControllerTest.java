@@ -4,9 +4,10 @@ import onetoone.Resource.Resource;
 import onetoone.Resource.ResourceRepository;
 import onetoone.Users.User;
 import onetoone.Users.UserRepository;
-import onetoone.achievements.AchievementsController;
 import onetoone.billing.BillingService;
 import onetoone.config.GameConfig;
+import onetoone.events.DomainEventBus;
+import onetoone.events.QuestionMastered;
 import onetoone.game.GameService;
 import onetoone.library.LibraryController;
 import onetoone.library.LibraryQuestion;
@@ -46,7 +47,7 @@ class LibraryControllerTest {
     @Mock
     private GameService gameService;
     @Mock
-    private AchievementsController achievementsController;
+    private DomainEventBus eventBus;
     @Mock
     private GameConfig config;
 
@@ -90,7 +91,6 @@ class LibraryControllerTest {
         when(questionRepo.findById(1L)).thenReturn(Optional.of(testQuestion));
         when(attemptRepo.findByUser_IdAndQuestion_Id(1, 1L)).thenReturn(Optional.empty());
         when(resourceRepo.findByUserId(1)).thenReturn(testResource);
-        when(attemptRepo.findByUser_IdAndIsMasteredTrue(1)).thenReturn(java.util.Collections.emptyList());
 
         Map<String, Object> payload = new HashMap<>();
         payload.put("questionId", 1L);
@@ -108,6 +108,8 @@ class LibraryControllerTest {
         
         verify(resourceRepo).save(any(Resource.class));
         verify(billingService).createTransaction(eq(1), anyString(), anyDouble(), anyString(), any());
+        // Achievement checks are left to the event bus
+        verify(eventBus).publish(new QuestionMastered(1, 1L));
     }
 
     @Test
@@ -132,6 +134,7 @@ class LibraryControllerTest {
         assertTrue((Boolean) body.get("correct"));
         assertFalse((Boolean) body.get("cleared"));
         assertNull(body.get("reward"));
+        verifyNoInteractions(eventBus);
     }
 
     @Test
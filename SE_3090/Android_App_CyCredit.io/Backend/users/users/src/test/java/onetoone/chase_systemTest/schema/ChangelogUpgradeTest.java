@@ -0,0 +1,60 @@
+package onetoone.chase_systemTest.schema;
+
+import liquibase.Contexts;
+import liquibase.Liquibase;
+import liquibase.database.Database;
+import liquibase.database.DatabaseFactory;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.resource.ClassLoaderResourceAccessor;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Upgrading a database that predates the changelog: the baseline changeset is marked as ran, and every
+ * table added since is still created by its own changeset.
+ */
+class ChangelogUpgradeTest {
+
+    @Test
+    void testExistingDatabaseGetsTablesAddedAfterTheBaseline() throws Exception {
+        try (Connection c = DriverManager.getConnection("jdbc:h2:mem:changelog_upgrade;DB_CLOSE_DELAY=-1")) {
+            // The tables Hibernate created before migrations existed, with no changelog history
+            update(c, "db/changelog/changes/001-baseline-schema.sql");
+            assertFalse(tableExists(c, "ACCOUNT_BALANCES"), "001 holds the baseline only");
+            try (Statement s = c.createStatement()) {
+                s.execute("drop table databasechangelog");
+                s.execute("drop table databasechangeloglock");
+            }
+
+            update(c, "db/changelog/db.changelog-master.yaml");
+
+            assertEquals("MARK_RAN", execType(c, "001-baseline-schema-h2"));
+            assertEquals("EXECUTED", execType(c, "007-account-balances-h2"));
+            assertTrue(tableExists(c, "ACCOUNT_BALANCES"));
+        }
+    }
+
+    private static void update(Connection c, String changelog) throws Exception {
+        Database db = DatabaseFactory.getInstance().findCorrectDatabaseImplementation(new JdbcConnection(c));
+        new Liquibase(changelog, new ClassLoaderResourceAccessor(), db).update(new Contexts());
+    }
+
+    private static boolean tableExists(Connection c, String table) throws Exception {
+        try (ResultSet rs = c.getMetaData().getTables(null, null, table, null)) {
+            return rs.next();
+        }
+    }
+
+    private static String execType(Connection c, String id) throws Exception {
+        try (Statement s = c.createStatement();
+             ResultSet rs = s.executeQuery("select exectype from databasechangelog where id = '" + id + "'")) {
+            return rs.next() ? rs.getString(1) : null;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package onetoone.chase_systemTest.schema;
+
+import onetoone.billing.Statement;
+import onetoone.billing.StatementRepository;
+import onetoone.billing.TransactionRepository;
+import onetoone.job.JobRunRepository;
+import onetoone.leaderboard.LeaderboardScoreRepository;
+import onetoone.messaging.chat.ChatMessageRepository;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Types;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that the hot repository queries are served by indexes from the schema changelog.
+ * Each repository method is executed, the SQL Hibernate generated for it is captured by a
+ * StatementInspector, and its H2 EXPLAIN plan is checked: never a table scan, and the
+ * changelog index where H2 picks it.
+ *
+ * When user_id is the only index condition, H2 1.4.200 ties the composite index with the
+ * narrower foreign key index and picks the latter (MySQL drops that implicit index once the
+ * composite exists), so those queries assert an index lookup on user_id instead of a name.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=onetoone.chase_systemTest.schema.QueryPlanTest$SqlCapture"
+})
+class QueryPlanTest {
+
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private TransactionRepository txRepo;
+    @Autowired
+    private StatementRepository statementRepo;
+    @Autowired
+    private ChatMessageRepository chatRepo;
+    @Autowired
+    private JobRunRepository jobRunRepo;
+    @Autowired
+    private LeaderboardScoreRepository leaderboardRepo;
+
+    private static final int NO_USER = 0;
+
+    // The seed is committed outside the test transaction, so load it once per context
+    private static boolean seeded = false;
+
+    private final OffsetDateTime from = OffsetDateTime.now().minusMonths(1);
+    private final OffsetDateTime to = OffsetDateTime.now();
+
+    private String lastPlan;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        if (!seeded) {
+            seedAndAnalyze();
+            seeded = true;
+        }
+        SqlCapture.CAPTURED.clear();
+    }
+
+    /**
+     * Realistic row counts and statistics, so H2 plans by selectivity rather than on empty tables.
+     * Queries below run for a user with no rows; only the plans matter.
+     */
+    private void seedAndAnalyze() throws Exception {
+        try (Connection conn = dataSource.getConnection(); java.sql.Statement st = conn.createStatement()) {
+            st.execute("INSERT INTO user (id, name) SELECT X, 'user' || X FROM SYSTEM_RANGE(1, 50)");
+            st.execute("INSERT INTO statements (user_id, month_number, status, total_due) "
+                    + "SELECT MOD(X, 50) + 1, X / 50, CASE MOD(X, 3) WHEN 0 THEN 'OPEN' WHEN 1 THEN 'PAID' ELSE 'OVERDUE' END, 10.0 "
+                    + "FROM SYSTEM_RANGE(1, 600)");
+            st.execute("INSERT INTO transactions (user_id, amount, transaction_type, timestamp, statement_id) "
+                    + "SELECT MOD(X, 50) + 1, 1.0, 'PURCHASE', DATEADD('MINUTE', -X, CURRENT_TIMESTAMP), "
+                    + "CASE WHEN MOD(X, 4) = 0 THEN NULL ELSE MOD(X, 600) + 1 END FROM SYSTEM_RANGE(1, 5000)");
+            st.execute("INSERT INTO job_runs (user_id, game_type, difficulty, score, passed, run_at) "
+                    + "SELECT MOD(X, 50) + 1, 'typing', 'easy', X, MOD(X, 2) = 0, DATEADD('MINUTE', -X, CURRENT_TIMESTAMP) "
+                    + "FROM SYSTEM_RANGE(1, 2000)");
+            st.execute("INSERT INTO chat_messages (scope, channel, content, created_at) "
+                    + "SELECT CASE WHEN MOD(X, 5) = 0 THEN 'guild' ELSE 'public' END, 'c' || MOD(X, 20), 'hi', CURRENT_TIMESTAMP "
+                    + "FROM SYSTEM_RANGE(1, 2000)");
+            st.execute("INSERT INTO leaderboard_scores (user_id, display_name, score, updated_at) "
+                    + "SELECT 'u' || X, 'user' || X, MOD(X * 7, 1000), CURRENT_TIMESTAMP FROM SYSTEM_RANGE(1, 2000)");
+            st.execute("ANALYZE");
+        }
+    }
+
+    @Test
+    void testTransactionQueriesUseIndexes() throws Exception {
+        txRepo.findByUser_IdOrderByTimestampDesc(NO_USER);
+        assertIndexLookup("USER_ID = ?1");
+
+        txRepo.findPage(NO_USER, to, 1L, null, null, null, null, PageRequest.of(0, 51));
+        assertIndexLookup("USER_ID = ?1");
+
+        txRepo.sumUnbilledByType(NO_USER, from, to);
+        assertPlanUses("IDX_TRANSACTIONS_USER_STATEMENT");
+
+        txRepo.findMonthEndSlice(NO_USER, from, to);
+        assertIndexLookup("USER_ID = ?1");
+
+        txRepo.linkAllUnbilledToStatement(null, NO_USER);
+        assertIndexLookup("STATEMENT_ID IS NULL");
+
+        txRepo.linkUnbilledToStatement(null, NO_USER, from, to);
+        assertIndexLookup("STATEMENT_ID IS NULL");
+    }
+
+    @Test
+    void testStatementQueriesUseIndexes() throws Exception {
+        statementRepo.findFirstByUser_IdAndStatusOrderByMonthNumberDesc(NO_USER, Statement.StatementStatus.OPEN);
+        assertIndexLookup("USER_ID = ?1");
+
+        statementRepo.findByUser_IdOrderByMonthNumberDesc(NO_USER);
+        assertIndexLookup("USER_ID = ?1");
+    }
+
+    @Test
+    void testChatHistoryUsesIndex() throws Exception {
+        chatRepo.recent("public", "global", PageRequest.of(0, 50));
+        assertPlanUses("IDX_CHAT_MESSAGES_SCOPE_CHANNEL_ID");
+
+        chatRepo.before("public", "global", 1000, PageRequest.of(0, 50));
+        assertPlanUses("IDX_CHAT_MESSAGES_SCOPE_CHANNEL_ID");
+
+        chatRepo.after("public", "global", 1000, PageRequest.of(0, 50));
+        assertPlanUses("IDX_CHAT_MESSAGES_SCOPE_CHANNEL_ID");
+    }
+
+    @Test
+    void testJobRunQueriesUseIndexes() throws Exception {
+        jobRunRepo.findByUser_IdOrderByRunAtDesc(NO_USER);
+        assertIndexLookup("USER_ID = ?1");
+
+        jobRunRepo.findByUser_IdAndPassedTrueAndRunAtAfter(NO_USER, from);
+        assertPlanUses("IDX_JOB_RUNS_USER_RUN_AT");
+    }
+
+    @Test
+    void testLeaderboardQueriesUseIndexes() throws Exception {
+        leaderboardRepo.findTop20ByOrderByScoreDescUpdatedAtAsc();
+        assertPlanUses("IDX_LEADERBOARD_SCORES_RANK");
+        assertTrue(lastPlan.contains("index sorted"), "Top-N should read the index in order:\n" + lastPlan);
+
+        leaderboardRepo.findByUserId("none");
+        assertPlanUses("UK_LEADERBOARD_SCORES_USER_ID");
+    }
+
+    /**
+     * The plan must read the table through the named index.
+     */
+    private void assertPlanUses(String index) throws Exception {
+        String plan = explainLastQuery();
+        assertTrue(plan.contains("/* PUBLIC." + index), "Expected index " + index + " in plan:\n" + plan);
+    }
+
+    /**
+     * The plan must look rows up by this index condition (any index; see class comment).
+     */
+    private void assertIndexLookup(String condition) throws Exception {
+        String plan = explainLastQuery();
+        assertTrue(plan.matches("(?s).*/\\* PUBLIC\\.\\w+: [^*]*" + java.util.regex.Pattern.quote(condition) + ".*"),
+                "Expected an index lookup on " + condition + " in plan:\n" + plan);
+    }
+
+    /**
+     * EXPLAIN the last captured statement with sample parameter values. Never a table scan.
+     */
+    private String explainLastQuery() throws Exception {
+        assertFalse(SqlCapture.CAPTURED.isEmpty(), "No SQL captured");
+        String sql = SqlCapture.CAPTURED.get(SqlCapture.CAPTURED.size() - 1);
+        SqlCapture.CAPTURED.clear();
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement("EXPLAIN " + sql)) {
+            ParameterMetaData meta = ps.getParameterMetaData();
+            for (int i = 1; i <= meta.getParameterCount(); i++) {
+                ps.setObject(i, sampleValue(meta.getParameterType(i)));
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                assertTrue(rs.next());
+                lastPlan = rs.getString(1);
+            }
+        }
+        assertFalse(lastPlan.contains("tableScan"), "Unexpected table scan in plan:\n" + lastPlan);
+        return lastPlan;
+    }
+
+    /**
+     * Any non-NULL value of the parameter's type (a NULL comparison is not planned as an index condition).
+     */
+    private static Object sampleValue(int sqlType) {
+        switch (sqlType) {
+            case Types.TINYINT: case Types.SMALLINT: case Types.INTEGER: case Types.BIGINT:
+                return 1;
+            case Types.DOUBLE: case Types.FLOAT: case Types.REAL: case Types.DECIMAL: case Types.NUMERIC:
+                return 1.0;
+            case Types.BOOLEAN: case Types.BIT:
+                return true;
+            case Types.DATE:
+                return java.sql.Date.valueOf("2024-01-01");
+            case Types.TIMESTAMP: case Types.TIMESTAMP_WITH_TIMEZONE:
+                return OffsetDateTime.parse("2024-01-01T00:00:00Z");
+            default:
+                return "1";
+        }
+    }
+
+    /**
+     * Records every SQL statement Hibernate prepares.
+     */
+    public static class SqlCapture implements StatementInspector {
+        static final List<String> CAPTURED = new ArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            CAPTURED.add(sql);
+            return sql;
+        }
+    }
+}
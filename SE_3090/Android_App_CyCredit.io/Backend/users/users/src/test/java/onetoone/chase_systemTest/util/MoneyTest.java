@@ -0,0 +1,89 @@
+package onetoone.chase_systemTest.util;
+
+import onetoone.util.Money;
+import onetoone.util.MoneyCentsConverter;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the fixed-point cents Money implementation.
+ * Results must match the previous BigDecimal (scale 2, HALF_UP) implementation exactly.
+ */
+class MoneyTest {
+
+    @Test
+    void testRound2_HalfUpOnDecimalValue() {
+        // Decimal ties round away from zero even when the double is slightly below the tie
+        assertEquals(1.01, Money.round2(1.005));
+        assertEquals(2.68, Money.round2(2.675));
+        assertEquals(-1.01, Money.round2(-1.005));
+        assertEquals(0.13, Money.round2(0.125));
+        assertEquals(10.0, Money.round2(9.999));
+    }
+
+    @Test
+    void testCents_RoundTrip() {
+        assertEquals(5025L, Money.toCents(50.25));
+        assertEquals(1999L, Money.toCents(19.99));
+        assertEquals(-3000L, Money.toCents(-30.0));
+        assertEquals(19.99, Money.fromCents(1999L));
+        assertEquals(101L, Money.toCents(1.005));
+    }
+
+    @Test
+    void testAddSubtract_NoFloatingPointDrift() {
+        assertEquals(0.3, Money.add(0.1, 0.2));
+        assertEquals(0.1, Money.subtract(0.3, 0.2));
+
+        double total = 0.0;
+        for (int i = 0; i < 1000; i++) {
+            total = Money.add(total, 0.01);
+        }
+        assertEquals(10.0, total);
+    }
+
+    @Test
+    void testMultiplyDivideCents() {
+        // $1,000 at 19.99% APR / 12 -> $16.66
+        assertEquals(1666L, Money.multiplyCents(100_000L, 0.1999 / 12.0));
+        assertEquals(3333L, Money.divideCents(10_000L, 3.0));
+        assertThrows(IllegalArgumentException.class, () -> Money.divideCents(100L, 0.0));
+        assertThrows(IllegalArgumentException.class, () -> Money.divide(1.0, 0.0));
+    }
+
+    @Test
+    void testMatchesBigDecimalImplementation() {
+        Random random = new Random(309);
+        for (int i = 0; i < 20_000; i++) {
+            double a = random.nextInt(2_000_000) / 1000.0 - 1000.0; // 3 decimals exercises ties
+            double b = random.nextInt(200_000) / 100.0;
+            double m = random.nextInt(10_000) / 10_000.0;
+
+            assertEquals(bigDecimalRound2(BigDecimal.valueOf(a)), Money.round2(a), "round2 " + a);
+            assertEquals(bigDecimalRound2(BigDecimal.valueOf(a).add(BigDecimal.valueOf(b))), Money.add(a, b),
+                    "add " + a + " + " + b);
+            assertEquals(bigDecimalRound2(BigDecimal.valueOf(a).subtract(BigDecimal.valueOf(b))), Money.subtract(a, b),
+                    "subtract " + a + " - " + b);
+            assertEquals(bigDecimalRound2(BigDecimal.valueOf(b).multiply(BigDecimal.valueOf(m))), Money.multiply(b, m),
+                    "multiply " + b + " * " + m);
+        }
+    }
+
+    @Test
+    void testCentsConverter() {
+        MoneyCentsConverter converter = new MoneyCentsConverter();
+        assertEquals(50.25, converter.convertToDatabaseColumn(5025L));
+        assertEquals(5025L, converter.convertToEntityAttribute(50.25));
+        assertEquals(0L, converter.convertToEntityAttribute(null));
+        assertNull(converter.convertToDatabaseColumn(null));
+    }
+
+    private static double bigDecimalRound2(BigDecimal value) {
+        return value.setScale(2, RoundingMode.HALF_UP).doubleValue();
+    }
+}
@@ -1,12 +1,12 @@
 package onetoone.chase_systemTest.wellness;
 
-import onetoone.Resource.Resource;
-import onetoone.Resource.ResourceRepository;
 import onetoone.Users.User;
 import onetoone.Users.UserRepository;
-import onetoone.achievements.AchievementsController;
 import onetoone.billing.BillingService;
 import onetoone.config.GameConfig;
+import onetoone.events.ChallengeClaimed;
+import onetoone.events.ChallengeCompleted;
+import onetoone.events.DomainEventBus;
 import onetoone.game.GameService;
 import onetoone.util.ApiError;
 import onetoone.wellness.ChallengeEnrollment;
@@ -40,13 +40,11 @@ class WellnessControllerTest {
     @Mock
     private UserRepository userRepo;
     @Mock
-    private ResourceRepository resourceRepo;
-    @Mock
     private BillingService billingService;
     @Mock
     private GameService gameService;
     @Mock
-    private AchievementsController achievementsController;
+    private DomainEventBus eventBus;
     @Mock
     private GameConfig config;
 
@@ -54,7 +52,6 @@ class WellnessControllerTest {
     private WellnessController wellnessController;
 
     private User testUser;
-    private Resource testResource;
     private WellnessChallenge testChallenge;
     private ChallengeEnrollment testEnrollment;
 
@@ -68,11 +65,6 @@ class WellnessControllerTest {
         testUser.setId(1);
         testUser.setName("Test User");
 
-        testResource = new Resource();
-        testResource.setId(1);
-        testResource.setUser(testUser);
-        testResource.setMoney(1000.0);
-
         testChallenge = new WellnessChallenge();
         testChallenge.setId(1L);
         testChallenge.setTitle("Weekly Challenge");
@@ -105,6 +97,22 @@ class WellnessControllerTest {
         verify(enrollmentRepo).save(any(ChallengeEnrollment.class));
     }
 
+    @Test
+    void testSubmitProgress_ReachingTarget_PublishesCompletion() {
+        testEnrollment.setProgressCount(2);
+        when(enrollmentRepo.findById(1L)).thenReturn(Optional.of(testEnrollment));
+
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("passed", true);
+
+        ResponseEntity<?> response = wellnessController.submitProgress(1L, 1, payload);
+
+        Map<String, Object> body = (Map<String, Object>) response.getBody();
+        assertEquals("COMPLETED", body.get("status"));
+        // FIRST_WEEK is unlocked by the achievement subscriber, not on the request
+        verify(eventBus).publish(new ChallengeCompleted(1, 1L, 1L));
+    }
+
     @Test
     void testSubmitProgress_Fail_NoIncrement() {
         when(enrollmentRepo.findById(1L)).thenReturn(Optional.of(testEnrollment));
@@ -126,7 +134,7 @@ class WellnessControllerTest {
         testEnrollment.setStatus("COMPLETED");
         
         when(enrollmentRepo.findById(1L)).thenReturn(Optional.of(testEnrollment));
-        when(resourceRepo.findByUserId(1)).thenReturn(testResource);
+        when(gameService.addMoney(1, 15.0)).thenReturn(true);
 
         ResponseEntity<?> response = wellnessController.claimReward(1L, 1);
 
@@ -136,8 +144,9 @@ class WellnessControllerTest {
         assertEquals(15.0, body.get("rewardCash"));
         assertEquals("Wellness Champion", body.get("badge"));
         
-        verify(resourceRepo).save(any(Resource.class));
+        verify(gameService).addMoney(1, 15.0);
         verify(billingService).createTransaction(eq(1), anyString(), anyDouble(), anyString(), any());
+        verify(eventBus).publish(new ChallengeClaimed(1, 1L, 1L, 15.0));
     }
 
     @Test
@@ -156,7 +165,8 @@ class WellnessControllerTest {
         assertEquals(15.0, body.get("rewardCash"));
         
         // Should not grant rewards again
-        verify(resourceRepo, never()).save(any(Resource.class));
+        verify(gameService, never()).addMoney(anyInt(), anyDouble());
+        verifyNoInteractions(eventBus);
     }
 
     @Test
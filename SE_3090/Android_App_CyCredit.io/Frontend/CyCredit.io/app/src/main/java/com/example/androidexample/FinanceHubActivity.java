@@ -17,7 +17,6 @@ import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
 
 import com.android.volley.Request;
 import com.android.volley.RequestQueue;
-import com.android.volley.toolbox.JsonArrayRequest;
 import com.android.volley.toolbox.JsonObjectRequest;
 import com.android.volley.toolbox.Volley;
 
@@ -48,6 +47,7 @@ public class FinanceHubActivity extends AppCompatActivity {
     private static final String KEY_PENDING_TOTAL_DUE = "pending_total_due_";
     private static final String KEY_PENDING_MIN_DUE = "pending_min_due_";
     private static final String KEY_PENDING_MONTH = "pending_month_";
+    private static final int TRANSACTION_PAGE_SIZE = 50;
 
     private TextView balanceText, monthlySpendText, creditLimitText;
     private RecyclerView txRecycler;
@@ -714,13 +714,15 @@ public class FinanceHubActivity extends AppCompatActivity {
     }
 
     private void loadTransactions() {
-        String url = BASE_URL + "/billing/transactions?userId=" + userId;
-        JsonArrayRequest req = new JsonArrayRequest(
+        // Most recent page only; the response size no longer grows with history length
+        String url = BASE_URL + "/billing/transactions/page?userId=" + userId + "&limit=" + TRANSACTION_PAGE_SIZE;
+        JsonObjectRequest req = new JsonObjectRequest(
                 Request.Method.GET,
                 url,
                 null,
-                response -> {
+                page -> {
                     try {
+                        JSONArray response = page.getJSONArray("items");
                         transactions.clear();
                         for (int i = 0; i < response.length(); i++) {
                             JSONObject o = response.getJSONObject(i);
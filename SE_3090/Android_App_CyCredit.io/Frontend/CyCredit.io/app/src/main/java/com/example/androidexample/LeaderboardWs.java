@@ -3,10 +3,14 @@ package cycredit.io;
 import android.util.Log;
 
 import org.json.JSONArray;
+import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
@@ -31,6 +35,10 @@ public class LeaderboardWs {
 
     private WebSocket socket;
 
+    // Board as of `version`, keyed by userId (touched only on OkHttp's reader thread)
+    private final Map<String, LeaderboardEntry> rows = new LinkedHashMap<>();
+    private long version = -1;
+
     public LeaderboardWs(String url, Listener listener) {
         this.url = url;
         this.listener = listener;
@@ -50,19 +58,38 @@ public class LeaderboardWs {
             @Override
             public void onMessage(WebSocket webSocket, String text) {
                 try {
-                    // Backend sends a JSON array: [ { rank, userId, displayName, score, updatedAt }, ... ]
-                    JSONArray arr = new JSONArray(text);
-                    List<LeaderboardEntry> list = new ArrayList<>();
-                    for (int i = 0; i < arr.length(); i++) {
-                        JSONObject o = arr.getJSONObject(i);
-                        LeaderboardEntry e = new LeaderboardEntry();
-                        e.rank        = o.optInt("rank", i + 1);
-                        e.userId      = o.optString("userId", null);
-                        e.displayName = o.optString("displayName", null);
-                        e.score       = o.optInt("score", 0);
-                        e.updatedAt   = o.optString("updatedAt", null);
-                        list.add(e);
+                    // Backend sends {"type":"snapshot","version",rows:[..]} on connect, then
+                    // {"type":"delta","version","baseVersion",rows:[changed],removed:[userIds]} per tick.
+                    // Row: { rank, userId, displayName, score, updatedAt }
+                    JSONObject msg = new JSONObject(text);
+                    String type = msg.optString("type");
+                    long msgVersion = msg.optLong("version", -1);
+                    if ("snapshot".equals(type)) {
+                        rows.clear();
+                        putRows(msg.optJSONArray("rows"));
+                    } else if ("delta".equals(type)) {
+                        if (msgVersion <= version) {
+                            return; // already covered by a snapshot
+                        }
+                        if (msg.optLong("baseVersion", -1) != version) {
+                            // Missed an update: ask for a fresh snapshot
+                            webSocket.send("{\"type\":\"resync\"}");
+                            return;
+                        }
+                        JSONArray removed = msg.optJSONArray("removed");
+                        if (removed != null) {
+                            for (int i = 0; i < removed.length(); i++) {
+                                rows.remove(removed.getString(i));
+                            }
+                        }
+                        putRows(msg.optJSONArray("rows"));
+                    } else {
+                        return;
                     }
+                    version = msgVersion;
+
+                    List<LeaderboardEntry> list = new ArrayList<>(rows.values());
+                    Collections.sort(list, (a, b) -> Integer.compare(a.rank, b.rank));
                     if (listener != null) listener.onLeaderboardUpdate(list);
                 } catch (Exception ex) {
                     Log.e(TAG, "parse error", ex);
@@ -83,6 +110,20 @@ public class LeaderboardWs {
         });
     }
 
+    private void putRows(JSONArray arr) throws JSONException {
+        if (arr == null) return;
+        for (int i = 0; i < arr.length(); i++) {
+            JSONObject o = arr.getJSONObject(i);
+            LeaderboardEntry e = new LeaderboardEntry();
+            e.rank        = o.optInt("rank", i + 1);
+            e.userId      = o.optString("userId", null);
+            e.displayName = o.optString("displayName", null);
+            e.score       = o.optInt("score", 0);
+            e.updatedAt   = o.optString("updatedAt", null);
+            rows.put(e.userId, e);
+        }
+    }
+
     public void close() {
         if (socket != null) {
             try {
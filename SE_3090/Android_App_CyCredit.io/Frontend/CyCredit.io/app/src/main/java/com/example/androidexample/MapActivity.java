@@ -367,15 +367,42 @@ public class MapActivity extends AppCompatActivity {
     private void endMonth() {
         Log.d("MapActivity", "=== ENDING MONTH ===");
         
-        // Step 1: Fetch fresh transactions to compute THIS month's totals
-        String txUrl = ApiClient.BASE_URL + "/billing/transactions?userId=" + userId;
+        // Step 1: Fetch only THIS month's transactions (server-side date filter, paged)
+        long monthStartTime = getMonthStartTime();
+        long windowStart = monthStartTime > 0
+                ? monthStartTime
+                : System.currentTimeMillis() - (7 * 24 * 60 * 60 * 1000L); // Same fallback as computeMonthlyTotals
+        SimpleDateFormat isoFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", Locale.US);
+        isoFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+        fetchMonthTransactions(isoFormat.format(new Date(windowStart)), null, new JSONArray());
+    }
+
+    /**
+     * Follow /billing/transactions/page cursors until the month window is fully loaded,
+     * then compute totals and end the month.
+     */
+    private void fetchMonthTransactions(String fromIso, String cursor, JSONArray collected) {
+        String txUrl = ApiClient.BASE_URL + "/billing/transactions/page?userId=" + userId
+                + "&limit=200&from=" + fromIso + (cursor != null ? "&cursor=" + cursor : "");
         Log.d("MapActivity", "Fetching transactions from: " + txUrl);
         
-        JsonArrayRequest txReq = new JsonArrayRequest(
+        JsonObjectRequest txReq = new JsonObjectRequest(
                 Request.Method.GET, txUrl, null,
-                transactions -> {
+                page -> {
+                    JSONArray items = page.optJSONArray("items");
+                    if (items != null) {
+                        for (int i = 0; i < items.length(); i++) {
+                            collected.put(items.opt(i));
+                        }
+                    }
+                    String nextCursor = page.isNull("nextCursor") ? null : page.optString("nextCursor", null);
+                    if (nextCursor != null) {
+                        fetchMonthTransactions(fromIso, nextCursor, collected);
+                        return;
+                    }
+                    
                     Log.d("MapActivity", "=== TRANSACTIONS RESPONSE ===");
-                    Log.d("MapActivity", "Total transactions fetched: " + transactions.length());
+                    Log.d("MapActivity", "Total transactions fetched: " + collected.length());
                     
                     // Get month start time for filtering
                     long monthStartTime = getMonthStartTime();
@@ -383,7 +410,7 @@ public class MapActivity extends AppCompatActivity {
                         (monthStartTime > 0 ? new Date(monthStartTime).toString() : "not set - using all") + ")");
                     
                     // Compute totals from filtered transactions
-                    double[] totals = computeMonthlyTotals(transactions, monthStartTime);
+                    double[] totals = computeMonthlyTotals(collected, monthStartTime);
                     double totalSpent = totals[0];
                     double totalPaid = totals[1];
                     int txCount = (int) totals[2];